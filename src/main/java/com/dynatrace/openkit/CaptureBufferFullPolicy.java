@@ -0,0 +1,45 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit;
+
+/**
+ * Specifies what happens if an event is reported while the buffer of the asynchronous capture pipeline is full.
+ *
+ * <p>
+ * See {@link DynatraceOpenKitBuilder#withAsyncCapture(int, CaptureBufferFullPolicy)}.
+ * </p>
+ */
+public enum CaptureBufferFullPolicy {
+    /**
+     * Events which do not fit into the buffer are dropped.
+     */
+    DROP,
+    /**
+     * The reporting thread waits until the buffer has space for the event.
+     */
+    BLOCK,
+    /**
+     * Once the buffer is more than half full, only a sample of the reported events is captured,
+     * events which do not fit into the buffer are dropped.
+     */
+    SAMPLE;
+
+    public static CaptureBufferFullPolicy defaultValue() {
+        return DROP;
+    }
+}
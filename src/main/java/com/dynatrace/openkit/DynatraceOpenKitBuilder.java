@@ -22,12 +22,14 @@ import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.OpenKitConstants;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
 import com.dynatrace.openkit.core.configuration.ConfigurationDefaults;
 import com.dynatrace.openkit.core.objects.OpenKitImpl;
 import com.dynatrace.openkit.core.objects.OpenKitInitializerImpl;
 import com.dynatrace.openkit.core.util.DefaultLogger;
 import com.dynatrace.openkit.core.util.StringUtil;
+import com.dynatrace.openkit.protocol.RetryPolicy;
 import com.dynatrace.openkit.protocol.http.NullHttpRequestInterceptor;
 import com.dynatrace.openkit.protocol.http.NullHttpResponseInterceptor;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
@@ -66,6 +68,18 @@ public class DynatraceOpenKitBuilder {
     private DataCollectionLevel dataCollectionLevel = ConfigurationDefaults.DEFAULT_DATA_COLLECTION_LEVEL;
     private CrashReportingLevel crashReportLevel = ConfigurationDefaults.DEFAULT_CRASH_REPORTING_LEVEL;
     private HttpRequestInterceptor httpRequestInterceptor = NullHttpRequestInterceptor.INSTANCE;
+    private HttpTransport httpTransport = null;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private boolean newSessionRequestCoalescing = ConfigurationDefaults.DEFAULT_NEW_SESSION_REQUEST_COALESCING;
+    private int beaconSendingParallelism = ConfigurationDefaults.DEFAULT_BEACON_SENDING_PARALLELISM;
+    private double earlyBeaconSendThreshold = ConfigurationDefaults.DEFAULT_EARLY_BEACON_SEND_THRESHOLD;
+    private int maxSessionsSentPerInterval = ConfigurationDefaults.DEFAULT_MAX_SESSIONS_SENT_PER_INTERVAL;
+    private long maxBytesSentPerInterval = ConfigurationDefaults.DEFAULT_MAX_BYTES_SENT_PER_INTERVAL;
+    private long shutdownFlushTimeoutInMilliseconds = ConfigurationDefaults.DEFAULT_SHUTDOWN_FLUSH_TIMEOUT_IN_MILLIS;
+    private boolean lightweightSessions = ConfigurationDefaults.DEFAULT_LIGHTWEIGHT_SESSIONS;
+    private long eventDeduplicationWindowInMilliseconds = ConfigurationDefaults.DEFAULT_EVENT_DEDUPLICATION_WINDOW_IN_MILLIS;
+    private int captureBufferCapacity = ConfigurationDefaults.DEFAULT_CAPTURE_BUFFER_CAPACITY;
+    private CaptureBufferFullPolicy captureBufferFullPolicy = ConfigurationDefaults.DEFAULT_CAPTURE_BUFFER_FULL_POLICY;
     private HttpResponseInterceptor httpResponseInterceptor = NullHttpResponseInterceptor.INSTANCE;
 
     private final String applicationID;
@@ -284,6 +298,236 @@ public class DynatraceOpenKitBuilder {
         return this;
     }
 
+    /**
+     * Sets a custom {@link HttpTransport} used for sending requests to Dynatrace backends.
+     *
+     * <p>
+     *     If {@code null} is given, the builtin {@link java.net.HttpURLConnection} based transport is used.
+     * </p>
+     *
+     * @param httpTransport Transport for sending requests to Dynatrace backends.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withHttpTransport(HttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+
+        return this;
+    }
+
+    /**
+     * Sets the {@link RetryPolicy} used for retrying failed requests to Dynatrace backends.
+     *
+     * <p>
+     *     The retry policy also defines when requests to an unreachable endpoint are short-circuited.
+     *     If {@code null} is given, {@link RetryPolicy#DEFAULT} is used.
+     * </p>
+     *
+     * @param retryPolicy Policy for retrying failed requests.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy == null ? RetryPolicy.DEFAULT : retryPolicy;
+
+        return this;
+    }
+
+    /**
+     * Enables or disables coalescing of new session requests.
+     *
+     * <p>
+     *     By default one new session request is sent for each new session. If coalescing is enabled,
+     *     a single new session request is sent for all sessions created since the last request and the received
+     *     configuration is applied to all of them. This reduces the number of requests if many sessions are
+     *     created in a short time, but all these sessions share the multiplicity assigned by the server.
+     * </p>
+     *
+     * @param enabled {@code true} to send a single new session request for all new sessions.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withNewSessionRequestCoalescing(boolean enabled) {
+        this.newSessionRequestCoalescing = enabled;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of sessions whose beacons are sent concurrently.
+     *
+     * <p>
+     * By default beacons are sent one after another by the beacon sending thread.
+     * A value greater than one sends the beacons of independent sessions through a bounded pool of worker threads.
+     * As soon as the server responds with {@code 429 Too Many Requests} all sending is stopped.
+     * </p>
+     *
+     * <p>
+     * Values less than one are ignored.
+     * </p>
+     *
+     * @param parallelism The maximum number of beacons sent concurrently.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withBeaconSendingParallelism(int parallelism) {
+        if (parallelism > 0) {
+            this.beaconSendingParallelism = parallelism;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the fraction of the server's beacon size, above which an open session is sent early.
+     *
+     * <p>
+     * By default open sessions are only sent when the send interval, configured by the server, has expired.
+     * A busy session might therefore accumulate data many times the beacon size, which is then sent in a burst.
+     * When a threshold greater than zero is set, any open session whose pending data exceeds
+     * {@code beaconSizeFraction} times the beacon size is sent without waiting for the send interval.
+     * </p>
+     *
+     * <p>
+     * A value of zero disables early sending, negative values are ignored.
+     * </p>
+     *
+     * @param beaconSizeFraction Fraction of the beacon size (e.g. {@code 0.8} for 80 percent).
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withEarlyBeaconSendThreshold(double beaconSizeFraction) {
+        if (beaconSizeFraction >= 0.0) {
+            this.earlyBeaconSendThreshold = beaconSizeFraction;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the budget for sending open sessions per send interval.
+     *
+     * <p>
+     * By default all open sessions are sent when the send interval expired. With a budget, only as many sessions
+     * as fit into the budget are sent, preferring sessions which have been waiting longest and have most data.
+     * Sessions exceeding the budget are sent first in the next send interval.
+     * At least one session is sent per send interval, even if its data exceeds {@code maxBytes} on its own.
+     * </p>
+     *
+     * <p>
+     * A value of zero means unlimited, negative values are ignored.
+     * </p>
+     *
+     * @param maxSessions The maximum number of open sessions sent per send interval.
+     * @param maxBytes The maximum number of bytes sent for open sessions per send interval.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withBeaconSendBudget(int maxSessions, long maxBytes) {
+        if (maxSessions >= 0) {
+            this.maxSessionsSentPerInterval = maxSessions;
+        }
+        if (maxBytes >= 0) {
+            this.maxBytesSentPerInterval = maxBytes;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the total time budget for flushing all sessions when OpenKit is shut down.
+     *
+     * <p>
+     * With a time budget, sessions which captured crashes or errors are flushed first, and sessions
+     * are flushed in parallel if {@link #withBeaconSendingParallelism(int)} is configured.
+     * Sessions which could not be flushed within the budget are dropped. Shutting down OpenKit
+     * does not block longer than the given budget.
+     * </p>
+     *
+     * <p>
+     * A value of zero means no time budget, negative values are ignored.
+     * </p>
+     *
+     * @param shutdownFlushTimeoutInMilliseconds The time budget for flushing sessions in milliseconds.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withShutdownFlushTimeout(long shutdownFlushTimeoutInMilliseconds) {
+        if (shutdownFlushTimeoutInMilliseconds >= 0) {
+            this.shutdownFlushTimeoutInMilliseconds = shutdownFlushTimeoutInMilliseconds;
+        }
+
+        return this;
+    }
+
+    /**
+     * Enables or disables lightweight sessions.
+     *
+     * <p>
+     * Lightweight sessions are intended for server side usage, where a short session is created for each
+     * inbound request. Instead of sending a new session request, each lightweight session takes over the server
+     * configuration last received by OpenKit, and sessions are not registered for splitting by idle timeout or
+     * maximum session duration. Session splitting by number of events and after crashes is still performed.
+     * </p>
+     *
+     * @param enabled {@code true} to create lightweight sessions.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withLightweightSessions(boolean enabled) {
+        this.lightweightSessions = enabled;
+
+        return this;
+    }
+
+    /**
+     * Sets the time window in milliseconds, in which identical errors and events of a session are deduplicated.
+     *
+     * <p>
+     * The first occurrence of an error or event is reported immediately. Identical errors or events reported
+     * on the same action within the window are only counted, and their number of occurrences is reported as
+     * a single value named {@code <name>.occurrences} once the window closed. This protects against error storms,
+     * e.g. when a failing dependency causes the same error to be reported thousands of times per second.
+     * </p>
+     *
+     * <p>
+     * A value of zero disables deduplication, negative values are ignored.
+     * </p>
+     *
+     * @param eventDeduplicationWindowInMilliseconds The deduplication window in milliseconds.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withEventDeduplicationWindow(long eventDeduplicationWindowInMilliseconds) {
+        if (eventDeduplicationWindowInMilliseconds >= 0) {
+            this.eventDeduplicationWindowInMilliseconds = eventDeduplicationWindowInMilliseconds;
+        }
+
+        return this;
+    }
+
+    /**
+     * Enables asynchronous capturing of values and named events.
+     *
+     * <p>
+     * By default values and events are serialized and stored in the beacon cache on the reporting thread.
+     * With asynchronous capturing, the reporting thread only writes a small event descriptor into a ring buffer
+     * holding {@code bufferCapacity} events, and a dedicated thread serializes the events. Actions, errors, crashes
+     * and web requests are still serialized on the reporting thread.
+     * </p>
+     *
+     * <p>
+     * The capacity is rounded up to the next power of two. A value of zero disables asynchronous capturing,
+     * negative values are ignored. If {@code bufferFullPolicy} is {@code null}, {@link CaptureBufferFullPolicy#DROP}
+     * is used.
+     * </p>
+     *
+     * @param bufferCapacity The number of events the capture buffer can hold.
+     * @param bufferFullPolicy The policy applied if the capture buffer is full.
+     * @return {@code this}
+     */
+    public DynatraceOpenKitBuilder withAsyncCapture(int bufferCapacity, CaptureBufferFullPolicy bufferFullPolicy) {
+        if (bufferCapacity >= 0) {
+            this.captureBufferCapacity = bufferCapacity;
+        }
+        this.captureBufferFullPolicy = bufferFullPolicy == null
+                ? CaptureBufferFullPolicy.defaultValue()
+                : bufferFullPolicy;
+
+        return this;
+    }
+
     /**
      * Builds a new {@code OpenKit} instance
      *
@@ -494,6 +738,130 @@ public class DynatraceOpenKitBuilder {
         return httpResponseInterceptor;
     }
 
+    /**
+     * Get {@link HttpTransport} that has been set with {@link #withHttpTransport(HttpTransport)}.
+     *
+     * @return Previously set HTTP transport or {@code null} if the builtin transport shall be used.
+     */
+    public HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Get {@link RetryPolicy} that has been set with {@link #withRetryPolicy(RetryPolicy)}.
+     *
+     * @return Previously set retry policy or {@link RetryPolicy#DEFAULT} if nothing has been set.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Get whether new session requests are coalesced, as set with {@link #withNewSessionRequestCoalescing(boolean)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_NEW_SESSION_REQUEST_COALESCING}
+     *         if nothing has been set.
+     */
+    public boolean isNewSessionRequestCoalescingEnabled() {
+        return newSessionRequestCoalescing;
+    }
+
+    /**
+     * Get the maximum number of beacons sent concurrently, as set with {@link #withBeaconSendingParallelism(int)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_BEACON_SENDING_PARALLELISM}
+     *         if nothing has been set.
+     */
+    public int getBeaconSendingParallelism() {
+        return beaconSendingParallelism;
+    }
+
+    /**
+     * Get the fraction of the beacon size above which open sessions are sent early,
+     * as set with {@link #withEarlyBeaconSendThreshold(double)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_EARLY_BEACON_SEND_THRESHOLD}
+     *         if nothing has been set.
+     */
+    public double getEarlyBeaconSendThreshold() {
+        return earlyBeaconSendThreshold;
+    }
+
+    /**
+     * Get the maximum number of open sessions sent per send interval, as set with
+     * {@link #withBeaconSendBudget(int, long)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_MAX_SESSIONS_SENT_PER_INTERVAL}
+     *         if nothing has been set.
+     */
+    public int getMaxSessionsSentPerInterval() {
+        return maxSessionsSentPerInterval;
+    }
+
+    /**
+     * Get the maximum number of bytes sent for open sessions per send interval, as set with
+     * {@link #withBeaconSendBudget(int, long)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_MAX_BYTES_SENT_PER_INTERVAL}
+     *         if nothing has been set.
+     */
+    public long getMaxBytesSentPerInterval() {
+        return maxBytesSentPerInterval;
+    }
+
+    /**
+     * Get the time budget for flushing all sessions on shutdown, as set with {@link #withShutdownFlushTimeout(long)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_SHUTDOWN_FLUSH_TIMEOUT_IN_MILLIS}
+     *         if nothing has been set.
+     */
+    public long getShutdownFlushTimeoutInMilliseconds() {
+        return shutdownFlushTimeoutInMilliseconds;
+    }
+
+    /**
+     * Get whether lightweight sessions are created, as set with {@link #withLightweightSessions(boolean)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_LIGHTWEIGHT_SESSIONS}
+     *         if nothing has been set.
+     */
+    public boolean isLightweightSessionsEnabled() {
+        return lightweightSessions;
+    }
+
+    /**
+     * Get the time window in which identical errors and events are deduplicated,
+     * as set with {@link #withEventDeduplicationWindow(long)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_EVENT_DEDUPLICATION_WINDOW_IN_MILLIS}
+     *         if nothing has been set.
+     */
+    public long getEventDeduplicationWindowInMilliseconds() {
+        return eventDeduplicationWindowInMilliseconds;
+    }
+
+    /**
+     * Get the number of events the asynchronous capture buffer can hold,
+     * as set with {@link #withAsyncCapture(int, CaptureBufferFullPolicy)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_CAPTURE_BUFFER_CAPACITY}
+     *         if nothing has been set.
+     */
+    public int getCaptureBufferCapacity() {
+        return captureBufferCapacity;
+    }
+
+    /**
+     * Get the policy applied if the asynchronous capture buffer is full,
+     * as set with {@link #withAsyncCapture(int, CaptureBufferFullPolicy)}.
+     *
+     * @return Previously set value or {@link ConfigurationDefaults#DEFAULT_CAPTURE_BUFFER_FULL_POLICY}
+     *         if nothing has been set.
+     */
+    public CaptureBufferFullPolicy getCaptureBufferFullPolicy() {
+        return captureBufferFullPolicy;
+    }
+
     /**
      * Get {@link Logger} that has been set with {@link #withLogger(Logger)}.
      *
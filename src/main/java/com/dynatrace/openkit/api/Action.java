@@ -18,6 +18,7 @@ package com.dynatrace.openkit.api;
 
 import java.io.Closeable;
 import java.net.URLConnection;
+import java.util.Map;
 
 /**
  * This interface provides functionality to create (child) Actions, report events/values/errors and tracing web requests.
@@ -89,6 +90,48 @@ public interface Action extends Closeable {
      */
     Action reportValue(String valueName, String value);
 
+    /**
+     * Reports multiple numeric values at once.
+     *
+     * <p>
+     *     Values of type {@link Byte}, {@link Short}, {@link Integer} and {@link Long} are reported like
+     *     {@link #reportValue(String, long)}, all other numbers are reported like {@link #reportValue(String, double)}.
+     *     Reporting multiple values at once is cheaper than reporting each value separately,
+     *     since all values are serialized and captured together.
+     * </p>
+     *
+     * <p>
+     *     If given {@code values} is {@code null} or empty then no event is reported to the system.
+     *     Entries having a {@code null} or empty name, or a {@code null} value are skipped.
+     * </p>
+     *
+     * @param values names and values to report
+     * @return this Action (for usage as fluent API)
+     */
+    Action reportValues(Map<String, ? extends Number> values);
+
+    /**
+     * Reports a {@code double} value with a specified name, which is aggregated on the client side.
+     *
+     * <p>
+     *     Instead of reporting each value separately, the count, sum, minimum and maximum of all values
+     *     reported with the same name are accumulated, and reported once when this Action is left.
+     *     The aggregate is reported as values named {@code <valueName>.count}, {@code <valueName>.sum},
+     *     {@code <valueName>.min} and {@code <valueName>.max}.
+     *     This is meant for values reported at a high rate, e.g. within a loop.
+     * </p>
+     *
+     * <p>
+     *     If given {@code valueName} is {@code null} or an empty String then no event is reported to the system.
+     *     If this Action is canceled, the aggregated values are discarded.
+     * </p>
+     *
+     * @param valueName name of this value
+     * @param value     value itself
+     * @return this Action (for usage as fluent API)
+     */
+    Action reportAggregatedValue(String valueName, double value);
+
     /**
      * Reports an error with a specified name and error code.
      *
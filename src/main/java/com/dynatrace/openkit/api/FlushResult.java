@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.api;
+
+/**
+ * The outcome of flushing captured data, as returned by {@link OpenKit#flush(long)} and {@link Session#flush(long)}.
+ */
+public final class FlushResult {
+
+    private final long numBytesSent;
+    private final long numBytesRemaining;
+
+    /**
+     * Constructor.
+     *
+     * @param numBytesSent The number of bytes sent while flushing.
+     * @param numBytesRemaining The number of bytes still pending after flushing.
+     */
+    public FlushResult(long numBytesSent, long numBytesRemaining) {
+        this.numBytesSent = numBytesSent;
+        this.numBytesRemaining = numBytesRemaining;
+    }
+
+    /**
+     * Get the number of bytes sent while flushing.
+     */
+    public long getNumBytesSent() {
+        return numBytesSent;
+    }
+
+    /**
+     * Get the number of bytes which are still pending after flushing.
+     *
+     * <p>
+     * Data might remain if the timeout expired, sending failed, or data was captured while flushing.
+     * </p>
+     */
+    public long getNumBytesRemaining() {
+        return numBytesRemaining;
+    }
+
+    /**
+     * Get a boolean indicating whether all data was sent.
+     *
+     * @return {@code true} if no data is pending after flushing, {@code false} otherwise.
+     */
+    public boolean isComplete() {
+        return numBytesRemaining == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FlushResult [numBytesSent=" + numBytesSent + ", numBytesRemaining=" + numBytesRemaining + "]";
+    }
+}
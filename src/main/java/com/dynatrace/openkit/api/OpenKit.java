@@ -81,6 +81,20 @@ public interface OpenKit extends Closeable {
      */
     Session createSession();
 
+    /**
+     * Sends all data captured so far and waits until the data was sent or the given timeout expired.
+     *
+     * <p>
+     * Unlike {@link #shutdown()}, OpenKit remains fully functional after flushing, and open Sessions are not ended.
+     * Data is only sent if OpenKit is initialized and capturing is enabled. Otherwise this method waits
+     * until the timeout expired and reports the data as remaining.
+     * </p>
+     *
+     * @param timeoutMillis The maximum number of milliseconds to wait for the data being sent.
+     * @return The number of bytes sent and the number of bytes still pending.
+     */
+    FlushResult flush(long timeoutMillis);
+
     /**
      * Shuts down OpenKit, ending all open Sessions and waiting for them to be sent.
      */
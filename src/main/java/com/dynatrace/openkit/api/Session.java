@@ -153,6 +153,18 @@ public interface Session extends Closeable {
      */
     void sendBizEvent(String type, Map<String, JSONValue> attributes);
 
+    /**
+     * Sends all data captured so far by this Session and waits until the data was sent or the given timeout expired.
+     *
+     * <p>
+     * The Session is not ended and can be used further after flushing.
+     * </p>
+     *
+     * @param timeoutMillis The maximum number of milliseconds to wait for the data being sent.
+     * @return The number of bytes sent and the number of bytes still pending for this Session.
+     */
+    FlushResult flush(long timeoutMillis);
+
     /**
      * Ends this Session and marks it as ready for immediate sending.
      */
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api.http;
+
+/**
+ * Service provider interface for sending HTTP requests to Dynatrace backends.
+ *
+ * <p>
+ *     By default OpenKit uses a blocking transport based on {@link java.net.HttpURLConnection}.
+ *     Implementing this interface allows plugging in a different HTTP client.
+ * </p>
+ *
+ * <p>
+ *     This is a synchronous plug-in point. OpenKit's beacon sending thread waits for the outcome of each request,
+ *     at most for the connect and read timeout, before it continues. Using an asynchronous HTTP client therefore
+ *     does not free the beacon sending thread. Requests failing with an {@link java.io.IOException} are retried
+ *     according to the configured {@link com.dynatrace.openkit.protocol.RetryPolicy}, by calling
+ *     {@link #send(HttpTransportRequest, HttpTransportCallback)} again with the same request.
+ * </p>
+ *
+ * <p>
+ *     The request passed to the transport is fully prepared, meaning that all headers have been set,
+ *     the body is already compressed and the {@link HttpRequestInterceptor} has been applied.
+ *     The transport is only responsible for transmitting the request and delivering the response.
+ *     Certificate validation configured via {@link com.dynatrace.openkit.api.SSLTrustManager} is not applied
+ *     to custom transports and must be handled by the transport itself.
+ * </p>
+ */
+public interface HttpTransport {
+
+    /**
+     * Sends the given HTTP request.
+     *
+     * <p>
+     *     The given callback must be invoked exactly once, either with the received response,
+     *     or with the exception that occurred while sending the request or reading the response.
+     *     The callback may be invoked from any thread, including the calling one.
+     * </p>
+     *
+     * @param request The HTTP request to send.
+     * @param callback The callback which is notified about the outcome of the request.
+     */
+    void send(HttpTransportRequest request, HttpTransportCallback callback);
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api.http;
+
+import java.io.IOException;
+
+/**
+ * Callback notified by a {@link HttpTransport} when sending a request has completed.
+ */
+public interface HttpTransportCallback {
+
+    /**
+     * Called when a response has been received.
+     *
+     * <p>
+     *     This method is also called for HTTP error responses (status code 400 or higher).
+     * </p>
+     *
+     * @param response The received HTTP response.
+     */
+    void onResponse(HttpTransportResponse response);
+
+    /**
+     * Called when the request could not be sent or the response could not be read.
+     *
+     * @param exception The exception describing the failure.
+     */
+    void onFailure(IOException exception);
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api.http;
+
+/**
+ * An HTTP request which is sent by a {@link HttpTransport}.
+ */
+public interface HttpTransportRequest extends HttpRequest {
+
+    /**
+     * Gets the request body, which might be {@code null} if the request has no body.
+     *
+     * <p>
+     *     If a body is present, it is already compressed according to the {@code Content-Encoding} header.
+     * </p>
+     */
+    byte[] getBody();
+
+    /**
+     * Gets the timeout in milliseconds for establishing the connection.
+     */
+    int getConnectTimeout();
+
+    /**
+     * Gets the timeout in milliseconds for reading the response.
+     */
+    int getReadTimeout();
+}
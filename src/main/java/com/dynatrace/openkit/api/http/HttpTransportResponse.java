@@ -0,0 +1,77 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP response received by a {@link HttpTransport}.
+ */
+public final class HttpTransportResponse {
+
+    private final int responseCode;
+    private final String responseMessage;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    /**
+     * Initializes a new {@link HttpTransportResponse}.
+     *
+     * @param responseCode The HTTP response code.
+     * @param responseMessage The HTTP response message, which might be {@code null}.
+     * @param headers The HTTP response headers, which might be {@code null}.
+     * @param body The completely read (and decompressed) response body, which might be {@code null}.
+     */
+    public HttpTransportResponse(int responseCode, String responseMessage, Map<String, List<String>> headers, byte[] body) {
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.headers = headers == null
+                ? Collections.<String, List<String>>emptyMap()
+                : Collections.unmodifiableMap(headers);
+        this.body = body == null ? new byte[0] : body;
+    }
+
+    /**
+     * Gets the HTTP response code.
+     */
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Gets the HTTP response message or {@code null}.
+     */
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    /**
+     * Gets an immutable map of HTTP response headers mapping to their values.
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the response body.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -16,14 +16,17 @@
 
 package com.dynatrace.openkit.core;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.communication.BeaconSendingContext;
+import com.dynatrace.openkit.core.configuration.BeaconSenderConfiguration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -60,8 +63,26 @@ public class BeaconSender {
      * @param timingProvider Used for some timing related things.
      */
     public BeaconSender(Logger logger, HTTPClientConfiguration httpClientConfiguration, HTTPClientProvider clientProvider, TimingProvider timingProvider) {
+        this(logger, httpClientConfiguration, clientProvider, timingProvider, BeaconSenderConfiguration.DEFAULT);
+    }
+
+    /**
+     * Create a new BeaconSender.
+     * <p>
+     *     To start the beacon sending the {@link #initialize()} method must be called.
+     * </p>
+     *
+     * @param logger Logger for logging messages
+     * @param httpClientConfiguration  Initial HTTP client configuration.
+     * @param clientProvider Used for retrieving an {@link com.dynatrace.openkit.protocol.HTTPClient} instance.
+     * @param timingProvider Used for some timing related things.
+     * @param beaconSenderConfiguration Configuration of the beacon sending behavior.
+     */
+    public BeaconSender(Logger logger, HTTPClientConfiguration httpClientConfiguration, HTTPClientProvider clientProvider,
+                        TimingProvider timingProvider, BeaconSenderConfiguration beaconSenderConfiguration) {
         this.logger = logger;
-        this.context = new BeaconSendingContext(logger, httpClientConfiguration, clientProvider, timingProvider);
+        this.context = new BeaconSendingContext(logger, httpClientConfiguration, clientProvider, timingProvider,
+                beaconSenderConfiguration);
     }
 
     /**
@@ -124,7 +145,12 @@ public class BeaconSender {
     }
 
     /**
-     * Shutdown the BeaconSender and wait until it's shutdown (at most {@link BeaconSender#SHUTDOWN_TIMEOUT} milliseconds.
+     * Shutdown the BeaconSender and wait until it's shutdown.
+     *
+     * <p>
+     *     This method waits at most for the configured shutdown flush time budget, or
+     *     {@link BeaconSender#SHUTDOWN_TIMEOUT} milliseconds if no budget is configured.
+     * </p>
      */
     public synchronized void shutdown() {
         if (logger.isDebugEnabled()) {
@@ -135,7 +161,8 @@ public class BeaconSender {
         if (beaconSenderThread != null) {
             beaconSenderThread.interrupt();
             try {
-                beaconSenderThread.join(SHUTDOWN_TIMEOUT);
+                long shutdownFlushTimeout = context.getShutdownFlushTimeoutInMilliseconds();
+                beaconSenderThread.join(shutdownFlushTimeout > 0 ? shutdownFlushTimeout : SHUTDOWN_TIMEOUT);
                 if (logger.isDebugEnabled()) {
                     logger.debug(getClass().getSimpleName() + " shutdown() - thread stopped");
                 }
@@ -156,6 +183,13 @@ public class BeaconSender {
         return context.getLastServerConfiguration();
     }
 
+    /**
+     * Returns the fraction of the beacon size above which open sessions are sent early, or zero if disabled.
+     */
+    public double getEarlyBeaconSendThreshold() {
+        return context.getEarlyBeaconSendThreshold();
+    }
+
     /**
      * Returns the current server ID to be used for creating new sessions
      */
@@ -178,4 +212,50 @@ public class BeaconSender {
         }
         context.addSession(session);
     }
+
+    /**
+     * Notifies this {@link BeaconSender} that the given session has been finished.
+     *
+     * <p>
+     *     This method should be called when a session has been ended, so that its data is sent without delay.
+     * </p>
+     *
+     * @param session the session that has been finished.
+     */
+    public void onSessionFinished(SessionImpl session) {
+        context.onSessionFinished(session);
+    }
+
+    /**
+     * Notifies this {@link BeaconSender} that the given session captured a crash or an error.
+     *
+     * <p>
+     *     The pending data of the session is sent ahead of any other session's data, without waiting for the
+     *     send interval to expire.
+     * </p>
+     *
+     * @param session the session that captured a crash or an error.
+     */
+    public void onPriorityDataAdded(SessionImpl session) {
+        context.onPriorityDataAdded(session);
+    }
+
+    /**
+     * Sends all pending data of the given sessions without shutting down, and waits until the data was sent
+     * or the timeout expired.
+     *
+     * @param sessions The sessions to flush, or {@code null} to flush all sessions.
+     * @param timeoutMillis The maximum number of milliseconds to wait.
+     * @return The number of bytes sent and still pending for the given sessions.
+     */
+    public FlushResult flush(Set<SessionImpl> sessions, long timeoutMillis) {
+        return context.flush(sessions, timeoutMillis);
+    }
+
+    /**
+     * Wakes up the beacon sending thread, e.g. because a session captured enough data for being sent early.
+     */
+    public void wakeup() {
+        context.wakeup();
+    }
 }
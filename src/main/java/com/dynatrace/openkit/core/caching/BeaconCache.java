@@ -164,6 +164,18 @@ public interface BeaconCache {
      */
     long getNumBytesInCache();
 
+    /**
+     * Get number of bytes currently stored in cache for the given beacon.
+     *
+     * <p>
+     * Data that is currently being sent is not taken into account.
+     * </p>
+     *
+     * @param key The key identifying a beacon.
+     * @return Number of bytes currently stored in cache for the beacon.
+     */
+    long getNumBytesInCache(BeaconKey key);
+
     /**
      * Tests if an cached entry for {@code key} is empty.
      *
@@ -442,6 +442,23 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         return cacheSizeInBytes.get();
     }
 
+    @Override
+    public long getNumBytesInCache(BeaconKey key) {
+
+        BeaconCacheEntry entry = getCachedEntry(key);
+        if (entry == null) {
+            // already removed
+            return 0;
+        }
+
+        try {
+            entry.lock();
+            return entry.getTotalNumberOfBytes();
+        } finally {
+            entry.unlock();
+        }
+    }
+
     /**
      * Call this method when something was added (size of cache increased).
      */
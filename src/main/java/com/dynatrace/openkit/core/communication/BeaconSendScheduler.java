@@ -0,0 +1,187 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.objects.SessionImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which open sessions are sent when the send interval expired, respecting a budget per send interval.
+ *
+ * <p>
+ * Sessions are ordered by the time they were sent last (longest waiting first) and then by the number of
+ * pending bytes (largest first). Sessions which did not fit into the budget are therefore the first ones
+ * considered in the next send interval, which rotates fairly across all sessions.
+ * At least one session is scheduled per send interval, even if it exceeds the byte budget on its own.
+ * </p>
+ *
+ * <p>
+ * The scheduler keeps track of the time each session was sent last, or scheduled first, which is used for
+ * ordering and for reporting the send lag of deferred sessions.
+ * </p>
+ *
+ * <p>
+ * This class is not thread safe and must only be used from the beacon sending thread.
+ * </p>
+ */
+class BeaconSendScheduler {
+
+    private final Logger logger;
+    /** maximum number of sessions sent per send interval, {@code 0} means unlimited */
+    private final int maxSessionsPerInterval;
+    /** maximum number of bytes sent per send interval, {@code 0} means unlimited */
+    private final long maxBytesPerInterval;
+
+    /** timestamp when a session was sent last, or when it was scheduled first */
+    private Map<SessionImpl, Long> lastSendTimes = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger for logging messages.
+     * @param maxSessionsPerInterval Maximum number of sessions sent per send interval, {@code 0} for unlimited.
+     * @param maxBytesPerInterval Maximum number of bytes sent per send interval, {@code 0} for unlimited.
+     */
+    BeaconSendScheduler(Logger logger, int maxSessionsPerInterval, long maxBytesPerInterval) {
+        this.logger = logger;
+        this.maxSessionsPerInterval = Math.max(0, maxSessionsPerInterval);
+        this.maxBytesPerInterval = Math.max(0, maxBytesPerInterval);
+    }
+
+    /**
+     * Get a boolean indicating whether a budget is configured.
+     */
+    boolean isBudgetLimited() {
+        return maxSessionsPerInterval > 0 || maxBytesPerInterval > 0;
+    }
+
+    /**
+     * Select the sessions which are sent in this send interval.
+     *
+     * <p>
+     * Sessions which are not allowed to send data are always selected, since sending them only clears their data.
+     * Sessions without pending data are not selected and considered as sent.
+     * </p>
+     *
+     * @param openSessions All open sessions.
+     * @param timestamp The current timestamp in milliseconds.
+     * @return The sessions to send, in the order they shall be sent.
+     */
+    List<SessionImpl> schedule(List<SessionImpl> openSessions, long timestamp) {
+
+        // only keep track of sessions which are still open
+        Map<SessionImpl, Long> updatedLastSendTimes = new HashMap<>(openSessions.size() * 2);
+        List<SessionImpl> scheduledSessions = new ArrayList<>();
+        List<Candidate> candidates = new ArrayList<>(openSessions.size());
+        for (SessionImpl session : openSessions) {
+            Long lastSendTime = lastSendTimes.get(session);
+            if (!session.isDataSendingAllowed()) {
+                scheduledSessions.add(session);
+                updatedLastSendTimes.put(session, timestamp);
+                continue;
+            }
+
+            long pendingBytes = session.getPendingDataSizeInBytes();
+            if (pendingBytes <= 0) {
+                updatedLastSendTimes.put(session, timestamp); // nothing to send, so there is no lag
+                continue;
+            }
+
+            long sendTime = lastSendTime != null ? lastSendTime : timestamp;
+            updatedLastSendTimes.put(session, sendTime);
+            candidates.add(new Candidate(session, sendTime, pendingBytes));
+        }
+        lastSendTimes = updatedLastSendTimes;
+
+        Collections.sort(candidates, CANDIDATE_ORDER);
+
+        int numScheduled = 0;
+        long numBytesScheduled = 0;
+        int numDeferred = 0;
+        long maxDeferredLag = 0;
+        for (Candidate candidate : candidates) {
+            boolean isWithinSessionBudget = maxSessionsPerInterval == 0 || numScheduled < maxSessionsPerInterval;
+            boolean isWithinByteBudget = maxBytesPerInterval == 0
+                    || numScheduled == 0
+                    || numBytesScheduled + candidate.pendingBytes <= maxBytesPerInterval;
+            if (isWithinSessionBudget && isWithinByteBudget) {
+                scheduledSessions.add(candidate.session);
+                numScheduled++;
+                numBytesScheduled += candidate.pendingBytes;
+            } else {
+                numDeferred++;
+                maxDeferredLag = Math.max(maxDeferredLag, timestamp - candidate.lastSendTime);
+            }
+        }
+
+        if (numDeferred > 0 && logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " schedule() - " + numScheduled + " sessions with "
+                    + numBytesScheduled + " bytes scheduled, " + numDeferred + " sessions deferred"
+                    + " (max send lag " + maxDeferredLag + " ms)");
+        }
+
+        return scheduledSessions;
+    }
+
+    /**
+     * Notify this scheduler that the given sessions have been sent.
+     *
+     * @param sessions The sessions which have been sent.
+     * @param timestamp The timestamp in milliseconds when the sessions have been sent.
+     */
+    void onSessionsSent(List<SessionImpl> sessions, long timestamp) {
+        for (SessionImpl session : sessions) {
+            if (lastSendTimes.containsKey(session)) {
+                lastSendTimes.put(session, timestamp);
+            }
+        }
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_ORDER = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate first, Candidate second) {
+            if (first.lastSendTime != second.lastSendTime) {
+                return first.lastSendTime < second.lastSendTime ? -1 : 1; // longest waiting first
+            }
+            if (first.pendingBytes != second.pendingBytes) {
+                return first.pendingBytes > second.pendingBytes ? -1 : 1; // largest first
+            }
+            return 0;
+        }
+    };
+
+    private static final class Candidate {
+
+        private final SessionImpl session;
+        private final long lastSendTime;
+        private final long pendingBytes;
+
+        private Candidate(SessionImpl session, long lastSendTime, long pendingBytes) {
+            this.session = session;
+            this.lastSendTime = lastSendTime;
+            this.pendingBytes = pendingBytes;
+        }
+    }
+}
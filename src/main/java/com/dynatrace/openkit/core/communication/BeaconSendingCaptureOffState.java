@@ -72,6 +72,8 @@ class BeaconSendingCaptureOffState extends AbstractBeaconSendingState {
 
         // disable capturing - avoid collecting further data
         context.disableCaptureAndClear();
+        // captured data was cleared, flushing is not possible
+        context.completeFlushRequests();
 
         long currentTime = context.getCurrentTimestamp();
 
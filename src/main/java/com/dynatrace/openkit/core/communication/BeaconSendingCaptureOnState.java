@@ -21,6 +21,7 @@ import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.protocol.ResponseAttributes;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,7 +44,8 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
     @Override
     void doExecute(BeaconSendingContext context) throws InterruptedException {
 
-        context.sleep();
+        // wait until there is something to send, or the fallback poll interval elapsed
+        context.waitForWakeup();
 
         // send new session request for all sessions that are new
         StatusResponse newSessionsResponse = sendNewSessionRequests(context);
@@ -53,6 +55,22 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             return;
         }
 
+        // send sessions which captured crashes or errors ahead of all other sessions
+        StatusResponse prioritySessionsResponse = sendPrioritySessions(context);
+        if (BeaconSendingResponseUtil.isTooManyRequestsResponse(prioritySessionsResponse)) {
+            // server is currently overloaded, temporarily switch to capture off
+            context.setNextState(new BeaconSendingCaptureOffState(prioritySessionsResponse.getRetryAfterInMilliseconds()));
+            return;
+        }
+
+        // send all sessions which shall be flushed explicitly
+        StatusResponse flushedSessionsResponse = sendFlushedSessions(context);
+        if (BeaconSendingResponseUtil.isTooManyRequestsResponse(flushedSessionsResponse)) {
+            // server is currently overloaded, temporarily switch to capture off
+            context.setNextState(new BeaconSendingCaptureOffState(flushedSessionsResponse.getRetryAfterInMilliseconds()));
+            return;
+        }
+
         // send all finished sessions
         StatusResponse finishedSessionsResponse = sendFinishedSessions(context);
         if (BeaconSendingResponseUtil.isTooManyRequestsResponse(finishedSessionsResponse)) {
@@ -75,6 +93,10 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             lastStatusResponse = openSessionsResponse;
         } else if (finishedSessionsResponse != null) {
             lastStatusResponse = finishedSessionsResponse;
+        } else if (flushedSessionsResponse != null) {
+            lastStatusResponse = flushedSessionsResponse;
+        } else if (prioritySessionsResponse != null) {
+            lastStatusResponse = prioritySessionsResponse;
         }
 
         // handle the last statusResponse received (or null if none was received) from the server
@@ -94,8 +116,16 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
      */
     private StatusResponse sendNewSessionRequests(BeaconSendingContext context) {
 
-        StatusResponse statusResponse = null;
         List<SessionImpl> notConfiguredSessions = context.getAllNotConfiguredSessions();
+        if (context.isNewSessionRequestCoalescingEnabled()) {
+            return sendCoalescedNewSessionRequest(context, notConfiguredSessions);
+        }
+
+        StatusResponse statusResponse = null;
+
+        // sessions receiving the same response attributes share the server configuration
+        ResponseAttributes lastUpdatedAttributes = null;
+        ServerConfiguration lastServerConfig = null;
 
         for (SessionImpl session : notConfiguredSessions) {
             if (!session.canSendNewSessionRequest()) {
@@ -107,8 +137,11 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             statusResponse = context.getHTTPClient().sendNewSessionRequest(context);
             if (BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
                 ResponseAttributes updatedAttributes = context.updateFrom(statusResponse);
-                ServerConfiguration newServerConfig = ServerConfiguration.from(updatedAttributes);
-                session.updateServerConfiguration(newServerConfig);
+                if (updatedAttributes != lastUpdatedAttributes) {
+                    lastUpdatedAttributes = updatedAttributes;
+                    lastServerConfig = ServerConfiguration.from(updatedAttributes);
+                }
+                session.updateServerConfiguration(lastServerConfig);
             } else if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
                 // server is currently overloaded, return immediately
                 break;
@@ -121,19 +154,156 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
         return statusResponse;
     }
 
+    /**
+     * Send a single new session request for all sessions where we currently don't have a multiplicity configuration.
+     *
+     * <p>
+     *     The server configuration received is applied to all these sessions. Traffic control is still applied
+     *     per session, since each session's beacon decides on its own whether data is captured.
+     * </p>
+     *
+     * @param context The state context.
+     * @param notConfiguredSessions The sessions without multiplicity configuration.
+     * @return The status response received or {@code null} if no request was sent.
+     */
+    private StatusResponse sendCoalescedNewSessionRequest(BeaconSendingContext context,
+                                                          List<SessionImpl> notConfiguredSessions) {
+
+        List<SessionImpl> pendingSessions = new ArrayList<>(notConfiguredSessions.size());
+        for (SessionImpl session : notConfiguredSessions) {
+            if (!session.canSendNewSessionRequest()) {
+                // already exceeded the maximum number of session requests, disable any further data collecting
+                session.disableCapture();
+                continue;
+            }
+            pendingSessions.add(session);
+        }
+
+        if (pendingSessions.isEmpty()) {
+            return null;
+        }
+
+        StatusResponse statusResponse = context.getHTTPClient().sendNewSessionRequest(context);
+        if (BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
+            ResponseAttributes updatedAttributes = context.updateFrom(statusResponse);
+            ServerConfiguration newServerConfig = ServerConfiguration.from(updatedAttributes);
+            for (SessionImpl session : pendingSessions) {
+                session.updateServerConfiguration(newServerConfig);
+            }
+        } else if (!BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+            // any other unsuccessful response counts for all sessions
+            for (SessionImpl session : pendingSessions) {
+                session.decreaseNumRemainingSessionRequests();
+            }
+        }
+
+        return statusResponse;
+    }
+
+    /**
+     * Send all sessions which captured crashes or errors since the last time they were sent this way.
+     *
+     * <p>
+     * The data of these sessions is sent regardless of the send interval. Sessions for which sending data is not
+     * allowed are left untouched, since their data is handled by the regular send paths.
+     * </p>
+     *
+     * @param context The state's context
+     * @return The last status response received, or {@code null} if no session was sent.
+     */
+    private StatusResponse sendPrioritySessions(BeaconSendingContext context) {
+
+        StatusResponse statusResponse = null;
+        for (SessionImpl session : context.getAllConfiguredPrioritySessions()) {
+            if (!session.isDataSendingAllowed()) {
+                continue;
+            }
+
+            statusResponse = session.sendBeacon(context.getHTTPClientProvider(), context);
+            if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+                // server is currently overloaded, return immediately
+                break;
+            }
+        }
+
+        return statusResponse;
+    }
+
+    /**
+     * Send all pending data of the sessions targeted by the pending flush requests, and complete these requests.
+     *
+     * @param context The state's context
+     * @return The last status response received, or {@code null} if no session was sent.
+     */
+    private StatusResponse sendFlushedSessions(BeaconSendingContext context) {
+
+        List<FlushRequest> flushRequests = context.pollFlushRequests();
+        if (flushRequests.isEmpty()) {
+            return null;
+        }
+
+        List<SessionImpl> configuredSessions = new ArrayList<>(context.getAllOpenAndConfiguredSessions());
+        configuredSessions.addAll(context.getAllFinishedAndConfiguredSessions());
+
+        StatusResponse statusResponse = null;
+        try {
+            for (SessionImpl session : configuredSessions) {
+                if (!isTargetedByAny(flushRequests, session) || !session.isDataSendingAllowed()) {
+                    continue;
+                }
+
+                long numBytesBefore = session.getPendingDataSizeInBytes();
+                statusResponse = session.sendBeacon(context.getHTTPClientProvider(), context);
+                long numBytesSent = Math.max(0, numBytesBefore - session.getPendingDataSizeInBytes());
+                for (FlushRequest flushRequest : flushRequests) {
+                    if (flushRequest.isTargeting(session)) {
+                        flushRequest.addNumBytesSent(numBytesSent);
+                    }
+                }
+
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+                    // server is currently overloaded, return immediately
+                    break;
+                }
+            }
+        } finally {
+            for (FlushRequest flushRequest : flushRequests) {
+                flushRequest.complete();
+            }
+        }
+
+        return statusResponse;
+    }
+
+    private static boolean isTargetedByAny(List<FlushRequest> flushRequests, SessionImpl session) {
+        for (FlushRequest flushRequest : flushRequests) {
+            if (flushRequest.isTargeting(session)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Send all sessions which have been finished previously.
      *
      * @param context The state's context
      * @return The last status response received.
      */
-    private StatusResponse sendFinishedSessions(BeaconSendingContext context) {
+    private StatusResponse sendFinishedSessions(BeaconSendingContext context) throws InterruptedException {
 
         StatusResponse statusResponse = null;
         // check if there's finished Sessions to be sent -> immediately send beacon(s) of finished Sessions
         List<SessionImpl> finishedSessions = context.getAllFinishedAndConfiguredSessions();
+        if (context.getBeaconSendingParallelism() > 1 && finishedSessions.size() > 1) {
+            return sendFinishedSessionsInParallel(context, finishedSessions);
+        }
 
         for (SessionImpl finishedSession : finishedSessions) {
+            if (finishedSession.isBeaconSendInProgress()) {
+                continue; // still sent by an abandoned parallel worker, retry it later
+            }
             if (finishedSession.isDataSendingAllowed()) {
                 statusResponse = finishedSession.sendBeacon(context.getHTTPClientProvider(), context);
                 if (!BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
@@ -145,9 +315,7 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             }
 
             // session was sent/is not allowed to be sent - so remove it from beacon cache
-            context.removeSession(finishedSession); // remove the finished session from the cache
-            finishedSession.clearCapturedData();
-            finishedSession.close(); // The session is already closed/ended at this point. This call avoids a static code warning.
+            removeFinishedSession(context, finishedSession);
         }
 
         return statusResponse;
@@ -156,19 +324,88 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
     /**
      * Check if the send interval (configured by server) has expired and start to send open sessions if it has expired.
      *
+     * <p>
+     * If the send interval has not yet expired, only open sessions exceeding the early send threshold are sent.
+     * </p>
+     *
      * @param context The state's context
      * @return The last status response received.
      */
-    private StatusResponse sendOpenSessions(BeaconSendingContext context) {
-
-        StatusResponse statusResponse = null;
+    private StatusResponse sendOpenSessions(BeaconSendingContext context) throws InterruptedException {
 
         long currentTimestamp = context.getCurrentTimestamp();
         if (currentTimestamp <= context.getLastOpenSessionBeaconSendTime() + context.getSendInterval()) {
-            return null;
+            return sendOpenSessionsExceedingEarlySendThreshold(context);
         }
 
         List<SessionImpl> openSessions = context.getAllOpenAndConfiguredSessions();
+        if (context.isBeaconSendBudgetLimited()) {
+            openSessions = context.getBeaconSendScheduler().schedule(openSessions, currentTimestamp);
+        }
+
+        StatusResponse statusResponse = sendOpenSessions(context, openSessions);
+        context.setLastOpenSessionBeaconSendTime(currentTimestamp);
+
+        return statusResponse;
+    }
+
+    /**
+     * Send all open sessions whose pending data exceeds the configured fraction of the beacon size.
+     *
+     * @param context The state's context
+     * @return The last status response received, or {@code null} if no session was sent.
+     */
+    private StatusResponse sendOpenSessionsExceedingEarlySendThreshold(BeaconSendingContext context)
+            throws InterruptedException {
+
+        double earlySendThreshold = context.getEarlyBeaconSendThreshold();
+        if (earlySendThreshold <= 0) {
+            return null; // early sending is disabled
+        }
+
+        long thresholdInBytes = (long) (earlySendThreshold
+                * context.getLastServerConfiguration().getBeaconSizeInBytes());
+
+        List<SessionImpl> sessionsToSend = new ArrayList<>();
+        for (SessionImpl session : context.getAllOpenAndConfiguredSessions()) {
+            if (session.isDataSendingAllowed() && session.getPendingDataSizeInBytes() > thresholdInBytes) {
+                sessionsToSend.add(session);
+            }
+        }
+
+        if (sessionsToSend.isEmpty()) {
+            return null;
+        }
+
+        return sendOpenSessions(context, sessionsToSend);
+    }
+
+    /**
+     * Send the given open sessions, either one after another or in parallel.
+     *
+     * @param context The state's context
+     * @param openSessions The open sessions to send.
+     * @return The last status response received.
+     */
+    private StatusResponse sendOpenSessions(BeaconSendingContext context, List<SessionImpl> openSessions)
+            throws InterruptedException {
+
+        StatusResponse statusResponse = doSendOpenSessions(context, openSessions);
+        if (context.isBeaconSendBudgetLimited() && !BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+            context.getBeaconSendScheduler().onSessionsSent(openSessions, context.getCurrentTimestamp());
+        }
+
+        return statusResponse;
+    }
+
+    private StatusResponse doSendOpenSessions(BeaconSendingContext context, List<SessionImpl> openSessions)
+            throws InterruptedException {
+
+        if (context.getBeaconSendingParallelism() > 1 && openSessions.size() > 1) {
+            return sendOpenSessionsInParallel(context, openSessions);
+        }
+
+        StatusResponse statusResponse = null;
         for (SessionImpl session : openSessions) {
             if (session.isDataSendingAllowed()) {
                 statusResponse = session.sendBeacon(context.getHTTPClientProvider(), context);
@@ -181,7 +418,97 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             }
         }
 
-        context.setLastOpenSessionBeaconSendTime(currentTimestamp);
+        return statusResponse;
+    }
+
+    /**
+     * Send the beacons of all given finished sessions concurrently.
+     *
+     * <p>
+     * Unlike the sequential variant, an unsuccessful response for one session does not prevent sending the other
+     * sessions, since they are independent of each other. Only a {@code 429 Too Many Requests} response stops sending.
+     * </p>
+     *
+     * @param context The state's context
+     * @param finishedSessions The finished sessions to send.
+     * @return The {@code 429 Too Many Requests} response if one was received, the last status response otherwise.
+     */
+    private StatusResponse sendFinishedSessionsInParallel(BeaconSendingContext context,
+                                                          List<SessionImpl> finishedSessions)
+            throws InterruptedException {
+
+        List<SessionImpl> sessionsToSend = new ArrayList<>(finishedSessions.size());
+        for (SessionImpl finishedSession : finishedSessions) {
+            if (finishedSession.isBeaconSendInProgress()) {
+                continue; // still sent by an abandoned parallel worker, retry it later
+            }
+            if (finishedSession.isDataSendingAllowed()) {
+                sessionsToSend.add(finishedSession);
+            } else {
+                removeFinishedSession(context, finishedSession);
+            }
+        }
+
+        List<ParallelBeaconSender.Result> results = context.getParallelBeaconSender()
+                .sendBeacons(sessionsToSend, context.getHTTPClientProvider(), context);
+
+        StatusResponse statusResponse = null;
+        StatusResponse tooManyRequestsResponse = null;
+        for (ParallelBeaconSender.Result result : results) {
+            if (!result.isSent()) {
+                continue; // sending was aborted, retry it later
+            }
+
+            SessionImpl finishedSession = result.getSession();
+            statusResponse = result.getStatusResponse();
+            if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+                tooManyRequestsResponse = statusResponse;
+            } else if (BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse) || finishedSession.isEmpty()) {
+                removeFinishedSession(context, finishedSession);
+            }
+        }
+
+        return tooManyRequestsResponse != null ? tooManyRequestsResponse : statusResponse;
+    }
+
+    private static void removeFinishedSession(BeaconSendingContext context, SessionImpl finishedSession) {
+        context.removeSession(finishedSession); // remove the finished session from the cache
+        finishedSession.clearCapturedData();
+        finishedSession.close(); // The session is already closed/ended at this point. This call avoids a static code warning.
+    }
+
+    /**
+     * Send the beacons of all given open sessions concurrently.
+     *
+     * @param context The state's context
+     * @param openSessions The open sessions to send.
+     * @return The {@code 429 Too Many Requests} response if one was received, the last status response otherwise.
+     */
+    private StatusResponse sendOpenSessionsInParallel(BeaconSendingContext context, List<SessionImpl> openSessions)
+            throws InterruptedException {
+
+        List<SessionImpl> sessionsToSend = new ArrayList<>(openSessions.size());
+        for (SessionImpl session : openSessions) {
+            if (session.isDataSendingAllowed()) {
+                sessionsToSend.add(session);
+            } else {
+                session.clearCapturedData();
+            }
+        }
+
+        List<ParallelBeaconSender.Result> results = context.getParallelBeaconSender()
+                .sendBeacons(sessionsToSend, context.getHTTPClientProvider(), context);
+
+        StatusResponse statusResponse = null;
+        for (ParallelBeaconSender.Result result : results) {
+            if (!result.isSent()) {
+                continue;
+            }
+            statusResponse = result.getStatusResponse();
+            if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+                return statusResponse;
+            }
+        }
 
         return statusResponse;
     }
@@ -16,7 +16,9 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconSenderConfiguration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
@@ -30,13 +32,15 @@ import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * State context for beacon sending states.
@@ -81,16 +85,41 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
     private HTTPClientConfiguration httpClientConfiguration;
     private final HTTPClientProvider httpClientProvider;
     private final TimingProvider timingProvider;
+    private final BeaconSenderConfiguration beaconSenderConfiguration;
+    /**
+     * scheduler deciding which open sessions are sent per send interval
+     */
+    private final BeaconSendScheduler beaconSendScheduler;
+    /**
+     * synchronization object for waking up the beacon sending thread
+     */
+    private final Object wakeupLock = new Object();
+    /**
+     * boolean indicating whether a wakeup was signalled since the beacon sending thread was last woken up
+     */
+    private boolean isWakeupSignalled = false;
+    /**
+     * sender used for sending beacons concurrently, created on first use
+     */
+    private ParallelBeaconSender parallelBeaconSender;
 
     /**
      * container storing all sessions
      */
-    private final LinkedBlockingQueue<SessionImpl> sessions = new LinkedBlockingQueue<>();
+    private final SessionRegistry sessions = new SessionRegistry();
+    /**
+     * flush requests not yet processed by the beacon sending thread
+     */
+    private final Queue<FlushRequest> flushRequests = new ConcurrentLinkedQueue<>();
 
     /**
      * boolean indicating whether shutdown was requested or not
      */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    /**
+     * timestamp until which sessions are flushed on shutdown, {@link Long#MAX_VALUE} if there is no time budget
+     */
+    private final AtomicLong shutdownFlushDeadline = new AtomicLong(Long.MAX_VALUE);
     /**
      * countdown latch updated when init was done - which can either be success or failure
      */
@@ -99,6 +128,11 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
      * current state of beacon sender
      */
     private AbstractBeaconSendingState currentState;
+    /**
+     * boolean indicating whether the terminal state was reached, published for threads other than the
+     * beacon sending thread
+     */
+    private volatile boolean isTerminalStateReached;
     /**
      * state following after current state, nextState is usually set by doExecute of the current state
      */
@@ -127,7 +161,39 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
                                 HTTPClientConfiguration httpClientConfiguration,
                                 HTTPClientProvider httpClientProvider,
                                 TimingProvider timingProvider) {
-        this(logger, httpClientConfiguration, httpClientProvider, timingProvider, new BeaconSendingInitState());
+        this(logger, httpClientConfiguration, httpClientProvider, timingProvider, BeaconSenderConfiguration.DEFAULT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p>
+     * The state is initialized to {@link BeaconSendingInitState},
+     * </p>
+     */
+    public BeaconSendingContext(Logger logger,
+                                HTTPClientConfiguration httpClientConfiguration,
+                                HTTPClientProvider httpClientProvider,
+                                TimingProvider timingProvider,
+                                BeaconSenderConfiguration beaconSenderConfiguration) {
+        this(logger, httpClientConfiguration, httpClientProvider, timingProvider, beaconSenderConfiguration,
+                new BeaconSendingInitState());
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p>
+     * The initial state is provided. This constructor is intended for unit testing.
+     * </p>
+     */
+    BeaconSendingContext(Logger logger,
+                         HTTPClientConfiguration httpClientConfiguration,
+                         HTTPClientProvider httpClientProvider,
+                         TimingProvider timingProvider,
+                         AbstractBeaconSendingState initialState) {
+        this(logger, httpClientConfiguration, httpClientProvider, timingProvider, BeaconSenderConfiguration.DEFAULT,
+                initialState);
     }
 
     /**
@@ -141,8 +207,13 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
                          HTTPClientConfiguration httpClientConfiguration,
                          HTTPClientProvider httpClientProvider,
                          TimingProvider timingProvider,
+                         BeaconSenderConfiguration beaconSenderConfiguration,
                          AbstractBeaconSendingState initialState) {
         this.logger = logger;
+        this.beaconSenderConfiguration = beaconSenderConfiguration;
+        this.beaconSendScheduler = new BeaconSendScheduler(logger,
+                beaconSenderConfiguration.getMaxSessionsSentPerInterval(),
+                beaconSenderConfiguration.getMaxBytesSentPerInterval());
         this.httpClientConfiguration = httpClientConfiguration;
         this.serverConfiguration = ServerConfiguration.DEFAULT;
         this.httpClientProvider = httpClientProvider;
@@ -150,6 +221,7 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
         this.lastResponseAttributes = ResponseAttributesImpl.withUndefinedDefaults().build();
 
         currentState = initialState;
+        isTerminalStateReached = initialState.isTerminalState();
     }
 
     /**
@@ -168,6 +240,29 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
                 logger.info(getClass().getSimpleName() + " executeCurrentState() - State change from '" + currentState + "' to '" + nextState + "'");
             }
             currentState = nextState;
+            if (currentState.isTerminalState()) {
+                logConnectionStatistics();
+            }
+        }
+
+        if (currentState.isTerminalState()) {
+            // publish before completing flush requests, so that requests added afterwards are completed by flush
+            isTerminalStateReached = true;
+            shutdownParallelBeaconSender();
+            // all data has been flushed, there is nothing left to wait for
+            completeFlushRequests();
+        }
+    }
+
+    /**
+     * Logs the connection statistics of the current HTTP client, to allow verifying that connections are reused.
+     */
+    private void logConnectionStatistics() {
+        if (logger.isInfoEnabled()) {
+            HTTPClient httpClient = getHTTPClient();
+            if (httpClient != null) {
+                logger.info(getClass().getSimpleName() + " connection statistics - " + httpClient.getConnectionStatistics());
+            }
         }
     }
 
@@ -175,7 +270,28 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
      * Requests a shutdown.
      */
     public void requestShutdown() {
+        long shutdownFlushTimeout = getShutdownFlushTimeoutInMilliseconds();
+        if (shutdownFlushTimeout > 0) {
+            // the time budget starts with the first shutdown request
+            shutdownFlushDeadline.compareAndSet(Long.MAX_VALUE,
+                    timingProvider.provideTimestampInMilliseconds() + shutdownFlushTimeout);
+        }
         shutdown.set(true);
+        wakeup();
+    }
+
+    /**
+     * Wakes up the beacon sending thread, if it's currently waiting in {@link #waitForWakeup()}.
+     *
+     * <p>
+     * If the beacon sending thread is not waiting, the next call to {@link #waitForWakeup()} returns immediately.
+     * </p>
+     */
+    public void wakeup() {
+        synchronized (wakeupLock) {
+            isWakeupSignalled = true;
+            wakeupLock.notifyAll();
+        }
     }
 
     /**
@@ -360,6 +476,154 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
         timingProvider.sleep(millis);
     }
 
+    /**
+     * Wait until either {@link #wakeup()} is called or the fallback poll interval elapsed.
+     *
+     * <p>
+     * As long as there are sessions awaiting their new session request or finished sessions which still need to be
+     * sent, the fallback poll interval is {@link #DEFAULT_SLEEP_TIME_MILLISECONDS}. Otherwise the beacon sending
+     * thread only wakes up when open sessions need to be sent the next time, or when a session captured enough
+     * data for being sent early.
+     * </p>
+     *
+     * @throws InterruptedException When waiting thread got interrupted.
+     */
+    void waitForWakeup() throws InterruptedException {
+        waitForWakeup(getWakeupTimeout());
+    }
+
+    /**
+     * Wait until either {@link #wakeup()} is called or the given time elapsed.
+     *
+     * <p>
+     * A spurious wakeup only causes an additional execution of the current state.
+     * </p>
+     *
+     * @param timeoutMillis The maximum number of milliseconds to wait.
+     * @throws InterruptedException When waiting thread got interrupted.
+     */
+    void waitForWakeup(long timeoutMillis) throws InterruptedException {
+        synchronized (wakeupLock) {
+            if (!isWakeupSignalled && timeoutMillis > 0) {
+                timingProvider.waitForNotification(wakeupLock, timeoutMillis);
+            }
+            isWakeupSignalled = false;
+        }
+    }
+
+    private long getWakeupTimeout() {
+        if (sessions.hasNotConfiguredOrFinishedSessions()) {
+            return DEFAULT_SLEEP_TIME_MILLISECONDS;
+        }
+
+        long nextOpenSessionSendTime = getLastOpenSessionBeaconSendTime() + getSendInterval();
+        return Math.max(DEFAULT_SLEEP_TIME_MILLISECONDS, nextOpenSessionSendTime - getCurrentTimestamp() + 1);
+    }
+
+    /**
+     * Get whether a single new session request is sent for all new sessions.
+     */
+    boolean isNewSessionRequestCoalescingEnabled() {
+        return beaconSenderConfiguration.isNewSessionRequestCoalescingEnabled();
+    }
+
+    /**
+     * Get the maximum number of beacons sent concurrently.
+     */
+    int getBeaconSendingParallelism() {
+        return beaconSenderConfiguration.getBeaconSendingParallelism();
+    }
+
+    /**
+     * Get the fraction of the beacon size above which open sessions are sent early, or zero if disabled.
+     */
+    public double getEarlyBeaconSendThreshold() {
+        return beaconSenderConfiguration.getEarlyBeaconSendThreshold();
+    }
+
+    /**
+     * Get a boolean indicating whether the open sessions sent per send interval are limited by a budget.
+     */
+    boolean isBeaconSendBudgetLimited() {
+        return beaconSendScheduler.isBudgetLimited();
+    }
+
+    /**
+     * Get the time budget for flushing all sessions on shutdown in milliseconds, {@code 0} if there is no budget.
+     */
+    public long getShutdownFlushTimeoutInMilliseconds() {
+        return beaconSenderConfiguration.getShutdownFlushTimeoutInMilliseconds();
+    }
+
+    /**
+     * Get a boolean indicating whether the time budget for flushing sessions on shutdown is used up.
+     *
+     * <p>
+     * If no time budget is configured, or shutdown was not yet requested, {@code false} is returned.
+     * </p>
+     */
+    boolean isShutdownFlushTimeExpired() {
+        long deadline = shutdownFlushDeadline.get();
+        return deadline != Long.MAX_VALUE && getCurrentTimestamp() >= deadline;
+    }
+
+    /**
+     * Get the remaining time for flushing sessions on shutdown in milliseconds.
+     *
+     * @return The remaining time, or {@link ParallelBeaconSender#NO_TIMEOUT} if there is no time budget.
+     */
+    long getRemainingShutdownFlushTimeInMilliseconds() {
+        long deadline = shutdownFlushDeadline.get();
+        if (deadline == Long.MAX_VALUE) {
+            return ParallelBeaconSender.NO_TIMEOUT;
+        }
+
+        return Math.max(0, deadline - getCurrentTimestamp());
+    }
+
+    /**
+     * Notifies this context that all sessions have been flushed on shutdown.
+     *
+     * @param statistics The number of sessions and bytes which were flushed or dropped.
+     */
+    void onShutdownFlushCompleted(FlushStatistics statistics) {
+        if (statistics.getNumDroppedSessions() > 0) {
+            if (logger.isWarnEnabled()) {
+                logger.warning(getClass().getSimpleName() + " shutdown flush completed - " + statistics);
+            }
+        } else if (logger.isInfoEnabled()) {
+            logger.info(getClass().getSimpleName() + " shutdown flush completed - " + statistics);
+        }
+    }
+
+    /**
+     * Get the scheduler deciding which open sessions are sent per send interval.
+     */
+    BeaconSendScheduler getBeaconSendScheduler() {
+        return beaconSendScheduler;
+    }
+
+    /**
+     * Get the sender used for sending beacons concurrently.
+     *
+     * <p>
+     * The sender is created on first use and shutdown as soon as a terminal state is reached.
+     * </p>
+     */
+    synchronized ParallelBeaconSender getParallelBeaconSender() {
+        if (parallelBeaconSender == null) {
+            parallelBeaconSender = new ParallelBeaconSender(getBeaconSendingParallelism());
+        }
+        return parallelBeaconSender;
+    }
+
+    private synchronized void shutdownParallelBeaconSender() {
+        if (parallelBeaconSender != null) {
+            parallelBeaconSender.shutdown();
+            parallelBeaconSender = null;
+        }
+    }
+
     /**
      * Get timestamp when open sessions were sent last.
      */
@@ -467,6 +731,11 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
                 return lastResponseAttributes;
             }
 
+            if (isConfigurationUnchanged(statusResponse.getResponseAttributes())) {
+                // nothing to merge, keep the current attributes and configurations
+                return lastResponseAttributes;
+            }
+
             lastResponseAttributes = lastResponseAttributes.merge(statusResponse.getResponseAttributes());
 
             ServerConfiguration.Builder builder = new ServerConfiguration.Builder(lastResponseAttributes);
@@ -485,6 +754,47 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
         }
     }
 
+    /**
+     * Checks whether the given response attributes would leave the {@link #getLastResponseAttributes() last known
+     * response attributes} unchanged.
+     *
+     * <p>
+     *     The server sends a new configuration timestamp whenever the application or agent configuration changes.
+     *     If the timestamp is the same as the last known one, only the dynamic configuration (multiplicity,
+     *     server ID and status) and the application ID need to be compared.
+     * </p>
+     *
+     * @param receivedAttributes The response attributes received from the server.
+     * @return {@code true} if the configuration did not change, {@code false} otherwise.
+     */
+    private boolean isConfigurationUnchanged(ResponseAttributes receivedAttributes) {
+        if (!receivedAttributes.isAttributeSet(ResponseAttribute.TIMESTAMP)
+                || !lastResponseAttributes.isAttributeSet(ResponseAttribute.TIMESTAMP)
+                || receivedAttributes.getTimestampInMilliseconds() != lastResponseAttributes.getTimestampInMilliseconds()) {
+            return false;
+        }
+
+        if (receivedAttributes.isAttributeSet(ResponseAttribute.MULTIPLICITY)
+                && receivedAttributes.getMultiplicity() != lastResponseAttributes.getMultiplicity()) {
+            return false;
+        }
+        if (receivedAttributes.isAttributeSet(ResponseAttribute.SERVER_ID)
+                && receivedAttributes.getServerId() != lastResponseAttributes.getServerId()) {
+            return false;
+        }
+        if (receivedAttributes.isAttributeSet(ResponseAttribute.STATUS)
+                && !equalsNullSafe(receivedAttributes.getStatus(), lastResponseAttributes.getStatus())) {
+            return false;
+        }
+
+        return !receivedAttributes.isAttributeSet(ResponseAttribute.APPLICATION_ID)
+                || equalsNullSafe(receivedAttributes.getApplicationId(), lastResponseAttributes.getApplicationId());
+    }
+
+    private static boolean equalsNullSafe(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
     /**
      * Ensure that the application id coming with the response matches the one that was configured for OpenKit.
      *
@@ -514,14 +824,11 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
      * Clear captured data from all sessions.
      */
     private void clearAllSessionData() {
-        // iterate over the elements
-        Iterator<SessionImpl> iterator = sessions.iterator();
-        while (iterator.hasNext()) {
-            SessionImpl session = iterator.next();
+        for (SessionImpl session : sessions.getAllSessions()) {
             session.clearCapturedData();
             SessionState state = session.getState();
             if (state.isFinished()) {
-                iterator.remove();
+                sessions.remove(session);
             }
         }
     }
@@ -542,51 +849,28 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
      * @return A list of new sessions.
      */
     List<SessionImpl> getAllNotConfiguredSessions() {
-
-        List<SessionImpl> notConfiguredSessions = new LinkedList<>();
-
-        for (SessionImpl session : sessions) {
-            SessionState state = session.getState();
-            if (!state.isConfigured()) {
-                notConfiguredSessions.add(session);
-            }
-        }
-
-        return notConfiguredSessions;
+        return sessions.getNotConfiguredSessions();
     }
 
     /**
      * Get a list of all sessions that have been configured and are currently open.
      */
     List<SessionImpl> getAllOpenAndConfiguredSessions() {
-
-        List<SessionImpl> openSessions = new LinkedList<>();
-
-        for (SessionImpl session : sessions) {
-            SessionState state = session.getState();
-            if (state.isConfiguredAndOpen()) {
-                openSessions.add(session);
-            }
-        }
-
-        return openSessions;
+        return sessions.getOpenAndConfiguredSessions();
     }
 
     /**
      * Get a list of all sessions that have been configured and are currently finished.
      */
     List<SessionImpl> getAllFinishedAndConfiguredSessions() {
+        return sessions.getFinishedAndConfiguredSessions();
+    }
 
-        List<SessionImpl> finishedSessions = new LinkedList<>();
-
-        for (SessionImpl session : sessions) {
-            SessionState state = session.getState();
-            if (state.isConfiguredAndFinished()) {
-                finishedSessions.add(session);
-            }
-        }
-
-        return finishedSessions;
+    /**
+     * Get a list of all configured sessions that captured a crash or an error since they were last returned.
+     */
+    List<SessionImpl> getAllConfiguredPrioritySessions() {
+        return sessions.getConfiguredPrioritySessions();
     }
 
     /**
@@ -610,6 +894,98 @@ public class BeaconSendingContext implements AdditionalQueryParameters {
      */
     public void addSession(SessionImpl session) {
         sessions.add(session);
+        wakeup(); // new session request shall be sent immediately
+    }
+
+    /**
+     * Notifies this context that the given {@link SessionImpl session} has been finished.
+     *
+     * <p>
+     * The beacon sending thread is woken up, so that the finished session is sent without further delay.
+     * </p>
+     *
+     * @param session The session that has been finished.
+     */
+    public void onSessionFinished(SessionImpl session) {
+        sessions.onSessionFinished(session);
+        wakeup();
+    }
+
+    /**
+     * Notifies this context that the given {@link SessionImpl session} captured a crash or an error.
+     *
+     * <p>
+     * The beacon sending thread is woken up, so that the session's data is sent ahead of all other sessions.
+     * </p>
+     *
+     * @param session The session that captured a crash or an error.
+     */
+    public void onPriorityDataAdded(SessionImpl session) {
+        sessions.onPriorityDataAdded(session);
+        wakeup();
+    }
+
+    /**
+     * Sends all pending data of the given sessions and waits until the data was sent or the timeout expired.
+     *
+     * <p>
+     * The data is sent by the beacon sending thread, which is woken up by this method. If the data cannot be sent,
+     * for example because OpenKit is not yet initialized, this method waits until the timeout expired.
+     * </p>
+     *
+     * @param sessionsToFlush The sessions to flush, or {@code null} to flush all sessions.
+     * @param timeoutMillis The maximum number of milliseconds to wait.
+     * @return The number of bytes sent and still pending for the given sessions.
+     */
+    public FlushResult flush(Set<SessionImpl> sessionsToFlush, long timeoutMillis) {
+        if (sessionsToFlush != null && sessionsToFlush.isEmpty()) {
+            return new FlushResult(0, 0);
+        }
+
+        FlushRequest request = new FlushRequest(sessionsToFlush);
+        flushRequests.add(request);
+        // check after adding the request, the beacon sending thread completes all requests added before
+        if (isTerminalStateReached) {
+            // nothing will be sent any more
+            completeFlushRequests();
+        } else {
+            wakeup();
+        }
+
+        try {
+            request.await(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long numBytesRemaining = 0;
+        for (SessionImpl session : sessionsToFlush != null ? sessionsToFlush : sessions.getAllSessions()) {
+            numBytesRemaining += session.getPendingDataSizeInBytes();
+        }
+
+        return new FlushResult(request.getNumBytesSent(), numBytesRemaining);
+    }
+
+    /**
+     * Get and remove all flush requests which were not yet processed.
+     */
+    List<FlushRequest> pollFlushRequests() {
+        List<FlushRequest> result = new ArrayList<>();
+        FlushRequest request;
+        while ((request = flushRequests.poll()) != null) {
+            result.add(request);
+        }
+
+        return result;
+    }
+
+    /**
+     * Complete all flush requests which were not yet processed, without sending any data.
+     */
+    void completeFlushRequests() {
+        for (FlushRequest request : pollFlushRequests()) {
+            request.complete();
+        }
     }
 
     /**
@@ -19,11 +19,23 @@ package com.dynatrace.openkit.core.communication;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * In this state open sessions are finished. After that all sessions are sent to the server.
  * <p>
+ *     Sessions which captured crashes or errors are sent first. If a time budget for flushing is configured,
+ *     no further sessions are sent once the budget is used up. If parallel beacon sending is configured,
+ *     sessions are sent concurrently.
+ *     Sessions whose beacon is still being sent by an abandoned parallel worker are not sent again,
+ *     but counted as dropped.
+ * </p>
+ * <p>
  *     Transition to:
  *     <ul>
  *         <li>{@link BeaconSendingTerminalState}</li>
@@ -52,19 +64,19 @@ class BeaconSendingFlushSessionsState extends AbstractBeaconSendingState {
             openSession.end(false);
         }
 
-        // flush already finished (and previously ended) sessions
-        boolean tooManyRequestsReceived = false;
-        List<SessionImpl> finishedSessions = context.getAllFinishedAndConfiguredSessions();
-        for (SessionImpl finishedSession : finishedSessions) {
-            if (!tooManyRequestsReceived && finishedSession.isDataSendingAllowed()) {
-                StatusResponse response = finishedSession.sendBeacon(context.getHTTPClientProvider(), context);
-                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(response)) {
-                    tooManyRequestsReceived = true;
-                }
+        // flush already finished (and previously ended) sessions, the most important ones first
+        List<SessionImpl> finishedSessions = prioritize(context.getAllFinishedAndConfiguredSessions(),
+                context.getAllConfiguredPrioritySessions());
+
+        FlushStatistics statistics = new FlushStatistics();
+        try {
+            if (context.getBeaconSendingParallelism() > 1 && finishedSessions.size() > 1) {
+                flushSessionsInParallel(context, finishedSessions, statistics);
+            } else {
+                flushSessions(context, finishedSessions, statistics);
             }
-            finishedSession.clearCapturedData();
-            finishedSession.close(); // The session is already closed/ended at this point. This call avoids a static code warning.
-            context.removeSession(finishedSession);
+        } finally {
+            context.onShutdownFlushCompleted(statistics);
         }
 
         // make last state transition to terminal state
@@ -80,4 +92,113 @@ class BeaconSendingFlushSessionsState extends AbstractBeaconSendingState {
     public String toString() {
         return "FlushSessions";
     }
+
+    /**
+     * Send the given sessions one after another.
+     *
+     * @param context The state's context
+     * @param finishedSessions The sessions to flush, in the order they shall be sent.
+     * @param statistics Statistics updated with the outcome for every session.
+     */
+    private static void flushSessions(BeaconSendingContext context,
+                                      List<SessionImpl> finishedSessions,
+                                      FlushStatistics statistics) {
+
+        boolean tooManyRequestsReceived = false;
+        for (SessionImpl finishedSession : finishedSessions) {
+            long numBytesBefore = finishedSession.getPendingDataSizeInBytes();
+            if (finishedSession.isBeaconSendInProgress()) {
+                // still sent by a parallel worker abandoned before the shutdown, don't send it concurrently
+                statistics.addDroppedSession(numBytesBefore);
+                context.removeSession(finishedSession);
+                continue;
+            }
+            if (!tooManyRequestsReceived
+                    && !context.isShutdownFlushTimeExpired()
+                    && finishedSession.isDataSendingAllowed()) {
+                StatusResponse response = finishedSession.sendBeacon(context.getHTTPClientProvider(), context);
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(response)) {
+                    tooManyRequestsReceived = true;
+                }
+            }
+            statistics.addSession(numBytesBefore, finishedSession.getPendingDataSizeInBytes());
+            removeSession(context, finishedSession);
+        }
+    }
+
+    /**
+     * Send the given sessions concurrently, waiting at most for the remaining time budget.
+     *
+     * @param context The state's context
+     * @param finishedSessions The sessions to flush, in the order they shall be sent.
+     * @param statistics Statistics updated with the outcome for every session.
+     */
+    private static void flushSessionsInParallel(BeaconSendingContext context,
+                                                List<SessionImpl> finishedSessions,
+                                                FlushStatistics statistics) {
+
+        Map<SessionImpl, Long> numBytesBefore = new IdentityHashMap<>();
+        List<SessionImpl> sessionsToSend = new ArrayList<>(finishedSessions.size());
+        for (SessionImpl finishedSession : finishedSessions) {
+            numBytesBefore.put(finishedSession, finishedSession.getPendingDataSizeInBytes());
+            if (finishedSession.isDataSendingAllowed() && !finishedSession.isBeaconSendInProgress()) {
+                sessionsToSend.add(finishedSession);
+            }
+        }
+
+        // the interrupt requesting the shutdown must not abort waiting for the flush
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!sessionsToSend.isEmpty() && !context.isShutdownFlushTimeExpired()) {
+                context.getParallelBeaconSender().sendBeacons(sessionsToSend, context.getHTTPClientProvider(), context,
+                        context.getRemainingShutdownFlushTimeInMilliseconds());
+            }
+        } catch (InterruptedException e) {
+            // interrupted again, give up and drop all data not sent so far
+            interrupted = true;
+        } finally {
+            for (SessionImpl finishedSession : finishedSessions) {
+                if (finishedSession.isBeaconSendInProgress()) {
+                    // a worker abandoned due to the time budget or an interrupt still owns the beacon
+                    statistics.addDroppedSession(numBytesBefore.get(finishedSession));
+                    context.removeSession(finishedSession);
+                } else {
+                    statistics.addSession(numBytesBefore.get(finishedSession), finishedSession.getPendingDataSizeInBytes());
+                    removeSession(context, finishedSession);
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void removeSession(BeaconSendingContext context, SessionImpl finishedSession) {
+        finishedSession.clearCapturedData();
+        finishedSession.close(); // The session is already closed/ended at this point. This call avoids a static code warning.
+        context.removeSession(finishedSession);
+    }
+
+    /**
+     * Order the given sessions, such that sessions which captured crashes or errors come first.
+     *
+     * @param sessions The sessions to order.
+     * @param prioritySessions The sessions which captured crashes or errors.
+     * @return The ordered sessions.
+     */
+    private static List<SessionImpl> prioritize(List<SessionImpl> sessions, List<SessionImpl> prioritySessions) {
+        if (prioritySessions.isEmpty()) {
+            return sessions;
+        }
+
+        Set<SessionImpl> result = new LinkedHashSet<>(sessions.size());
+        for (SessionImpl session : prioritySessions) {
+            if (sessions.contains(session)) {
+                result.add(session);
+            }
+        }
+        result.addAll(sessions);
+
+        return new ArrayList<>(result);
+    }
 }
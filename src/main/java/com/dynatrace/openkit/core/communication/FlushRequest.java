@@ -0,0 +1,86 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.core.objects.SessionImpl;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A request to send all pending data of some or all sessions, issued by an application thread and processed by
+ * the beacon sending thread.
+ */
+final class FlushRequest {
+
+    /** the sessions to flush, or {@code null} to flush all sessions */
+    private final Set<SessionImpl> sessions;
+    private final AtomicLong numBytesSent = new AtomicLong(0);
+    private final CountDownLatch completedLatch = new CountDownLatch(1);
+
+    /**
+     * Constructor.
+     *
+     * @param sessions The sessions to flush, or {@code null} to flush all sessions.
+     *                 Sessions are looked up for every session sent, therefore an identity based set
+     *                 should be passed.
+     */
+    FlushRequest(Set<SessionImpl> sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Get a boolean indicating whether the given session shall be flushed by this request.
+     */
+    boolean isTargeting(SessionImpl session) {
+        return sessions == null || sessions.contains(session);
+    }
+
+    /**
+     * Add the given number of bytes to the bytes sent for this request.
+     */
+    void addNumBytesSent(long numBytes) {
+        numBytesSent.addAndGet(numBytes);
+    }
+
+    /**
+     * Get the number of bytes sent so far for this request.
+     */
+    long getNumBytesSent() {
+        return numBytesSent.get();
+    }
+
+    /**
+     * Mark this request as processed and release all threads waiting for it.
+     */
+    void complete() {
+        completedLatch.countDown();
+    }
+
+    /**
+     * Wait until this request has been processed or the given timeout expired.
+     *
+     * @param timeoutMillis The maximum number of milliseconds to wait.
+     * @return {@code true} if the request has been processed, {@code false} if the timeout expired.
+     */
+    boolean await(long timeoutMillis) throws InterruptedException {
+        return completedLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+/**
+ * Accumulates the number of sessions and bytes which were flushed, or which could not be flushed.
+ *
+ * <p>
+ * A session counts as flushed if all of its data was sent, otherwise its remaining data counts as dropped.
+ * </p>
+ */
+final class FlushStatistics {
+
+    private int numFlushedSessions = 0;
+    private long numFlushedBytes = 0;
+    private int numDroppedSessions = 0;
+    private long numDroppedBytes = 0;
+
+    /**
+     * Add the outcome of flushing a single session.
+     *
+     * @param numBytesBefore The number of bytes pending before the session was flushed.
+     * @param numBytesAfter The number of bytes still pending after the session was flushed.
+     */
+    void addSession(long numBytesBefore, long numBytesAfter) {
+        long numBytesRemaining = Math.min(numBytesBefore, numBytesAfter);
+        numFlushedBytes += numBytesBefore - numBytesRemaining;
+        if (numBytesRemaining > 0) {
+            numDroppedSessions++;
+            numDroppedBytes += numBytesRemaining;
+        } else {
+            numFlushedSessions++;
+        }
+    }
+
+    /**
+     * Add a session which was not flushed at all, e.g. because its beacon was still being sent by another thread.
+     *
+     * @param numBytes The number of bytes pending before the session was flushed.
+     */
+    void addDroppedSession(long numBytes) {
+        numDroppedSessions++;
+        numDroppedBytes += numBytes;
+    }
+
+    int getNumFlushedSessions() {
+        return numFlushedSessions;
+    }
+
+    long getNumFlushedBytes() {
+        return numFlushedBytes;
+    }
+
+    int getNumDroppedSessions() {
+        return numDroppedSessions;
+    }
+
+    long getNumDroppedBytes() {
+        return numDroppedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "flushed " + numFlushedSessions + " sessions (" + numFlushedBytes + " bytes), "
+                + "dropped " + numDroppedSessions + " sessions (" + numDroppedBytes + " bytes)";
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.protocol.AdditionalQueryParameters;
+import com.dynatrace.openkit.protocol.StatusResponse;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the beacons of multiple sessions concurrently, using a bounded number of worker threads.
+ *
+ * <p>
+ * As soon as the server responds with {@code 429 Too Many Requests} no further beacons are sent
+ * and all requests currently in flight are interrupted.
+ * </p>
+ *
+ * <p>
+ * Blocking HTTP I/O ignores interrupts, therefore a worker might still be sending a beacon after
+ * {@link #sendBeacons(List, HTTPClientProvider, AdditionalQueryParameters, long)} returned.
+ * Such sessions report {@link SessionImpl#isBeaconSendInProgress()} until the worker is done,
+ * and callers must neither send nor clear them in the meantime.
+ * </p>
+ */
+class ParallelBeaconSender {
+
+    private static final String THREAD_NAME_PREFIX = "BeaconSender-worker-";
+    private static final long WORKER_KEEP_ALIVE_TIME_MILLISECONDS = TimeUnit.MINUTES.toMillis(1);
+
+    /** timeout value indicating to wait until all beacons have been sent */
+    static final long NO_TIMEOUT = -1;
+
+    private final ThreadPoolExecutor executor;
+
+    /** worker threads currently sending a beacon, guarded by itself */
+    private final Set<Thread> sendingThreads = new HashSet<>();
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism The maximum number of beacons sent concurrently.
+     */
+    ParallelBeaconSender(int parallelism) {
+        executor = new ThreadPoolExecutor(parallelism, parallelism,
+                WORKER_KEEP_ALIVE_TIME_MILLISECONDS, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new WorkerThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Send the beacons of all given sessions.
+     *
+     * <p>
+     * This method blocks until all beacons have been sent, or sending was aborted due to a
+     * {@code 429 Too Many Requests} response.
+     * </p>
+     *
+     * @param sessions The sessions whose beacon shall be sent.
+     * @param clientProvider Provider for creating the HTTP client.
+     * @param additionalParameters Additional parameters that will be appended to the beacon requests.
+     * @return One result per session, in the same order as the given sessions.
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the workers.
+     */
+    List<Result> sendBeacons(List<SessionImpl> sessions,
+                             HTTPClientProvider clientProvider,
+                             AdditionalQueryParameters additionalParameters) throws InterruptedException {
+        return sendBeacons(sessions, clientProvider, additionalParameters, NO_TIMEOUT);
+    }
+
+    /**
+     * Send the beacons of all given sessions, waiting at most the given time.
+     *
+     * <p>
+     * Once the timeout expired, no further beacons are sent and all requests currently in flight are interrupted.
+     * Sessions whose beacon was not sent completely within the timeout are reported as not sent.
+     * </p>
+     *
+     * @param sessions The sessions whose beacon shall be sent.
+     * @param clientProvider Provider for creating the HTTP client.
+     * @param additionalParameters Additional parameters that will be appended to the beacon requests.
+     * @param timeoutMillis The maximum time to wait in milliseconds, or {@link #NO_TIMEOUT}.
+     * @return One result per session, in the same order as the given sessions.
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the workers.
+     */
+    List<Result> sendBeacons(List<SessionImpl> sessions,
+                             final HTTPClientProvider clientProvider,
+                             final AdditionalQueryParameters additionalParameters,
+                             long timeoutMillis) throws InterruptedException {
+
+        long deadline = timeoutMillis < 0
+                ? Long.MAX_VALUE
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        List<Future<Result>> futures = new ArrayList<>(sessions.size());
+        try {
+            for (final SessionImpl session : sessions) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return sendBeacon(session, clientProvider, additionalParameters, aborted);
+                    }
+                }));
+            }
+
+            List<Result> results = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(awaitResult(futures.get(i), sessions.get(i), deadline, aborted));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            // stop all remaining work, the caller is responsible for handling the interrupt
+            aborted.set(true);
+            for (Future<Result> future : futures) {
+                future.cancel(false);
+            }
+            interruptSendingThreads();
+            throw e;
+        }
+    }
+
+    /**
+     * Shutdown the worker threads.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Result sendBeacon(SessionImpl session,
+                              HTTPClientProvider clientProvider,
+                              AdditionalQueryParameters additionalParameters,
+                              AtomicBoolean aborted) {
+
+        synchronized (sendingThreads) {
+            if (aborted.get()) {
+                // server is overloaded, don't even start
+                return Result.notSent(session);
+            }
+            if (session.isBeaconSendInProgress()) {
+                // still sent by a worker abandoned in a previous call, the beacon must not be sent concurrently
+                return Result.notSent(session);
+            }
+            sendingThreads.add(Thread.currentThread());
+        }
+
+        StatusResponse statusResponse;
+        try {
+            statusResponse = session.sendBeacon(clientProvider, additionalParameters);
+        } finally {
+            synchronized (sendingThreads) {
+                sendingThreads.remove(Thread.currentThread());
+                // don't leak an abort interrupt into the next task executed by this worker
+                Thread.interrupted();
+            }
+        }
+
+        if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)
+                && aborted.compareAndSet(false, true)) {
+            // server is overloaded, stop all requests which are currently in flight
+            interruptSendingThreads();
+        }
+
+        return Result.sent(session, statusResponse);
+    }
+
+    private void interruptSendingThreads() {
+        synchronized (sendingThreads) {
+            for (Thread thread : sendingThreads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private Result awaitResult(Future<Result> future,
+                               SessionImpl session,
+                               long deadline,
+                               AtomicBoolean aborted) throws InterruptedException {
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                return future.get();
+            }
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // sending the beacon failed unexpectedly, treat it as not sent and retry it later
+            return Result.notSent(session);
+        } catch (TimeoutException e) {
+            // time is up, don't start any further requests and stop those in flight
+            aborted.set(true);
+            future.cancel(false);
+            interruptSendingThreads();
+            return Result.notSent(session);
+        }
+    }
+
+    /**
+     * The outcome of sending a single session's beacon.
+     */
+    static final class Result {
+
+        private final SessionImpl session;
+        private final boolean sent;
+        private final StatusResponse statusResponse;
+
+        private Result(SessionImpl session, boolean sent, StatusResponse statusResponse) {
+            this.session = session;
+            this.sent = sent;
+            this.statusResponse = statusResponse;
+        }
+
+        static Result sent(SessionImpl session, StatusResponse statusResponse) {
+            return new Result(session, true, statusResponse);
+        }
+
+        static Result notSent(SessionImpl session) {
+            return new Result(session, false, null);
+        }
+
+        SessionImpl getSession() {
+            return session;
+        }
+
+        /**
+         * Get a boolean indicating whether a send attempt was made for the session.
+         *
+         * <p>
+         * Sending is skipped once the server responded with {@code 429 Too Many Requests},
+         * or the timeout expired.
+         * </p>
+         */
+        boolean isSent() {
+            return sent;
+        }
+
+        StatusResponse getStatusResponse() {
+            return statusResponse;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.core.objects.SessionState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Container storing all sessions known by the {@link BeaconSendingContext}, indexed by their state.
+ *
+ * <p>
+ * Sessions are kept in separate collections for not configured, configured and open, and configured and finished
+ * sessions. Querying the sessions of one state is therefore proportional to the number of matching sessions
+ * (plus the usually few not configured sessions), instead of the total number of sessions.
+ * </p>
+ *
+ * <p>
+ * Sessions move between the collections when the registry is notified via {@link #onSessionFinished(SessionImpl)},
+ * or lazily when the sessions of a state are queried. The state of a session is never evaluated while holding
+ * the registry's lock, since sessions might notify the registry while holding their own lock.
+ * </p>
+ */
+class SessionRegistry {
+
+    /** all collections are guarded by this */
+    private final Set<SessionImpl> notConfiguredSessions = new LinkedHashSet<>();
+    private final Set<SessionImpl> openSessions = new LinkedHashSet<>();
+    private final Set<SessionImpl> finishedSessions = new LinkedHashSet<>();
+    /** sessions with pending crashes or errors, additionally to one of the collections above */
+    private final Set<SessionImpl> prioritySessions = new LinkedHashSet<>();
+
+    /**
+     * Add the given session.
+     *
+     * <p>
+     * New sessions are always added to the not configured sessions and moved as soon as they are queried
+     * the next time.
+     * </p>
+     *
+     * @param session The session to add.
+     */
+    synchronized void add(SessionImpl session) {
+        notConfiguredSessions.add(session);
+    }
+
+    /**
+     * Remove the given session.
+     *
+     * @param session The session to remove.
+     * @return {@code true} if the session was removed, {@code false} if it was not known.
+     */
+    synchronized boolean remove(SessionImpl session) {
+        prioritySessions.remove(session);
+        return notConfiguredSessions.remove(session)
+                || openSessions.remove(session)
+                || finishedSessions.remove(session);
+    }
+
+    /**
+     * Move the given session to the finished sessions, if it is already configured.
+     *
+     * <p>
+     * Not configured sessions are moved as soon as they got configured.
+     * </p>
+     *
+     * @param session The session which has been finished.
+     */
+    void onSessionFinished(SessionImpl session) {
+        if (session.getState().isConfiguredAndFinished()) {
+            move(session, openSessions, finishedSessions);
+        }
+    }
+
+    /**
+     * Mark the given session as having pending high priority data, like crashes or errors.
+     *
+     * <p>
+     * Sessions not known by this registry are ignored.
+     * </p>
+     *
+     * @param session The session which captured high priority data.
+     */
+    synchronized void onPriorityDataAdded(SessionImpl session) {
+        if (notConfiguredSessions.contains(session)
+                || openSessions.contains(session)
+                || finishedSessions.contains(session)) {
+            prioritySessions.add(session);
+        }
+    }
+
+    /**
+     * Get all configured sessions with pending high priority data and unmark them.
+     *
+     * <p>
+     * Sessions that are not yet configured remain marked, until they got configured.
+     * </p>
+     */
+    List<SessionImpl> getConfiguredPrioritySessions() {
+        List<SessionImpl> result = new LinkedList<>();
+        for (SessionImpl session : snapshotOf(prioritySessions)) {
+            if (session.getState().isConfigured()) {
+                result.add(session);
+                unmarkPriority(session);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get all sessions that are not yet configured.
+     */
+    List<SessionImpl> getNotConfiguredSessions() {
+        List<SessionImpl> result = new LinkedList<>();
+        for (SessionImpl session : snapshotOf(notConfiguredSessions)) {
+            if (!session.getState().isConfigured()) {
+                result.add(session);
+            } else {
+                promote(session);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get all sessions that have been configured and are currently open.
+     */
+    List<SessionImpl> getOpenAndConfiguredSessions() {
+        promoteConfiguredSessions();
+
+        List<SessionImpl> result = new LinkedList<>();
+        for (SessionImpl session : snapshotOf(openSessions)) {
+            SessionState state = session.getState();
+            if (state.isConfiguredAndOpen()) {
+                result.add(session);
+            } else if (state.isConfiguredAndFinished()) {
+                move(session, openSessions, finishedSessions);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get all sessions that have been configured and are currently finished.
+     */
+    List<SessionImpl> getFinishedAndConfiguredSessions() {
+        promoteConfiguredSessions();
+
+        List<SessionImpl> result = new LinkedList<>();
+        for (SessionImpl session : snapshotOf(finishedSessions)) {
+            if (session.getState().isConfiguredAndFinished()) {
+                result.add(session);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get all sessions, regardless of their state.
+     */
+    synchronized List<SessionImpl> getAllSessions() {
+        List<SessionImpl> result = new ArrayList<>(size());
+        result.addAll(notConfiguredSessions);
+        result.addAll(openSessions);
+        result.addAll(finishedSessions);
+
+        return result;
+    }
+
+    /**
+     * Get a boolean indicating whether there are sessions which are not configured or finished.
+     *
+     * <p>
+     * This is a cheap check, which might also consider sessions that changed their state meanwhile.
+     * </p>
+     */
+    synchronized boolean hasNotConfiguredOrFinishedSessions() {
+        return !notConfiguredSessions.isEmpty() || !finishedSessions.isEmpty();
+    }
+
+    /**
+     * Get the total number of sessions.
+     */
+    synchronized int size() {
+        return notConfiguredSessions.size() + openSessions.size() + finishedSessions.size();
+    }
+
+    private void promoteConfiguredSessions() {
+        for (SessionImpl session : snapshotOf(notConfiguredSessions)) {
+            promote(session);
+        }
+    }
+
+    private void promote(SessionImpl session) {
+        SessionState state = session.getState();
+        if (state.isConfiguredAndFinished()) {
+            move(session, notConfiguredSessions, finishedSessions);
+        } else if (state.isConfiguredAndOpen()) {
+            move(session, notConfiguredSessions, openSessions);
+        }
+    }
+
+    private synchronized void move(SessionImpl session, Set<SessionImpl> from, Set<SessionImpl> to) {
+        // the session might have been removed concurrently
+        if (from.remove(session)) {
+            to.add(session);
+        }
+    }
+
+    private synchronized void unmarkPriority(SessionImpl session) {
+        prioritySessions.remove(session);
+    }
+
+    private synchronized List<SessionImpl> snapshotOf(Set<SessionImpl> sessions) {
+        return new ArrayList<>(sessions);
+    }
+}
@@ -27,8 +27,15 @@ public class BeaconConfiguration {
     private final PrivacyConfiguration privacyConfiguration;
     /** HTTP client configuration */
     private final HTTPClientConfiguration httpClientConfiguration;
-    /** Server configuration, which can be updated by the server. */
-    private ServerConfiguration serverConfiguration;
+    /**
+     * Server configuration, which can be updated by the server.
+     *
+     * <p>
+     * The field is only modified while holding {@link #lockObject}, but read without the lock,
+     * since the capture state is checked on every reporting call.
+     * </p>
+     */
+    private volatile ServerConfiguration serverConfiguration;
     /** indicator if the {@link ServerConfiguration} was set or not */
     private boolean isServerConfigurationSet;
 
@@ -92,11 +99,10 @@ public class BeaconConfiguration {
      * @return A {@link ServerConfiguration} object.
      */
     public ServerConfiguration getServerConfiguration() {
-        synchronized (lockObject) {
-            return serverConfiguration != null
-                ? serverConfiguration
-                : ServerConfiguration.DEFAULT;
-        }
+        ServerConfiguration currentServerConfiguration = serverConfiguration;
+        return currentServerConfiguration != null
+            ? currentServerConfiguration
+            : ServerConfiguration.DEFAULT;
     }
 
     /**
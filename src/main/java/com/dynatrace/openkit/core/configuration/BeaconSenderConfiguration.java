@@ -0,0 +1,129 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.DynatraceOpenKitBuilder;
+
+/**
+ * Configuration for the beacon sender.
+ */
+public class BeaconSenderConfiguration {
+
+    /** Configuration using the default values */
+    public static final BeaconSenderConfiguration DEFAULT = new BeaconSenderConfiguration(
+            ConfigurationDefaults.DEFAULT_NEW_SESSION_REQUEST_COALESCING,
+            ConfigurationDefaults.DEFAULT_BEACON_SENDING_PARALLELISM,
+            ConfigurationDefaults.DEFAULT_EARLY_BEACON_SEND_THRESHOLD,
+            ConfigurationDefaults.DEFAULT_MAX_SESSIONS_SENT_PER_INTERVAL,
+            ConfigurationDefaults.DEFAULT_MAX_BYTES_SENT_PER_INTERVAL,
+            ConfigurationDefaults.DEFAULT_SHUTDOWN_FLUSH_TIMEOUT_IN_MILLIS);
+
+    private final boolean newSessionRequestCoalescing;
+    private final int beaconSendingParallelism;
+    private final double earlyBeaconSendThreshold;
+    private final int maxSessionsSentPerInterval;
+    private final long maxBytesSentPerInterval;
+    private final long shutdownFlushTimeoutInMilliseconds;
+
+    /**
+     * Constructor
+     *
+     * @param builder OpenKit builder storing all necessary configuration information.
+     */
+    private BeaconSenderConfiguration(DynatraceOpenKitBuilder builder) {
+        this(builder.isNewSessionRequestCoalescingEnabled(),
+                builder.getBeaconSendingParallelism(),
+                builder.getEarlyBeaconSendThreshold(),
+                builder.getMaxSessionsSentPerInterval(),
+                builder.getMaxBytesSentPerInterval(),
+                builder.getShutdownFlushTimeoutInMilliseconds());
+    }
+
+    private BeaconSenderConfiguration(boolean newSessionRequestCoalescing,
+                                      int beaconSendingParallelism,
+                                      double earlyBeaconSendThreshold,
+                                      int maxSessionsSentPerInterval,
+                                      long maxBytesSentPerInterval,
+                                      long shutdownFlushTimeoutInMilliseconds) {
+        this.newSessionRequestCoalescing = newSessionRequestCoalescing;
+        this.beaconSendingParallelism = beaconSendingParallelism;
+        this.earlyBeaconSendThreshold = earlyBeaconSendThreshold;
+        this.maxSessionsSentPerInterval = maxSessionsSentPerInterval;
+        this.maxBytesSentPerInterval = maxBytesSentPerInterval;
+        this.shutdownFlushTimeoutInMilliseconds = shutdownFlushTimeoutInMilliseconds;
+    }
+
+    /**
+     * Create a {@link BeaconSenderConfiguration} from given {@link DynatraceOpenKitBuilder}.
+     *
+     * @param builder The OpenKit builder for which to create a {@link BeaconSenderConfiguration}.
+     * @return Newly created {@link BeaconSenderConfiguration} or {@code null} if given argument is {@code null}
+     */
+    public static BeaconSenderConfiguration from(DynatraceOpenKitBuilder builder) {
+        if (builder == null) {
+            return null;
+        }
+        return new BeaconSenderConfiguration(builder);
+    }
+
+    /**
+     * Get whether a single new session request is sent for all new sessions.
+     */
+    public boolean isNewSessionRequestCoalescingEnabled() {
+        return newSessionRequestCoalescing;
+    }
+
+    /**
+     * Get the maximum number of beacons sent concurrently.
+     */
+    public int getBeaconSendingParallelism() {
+        return beaconSendingParallelism;
+    }
+
+    /**
+     * Get the fraction of the beacon size above which open sessions are sent early.
+     *
+     * <p>
+     * A value of zero means that early sending is disabled.
+     * </p>
+     */
+    public double getEarlyBeaconSendThreshold() {
+        return earlyBeaconSendThreshold;
+    }
+
+    /**
+     * Get the maximum number of open sessions sent per send interval, {@code 0} if unlimited.
+     */
+    public int getMaxSessionsSentPerInterval() {
+        return maxSessionsSentPerInterval;
+    }
+
+    /**
+     * Get the maximum number of bytes sent for open sessions per send interval, {@code 0} if unlimited.
+     */
+    public long getMaxBytesSentPerInterval() {
+        return maxBytesSentPerInterval;
+    }
+
+    /**
+     * Get the time budget for flushing all sessions on shutdown in milliseconds, {@code 0} if there is no budget.
+     */
+    public long getShutdownFlushTimeoutInMilliseconds() {
+        return shutdownFlushTimeoutInMilliseconds;
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.configuration;
 
+import com.dynatrace.openkit.CaptureBufferFullPolicy;
 import com.dynatrace.openkit.CrashReportingLevel;
 import com.dynatrace.openkit.DataCollectionLevel;
 
@@ -56,6 +57,57 @@ public class ConfigurationDefaults {
     /** Default crash reporting level used, if no other value was specified */
     public static final CrashReportingLevel DEFAULT_CRASH_REPORTING_LEVEL = CrashReportingLevel.defaultValue();
 
+    /**
+     * Defines whether a single new session request is sent for all new sessions, instead of one per session.
+     */
+    public static final boolean DEFAULT_NEW_SESSION_REQUEST_COALESCING = false;
+
+    /**
+     * Defines the maximum number of beacons sent concurrently (default is to send them one after another).
+     */
+    public static final int DEFAULT_BEACON_SENDING_PARALLELISM = 1;
+
+    /**
+     * Defines the fraction of the beacon size, above which open sessions are sent before the send interval expired
+     * (default is to wait for the send interval).
+     */
+    public static final double DEFAULT_EARLY_BEACON_SEND_THRESHOLD = 0.0;
+
+    /**
+     * Defines the maximum number of open sessions sent per send interval (default is unlimited).
+     */
+    public static final int DEFAULT_MAX_SESSIONS_SENT_PER_INTERVAL = 0;
+
+    /**
+     * Defines the maximum number of bytes sent for open sessions per send interval (default is unlimited).
+     */
+    public static final long DEFAULT_MAX_BYTES_SENT_PER_INTERVAL = 0;
+
+    /**
+     * Defines the time budget for flushing all sessions on shutdown (default is no budget).
+     */
+    public static final long DEFAULT_SHUTDOWN_FLUSH_TIMEOUT_IN_MILLIS = 0;
+
+    /**
+     * Defines whether lightweight sessions are created (default is regular sessions).
+     */
+    public static final boolean DEFAULT_LIGHTWEIGHT_SESSIONS = false;
+
+    /**
+     * Defines the time window in which identical errors and events are deduplicated (default is no deduplication).
+     */
+    public static final long DEFAULT_EVENT_DEDUPLICATION_WINDOW_IN_MILLIS = 0;
+
+    /**
+     * Defines the number of events the asynchronous capture buffer can hold (default is synchronous capturing).
+     */
+    public static final int DEFAULT_CAPTURE_BUFFER_CAPACITY = 0;
+
+    /**
+     * Defines what happens if the asynchronous capture buffer is full (default is dropping events).
+     */
+    public static final CaptureBufferFullPolicy DEFAULT_CAPTURE_BUFFER_FULL_POLICY = CaptureBufferFullPolicy.defaultValue();
+
     private ConfigurationDefaults() {
     }
 
@@ -19,6 +19,11 @@ package com.dynatrace.openkit.core.configuration;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.protocol.RetryPolicy;
+import com.dynatrace.openkit.protocol.ssl.SSLSocketFactoryCache;
+
+import java.util.Arrays;
 
 /**
  * The HTTPClientConfiguration holds all http client related settings
@@ -31,7 +36,10 @@ public class HTTPClientConfiguration {
     private final SSLTrustManager sslTrustManager;
     private final HttpRequestInterceptor httpRequestInterceptor;
     private final HttpResponseInterceptor httpResponseInterceptor;
+    private final HttpTransport httpTransport;
+    private final RetryPolicy retryPolicy;
     private final long deviceID;
+    private final SSLSocketFactoryCache sslSocketFactoryCache;
 
     private HTTPClientConfiguration(Builder builder) {
         this.baseURL = builder.baseURL;
@@ -40,7 +48,12 @@ public class HTTPClientConfiguration {
         this.sslTrustManager = builder.sslTrustManager;
         this.httpRequestInterceptor = builder.httpRequestInterceptor;
         this.httpResponseInterceptor = builder.httpResponseInterceptor;
+        this.httpTransport = builder.httpTransport;
+        this.retryPolicy = builder.retryPolicy;
         this.deviceID = builder.deviceID;
+        this.sslSocketFactoryCache = builder.sslSocketFactoryCache != null
+                ? builder.sslSocketFactoryCache
+                : new SSLSocketFactoryCache();
     }
 
     /**
@@ -68,6 +81,8 @@ public class HTTPClientConfiguration {
                 .withServerID(openKitConfig.getDefaultServerID())
                 .withHttpRequestInterceptor(openKitConfig.getHttpRequestInterceptor())
                 .withHttpResponseInterceptor(openKitConfig.getHttpResponseInterceptor())
+                .withHttpTransport(openKitConfig.getHttpTransport())
+                .withRetryPolicy(openKitConfig.getRetryPolicy())
                 .withDeviceID(openKitConfig.getDeviceID());
     }
 
@@ -85,7 +100,10 @@ public class HTTPClientConfiguration {
                 .withServerID(httpClientConfig.getServerID())
                 .withHttpRequestInterceptor(httpClientConfig.getHttpRequestInterceptor())
                 .withHttpResponseInterceptor(httpClientConfig.getHttpResponseInterceptor())
-                .withDeviceID(httpClientConfig.getDeviceID());
+                .withHttpTransport(httpClientConfig.getHttpTransport())
+                .withRetryPolicy(httpClientConfig.getRetryPolicy())
+                .withDeviceID(httpClientConfig.getDeviceID())
+                .withSSLSocketFactoryCache(httpClientConfig.getSSLSocketFactoryCache());
     }
 
     /**
@@ -136,11 +154,65 @@ public class HTTPClientConfiguration {
         return httpResponseInterceptor;
     }
 
+    /**
+     * Returns the transport used for sending HTTP requests, or {@code null} if the builtin one shall be used.
+     */
+    public HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Returns the policy for retrying failed requests.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     /**
      * Returns the unique device identifier
      */
     public long getDeviceID() { return deviceID; }
 
+    /**
+     * Returns the cache holding the SSL socket factory which is shared by all HTTPS connections
+     * created for this configuration.
+     */
+    public SSLSocketFactoryCache getSSLSocketFactoryCache() {
+        return sslSocketFactoryCache;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        // the SSL socket factory cache is intentionally not compared, since it's derived from the trust manager
+        HTTPClientConfiguration that = (HTTPClientConfiguration) o;
+        return serverID == that.serverID
+                && deviceID == that.deviceID
+                && equalsNullSafe(baseURL, that.baseURL)
+                && equalsNullSafe(applicationID, that.applicationID)
+                && equalsNullSafe(sslTrustManager, that.sslTrustManager)
+                && equalsNullSafe(httpRequestInterceptor, that.httpRequestInterceptor)
+                && equalsNullSafe(httpResponseInterceptor, that.httpResponseInterceptor)
+                && equalsNullSafe(httpTransport, that.httpTransport)
+                && equalsNullSafe(retryPolicy, that.retryPolicy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{baseURL, serverID, applicationID, sslTrustManager,
+                httpRequestInterceptor, httpResponseInterceptor, httpTransport, retryPolicy, deviceID});
+    }
+
+    private static boolean equalsNullSafe(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
     /**
      * Builder class for building {@link HTTPClientConfiguration}.
      */
@@ -152,8 +224,10 @@ public class HTTPClientConfiguration {
         private SSLTrustManager sslTrustManager = null;
         private HttpRequestInterceptor httpRequestInterceptor = null;
         private HttpResponseInterceptor httpResponseInterceptor = null;
+        private HttpTransport httpTransport = null;
+        private RetryPolicy retryPolicy = null;
         private long deviceID;
-
+        private SSLSocketFactoryCache sslSocketFactoryCache = null;
 
         public Builder withBaseURL(String baseURL) {
             this.baseURL = baseURL;
@@ -171,6 +245,10 @@ public class HTTPClientConfiguration {
         }
 
         public Builder withSSLTrustManager(SSLTrustManager sslTrustManager) {
+            if (this.sslTrustManager != sslTrustManager) {
+                // a different trust manager requires a different SSL socket factory
+                this.sslSocketFactoryCache = null;
+            }
             this.sslTrustManager = sslTrustManager;
             return this;
         }
@@ -185,11 +263,26 @@ public class HTTPClientConfiguration {
             return this;
         }
 
+        public Builder withHttpTransport(HttpTransport httpTransport) {
+            this.httpTransport = httpTransport;
+            return this;
+        }
+
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
         public Builder withDeviceID(long deviceID) {
             this.deviceID = deviceID;
             return this;
         }
 
+        Builder withSSLSocketFactoryCache(SSLSocketFactoryCache sslSocketFactoryCache) {
+            this.sslSocketFactoryCache = sslSocketFactoryCache;
+            return this;
+        }
+
         public HTTPClientConfiguration build() {
             return new HTTPClientConfiguration(this);
         }
@@ -19,8 +19,10 @@ package com.dynatrace.openkit.core.configuration;
 import com.dynatrace.openkit.DynatraceOpenKitBuilder;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
 import com.dynatrace.openkit.core.util.PercentEncoder;
+import com.dynatrace.openkit.protocol.RetryPolicy;
 
 /**
  * Configuration class storing all configuration parameters that have been configured via
@@ -67,6 +69,15 @@ public class OpenKitConfiguration {
     private final HttpRequestInterceptor httpRequestInterceptor;
     /** HTTP response interceptor configured in OpenKit builder */
     private final HttpResponseInterceptor httpResponseInterceptor;
+    /** HTTP transport configured in OpenKit builder */
+    private final HttpTransport httpTransport;
+    /** Retry policy configured in OpenKit builder */
+    private final RetryPolicy retryPolicy;
+
+    /** Indicates whether lightweight sessions are created */
+    private final boolean lightweightSessions;
+    /** Time window in which identical errors and events are deduplicated */
+    private final long eventDeduplicationWindowInMilliseconds;
 
     /**
      * Initialize this configuration.
@@ -88,6 +99,10 @@ public class OpenKitConfiguration {
         sslTrustManager = builder.getTrustManager();
         httpRequestInterceptor = builder.getHttpRequestInterceptor();
         httpResponseInterceptor = builder.getHttpResponseInterceptor();
+        httpTransport = builder.getHttpTransport();
+        retryPolicy = builder.getRetryPolicy();
+        lightweightSessions = builder.isLightweightSessionsEnabled();
+        eventDeduplicationWindowInMilliseconds = builder.getEventDeduplicationWindowInMilliseconds();
     }
 
     /**
@@ -228,4 +243,40 @@ public class OpenKitConfiguration {
     public HttpResponseInterceptor getHttpResponseInterceptor() {
         return httpResponseInterceptor;
     }
+
+    /**
+     * Get {@link HttpTransport} configured in builder.
+     *
+     * @return {@link HttpTransport} or {@code null} if the builtin transport shall be used.
+     */
+    public HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Get {@link RetryPolicy} configured in builder.
+     *
+     * @return {@link RetryPolicy}.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Indicates whether lightweight sessions are created, as configured in builder.
+     *
+     * @return {@code true} if lightweight sessions are created, {@code false} otherwise.
+     */
+    public boolean isLightweightSessionsEnabled() {
+        return lightweightSessions;
+    }
+
+    /**
+     * Get the time window in which identical errors and events are deduplicated, as configured in builder.
+     *
+     * @return the deduplication window in milliseconds, or {@code 0} if deduplication is disabled.
+     */
+    public long getEventDeduplicationWindowInMilliseconds() {
+        return eventDeduplicationWindowInMilliseconds;
+    }
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+/**
+ * Client side aggregate of the values reported via {@link BaseActionImpl#reportAggregatedValue(String, double)}.
+ *
+ * <p>
+ * Only count, sum, minimum and maximum are kept, therefore adding a value does not allocate any memory.
+ * This class is not thread safe, the caller is responsible for synchronization.
+ * </p>
+ */
+final class AggregatedValue {
+
+    /** Suffix appended to the value name when reporting the number of aggregated values */
+    static final String COUNT_SUFFIX = ".count";
+    /** Suffix appended to the value name when reporting the sum of all aggregated values */
+    static final String SUM_SUFFIX = ".sum";
+    /** Suffix appended to the value name when reporting the smallest aggregated value */
+    static final String MIN_SUFFIX = ".min";
+    /** Suffix appended to the value name when reporting the largest aggregated value */
+    static final String MAX_SUFFIX = ".max";
+
+    /** number of values added so far */
+    private long count = 0;
+    /** sum of all values added so far */
+    private double sum = 0.0;
+    /** smallest value added so far */
+    private double min = Double.POSITIVE_INFINITY;
+    /** largest value added so far */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Adds the given value to this aggregate.
+     *
+     * @param value The value to add.
+     */
+    void add(double value) {
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Get the number of values added to this aggregate.
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the sum of all values added to this aggregate.
+     */
+    double getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the smallest value added to this aggregate.
+     *
+     * <p>
+     * If no value was added, {@link Double#POSITIVE_INFINITY} is returned.
+     * </p>
+     */
+    double getMin() {
+        return min;
+    }
+
+    /**
+     * Get the largest value added to this aggregate.
+     *
+     * <p>
+     * If no value was added, {@link Double#NEGATIVE_INFINITY} is returned.
+     * </p>
+     */
+    double getMax() {
+        return max;
+    }
+}
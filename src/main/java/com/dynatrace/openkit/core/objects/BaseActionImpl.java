@@ -23,7 +23,11 @@ import com.dynatrace.openkit.protocol.Beacon;
 
 import java.io.IOException;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract base class implementing the {@link Action} interface.
@@ -55,12 +59,39 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
     /** End sequence number of this {@link Action} */
     private int endSequenceNo = -1;
 
-    /** boolean indicating whether this action has been left or not */
-    private boolean isActionLeft;
+    /**
+     * boolean indicating whether this action has been left or not
+     *
+     * <p>
+     * The flag is only modified while holding {@link #lockObject}, but read without the lock,
+     * so that threads reporting events, values or errors do not contend on this action.
+     * </p>
+     */
+    private volatile boolean isActionLeft;
+
+    /**
+     * Number of reports of events, values or errors which are currently added to the beacon.
+     *
+     * <p>
+     * Leaving or canceling this action waits until all reports, which observed the action as not left, are added,
+     * before the end sequence number is created.
+     * </p>
+     */
+    private final AtomicInteger inFlightReports = new AtomicInteger(0);
 
     /** Beacon for sending data */
     final Beacon beacon;
 
+    /**
+     * Values reported via {@link #reportAggregatedValue(String, double)}, in order of their first occurrence.
+     *
+     * <p>
+     * The map is guarded by itself and not by {@link #lockObject}, so that aggregating values does not contend
+     * with adding or removing child objects.
+     * </p>
+     */
+    private final Map<String, AggregatedValue> aggregatedValues = new LinkedHashMap<>();
+
     /**
      * Constructor for constructing the base action class.
      *
@@ -102,12 +133,18 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportEvent: eventName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            // nothing would be captured, therefore skip any further work
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportEvent(" + eventName + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportEvent(getID(), eventName);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -119,12 +156,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportValue (int): valueName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (int) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportValue(getID(), valueName, value);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -136,12 +178,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportValue (long): valueName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (long) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportValue(getID(), valueName, value);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -153,12 +200,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportValue (double): valueName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (double) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportValue(getID(), valueName, value);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -170,12 +222,71 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportValue (String): valueName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (String) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportValue(getID(), valueName, value);
+            } finally {
+                endReport();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Action reportValues(Map<String, ? extends Number> values) {
+        if (values == null || values.isEmpty()) {
+            logger.warning(this + "reportValues: values must not be null or empty");
+            return this;
+        }
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().isEmpty() || entry.getValue() == null) {
+                // such entries are skipped by the beacon
+                logger.warning(this + "reportValues: entries with null or empty valueName or null value are skipped");
+                break;
+            }
+        }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "reportValues(" + values + ")");
+        }
+        if (beginReport()) {
+            try {
+                beacon.reportValues(getID(), values);
+            } finally {
+                endReport();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Action reportAggregatedValue(String valueName, double value) {
+        if (valueName == null || valueName.isEmpty()) {
+            logger.warning(this + "reportAggregatedValue: valueName must not be null or empty");
+            return this;
+        }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "reportAggregatedValue(" + valueName + ", " + value + ")");
+        }
+        synchronized (aggregatedValues) {
+            if (!isActionLeft()) {
+                AggregatedValue aggregatedValue = aggregatedValues.get(valueName);
+                if (aggregatedValue == null) {
+                    aggregatedValue = new AggregatedValue();
+                    aggregatedValues.put(valueName, aggregatedValue);
+                }
+                aggregatedValue.add(value);
             }
         }
         return this;
@@ -187,12 +298,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportError: errorName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportError(" + errorName + ", " + errorCode + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportError(getID(), errorName, errorCode);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -204,12 +320,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportError: errorName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportError(" + errorName + ", " + causeName + ", " + causeDescription + ", " + causeStackTrace + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportError(getID(), errorName, causeName, causeDescription, causeStackTrace);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -221,12 +342,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "reportError: errorName must not be null or empty");
             return this;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportError(" + errorName + ", " + throwable + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
+        if (beginReport()) {
+            try {
                 beacon.reportError(getID(), errorName, throwable);
+            } finally {
+                endReport();
             }
         }
         return this;
@@ -238,6 +364,9 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "traceWebRequest (URLConnection): connection must not be null");
             return NullWebRequestTracer.INSTANCE;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return NullWebRequestTracer.INSTANCE;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (URLConnection) (" + connection + ")");
         }
@@ -263,6 +392,9 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             logger.warning(this + "traceWebRequest (String): url \"" + url + "\" does not have a valid scheme");
             return NullWebRequestTracer.INSTANCE;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return NullWebRequestTracer.INSTANCE;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest(" + url + ")");
         }
@@ -305,6 +437,9 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             isActionLeft = true;
         }
 
+        // wait for reports which observed this action as not left
+        awaitInFlightReports();
+
         // close all child object
         // Note: at this point it's save to do any further operations outside a synchronized block
         // after the endTime has been set, no further child objects must be added
@@ -327,6 +462,11 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
             }
         }
 
+        // report aggregated values before the end sequence number is created
+        if (!discardData) {
+            reportAggregatedValues();
+        }
+
         // set end time and end sequence number
         endTime = beacon.getCurrentTimestamp();
         endSequenceNo = beacon.createSequenceNumber();
@@ -343,6 +483,79 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Cancela
         return getParentAction();
     }
 
+    /**
+     * Registers a report of an event, value or error, which must be completed by calling {@link #endReport()}.
+     *
+     * @return {@code true} if the report may be added to the beacon, {@code false} if the action was already left.
+     */
+    private boolean beginReport() {
+        inFlightReports.incrementAndGet();
+        if (isActionLeft) {
+            endReport();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Completes a report started with {@link #beginReport()}.
+     */
+    private void endReport() {
+        if (inFlightReports.decrementAndGet() == 0 && isActionLeft) {
+            synchronized (inFlightReports) {
+                inFlightReports.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all reports started before this action was left are completed.
+     *
+     * <p>
+     * This must only be called after {@link #isActionLeft} was set, so that no further reports are started.
+     * </p>
+     */
+    private void awaitInFlightReports() {
+        synchronized (inFlightReports) {
+            while (inFlightReports.get() > 0) {
+                try {
+                    inFlightReports.wait();
+                } catch (InterruptedException e) {
+                    logger.warning(this + "Interrupted while waiting for reports of leaving action");
+                    Thread.currentThread().interrupt(); // re-interrupt the current thread
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports all values aggregated by {@link #reportAggregatedValue(String, double)} to the beacon.
+     *
+     * <p>
+     * This must only be called after the action was left, so that no further values are aggregated.
+     * </p>
+     */
+    private void reportAggregatedValues() {
+        List<Map.Entry<String, AggregatedValue>> entries;
+        synchronized (aggregatedValues) {
+            if (aggregatedValues.isEmpty()) {
+                return;
+            }
+            entries = new ArrayList<>(aggregatedValues.entrySet());
+        }
+
+        for (Map.Entry<String, AggregatedValue> entry : entries) {
+            String valueName = entry.getKey();
+            AggregatedValue aggregatedValue = entry.getValue();
+
+            beacon.reportValue(getID(), valueName + AggregatedValue.COUNT_SUFFIX, aggregatedValue.getCount());
+            beacon.reportValue(getID(), valueName + AggregatedValue.SUM_SUFFIX, aggregatedValue.getSum());
+            beacon.reportValue(getID(), valueName + AggregatedValue.MIN_SUFFIX, aggregatedValue.getMin());
+            beacon.reportValue(getID(), valueName + AggregatedValue.MAX_SUFFIX, aggregatedValue.getMax());
+        }
+    }
+
     @Override
     public long getDurationInMilliseconds() {
         synchronized (lockObject) {
@@ -21,6 +21,7 @@ import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.WebRequestTracer;
 
 import java.net.URLConnection;
+import java.util.Map;
 
 /**
  * This class is returned as Action by {@link RootAction#enterAction(String)} when the {@link RootAction#leaveAction()}
@@ -63,6 +64,16 @@ class NullAction implements Action {
         return this;
     }
 
+    @Override
+    public Action reportValues(Map<String, ? extends Number> values) {
+        return this;
+    }
+
+    @Override
+    public Action reportAggregatedValue(String valueName, double value) {
+        return this;
+    }
+
     @Override
     public Action reportError(String errorName, int errorCode) {
         return this;
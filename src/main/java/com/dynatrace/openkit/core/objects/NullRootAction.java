@@ -22,6 +22,7 @@ import com.dynatrace.openkit.api.Session;
 import com.dynatrace.openkit.api.WebRequestTracer;
 
 import java.net.URLConnection;
+import java.util.Map;
 
 /**
  * This implementation of {@link RootAction} is returned by {@link Session#enterAction(String)} when the
@@ -64,6 +65,16 @@ public enum NullRootAction implements RootAction {
         return this;
     }
 
+    @Override
+    public Action reportValues(Map<String, ? extends Number> values) {
+        return this;
+    }
+
+    @Override
+    public Action reportAggregatedValue(String valueName, double value) {
+        return this;
+    }
+
     @Override
     public Action reportError(String errorName, int errorCode) {
         return this;
@@ -17,6 +17,7 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.ConnectionType;
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.Session;
@@ -91,6 +92,11 @@ public enum NullSession implements Session {
         // intentionally left empty, due to NullObject pattern
     }
 
+    @Override
+    public FlushResult flush(long timeoutMillis) {
+        return new FlushResult(0, 0);
+    }
+
     @Override
     public void end() {
         // intentionally left empty, due to NullObject pattern
@@ -16,8 +16,13 @@
 
 package com.dynatrace.openkit.core.objects;
 
-import java.util.LinkedList;
+import com.dynatrace.openkit.api.FlushResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A composite base class for OpenKit objects.
@@ -33,17 +38,44 @@ public abstract class OpenKitComposite implements OpenKitObject {
     private static final int DEFAULT_ACTION_ID = 0;
 
     /**
-     * Container storing the children of this composite.
+     * Container storing the children of this composite, mapping each child (by identity) to its list node.
+     *
+     * <p>
+     *     The nodes form a doubly linked list, which keeps the insertion order of the children,
+     *     while adding and removing a child are constant time operations.
+     * </p>
      */
-    private final List<OpenKitObject> children = new LinkedList<>();
+    private final Map<OpenKitObject, ChildNode> children = new IdentityHashMap<>();
+
+    /** First child node in insertion order, {@code null} if there are no children */
+    private ChildNode head;
+    /** Last child node in insertion order, {@code null} if there are no children */
+    private ChildNode tail;
 
     /**
      * Add a child object to the list of children.
      *
+     * <p>
+     *     Adding a child object, which is already stored, has no effect.
+     * </p>
+     *
      * @param childObject The child object to add.
      */
     void storeChildInList(OpenKitObject childObject) {
-        children.add(childObject);
+        if (children.containsKey(childObject)) {
+            return;
+        }
+
+        ChildNode node = new ChildNode(childObject);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.previous = tail;
+        }
+        tail = node;
+
+        children.put(childObject, node);
     }
 
     /**
@@ -53,16 +85,45 @@ public abstract class OpenKitComposite implements OpenKitObject {
      * @return {@code true} if the given {@code childObject} was successfully removed, {@code false} otherwise.
      */
     boolean removeChildFromList(OpenKitObject childObject) {
-        return children.remove(childObject);
+        ChildNode node = children.remove(childObject);
+        if (node == null) {
+            return false;
+        }
+
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+
+        return true;
     }
 
     /**
-     * Get a shallow copy of the {@link OpenKitObject} child objects.
+     * Get a shallow copy of the {@link OpenKitObject} child objects in the order they were added.
+     *
+     * <p>
+     *     If there are no child objects, an immutable empty list is returned without allocating a copy.
+     * </p>
      *
      * @return Shallow copy of child objects
      */
     List<OpenKitObject> getCopyOfChildObjects() {
-        return new LinkedList<>(children);
+        if (children.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<OpenKitObject> copy = new ArrayList<>(children.size());
+        for (ChildNode node = head; node != null; node = node.next) {
+            copy.add(node.childObject);
+        }
+
+        return copy;
     }
 
     /**
@@ -82,6 +143,22 @@ public abstract class OpenKitComposite implements OpenKitObject {
      */
     abstract void onChildClosed(OpenKitObject childObject);
 
+    /**
+     * Method to request flushing the data of a child object.
+     *
+     * <p>
+     *     The default implementation returns {@code null}, meaning that this composite cannot flush data.
+     *     Composites which are able to send data need to override this method.
+     * </p>
+     *
+     * @param childObject The child object requesting to be flushed.
+     * @param timeoutMillis The maximum number of milliseconds to wait for the data being sent.
+     * @return The result of flushing or {@code null} if flushing is not supported by this composite.
+     */
+    FlushResult onChildFlushRequested(OpenKitObject childObject, long timeoutMillis) {
+        return null;
+    }
+
     /**
      * Get the action id of this composite or {@code 0} if the composite is not an action.
      *
@@ -95,4 +172,18 @@ public abstract class OpenKitComposite implements OpenKitObject {
     public int getActionID() {
         return DEFAULT_ACTION_ID;
     }
+
+    /**
+     * Node of the doubly linked list keeping the insertion order of the child objects.
+     */
+    private static final class ChildNode {
+
+        private final OpenKitObject childObject;
+        private ChildNode previous;
+        private ChildNode next;
+
+        private ChildNode(OpenKitObject childObject) {
+            this.childObject = childObject;
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.OpenKitConstants;
@@ -27,6 +28,7 @@ import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.SessionIDProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
@@ -63,10 +65,15 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
     /** watchdog thread to perform certain actions on a session after a specific time */
     private final SessionWatchdog sessionWatchdog;
 
+    /** Pipeline for capturing events asynchronously, {@code null} if asynchronous capturing is disabled */
+    private final CapturePipeline capturePipeline;
+
     /** Boolean value, indicating whether this {@link OpenKit} instance is shutdown or not */
     private boolean isShutdown = false;
     /** Object for synchronizing access */
     private final Object lockObject = new Object();
+    /** Basic beacon data shared by all sessions, serialized when the first session is created */
+    private volatile Beacon.SharedBasicData sharedBasicBeaconData;
 
     /**
      * Public constructor for creating an OpenKit instance.
@@ -84,6 +91,7 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
         this.beaconSender = initializer.getBeaconSender();
         this.beaconCacheEvictor = initializer.getBeaconCacheEvictor();
         this.sessionWatchdog = initializer.getSessionWatchdog();
+        this.capturePipeline = initializer.getCapturePipeline();
 
         logOpenKitInstanceCreation(this.logger, this.openKitConfiguration);
     }
@@ -121,6 +129,9 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
     public void initialize() {
         beaconCacheEvictor.start();
         sessionWatchdog.initialize();
+        if (capturePipeline != null) {
+            capturePipeline.start();
+        }
         beaconSender.initialize();
     }
 
@@ -158,7 +169,8 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
                         sessionCreator,
                         timingProvider,
                         beaconSender,
-                        sessionWatchdog
+                        sessionWatchdog,
+                        openKitConfiguration.isLightweightSessionsEnabled()
                 );
 
                 storeChildInList(sessionProxy);
@@ -175,6 +187,19 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
         return createSession(null);
     }
 
+    @Override
+    public FlushResult flush(long timeoutMillis) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " flush(" + timeoutMillis + ")");
+        }
+
+        if (capturePipeline != null) {
+            capturePipeline.awaitSerialization();
+        }
+
+        return beaconSender.flush(null, timeoutMillis);
+    }
+
     @Override
     public void shutdown() {
         if (logger.isDebugEnabled()) {
@@ -199,6 +224,11 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
             }
         }
 
+        // all sessions are closed, so remaining captured events can be serialized before the last beacons are sent
+        if (capturePipeline != null) {
+            capturePipeline.shutdown();
+        }
+
         beaconCacheEvictor.stop();
         sessionWatchdog.shutdown();
         beaconSender.shutdown();
@@ -254,4 +284,21 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit, SessionCre
     public int getCurrentServerId() {
         return beaconSender.getCurrentServerId();
     }
+
+    @Override
+    public CapturePipeline getCapturePipeline() {
+        return capturePipeline;
+    }
+
+    @Override
+    public Beacon.SharedBasicData getSharedBasicBeaconData() {
+        Beacon.SharedBasicData result = sharedBasicBeaconData;
+        if (result == null) {
+            // concurrent initialization is harmless, since the same data is serialized
+            result = Beacon.SharedBasicData.create(logger, openKitConfiguration, privacyConfiguration);
+            sharedBasicBeaconData = result;
+        }
+
+        return result;
+    }
 }
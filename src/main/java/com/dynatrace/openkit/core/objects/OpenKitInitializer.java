@@ -23,6 +23,7 @@ import com.dynatrace.openkit.core.caching.BeaconCache;
 import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.SessionIDProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
@@ -81,4 +82,9 @@ public interface OpenKitInitializer {
      * Watchdog thread to perform certain actions for sessions at/after a specific time.
      */
     SessionWatchdog getSessionWatchdog();
+
+    /**
+     * Serializer thread for capturing events asynchronously, {@code null} if asynchronous capturing is disabled.
+     */
+    CapturePipeline getCapturePipeline();
 }
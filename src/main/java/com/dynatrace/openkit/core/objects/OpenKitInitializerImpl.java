@@ -24,9 +24,11 @@ import com.dynatrace.openkit.core.caching.BeaconCache;
 import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
 import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
 import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconSenderConfiguration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.DefaultHTTPClientProvider;
 import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
 import com.dynatrace.openkit.providers.DefaultThreadIDProvider;
@@ -47,6 +49,7 @@ public class OpenKitInitializerImpl implements OpenKitInitializer {
     private final BeaconCacheEvictor beaconCacheEvictor;
     private final BeaconSender beaconSender;
     private final SessionWatchdog sessionWatchdog;
+    private final CapturePipeline capturePipeline;
 
     public OpenKitInitializerImpl(DynatraceOpenKitBuilder builder) {
         logger = builder.getLogger();
@@ -61,8 +64,12 @@ public class OpenKitInitializerImpl implements OpenKitInitializer {
         beaconCacheEvictor = new BeaconCacheEvictor(logger, beaconCache, BeaconCacheConfiguration.from(builder), timingProvider);
 
         HTTPClientConfiguration httpClientConfig = HTTPClientConfiguration.from(openKitConfiguration);
-        beaconSender = new BeaconSender(logger, httpClientConfig, new DefaultHTTPClientProvider(logger), timingProvider);
+        beaconSender = new BeaconSender(logger, httpClientConfig, new DefaultHTTPClientProvider(logger, timingProvider),
+                timingProvider, BeaconSenderConfiguration.from(builder));
         sessionWatchdog = new SessionWatchdog(logger, new SessionWatchdogContext(timingProvider));
+        capturePipeline = builder.getCaptureBufferCapacity() > 0
+                ? new CapturePipeline(logger, timingProvider, builder.getCaptureBufferCapacity(), builder.getCaptureBufferFullPolicy())
+                : null;
     }
 
 
@@ -115,4 +122,9 @@ public class OpenKitInitializerImpl implements OpenKitInitializer {
     public SessionWatchdog getSessionWatchdog() {
         return sessionWatchdog;
     }
+
+    @Override
+    public CapturePipeline getCapturePipeline() {
+        return capturePipeline;
+    }
 }
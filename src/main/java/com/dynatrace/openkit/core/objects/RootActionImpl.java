@@ -44,6 +44,9 @@ public class RootActionImpl extends BaseActionImpl implements RootAction {
             logger.warning(this + "enterAction: actionName must not be null or empty");
             return new NullAction(this);
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return new NullAction(this);
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "enterAction(" + actionName + ")");
         }
@@ -22,6 +22,7 @@ import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
 import com.dynatrace.openkit.protocol.BeaconInitializer;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.DefaultRandomNumberGenerator;
 import com.dynatrace.openkit.providers.FixedRandomNumberGenerator;
 import com.dynatrace.openkit.providers.FixedSessionIdProvider;
@@ -60,6 +61,10 @@ public class SessionCreatorImpl implements SessionCreator, BeaconInitializer {
 
     private final SupplementaryBasicData supplementaryBasicData;
 
+    private final Beacon.SharedBasicData sharedBasicData;
+
+    private final CapturePipeline capturePipeline;
+
     SessionCreatorImpl(SessionCreatorInput input, String clientIpAddress) {
         this.logger = input.getLogger();
         this.openKitConfiguration = input.getOpenKitConfiguration();
@@ -73,6 +78,8 @@ public class SessionCreatorImpl implements SessionCreator, BeaconInitializer {
         this.continuousSessionIdProvider = input.getSessionIdProvider();
         this.continuousRandomGenerator = new DefaultRandomNumberGenerator();
         this.supplementaryBasicData = new SupplementaryBasicDataImpl();
+        this.sharedBasicData = input.getSharedBasicBeaconData();
+        this.capturePipeline = input.getCapturePipeline();
 
 
         initializeFixedNumberProviders();
@@ -153,4 +160,14 @@ public class SessionCreatorImpl implements SessionCreator, BeaconInitializer {
     public SupplementaryBasicData getSupplementaryBasicData() {
         return supplementaryBasicData;
     }
+
+    @Override
+    public Beacon.SharedBasicData getSharedBasicData() {
+        return sharedBasicData;
+    }
+
+    @Override
+    public CapturePipeline getCapturePipeline() {
+        return capturePipeline;
+    }
 }
@@ -20,6 +20,8 @@ import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.caching.BeaconCache;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.SessionIDProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
@@ -68,4 +70,14 @@ public interface SessionCreatorInput {
      * Returns the current server ID.
      */
     int getCurrentServerId();
+
+    /**
+     * Returns the serialized basic beacon data shared by all sessions.
+     */
+    Beacon.SharedBasicData getSharedBasicBeaconData();
+
+    /**
+     * Returns the pipeline for capturing events asynchronously, or {@code null} if asynchronous capturing is disabled.
+     */
+    CapturePipeline getCapturePipeline();
 }
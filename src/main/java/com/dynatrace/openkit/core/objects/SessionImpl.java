@@ -17,6 +17,7 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.ConnectionType;
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.Session;
@@ -33,6 +34,7 @@ import java.net.URLConnection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -61,6 +63,8 @@ public class SessionImpl extends OpenKitComposite implements Session {
     private int numRemainingNewSessionRequests = MAX_NEW_SESSION_REQUESTS;
     /** the time when the session is to be ended (including a grace period from when the session was split by events) */
     private final AtomicLong splitByEventsGracePeriodEndTimeInMillis = new AtomicLong(-1);
+    /** indicates whether the beacon of this session is currently being sent */
+    private final AtomicBoolean isBeaconSendInProgress = new AtomicBoolean(false);
 
     /** Container for additional mutable basic data which can be set via session */
     private final SupplementaryBasicData supplementaryBasicData;
@@ -86,6 +90,10 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "enterAction: actionName must not be null or empty");
             return NullRootAction.INSTANCE;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            // nothing would be captured, therefore skip creating the action
+            return NullRootAction.INSTANCE;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "enterAction(" + actionName + ")");
         }
@@ -118,6 +126,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "reportCrash: errorName must not be null or empty");
             return;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportCrash(" + errorName + ", " + reason + ", " + stacktrace + ")");
         }
@@ -134,6 +145,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "reportCrash: throwable must not be null");
             return;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportCrash(" + throwable + ")");
         }
@@ -187,6 +201,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "traceWebRequest (URLConnection): connection must not be null");
             return NullWebRequestTracer.INSTANCE;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return NullWebRequestTracer.INSTANCE;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (URLConnection) (" + connection + ")");
         }
@@ -211,6 +228,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "traceWebRequest (String): url \"" + url + "\" does not have a valid scheme");
             return NullWebRequestTracer.INSTANCE;
         }
+        if (!beacon.isDataCapturingEnabled()) {
+            return NullWebRequestTracer.INSTANCE;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (String) (" + url + ")");
         }
@@ -227,9 +247,22 @@ public class SessionImpl extends OpenKitComposite implements Session {
 
     @Override
     public void sendBizEvent(String type, Map<String, JSONValue> attributes) {
+        trySendBizEvent(type, attributes);
+    }
+
+    /**
+     * Sends a business event like {@link #sendBizEvent(String, Map)}.
+     *
+     * @return {@code false} if the event was dropped because this session is already finishing or finished,
+     *  {@code true} otherwise.
+     */
+    boolean trySendBizEvent(String type, Map<String, JSONValue> attributes) {
         if (type == null || type.isEmpty()) {
             logger.warning(this + "sendBizEvent (String, Map): type must not be null or empty");
-            return;
+            return true;
+        }
+        if (!beacon.isDataCapturingEnabled()) {
+            return true;
         }
 
         if (attributes == null) {
@@ -241,16 +274,28 @@ public class SessionImpl extends OpenKitComposite implements Session {
         }
 
         synchronized (state) {
-            if (!state.isFinishingOrFinished()) {
-                beacon.sendBizEvent(type, attributes);
+            if (state.isFinishingOrFinished()) {
+                return false;
             }
+            beacon.sendBizEvent(type, attributes);
         }
+
+        return true;
     }
 
-    void sendEvent(String name, Map<String, JSONValue> attributes) {
+    /**
+     * Sends an event with the given name and attributes.
+     *
+     * @return {@code false} if the event was dropped because this session is already finishing or finished,
+     *  {@code true} otherwise.
+     */
+    boolean sendEvent(String name, Map<String, JSONValue> attributes) {
         if (name == null || name.isEmpty()) {
             logger.warning(this + "sendEvent (String, Map): name must not be null or empty");
-            return;
+            return true;
+        }
+        if (!beacon.isDataCapturingEnabled()) {
+            return true;
         }
 
         if (attributes == null) {
@@ -262,10 +307,29 @@ public class SessionImpl extends OpenKitComposite implements Session {
         }
 
         synchronized (state) {
-            if (!state.isFinishingOrFinished()) {
-                beacon.sendEvent(name, attributes);
+            if (state.isFinishingOrFinished()) {
+                return false;
             }
+            beacon.sendEvent(name, attributes);
         }
+
+        return true;
+    }
+
+    /**
+     * Flushes the data of this session.
+     *
+     * <p>
+     * Flushing is requested from the parent composite, since only the parent knows the beacon sender.
+     * If the parent does not support flushing, or this session was already ended, nothing is sent.
+     * </p>
+     */
+    @Override
+    public FlushResult flush(long timeoutMillis) {
+        OpenKitComposite currentParent = parent;
+        FlushResult result = currentParent != null ? currentParent.onChildFlushRequested(this, timeoutMillis) : null;
+
+        return result != null ? result : new FlushResult(0, getPendingDataSizeInBytes());
     }
 
     @Override
@@ -295,11 +359,16 @@ public class SessionImpl extends OpenKitComposite implements Session {
             }
         }
 
+        // add asynchronously captured events and occurrences of deduplicated ones before the session is closed
+        beacon.flushCapturedEvents();
+        beacon.flushDeduplicatedEvents();
+
         // send the end event, only if a session is explicitly ended
         if (sendSessionEndEvent) {
             beacon.endSession();
         }
 
+        beacon.markSessionAsFinished();
         state.markAsFinished();
 
         // last but not least update parent relation
@@ -353,13 +422,38 @@ public class SessionImpl extends OpenKitComposite implements Session {
     /**
      * Sends the current beacon state.
      *
+     * <p>
+     * If the beacon is already being sent by another thread, e.g. by a parallel sending worker which was abandoned
+     * after a timeout, nothing is sent, since the beacon cache does not allow sending the same beacon concurrently.
+     * </p>
+     *
      * @param clientProvider Provider class providing the client for data transmission.
      * @param additionalParameters additional parameters that will be appended to the beacon request (can be {@code null}).
      *
-     * @return Response from client.
+     * @return Response from client, or {@code null} if nothing was sent.
      */
     public StatusResponse sendBeacon(HTTPClientProvider clientProvider, AdditionalQueryParameters additionalParameters) {
-        return beacon.send(clientProvider, additionalParameters);
+        if (!isBeaconSendInProgress.compareAndSet(false, true)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(this + "sendBeacon() - skipped, since the beacon is already being sent");
+            }
+            return null;
+        }
+
+        try {
+            return beacon.send(clientProvider, additionalParameters);
+        } finally {
+            isBeaconSendInProgress.set(false);
+        }
+    }
+
+    /**
+     * Get a boolean indicating whether the beacon of this session is currently being sent.
+     *
+     * @return {@code true} if another thread is sending the beacon, {@code false} otherwise.
+     */
+    public boolean isBeaconSendInProgress() {
+        return isBeaconSendInProgress.get();
     }
 
     /**
@@ -386,6 +480,15 @@ public class SessionImpl extends OpenKitComposite implements Session {
         return beacon.isEmpty();
     }
 
+    /**
+     * Get the number of bytes captured by this session, which are not yet sent.
+     *
+     * @return The number of bytes awaiting to be sent.
+     */
+    public long getPendingDataSizeInBytes() {
+        return beacon.getPendingDataSizeInBytes();
+    }
+
     /**
      * Initializes the {@link Beacon} with the given {@link ServerConfiguration}
      */
@@ -16,6 +16,7 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.ConnectionType;
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.Session;
@@ -25,14 +26,21 @@ import com.dynatrace.openkit.core.SessionWatchdog;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.core.configuration.ServerConfigurationUpdateCallback;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EarlySendCallback;
+import com.dynatrace.openkit.protocol.PriorityDataCallback;
 import com.dynatrace.openkit.providers.TimingProvider;
 import com.dynatrace.openkit.util.json.objects.JSONValue;
 
 import java.io.IOException;
 import java.net.URLConnection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implements a surrogate for a {@link Session} to perform session splitting after:
@@ -41,10 +49,21 @@ import java.util.Map;
  *     <li>after a configured idle timeout</li>
  *     <li>after a configured maximum session duration</li>
  * </ul>
+ *
+ * <p>
+ *     The current session is published via an atomic reference, therefore threads reporting data through this proxy
+ *     do not need to synchronize with each other. Only threads splitting the session, ending the proxy or updating
+ *     the server configuration serialize on the {@link #lockObject}.
+ * </p>
+ *
+ * <p>
+ *     A session might be split and ended concurrently, after a reporting thread obtained it as current session.
+ *     Data dropped by the ended session is therefore reported again on the new current session.
+ * </p>
  */
 public class SessionProxyImpl extends OpenKitComposite implements Session, ServerConfigurationUpdateCallback {
 
-    // object used for synchronization.
+    // object used for synchronizing session splits and state changes.
     private final Object lockObject = new Object();
     // log message reporter
     private final Logger logger;
@@ -58,18 +77,20 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
     private final BeaconSender beaconSender;
     // watchdog to split sessions after idle/max timeout or to close split off sessions which were not closable on split
     private final SessionWatchdog sessionWatchdog;
+    // indicates whether this is a lightweight session
+    private final boolean isLightweight;
     // the current session instance
-    private SessionImpl currentSession;
+    private final AtomicReference<SessionImpl> currentSession = new AtomicReference<>();
     // holds the number of received calls to enterAction
-    private int topLevelActionCount = 0;
+    private final AtomicInteger topLevelActionCount = new AtomicInteger(0);
     // specifies the timestamp when the last top level event happened
-    private long lastInteractionTime;
+    private volatile long lastInteractionTime;
     // the server configuration of the first session (will be initialized when first session is updated with server config)
-    private ServerConfiguration serverConfiguration;
+    private volatile ServerConfiguration serverConfiguration;
     // indicates if this session proxy was already finished
-    private boolean isFinished;
+    private volatile boolean isFinished;
     // last user tag reported via identifyUser
-    private String lastUserTag = null;
+    private volatile String lastUserTag = null;
 
     SessionProxyImpl(
             Logger logger,
@@ -78,6 +99,26 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             TimingProvider timingProvider,
             BeaconSender beaconSender,
             SessionWatchdog sessionWatchdog
+    ) {
+        this(logger, parent, sessionCreator, timingProvider, beaconSender, sessionWatchdog, false);
+    }
+
+    /**
+     * Creates a session proxy, which might be a lightweight session.
+     *
+     * <p>
+     * Lightweight sessions take over the last known server configuration instead of sending a new session request,
+     * and are not registered at the {@link SessionWatchdog} for splitting by idle timeout or session duration.
+     * </p>
+     */
+    SessionProxyImpl(
+            Logger logger,
+            OpenKitComposite parent,
+            SessionCreator sessionCreator,
+            TimingProvider timingProvider,
+            BeaconSender beaconSender,
+            SessionWatchdog sessionWatchdog,
+            boolean isLightweight
     ) {
         this.logger = logger;
         this.parent = parent;
@@ -85,9 +126,10 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         this.timingProvider = timingProvider;
         this.beaconSender = beaconSender;
         this.sessionWatchdog = sessionWatchdog;
+        this.isLightweight = isLightweight;
 
         ServerConfiguration currentServerConfig = beaconSender.getLastServerConfiguration();
-        createInitialSessionAndMakeCurrent(currentServerConfig);
+        createInitialSessionAndMakeCurrent(currentServerConfig, isLightweight && isServerConfigurationReceived(currentServerConfig));
     }
 
     @Override
@@ -99,17 +141,20 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         if (logger.isDebugEnabled()) {
             logger.debug(this + " enterAction(" + actionName + ")");
         }
-        synchronized (lockObject) {
-            if (!isFinished) {
-                SessionImpl session = getOrSplitCurrentSessionByEvents();
-                if (session.getBeacon().isActionReportingAllowedByPrivacySettings()) {
-                    // avoid session splitting by action count, if user opted out of action collection
-                    recordTopActionEvent();
-                } else {
-                    recordTopLevelEventInteraction();
-                }
-                return session.enterAction(actionName);
+        if (!isFinished) {
+            SessionImpl session = getOrSplitCurrentSessionByEvents();
+            if (session.getBeacon().isActionReportingAllowedByPrivacySettings()) {
+                // avoid session splitting by action count, if user opted out of action collection
+                recordTopActionEvent();
+            } else {
+                recordTopLevelEventInteraction();
             }
+            RootAction rootAction = session.enterAction(actionName);
+            if (rootAction == NullRootAction.INSTANCE && isSessionReplaced(session)) {
+                // session was split and ended concurrently, enter the action on the new session
+                rootAction = currentSession.get().enterAction(actionName);
+            }
+            return rootAction;
         }
 
         return NullRootAction.INSTANCE;
@@ -140,6 +185,8 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " reportCrash(" + errorName + ", " + reason + ", " + stacktrace + ")");
         }
         synchronized (lockObject) {
+            // report and split atomically, so that the crash is neither dropped by a concurrent split,
+            // nor is other data added to the crashed session
             if (!isFinished) {
                 SessionImpl session = getOrSplitCurrentSessionByEvents();
                 recordTopLevelEventInteraction();
@@ -161,6 +208,8 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " reportCrash(" + throwable + ")");
         }
         synchronized (lockObject) {
+            // report and split atomically, so that the crash is neither dropped by a concurrent split,
+            // nor is other data added to the crashed session
             if (!isFinished) {
                 SessionImpl session = getOrSplitCurrentSessionByEvents();
                 recordTopLevelEventInteraction();
@@ -183,10 +232,9 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " reportNetworkTechnology (String) (" + technology + ")");
         }
 
-        synchronized (lockObject) {
-            if (!isFinished) {
-                currentSession.reportNetworkTechnology(technology);
-            }
+        if (!isFinished) {
+            // the supplementary basic data is shared by all sessions, so it is not lost by a concurrent split
+            currentSession.get().reportNetworkTechnology(technology);
         }
     }
 
@@ -196,10 +244,8 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " reportConnectionType (ConnectionType) (" + connectionType + ")");
         }
 
-        synchronized (lockObject) {
-            if (!isFinished) {
-                currentSession.reportConnectionType(connectionType);
-            }
+        if (!isFinished) {
+            currentSession.get().reportConnectionType(connectionType);
         }
     }
 
@@ -214,10 +260,8 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " reportCarrier (String) (" + carrier + ")");
         }
 
-        synchronized (lockObject) {
-            if (!isFinished) {
-                currentSession.reportCarrier(carrier);
-            }
+        if (!isFinished) {
+            currentSession.get().reportCarrier(carrier);
         }
     }
 
@@ -230,12 +274,15 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         if (logger.isDebugEnabled()) {
             logger.debug(this + " traceWebRequest (URLConnection) (" + connection + ")");
         }
-        synchronized (lockObject) {
-            if (!isFinished) {
-                SessionImpl session = getOrSplitCurrentSessionByEvents();
-                recordTopLevelEventInteraction();
-                return session.traceWebRequest(connection);
+        if (!isFinished) {
+            SessionImpl session = getOrSplitCurrentSessionByEvents();
+            recordTopLevelEventInteraction();
+            WebRequestTracer tracer = session.traceWebRequest(connection);
+            if (tracer == NullWebRequestTracer.INSTANCE && isSessionReplaced(session)) {
+                // session was split and ended concurrently, trace the web request on the new session
+                tracer = currentSession.get().traceWebRequest(connection);
             }
+            return tracer;
         }
 
         return NullWebRequestTracer.INSTANCE;
@@ -254,12 +301,15 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         if (logger.isDebugEnabled()) {
             logger.debug(this + " traceWebRequest (String) (" + url + ")");
         }
-        synchronized (lockObject) {
-            if (!isFinished) {
-                Session session = getOrSplitCurrentSessionByEvents();
-                recordTopLevelEventInteraction();
-                return session.traceWebRequest(url);
+        if (!isFinished) {
+            SessionImpl session = getOrSplitCurrentSessionByEvents();
+            recordTopLevelEventInteraction();
+            WebRequestTracer tracer = session.traceWebRequest(url);
+            if (tracer == NullWebRequestTracer.INSTANCE && isSessionReplaced(session)) {
+                // session was split and ended concurrently, trace the web request on the new session
+                tracer = currentSession.get().traceWebRequest(url);
             }
+            return tracer;
         }
 
         return NullWebRequestTracer.INSTANCE;
@@ -280,11 +330,12 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " sendBizEvent(" + type + ", " + attributes.toString() + ")");
         }
 
-        synchronized (lockObject) {
-            if (!isFinished) {
-                SessionImpl session = getOrSplitCurrentSessionByEvents();
-                recordTopLevelEventInteraction();
-                session.sendBizEvent(type, attributes);
+        if (!isFinished) {
+            SessionImpl session = getOrSplitCurrentSessionByEvents();
+            recordTopLevelEventInteraction();
+            if (!session.trySendBizEvent(type, attributes) && isSessionReplaced(session)) {
+                // session was split and ended concurrently, send the event on the new session
+                currentSession.get().trySendBizEvent(type, attributes);
             }
         }
     }
@@ -303,13 +354,37 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             logger.debug(this + " sendEvent(" + name + ", " + attributes.toString() + ")");
         }
 
+        if (!isFinished) {
+            SessionImpl session = getOrSplitCurrentSessionByEvents();
+            recordTopLevelEventInteraction();
+            if (!session.sendEvent(name, attributes) && isSessionReplaced(session)) {
+                // session was split and ended concurrently, send the event on the new session
+                currentSession.get().sendEvent(name, attributes);
+            }
+        }
+    }
+
+    @Override
+    public FlushResult flush(long timeoutMillis) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + " flush(" + timeoutMillis + ")");
+        }
+
+        List<OpenKitObject> childObjects;
         synchronized (lockObject) {
-            if (!isFinished) {
-                SessionImpl session = getOrSplitCurrentSessionByEvents();
-                recordTopLevelEventInteraction();
-                session.sendEvent(name, attributes);
+            childObjects = getCopyOfChildObjects();
+        }
+
+        Set<SessionImpl> sessions = Collections.newSetFromMap(new IdentityHashMap<SessionImpl, Boolean>());
+        for (OpenKitObject childObject : childObjects) {
+            if (childObject instanceof SessionImpl) {
+                SessionImpl session = (SessionImpl) childObject;
+                session.getBeacon().flushCapturedEvents();
+                sessions.add(session);
             }
         }
+
+        return beaconSender.flush(sessions, timeoutMillis);
     }
 
     @Override
@@ -328,14 +403,19 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         closeChildObjects();
 
         parent.onChildClosed(this);
-        sessionWatchdog.removeFromSplitByTimeout(this);
+        if (!isLightweight) {
+            sessionWatchdog.removeFromSplitByTimeout(this);
+        }
     }
 
     /**
      * Close all child objects of this {@link SessionProxyImpl} which are still open.
      */
     void closeChildObjects() {
-        List<OpenKitObject> childObjects = getCopyOfChildObjects();
+        List<OpenKitObject> childObjects;
+        synchronized (lockObject) {
+            childObjects = getCopyOfChildObjects();
+        }
 
         for (OpenKitObject childObject : childObjects) {
             if (childObject instanceof SessionImpl) {
@@ -343,7 +423,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
                 SessionImpl childSession = (SessionImpl) childObject;
                 // end the child session and send the end session event
                 // if the child session is the current session
-                childSession.end(childSession == currentSession);
+                childSession.end(childSession == currentSession.get());
             } else {
                 closeChildObject(childObject);
             }
@@ -368,9 +448,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * Indicates whether this session proxy was finished or is still open.
      */
     public boolean isFinished() {
-        synchronized (lockObject) {
-            return isFinished;
-        }
+        return isFinished;
     }
 
     @Override
@@ -386,6 +464,17 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
                 sessionWatchdog.dequeueFromClosing((SessionImpl) childObject);
             }
         }
+
+        if (childObject instanceof SessionImpl) {
+            // a session is only closed by the parent once it is finished
+            beaconSender.onSessionFinished((SessionImpl) childObject);
+        }
+    }
+
+    @Override
+    FlushResult onChildFlushRequested(OpenKitObject childObject, long timeoutMillis) {
+        // all sessions created by this proxy belong to the same user session, therefore flush all of them
+        return flush(timeoutMillis);
     }
 
     /**
@@ -393,18 +482,14 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * tests only.
      */
     int getTopLevelActionCount() {
-        synchronized (lockObject) {
-            return topLevelActionCount;
-        }
+        return topLevelActionCount.get();
     }
 
     /**
      * Returns the time when the last top level event was called. Intended to be used by unit tests only.
      */
     long getLastInteractionTime() {
-        synchronized (lockObject) {
-            return lastInteractionTime;
-        }
+        return lastInteractionTime;
     }
 
     /**
@@ -416,14 +501,31 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
 
     /**
      * Returns the current active session or creates a new session if {@link #isSessionSplitByEventsRequired()}.
+     *
+     * <p>
+     * The {@link #lockObject} is only acquired, if a split is required. After acquiring it the condition is
+     * re-evaluated, since another thread might have split the session in the meantime.
+     * </p>
      */
     private SessionImpl getOrSplitCurrentSessionByEvents() {
         if (isSessionSplitByEventsRequired()) {
-            closeOrEnqueueCurrentSessionForClosing();
-            createSplitSessionAndMakeCurrent(serverConfiguration);
-            reTagCurrentSession();
+            synchronized (lockObject) {
+                if (!isFinished && isSessionSplitByEventsRequired()) {
+                    SessionImpl previousSession = currentSession.get();
+                    createSplitSessionAndMakeCurrent(serverConfiguration);
+                    closeOrEnqueueSessionForClosing(previousSession);
+                    reTagCurrentSession();
+                }
+            }
         }
-        return currentSession;
+        return currentSession.get();
+    }
+
+    /**
+     * Indicates if the given {@code session} is no longer the current session of this still open session proxy.
+     */
+    private boolean isSessionReplaced(SessionImpl session) {
+        return !isFinished && session != currentSession.get();
     }
 
     /**
@@ -431,15 +533,16 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * performed.
      */
     private boolean isSessionSplitByEventsRequired() {
+        ServerConfiguration serverConfiguration = this.serverConfiguration;
         if (serverConfiguration == null || !serverConfiguration.isSessionSplitByEventsEnabled()) {
             return false;
         }
 
-        return serverConfiguration.getMaxEventsPerSession() <= topLevelActionCount;
+        return serverConfiguration.getMaxEventsPerSession() <= topLevelActionCount.get();
     }
 
     /**
-     * Will end the current active session, enque the old one for closing, and create a new session.
+     * Will create a new session, make it the current one and end the old one or enqueue it for closing.
      *
      * <p>
      * The new session is created using the {@see #createInitialSession}.
@@ -450,22 +553,23 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * </p>
      */
     private void splitAndCreateNewInitialSession() {
-        closeOrEnqueueCurrentSessionForClosing();
+        SessionImpl previousSession = currentSession.get();
 
-        // create a completely new SessionImpl
+        // create a completely new SessionImpl, before the previous one is closed
         sessionCreator.reset();
-        createInitialSessionAndMakeCurrent(serverConfiguration);
+        createInitialSessionAndMakeCurrent(serverConfiguration, isLightweight && serverConfiguration != null);
+        closeOrEnqueueSessionForClosing(previousSession);
         reTagCurrentSession();
     }
 
-    private void closeOrEnqueueCurrentSessionForClosing() {
+    private void closeOrEnqueueSessionForClosing(SessionImpl session) {
         // for grace period use half of the idle timeout
         // or fallback to session interval if not configured
         int closeGracePeriodInMillis = serverConfiguration.getSessionTimeoutInMilliseconds() > 0
                 ? serverConfiguration.getSessionTimeoutInMilliseconds() / 2
                 : serverConfiguration.getSendIntervalInMilliseconds();
 
-        sessionWatchdog.closeOrEnqueueForClosing(currentSession, closeGracePeriodInMillis);
+        sessionWatchdog.closeOrEnqueueForClosing(session, closeGracePeriodInMillis);
     }
 
 
@@ -522,7 +626,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         boolean splitBySessionDuration = serverConfiguration.isSessionSplitBySessionDurationEnabled();
 
         long idleTimeOut = lastInteractionTime + serverConfiguration.getSessionTimeoutInMilliseconds();
-        long sessionMaxTime = currentSession.getBeacon().getSessionStartTime()
+        long sessionMaxTime = currentSession.get().getBeacon().getSessionStartTime()
                 + serverConfiguration.getMaxSessionDurationInMilliseconds();
 
         if (splitByIdleTimeout && splitBySessionDuration) {
@@ -536,8 +640,27 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
         return -1;
     }
 
-    private void createInitialSessionAndMakeCurrent(ServerConfiguration initialServerConfig) {
-        createAndAssignCurrentSession(initialServerConfig, null);
+    /**
+     * Checks whether the given server configuration was actually received from the server.
+     *
+     * <p>
+     * Before the first status response is received, the beacon sender holds the {@link ServerConfiguration#DEFAULT}
+     * configuration, which must not be taken over by a lightweight session.
+     * </p>
+     */
+    private boolean isServerConfigurationReceived(ServerConfiguration serverConfig) {
+        return beaconSender.isInitialized()
+                && serverConfig != null
+                && serverConfig != ServerConfiguration.DEFAULT;
+    }
+
+    private void createInitialSessionAndMakeCurrent(ServerConfiguration initialServerConfig, boolean takeOverConfig) {
+        if (takeOverConfig) {
+            // take over the known configuration, instead of sending a new session request
+            createAndAssignCurrentSession(null, initialServerConfig);
+        } else {
+            createAndAssignCurrentSession(initialServerConfig, null);
+        }
     }
 
     private void createSplitSessionAndMakeCurrent(ServerConfiguration updatedServerConfig) {
@@ -549,6 +672,10 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * interaction time is set to the current timestamp.
      *
      * <p>
+     * The session is fully initialized before it is atomically published as current session.
+     * </p>
+     *
+     * <p>
      * In case the given {@code initialServerConfig} is not null, the new session will be initialized with this server
      * configuration. The created session however will not be in state {@link SessionState#isConfigured() configured},
      * meaning new session requests will be performed for this session.
@@ -563,13 +690,28 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
      * @param updatedServerConfig the server configuration with which the session will be updated. Can be {@code null}.
      */
     private void createAndAssignCurrentSession(ServerConfiguration initialServerConfig, ServerConfiguration updatedServerConfig) {
-        SessionImpl session = sessionCreator.createSession(this);
+        final SessionImpl session = sessionCreator.createSession(this);
         Beacon beacon = session.getBeacon();
         beacon.setServerConfigurationUpdateCallback(this);
+        beacon.setPriorityDataCallback(new PriorityDataCallback() {
+            @Override
+            public void onPriorityDataAdded() {
+                beaconSender.onPriorityDataAdded(session);
+            }
+        });
+        double earlySendThreshold = beaconSender.getEarlyBeaconSendThreshold();
+        if (earlySendThreshold > 0) {
+            beacon.setEarlySendCallback(earlySendThreshold, new EarlySendCallback() {
+                @Override
+                public void onEarlySendThresholdExceeded() {
+                    beaconSender.wakeup();
+                }
+            });
+        }
         storeChildInList(session);
 
         lastInteractionTime = beacon.getSessionStartTime();
-        topLevelActionCount = 0;
+        topLevelActionCount.set(0);
 
         if (initialServerConfig != null) {
             session.initializeServerConfiguration(initialServerConfig);
@@ -579,10 +721,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
             session.updateServerConfiguration(updatedServerConfig);
         }
 
-        synchronized (lockObject) {
-            // synchronize access
-            currentSession = session;
-        }
+        currentSession.set(session);
 
         this.beaconSender.addSession(session);
     }
@@ -592,16 +731,18 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
     }
 
     private void recordTopActionEvent() {
-        ++topLevelActionCount;
+        topLevelActionCount.incrementAndGet();
         recordTopLevelEventInteraction();
     }
 
     private void reTagCurrentSession() {
-        if (lastUserTag == null || lastUserTag.length() == 0 || currentSession == null) {
+        String userTag = lastUserTag;
+        SessionImpl session = currentSession.get();
+        if (userTag == null || userTag.length() == 0 || session == null) {
             return;
         }
 
-        currentSession.identifyUser(lastUserTag);
+        session.identifyUser(userTag);
     }
 
     @Override
@@ -614,7 +755,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
 
             serverConfiguration = serverConfig;
 
-            if (isFinished()) {
+            if (isFinished() || isLightweight) {
                 return;
             }
 
@@ -627,7 +768,7 @@ public class SessionProxyImpl extends OpenKitComposite implements Session, Serve
 
     @Override
     public String toString() {
-        Beacon beacon = currentSession.getBeacon();
+        Beacon beacon = currentSession.get().getBeacon();
         return getClass().getSimpleName()
                 + " [sn=" + beacon.getSessionNumber() + ", seq=" + beacon.getSessionSequenceNumber() + "]";
     }
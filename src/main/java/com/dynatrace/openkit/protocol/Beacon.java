@@ -47,8 +47,10 @@ import com.dynatrace.openkit.util.json.objects.JSONValue;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Beacon class holds all the beacon data and the beacon protocol implementation.
@@ -122,6 +124,9 @@ public class Beacon {
     private static final int MAX_STACKTRACE_LEN = 128 * 1000;
     private static final int MAX_REASON_LEN = 1000;
 
+    // suffix of the value reporting the number of occurrences of a deduplicated error or event
+    static final String OCCURRENCES_SUFFIX = ".occurrences";
+
     // web request tag prefix constant
     private static final String TAG_PREFIX = "MT";
 
@@ -161,6 +166,28 @@ public class Beacon {
 
     private final SupplementaryBasicData supplementaryBasicData;
 
+    // callback notified when crashes or errors were added
+    private volatile PriorityDataCallback priorityDataCallback;
+
+    // callback notified when enough data was added for sending the beacon early, and the threshold to exceed
+    private volatile EarlySendCallback earlySendCallback;
+    private volatile double earlySendThreshold;
+
+    // indicates whether the session of this beacon is finished and captured data is dropped
+    private volatile boolean isSessionFinished = false;
+
+    // number of values and events captured asynchronously, which are not yet added to the beacon cache
+    private final AtomicInteger numPendingCapturedEvents = new AtomicInteger(0);
+
+    // number of bytes added to the beacon cache since the beacon was last sent
+    private final AtomicLong numBytesAddedSinceSend = new AtomicLong(0);
+
+    // deduplicates identical errors and events, null if deduplication is disabled
+    private final EventDeduplicator eventDeduplicator;
+
+    // captures values and named events asynchronously, null if events are serialized synchronously
+    private final CapturePipeline capturePipeline;
+
     /**
      * Creates a new beacon instance
      *
@@ -200,7 +227,17 @@ public class Beacon {
 
         this.supplementaryBasicData = initializer.getSupplementaryBasicData();
 
-        immutableBasicBeaconData = createImmutableBasicBeaconData();
+        SharedBasicData sharedBasicData = initializer.getSharedBasicData();
+        if (sharedBasicData == null) {
+            sharedBasicData = SharedBasicData.create(logger,
+                    configuration.getOpenKitConfiguration(), configuration.getPrivacyConfiguration());
+        }
+        immutableBasicBeaconData = createImmutableBasicBeaconData(sharedBasicData);
+
+        long eventDeduplicationWindow = configuration.getOpenKitConfiguration().getEventDeduplicationWindowInMilliseconds();
+        eventDeduplicator = eventDeduplicationWindow > 0 ? new EventDeduplicator(eventDeduplicationWindow) : null;
+
+        capturePipeline = initializer.getCapturePipeline();
     }
 
     /**
@@ -431,6 +468,10 @@ public class Beacon {
             return;
         }
 
+        if (capturePipeline != null && capturePipeline.captureValue(this, parentActionID, valueName, value)) {
+            return;
+        }
+
         StringBuilder eventBuilder = new StringBuilder();
 
         long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_INT, valueName, parentActionID);
@@ -464,6 +505,10 @@ public class Beacon {
             return;
         }
 
+        if (capturePipeline != null && capturePipeline.captureValue(this, parentActionID, valueName, value)) {
+            return;
+        }
+
         StringBuilder eventBuilder = new StringBuilder();
 
         long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_DOUBLE, valueName, parentActionID);
@@ -497,6 +542,10 @@ public class Beacon {
             return;
         }
 
+        if (capturePipeline != null && capturePipeline.captureValue(this, parentActionID, valueName, value)) {
+            return;
+        }
+
         StringBuilder eventBuilder = new StringBuilder();
 
         long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_STRING, valueName, parentActionID);
@@ -507,6 +556,70 @@ public class Beacon {
         addEventData(eventTimestamp, eventBuilder);
     }
 
+    /**
+     * Add multiple numeric key-value-pairs to Beacon.
+     *
+     * <p>
+     * All values are serialized into a single buffer, which is added to
+     * {@link com.dynatrace.openkit.core.caching.BeaconCache} as one record.
+     * Integral values ({@link Byte}, {@link Short}, {@link Integer}, {@link Long}) are serialized like
+     * {@link #reportValue(int, String, long)}, all other values like {@link #reportValue(int, String, double)}.
+     * Entries having a {@code null} or empty name, or a {@code null} value are skipped.
+     * </p>
+     *
+     * @param parentActionID The ID of the {@link com.dynatrace.openkit.api.Action} on which the values were reported.
+     * @param values Names and values to report.
+     */
+    public void reportValues(int parentActionID, Map<String, ? extends Number> values) {
+
+        if (values == null) {
+            throw new IllegalArgumentException("values is null");
+        }
+
+        if (!configuration.getPrivacyConfiguration().isValueReportingAllowed()) {
+            return;
+        }
+
+        if (!isDataCapturingEnabled()) {
+            return;
+        }
+
+        StringBuilder eventBuilder = new StringBuilder();
+
+        long eventTimestamp = -1;
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            String valueName = entry.getKey();
+            Number value = entry.getValue();
+            if (valueName == null || valueName.length() == 0 || value == null) {
+                continue;
+            }
+
+            long timestamp;
+            if (isIntegralValue(value)) {
+                timestamp = buildEvent(eventBuilder, EventType.VALUE_INT, valueName, parentActionID);
+                addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, value.longValue());
+            } else {
+                timestamp = buildEvent(eventBuilder, EventType.VALUE_DOUBLE, valueName, parentActionID);
+                addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, value.doubleValue());
+            }
+
+            if (eventTimestamp < 0) {
+                eventTimestamp = timestamp;
+            }
+        }
+
+        if (eventBuilder.length() > 0) {
+            addEventData(eventTimestamp, eventBuilder);
+        }
+    }
+
+    private static boolean isIntegralValue(Number value) {
+        return value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte;
+    }
+
     /**
      * Add event (aka. named event) to Beacon.
      *
@@ -531,6 +644,15 @@ public class Beacon {
             return;
         }
 
+        if (eventDeduplicator != null
+                && isDuplicateOccurrence(EventDeduplicator.EventKey.forEvent(parentActionID, eventName))) {
+            return;
+        }
+
+        if (capturePipeline != null && capturePipeline.captureEvent(this, parentActionID, eventName)) {
+            return;
+        }
+
         StringBuilder eventBuilder = new StringBuilder();
 
         long eventTimestamp = buildEvent(eventBuilder, EventType.NAMED_EVENT, eventName, parentActionID);
@@ -563,6 +685,11 @@ public class Beacon {
             return;
         }
 
+        if (eventDeduplicator != null
+                && isDuplicateOccurrence(EventDeduplicator.EventKey.forError(parentActionID, errorName, errorCode))) {
+            return;
+        }
+
         StringBuilder eventBuilder = new StringBuilder();
 
         buildBasicEventData(eventBuilder, EventType.ERROR, errorName);
@@ -574,34 +701,33 @@ public class Beacon {
         addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_VALUE, errorCode);
         addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_TECHNOLOGY_TYPE, ProtocolConstants.ERROR_TECHNOLOGY_TYPE);
 
-        addEventData(timestamp, eventBuilder);
+        addPriorityEventData(timestamp, eventBuilder);
     }
 
     public void reportError(int parentActionID, String errorName, String causeName, String causeDescription, String causeStackTrace) {
-        reportError(parentActionID, errorName, causeName, causeDescription, causeStackTrace, ProtocolConstants.ERROR_TECHNOLOGY_TYPE);
+        reportError(parentActionID, errorName, causeName, causeDescription, causeStackTrace, null, ProtocolConstants.ERROR_TECHNOLOGY_TYPE);
     }
 
     public void reportError(int parentActionID, String errorName, Throwable throwable) {
-        String causeName = null;
-        String causeDescription = null;
-        String causeStackTrace = null;
-
-        if (throwable != null) {
-            CrashFormatter crashFormatter = new CrashFormatter(throwable);
-            causeName = crashFormatter.getName();
-            causeDescription = crashFormatter.getReason();
-            causeStackTrace = crashFormatter.getStackTrace();
-        }
-
         reportError(parentActionID,
             errorName,
-            causeName,
-            causeDescription,
-            causeStackTrace,
+            null,
+            null,
+            null,
+            throwable,
             ProtocolConstants.ERROR_TECHNOLOGY_TYPE); // TODO stefan.eberl - report better crash technology type
     }
 
-    private void reportError(int parentActionID, String errorName, String causeName, String causeDescription, String causeStackTrace, String errorTechnologyType) {
+    /**
+     * Add error with a cause to Beacon.
+     *
+     * <p>
+     * If a {@code throwable} is given, the cause is taken from the throwable. The throwable is only formatted
+     * after all checks passed, so that no stack trace is formatted for errors which are not reported.
+     * </p>
+     */
+    private void reportError(int parentActionID, String errorName, String causeName, String causeDescription,
+                             String causeStackTrace, Throwable throwable, String errorTechnologyType) {
 
         if (errorName == null || errorName.length() == 0) {
             throw new IllegalArgumentException("errorName is null or empty");
@@ -615,6 +741,22 @@ public class Beacon {
             return;
         }
 
+        if (eventDeduplicator != null) {
+            EventDeduplicator.EventKey key = throwable != null
+                    ? EventDeduplicator.EventKey.forError(parentActionID, errorName, throwable)
+                    : EventDeduplicator.EventKey.forError(parentActionID, errorName, causeName, causeDescription, causeStackTrace);
+            if (isDuplicateOccurrence(key)) {
+                return;
+            }
+        }
+
+        if (throwable != null) {
+            CrashFormatter crashFormatter = new CrashFormatter(throwable);
+            causeName = crashFormatter.getName();
+            causeDescription = crashFormatter.getReason();
+            causeStackTrace = crashFormatter.getStackTrace();
+        }
+
         int maxStackTraceLength = MAX_STACKTRACE_LEN;
 
         // Truncating stacktrace at last line break
@@ -640,7 +782,7 @@ public class Beacon {
         addKeyValuePairIfNotNull(eventBuilder, BEACON_KEY_ERROR_STACKTRACE, truncateNullSafe(causeStackTrace, maxStackTraceLength));
         addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_TECHNOLOGY_TYPE, errorTechnologyType);
 
-        addEventData(timestamp, eventBuilder);
+        addPriorityEventData(timestamp, eventBuilder);
     }
 
     /**
@@ -717,7 +859,7 @@ public class Beacon {
         addKeyValuePairIfNotNull(eventBuilder, BEACON_KEY_ERROR_STACKTRACE, truncateNullSafe(stacktrace, maxStackTraceLength));
         addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_TECHNOLOGY_TYPE, crashTechnologyType);
 
-        addEventData(timestamp, eventBuilder);
+        addPriorityEventData(timestamp, eventBuilder);
     }
 
     /**
@@ -814,6 +956,12 @@ public class Beacon {
         HTTPClient httpClient = provider.createClient(configuration.getHTTPClientConfiguration());
         StatusResponse response = null;
 
+        if (eventDeduplicator != null) {
+            // report the occurrences of deduplicated errors and events, whose window has closed in the meantime
+            reportOccurrences(eventDeduplicator.closeExpiredWindows(timingProvider.provideTimestampInMilliseconds()));
+        }
+
+        numBytesAddedSinceSend.set(0);
         beaconCache.prepareDataForSending(beaconKey);
         while (beaconCache.hasDataForSending(beaconKey)) {
 
@@ -992,6 +1140,7 @@ public class Beacon {
     private void addActionData(long timestamp, StringBuilder actionBuilder) {
         if (isDataCapturingEnabled()) {
             beaconCache.addActionData(beaconKey, timestamp, actionBuilder.toString());
+            onDataAdded(actionBuilder.length());
         }
     }
 
@@ -1004,6 +1153,47 @@ public class Beacon {
     private void addEventData(long timestamp, StringBuilder eventBuilder) {
         if (isDataCapturingEnabled()) {
             beaconCache.addEventData(beaconKey, timestamp, eventBuilder.toString());
+            onDataAdded(eventBuilder.length());
+        }
+    }
+
+    /**
+     * Add serialized high priority event data (crashes and errors) and notify the {@link PriorityDataCallback}.
+     *
+     * @param timestamp The timestamp of the event.
+     * @param eventBuilder The serialized event.
+     */
+    private void addPriorityEventData(long timestamp, StringBuilder eventBuilder) {
+        if (isDataCapturingEnabled()) {
+            beaconCache.addEventData(beaconKey, timestamp, eventBuilder.toString());
+            onDataAdded(eventBuilder.length());
+
+            PriorityDataCallback callback = priorityDataCallback;
+            if (callback != null) {
+                callback.onPriorityDataAdded();
+            }
+        }
+    }
+
+    /**
+     * Notify the {@link EarlySendCallback}, if the data added since the beacon was last sent exceeded the
+     * early send threshold with the given number of characters.
+     *
+     * @param numCharsAdded The number of characters just added to the beacon cache.
+     */
+    private void onDataAdded(int numCharsAdded) {
+        EarlySendCallback callback = earlySendCallback;
+        if (callback == null) {
+            return;
+        }
+
+        // the beacon cache accounts two bytes per character
+        long numBytesAdded = 2L * numCharsAdded;
+        long thresholdInBytes = (long) (earlySendThreshold * configuration.getServerConfiguration().getBeaconSizeInBytes());
+        long numBytesTotal = numBytesAddedSinceSend.addAndGet(numBytesAdded);
+        if (numBytesTotal > thresholdInBytes && numBytesTotal - numBytesAdded <= thresholdInBytes) {
+            // notify only once per send, when the threshold is crossed
+            callback.onEarlySendThresholdExceeded();
         }
     }
 
@@ -1017,6 +1207,175 @@ public class Beacon {
     public void clearData() {
         // remove all cached data for this Beacon from the cache
         beaconCache.deleteCacheEntry(beaconKey);
+        numBytesAddedSinceSend.set(0);
+    }
+
+    /**
+     * Marks the session of this beacon as finished.
+     *
+     * <p>
+     * Values and events captured asynchronously, which are serialized afterwards, are dropped. Otherwise they would
+     * recreate the cache entry of this beacon, after its data was sent and removed.
+     * </p>
+     */
+    public void markSessionAsFinished() {
+        isSessionFinished = true;
+    }
+
+    /**
+     * Returns a boolean indicating whether the session of this beacon is finished.
+     */
+    boolean isSessionFinished() {
+        return isSessionFinished;
+    }
+
+    /**
+     * Waits until all values and events captured asynchronously so far have been added to the beacon cache.
+     *
+     * <p>
+     * This is called before the session is ended or flushed, so that no captured data of the session is left behind.
+     * Only the data captured for this beacon is awaited.
+     * </p>
+     */
+    public void flushCapturedEvents() {
+        if (capturePipeline != null) {
+            capturePipeline.awaitSerialization(this);
+        }
+    }
+
+    /**
+     * Called by the {@link CapturePipeline} when a value or event of this beacon was captured.
+     */
+    void onEventCaptured() {
+        numPendingCapturedEvents.incrementAndGet();
+    }
+
+    /**
+     * Called by the {@link CapturePipeline} when captured values and events of this beacon were serialized or dropped.
+     *
+     * @param numEvents The number of values and events which are no longer pending.
+     */
+    void onCapturedEventsSerialized(int numEvents) {
+        numPendingCapturedEvents.addAndGet(-numEvents);
+    }
+
+    /**
+     * Returns a boolean indicating whether values or events captured for this beacon are not yet serialized.
+     */
+    boolean hasPendingCapturedEvents() {
+        return numPendingCapturedEvents.get() > 0;
+    }
+
+    /**
+     * Returns the ID of the current thread, as serialized for events.
+     */
+    int getCurrentThreadID() {
+        return threadIDProvider.getThreadID();
+    }
+
+    /**
+     * Serializes an event captured by the {@link CapturePipeline}.
+     *
+     * <p>
+     * The serialized data equals the data serialized by {@link #reportValue(int, String, long)},
+     * {@link #reportValue(int, String, double)}, {@link #reportValue(int, String, String)} and
+     * {@link #reportEvent(int, String)}, but thread ID, sequence number and timestamp are taken from the event.
+     * </p>
+     *
+     * @param builder String builder storing the serialized data.
+     * @param event The captured event.
+     */
+    void appendCapturedEvent(StringBuilder builder, CapturedEvent event) {
+        addKeyValuePair(builder, BEACON_KEY_EVENT_TYPE, event.eventType.protocolValue());
+        addKeyValuePair(builder, BEACON_KEY_THREAD_ID, event.threadID);
+        addKeyValuePair(builder, BEACON_KEY_NAME, truncate(event.name));
+        addKeyValuePair(builder, BEACON_KEY_PARENT_ACTION_ID, event.parentActionID);
+        addKeyValuePair(builder, BEACON_KEY_START_SEQUENCE_NUMBER, event.sequenceNumber);
+        addKeyValuePair(builder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(event.timestamp));
+
+        switch (event.eventType) {
+            case VALUE_INT:
+                addKeyValuePair(builder, BEACON_KEY_VALUE, event.longValue);
+                break;
+            case VALUE_DOUBLE:
+                addKeyValuePair(builder, BEACON_KEY_VALUE, event.doubleValue);
+                break;
+            case VALUE_STRING:
+                if (event.stringValue != null) {
+                    addKeyValuePair(builder, BEACON_KEY_VALUE, truncate(event.stringValue));
+                }
+                break;
+            default:
+                // named events do not carry a value
+                break;
+        }
+    }
+
+    /**
+     * Adds events serialized by the {@link CapturePipeline} to the beacon cache.
+     *
+     * @param timestamp The timestamp of the first serialized event.
+     * @param eventBuilder Contains the serialized events.
+     */
+    void addCapturedEventData(long timestamp, StringBuilder eventBuilder) {
+        addEventData(timestamp, eventBuilder);
+    }
+
+    /**
+     * Reports the number of occurrences of all errors and events which are currently deduplicated.
+     *
+     * <p>
+     * This is called when the session is ended, so that the occurrences of windows which are not yet
+     * closed are not lost. Occurrences dropped due to the rate limit are logged.
+     * </p>
+     */
+    public void flushDeduplicatedEvents() {
+        if (eventDeduplicator != null) {
+            reportOccurrences(eventDeduplicator.closeAllWindows());
+
+            long dropped = eventDeduplicator.drainDroppedOccurrences();
+            if (dropped > 0 && logger.isWarnEnabled()) {
+                logger.warning(getClass().getSimpleName() + ": " + dropped
+                        + " errors and events were dropped, since the rate limit was exceeded");
+            }
+        }
+    }
+
+    /**
+     * Records the occurrence of an error or event for deduplication.
+     *
+     * <p>
+     * If the occurrence is not a duplicate, windows which were closed by previous occurrences are reported as well.
+     * </p>
+     *
+     * @param key The key identifying the error or event.
+     *
+     * @return {@code true} if the error or event is a duplicate and must not be reported, {@code false} otherwise.
+     */
+    private boolean isDuplicateOccurrence(EventDeduplicator.EventKey key) {
+        if (!eventDeduplicator.recordOccurrence(key, timingProvider.provideTimestampInMilliseconds())) {
+            return true;
+        }
+
+        reportOccurrences(eventDeduplicator.drainClosedWindows());
+        return false;
+    }
+
+    /**
+     * Serializes the number of occurrences of deduplicated errors and events as integer values.
+     *
+     * @param windows Closed deduplication windows.
+     */
+    private void reportOccurrences(List<EventDeduplicator.EventWindow> windows) {
+        for (EventDeduplicator.EventWindow window : windows) {
+            StringBuilder eventBuilder = new StringBuilder();
+
+            long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_INT,
+                    window.getName() + OCCURRENCES_SUFFIX, window.getParentActionID());
+            addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, window.getOccurrences());
+
+            addEventData(eventTimestamp, eventBuilder);
+        }
     }
 
     /**
@@ -1067,33 +1426,21 @@ public class Beacon {
     /**
      * Serialization helper method for creating basic beacon protocol data.
      *
+     * @param sharedBasicData The serialized basic data, which is the same for all beacons.
      * @return Serialized data.
      */
-    private String createImmutableBasicBeaconData() {
-        OpenKitConfiguration openKitConfiguration = configuration.getOpenKitConfiguration();
-        StringBuilder basicBeaconBuilder = new StringBuilder();
-
-        // version and application information
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_PROTOCOL_VERSION, ProtocolConstants.PROTOCOL_VERSION);
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_OPENKIT_VERSION, ProtocolConstants.OPENKIT_VERSION);
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_APPLICATION_ID, openKitConfiguration.getApplicationID());
-        addKeyValuePairIfNotNull(basicBeaconBuilder, BEACON_KEY_APPLICATION_VERSION, openKitConfiguration.getApplicationVersion());
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_PLATFORM_TYPE, ProtocolConstants.PLATFORM_TYPE_OPENKIT);
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_AGENT_TECHNOLOGY_TYPE, ProtocolConstants.AGENT_TECHNOLOGY_TYPE);
+    private String createImmutableBasicBeaconData(SharedBasicData sharedBasicData) {
+        StringBuilder basicBeaconBuilder = new StringBuilder(sharedBasicData.applicationData);
 
         // device/visitor ID, session number and IP address
         addKeyValuePair(basicBeaconBuilder, BEACON_KEY_VISITOR_ID, getDeviceID());
         addKeyValuePair(basicBeaconBuilder, BEACON_KEY_SESSION_NUMBER, getSessionNumber());
         addKeyValuePairIfNotNull(basicBeaconBuilder, BEACON_KEY_CLIENT_IP_ADDRESS, clientIPAddress);
 
-        // platform information
-        addKeyValuePairIfNotNull(basicBeaconBuilder, BEACON_KEY_DEVICE_OS, openKitConfiguration.getOperatingSystem());
-        addKeyValuePairIfNotNull(basicBeaconBuilder, BEACON_KEY_DEVICE_MANUFACTURER, openKitConfiguration.getManufacturer());
-        addKeyValuePairIfNotNull(basicBeaconBuilder, BEACON_KEY_DEVICE_MODEL, openKitConfiguration.getModelID());
-
-        PrivacyConfiguration privacyConfiguration = configuration.getPrivacyConfiguration();
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_DATA_COLLECTION_LEVEL, privacyConfiguration.getDataCollectionLevel());
-        addKeyValuePair(basicBeaconBuilder, BEACON_KEY_CRASH_REPORTING_LEVEL, privacyConfiguration.getCrashReportingLevel());
+        // platform information and privacy settings
+        if (sharedBasicData.deviceData.length() > 0) {
+            basicBeaconBuilder.append('&').append(sharedBasicData.deviceData);
+        }
 
         return basicBeaconBuilder.toString();
     }
@@ -1362,6 +1709,15 @@ public class Beacon {
         return beaconCache.isEmpty(beaconKey);
     }
 
+    /**
+     * Get the number of bytes captured by this beacon, which are not yet sent.
+     *
+     * @return The number of bytes awaiting to be sent.
+     */
+    public long getPendingDataSizeInBytes() {
+        return beaconCache.getNumBytesInCache(beaconKey);
+    }
+
     /**
      * Initializes the beacon with the given {@link ServerConfiguration}.
      *
@@ -1396,6 +1752,32 @@ public class Beacon {
         configuration.setServerConfigurationUpdateCallback(callback);
     }
 
+    /**
+     * Sets the callback to be notified when crashes or errors were added to this beacon.
+     *
+     * <p>
+     * The callback is only notified if the data was actually captured, meaning privacy settings and server side
+     * capture settings allowed capturing it.
+     * </p>
+     *
+     * @param callback the callback to be notified when high priority data was added.
+     */
+    public void setPriorityDataCallback(PriorityDataCallback callback) {
+        priorityDataCallback = callback;
+    }
+
+    /**
+     * Sets the callback to be notified when the data captured since this beacon was last sent exceeds
+     * the given fraction of the beacon size.
+     *
+     * @param threshold the fraction of the beacon size, which must be exceeded.
+     * @param callback the callback to be notified when the threshold is exceeded.
+     */
+    public void setEarlySendCallback(double threshold, EarlySendCallback callback) {
+        earlySendThreshold = threshold;
+        earlySendCallback = callback;
+    }
+
     /**
      * Indicates whether data capturing for this beacon is currently enabled or not.
      */
@@ -1456,4 +1838,87 @@ public class Beacon {
     public boolean isActionReportingAllowedByPrivacySettings() {
         return configuration.getPrivacyConfiguration().isActionReportingAllowed();
     }
+
+    /**
+     * Serialized basic beacon protocol data, which is the same for all beacons of one OpenKit instance.
+     *
+     * <p>
+     * Serializing this data requires percent encoding the application and device information. It is done once
+     * and shared by all beacons, which makes creating a beacon cheaper.
+     * </p>
+     */
+    public static final class SharedBasicData {
+
+        /** Serialized protocol version and application information */
+        private final String applicationData;
+        /** Serialized platform information and privacy settings */
+        private final String deviceData;
+
+        private SharedBasicData(String applicationData, String deviceData) {
+            this.applicationData = applicationData;
+            this.deviceData = deviceData;
+        }
+
+        /**
+         * Serializes the basic data for all beacons created with the given configuration.
+         *
+         * @param logger Logger for reporting values which could not be encoded.
+         * @param openKitConfiguration The application and device related configuration.
+         * @param privacyConfiguration The privacy related configuration.
+         * @return The serialized shared basic data.
+         */
+        public static SharedBasicData create(Logger logger,
+                                             OpenKitConfiguration openKitConfiguration,
+                                             PrivacyConfiguration privacyConfiguration) {
+            // version and application information
+            StringBuilder applicationBuilder = new StringBuilder();
+            appendValue(applicationBuilder, BEACON_KEY_PROTOCOL_VERSION, String.valueOf(ProtocolConstants.PROTOCOL_VERSION));
+            appendEncodedValue(logger, applicationBuilder, BEACON_KEY_OPENKIT_VERSION, ProtocolConstants.OPENKIT_VERSION);
+            appendEncodedValue(logger, applicationBuilder, BEACON_KEY_APPLICATION_ID, openKitConfiguration.getApplicationID());
+            appendEncodedValueIfNotNull(logger, applicationBuilder, BEACON_KEY_APPLICATION_VERSION, openKitConfiguration.getApplicationVersion());
+            appendValue(applicationBuilder, BEACON_KEY_PLATFORM_TYPE, String.valueOf(ProtocolConstants.PLATFORM_TYPE_OPENKIT));
+            appendEncodedValue(logger, applicationBuilder, BEACON_KEY_AGENT_TECHNOLOGY_TYPE, ProtocolConstants.AGENT_TECHNOLOGY_TYPE);
+
+            // platform information
+            StringBuilder deviceBuilder = new StringBuilder();
+            appendEncodedValueIfNotNull(logger, deviceBuilder, BEACON_KEY_DEVICE_OS, openKitConfiguration.getOperatingSystem());
+            appendEncodedValueIfNotNull(logger, deviceBuilder, BEACON_KEY_DEVICE_MANUFACTURER, openKitConfiguration.getManufacturer());
+            appendEncodedValueIfNotNull(logger, deviceBuilder, BEACON_KEY_DEVICE_MODEL, openKitConfiguration.getModelID());
+
+            SerializableBeaconValue dataCollectionLevel = privacyConfiguration.getDataCollectionLevel();
+            if (dataCollectionLevel != null) {
+                appendEncodedValue(logger, deviceBuilder, BEACON_KEY_DATA_COLLECTION_LEVEL, dataCollectionLevel.asBeaconValue());
+            }
+            SerializableBeaconValue crashReportingLevel = privacyConfiguration.getCrashReportingLevel();
+            if (crashReportingLevel != null) {
+                appendEncodedValue(logger, deviceBuilder, BEACON_KEY_CRASH_REPORTING_LEVEL, crashReportingLevel.asBeaconValue());
+            }
+
+            return new SharedBasicData(applicationBuilder.toString(), deviceBuilder.toString());
+        }
+
+        private static void appendEncodedValueIfNotNull(Logger logger, StringBuilder builder, String key, String value) {
+            if (value != null) {
+                appendEncodedValue(logger, builder, key, value);
+            }
+        }
+
+        private static void appendEncodedValue(Logger logger, StringBuilder builder, String key, String value) {
+            String encodedValue = PercentEncoder.encode(value, CHARSET, RESERVED_CHARACTERS);
+            if (encodedValue == null) {
+                // if encoding fails, skip this key/value pair
+                logger.error(Beacon.class.getSimpleName() + ": Skipped encoding of Key/Value: " + key + "/" + value);
+                return;
+            }
+
+            appendValue(builder, key, encodedValue);
+        }
+
+        private static void appendValue(StringBuilder builder, String key, String value) {
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+            builder.append(key).append('=').append(value);
+        }
+    }
 }
@@ -74,4 +74,15 @@ public interface BeaconInitializer {
      * Returns the {@link SupplementaryBasicData} to obtain additional mutable basic data
      */
     SupplementaryBasicData getSupplementaryBasicData();
+
+    /**
+     * Returns the serialized basic data shared by all beacons, or {@code null} if the beacon shall serialize it.
+     */
+    Beacon.SharedBasicData getSharedBasicData();
+
+    /**
+     * Returns the {@link CapturePipeline} for capturing events asynchronously,
+     * or {@code null} if the beacon shall serialize all events synchronously.
+     */
+    CapturePipeline getCapturePipeline();
 }
@@ -0,0 +1,531 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CaptureBufferFullPolicy;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.providers.TimingProvider;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous capture pipeline, moving the serialization of values and named events off the reporting threads.
+ *
+ * <p>
+ *     Reporting threads only write a small event descriptor into a preallocated ring buffer. A dedicated
+ *     serializer thread serializes the events and adds them to the {@link com.dynatrace.openkit.core.caching.BeaconCache}.
+ *     Consecutive events of the same {@link Beacon} are added as a single cache record.
+ * </p>
+ *
+ * <p>
+ *     The ring buffer supports multiple producers and a single consumer. Each slot carries a sequence, which tells
+ *     whether the slot is free for the producer claiming a position or holds an event published for the consumer.
+ *     If the buffer is full, the configured {@link CaptureBufferFullPolicy} is applied.
+ * </p>
+ *
+ * <p>
+ *     As long as the pipeline is not started, or after it was shut down, no events are accepted and
+ *     the {@link Beacon} serializes events synchronously.
+ * </p>
+ */
+public class CapturePipeline {
+
+    private static final String THREAD_NAME = CapturePipeline.class.getSimpleName();
+    private static final long SERIALIZER_THREAD_JOIN_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+    /** maximum time to wait for the serialization of captured events */
+    private static final long AWAIT_SERIALIZATION_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+    /** maximum time the serializer thread sleeps, if no events are captured */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** time a reporting thread sleeps while waiting for free space with {@link CaptureBufferFullPolicy#BLOCK} */
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /** maximum capacity of the ring buffer */
+    static final int MAX_BUFFER_CAPACITY = 1 << 20;
+    /** maximum number of consecutive events of the same beacon which are added as one cache record */
+    static final int MAX_EVENTS_PER_RECORD = 32;
+    /** with {@link CaptureBufferFullPolicy#SAMPLE} every n-th event is captured, once the buffer is half full */
+    static final int SAMPLING_RATE = 8;
+
+    private final Logger logger;
+    private final TimingProvider timingProvider;
+    private final CaptureBufferFullPolicy bufferFullPolicy;
+
+    private final CapturedEvent[] slots;
+    /** slot for position p is free if its sequence is p, and holds a published event if its sequence is p + 1 */
+    private final AtomicLongArray slotSequences;
+    private final int mask;
+
+    /** next position claimed by a reporting thread */
+    private final AtomicLong producerPosition = new AtomicLong(0);
+    /** next position read by the serializer, all events before have been added to the cache */
+    private volatile long consumerPosition = 0;
+
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    private final AtomicLong sampledEvents = new AtomicLong(0);
+
+    private final Object serializationLock = new Object();
+    private final AtomicInteger serializationWaiters = new AtomicInteger(0);
+
+    private final Thread serializerThread;
+    private volatile boolean running = false;
+    private volatile boolean serializerIdle = false;
+
+    /**
+     * Creates a new capture pipeline.
+     *
+     * @param logger Logger to write some debug output
+     * @param timingProvider Provider for timing related functionality
+     * @param bufferCapacity The number of events the ring buffer can hold, rounded up to the next power of two.
+     * @param bufferFullPolicy The policy applied if the buffer is full.
+     */
+    public CapturePipeline(Logger logger, TimingProvider timingProvider, int bufferCapacity,
+                           CaptureBufferFullPolicy bufferFullPolicy) {
+        this(logger, timingProvider, bufferCapacity, bufferFullPolicy, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Internal testing constructor.
+     *
+     * @param logger Logger to write some debug output
+     * @param timingProvider Provider for timing related functionality
+     * @param bufferCapacity The number of events the ring buffer can hold, rounded up to the next power of two.
+     * @param bufferFullPolicy The policy applied if the buffer is full.
+     * @param threadFactory Factory for creating the serializer thread.
+     */
+    CapturePipeline(Logger logger, TimingProvider timingProvider, int bufferCapacity,
+                    CaptureBufferFullPolicy bufferFullPolicy, ThreadFactory threadFactory) {
+        this.logger = logger;
+        this.timingProvider = timingProvider;
+        this.bufferFullPolicy = bufferFullPolicy == null ? CaptureBufferFullPolicy.defaultValue() : bufferFullPolicy;
+
+        int capacity = roundUpToPowerOfTwo(bufferCapacity);
+        slots = new CapturedEvent[capacity];
+        slotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new CapturedEvent();
+            slotSequences.set(i, i);
+        }
+        mask = capacity - 1;
+
+        serializerThread = threadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                runSerializer();
+            }
+        });
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        if (value <= 2) {
+            return 2;
+        }
+        if (value >= MAX_BUFFER_CAPACITY) {
+            return MAX_BUFFER_CAPACITY;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Starts the serializer thread, after which events are captured asynchronously.
+     *
+     * @return {@code true} if the pipeline was started, {@code false} if it was already started before.
+     */
+    public synchronized boolean start() {
+        if (serializerThread.getState() != Thread.State.NEW) {
+            return false;
+        }
+
+        running = true;
+        serializerThread.start();
+
+        return true;
+    }
+
+    /**
+     * Stops capturing events, serializes all events captured so far and stops the serializer thread.
+     *
+     * <p>
+     *     Events reported after this method was called are serialized synchronously.
+     * </p>
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(serializerThread);
+        try {
+            serializerThread.join(SERIALIZER_THREAD_JOIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            logger.warning(getClass().getSimpleName() + " shutdown() - Stopping serializer thread was interrupted.");
+            Thread.currentThread().interrupt(); // re-interrupt the current thread
+        }
+
+        long dropped = droppedEvents.get();
+        if (dropped > 0 && logger.isWarnEnabled()) {
+            logger.warning(getClass().getSimpleName() + " shutdown() - " + dropped
+                    + " events were dropped, since the capture buffer was full");
+        }
+    }
+
+    /**
+     * Returns the number of events which were dropped due to the {@link CaptureBufferFullPolicy}.
+     */
+    long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the capacity of the ring buffer.
+     */
+    int getBufferCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Waits until all events captured so far have been added to the beacon cache.
+     *
+     * <p>
+     *     This is used before all sessions are flushed. Waiting is bounded by {@link #AWAIT_SERIALIZATION_TIMEOUT}.
+     * </p>
+     */
+    public void awaitSerialization() {
+        awaitSerialization(null, producerPosition.get());
+    }
+
+    /**
+     * Waits until all events captured so far for the given beacon have been added to the beacon cache.
+     *
+     * <p>
+     *     This is used before a session is ended or flushed, so that no captured events of the session are left behind.
+     *     Events captured for other beacons are not awaited. Waiting is bounded by {@link #AWAIT_SERIALIZATION_TIMEOUT}.
+     * </p>
+     *
+     * @param beacon The beacon whose captured events are awaited.
+     */
+    public void awaitSerialization(Beacon beacon) {
+        awaitSerialization(beacon, 0);
+    }
+
+    /**
+     * Waits until the captured events of the given beacon, or if no beacon is given, all events before the
+     * given position have been added to the beacon cache.
+     */
+    private void awaitSerialization(Beacon beacon, long targetPosition) {
+        if (isSerialized(beacon, targetPosition)
+                || Thread.currentThread() == serializerThread
+                || !serializerThread.isAlive()) {
+            return;
+        }
+
+        LockSupport.unpark(serializerThread);
+
+        long deadline = timingProvider.provideTimestampInMilliseconds() + AWAIT_SERIALIZATION_TIMEOUT;
+        synchronized (serializationLock) {
+            serializationWaiters.incrementAndGet();
+            try {
+                while (!isSerialized(beacon, targetPosition) && serializerThread.isAlive()) {
+                    long remaining = deadline - timingProvider.provideTimestampInMilliseconds();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    timingProvider.waitForNotification(serializationLock, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // re-interrupt the current thread
+            } finally {
+                serializationWaiters.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean isSerialized(Beacon beacon, long targetPosition) {
+        if (beacon != null) {
+            return !beacon.hasPendingCapturedEvents();
+        }
+        return consumerPosition >= targetPosition;
+    }
+
+    /**
+     * Captures an integer value.
+     *
+     * @return {@code true} if the event was handled by the pipeline, {@code false} if it must be serialized synchronously.
+     */
+    boolean captureValue(Beacon beacon, int parentActionID, String valueName, long value) {
+        return capture(beacon, EventType.VALUE_INT, parentActionID, valueName, value, 0.0, null);
+    }
+
+    /**
+     * Captures a floating point value.
+     *
+     * @return {@code true} if the event was handled by the pipeline, {@code false} if it must be serialized synchronously.
+     */
+    boolean captureValue(Beacon beacon, int parentActionID, String valueName, double value) {
+        return capture(beacon, EventType.VALUE_DOUBLE, parentActionID, valueName, 0L, value, null);
+    }
+
+    /**
+     * Captures a string value.
+     *
+     * @return {@code true} if the event was handled by the pipeline, {@code false} if it must be serialized synchronously.
+     */
+    boolean captureValue(Beacon beacon, int parentActionID, String valueName, String value) {
+        return capture(beacon, EventType.VALUE_STRING, parentActionID, valueName, 0L, 0.0, value);
+    }
+
+    /**
+     * Captures a named event.
+     *
+     * @return {@code true} if the event was handled by the pipeline, {@code false} if it must be serialized synchronously.
+     */
+    boolean captureEvent(Beacon beacon, int parentActionID, String eventName) {
+        return capture(beacon, EventType.NAMED_EVENT, parentActionID, eventName, 0L, 0.0, null);
+    }
+
+    private boolean capture(Beacon beacon, EventType eventType, int parentActionID, String name,
+                            long longValue, double doubleValue, String stringValue) {
+        if (!running) {
+            return false;
+        }
+
+        if (bufferFullPolicy == CaptureBufferFullPolicy.SAMPLE && !isSampled()) {
+            droppedEvents.incrementAndGet();
+            return true;
+        }
+
+        long position = tryClaim();
+        while (position < 0 && bufferFullPolicy == CaptureBufferFullPolicy.BLOCK) {
+            if (!running) {
+                return false;
+            }
+            LockSupport.unpark(serializerThread);
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+            position = tryClaim();
+        }
+        if (position < 0) {
+            droppedEvents.incrementAndGet();
+            return true;
+        }
+
+        int index = (int) position & mask;
+        CapturedEvent event = slots[index];
+        try {
+            beacon.onEventCaptured();
+            event.beacon = beacon;
+            event.eventType = eventType;
+            event.parentActionID = parentActionID;
+            event.name = name;
+            event.longValue = longValue;
+            event.doubleValue = doubleValue;
+            event.stringValue = stringValue;
+            event.threadID = beacon.getCurrentThreadID();
+            event.sequenceNumber = beacon.createSequenceNumber();
+            event.timestamp = beacon.getCurrentTimestamp();
+        } finally {
+            // publish the event to the serializer, a claimed slot must never stay unpublished
+            slotSequences.set(index, position + 1);
+        }
+
+        if (serializerIdle) {
+            LockSupport.unpark(serializerThread);
+        }
+
+        return true;
+    }
+
+    private boolean isSampled() {
+        // the buffer is less than half full, if the slot half the capacity behind the next position was freed already
+        long position = producerPosition.get() - slots.length / 2;
+        if (position < 0 || slotSequences.get((int) position & mask) >= position + slots.length) {
+            return true;
+        }
+
+        return sampledEvents.incrementAndGet() % SAMPLING_RATE == 0;
+    }
+
+    /**
+     * Claims the next free position of the ring buffer.
+     *
+     * @return The claimed position or {@code -1} if the buffer is full.
+     */
+    private long tryClaim() {
+        while (true) {
+            long position = producerPosition.get();
+            long sequence = slotSequences.get((int) position & mask);
+            if (sequence == position) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                // slot still holds an event of the previous round
+                return -1;
+            }
+            // otherwise another thread claimed this position in the meantime
+        }
+    }
+
+    private void runSerializer() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " run() - serializer thread started");
+        }
+
+        while (true) {
+            if (drain() > 0) {
+                continue;
+            }
+            if (!running) {
+                break;
+            }
+
+            serializerIdle = true;
+            if (!hasPublishedEvent() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            serializerIdle = false;
+        }
+
+        // serialize events published after the last check
+        drainClaimedEvents();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " run() - serializer thread is stopped");
+        }
+    }
+
+    private boolean hasPublishedEvent() {
+        long position = consumerPosition;
+        return slotSequences.get((int) position & mask) == position + 1;
+    }
+
+    private void drainClaimedEvents() {
+        while (consumerPosition < producerPosition.get()) {
+            if (drain() == 0) {
+                // an event was claimed but is not yet published
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Serializes all published events and adds them to the beacon cache.
+     *
+     * <p>
+     *     The consumer position and the number of pending events of the record's beacon are published after each
+     *     record, so that threads waiting for the serialization are released, even if reporting threads keep
+     *     publishing events. Events of a beacon whose session is
+     *     already finished are dropped, since the session's data might already have been sent and removed.
+     * </p>
+     *
+     * <p>
+     *     Must only be called by a single thread at a time.
+     * </p>
+     *
+     * @return The number of serialized events.
+     */
+    int drain() {
+        long position = consumerPosition;
+        int drainedEvents = 0;
+
+        Beacon recordBeacon = null;
+        StringBuilder recordBuilder = new StringBuilder();
+        long recordTimestamp = 0;
+        int eventsInRecord = 0;
+
+        while (true) {
+            int index = (int) position & mask;
+            if (slotSequences.get(index) != position + 1) {
+                break;
+            }
+
+            CapturedEvent event = slots[index];
+            if (event.beacon != recordBeacon || eventsInRecord == MAX_EVENTS_PER_RECORD) {
+                completeRecord(recordBeacon, recordTimestamp, recordBuilder, eventsInRecord, position);
+                recordBeacon = event.beacon;
+                recordBuilder.setLength(0);
+                recordTimestamp = event.timestamp;
+                eventsInRecord = 0;
+            }
+
+            if (!event.beacon.isSessionFinished()) {
+                try {
+                    event.beacon.appendCapturedEvent(recordBuilder, event);
+                } catch (RuntimeException e) {
+                    logger.error(getClass().getSimpleName() + " drain() - Failed to serialize captured event", e);
+                }
+            }
+
+            event.clear();
+            // free the slot for the next round
+            slotSequences.set(index, position + slots.length);
+            position++;
+            eventsInRecord++;
+            drainedEvents++;
+        }
+
+        completeRecord(recordBeacon, recordTimestamp, recordBuilder, eventsInRecord, position);
+
+        return drainedEvents;
+    }
+
+    /**
+     * Adds the record to the beacon cache and publishes that all events before the given position were serialized.
+     */
+    private void completeRecord(Beacon beacon, long timestamp, StringBuilder recordBuilder, int numEvents,
+                                long position) {
+        if (beacon == null) {
+            return;
+        }
+
+        addRecord(beacon, timestamp, recordBuilder);
+        beacon.onCapturedEventsSerialized(numEvents);
+        consumerPosition = position;
+        notifySerializationWaiters();
+    }
+
+    private void addRecord(Beacon beacon, long timestamp, StringBuilder recordBuilder) {
+        if (beacon == null || recordBuilder.length() == 0 || beacon.isSessionFinished()) {
+            return;
+        }
+
+        try {
+            beacon.addCapturedEventData(timestamp, recordBuilder);
+        } catch (RuntimeException e) {
+            logger.error(getClass().getSimpleName() + " drain() - Failed to add captured events to cache", e);
+        }
+    }
+
+    private void notifySerializationWaiters() {
+        if (serializationWaiters.get() > 0) {
+            synchronized (serializationLock) {
+                serializationLock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+/**
+ * Preallocated slot of the {@link CapturePipeline} ring buffer, describing a single captured event.
+ *
+ * <p>
+ *     The slot only holds the values passed to the API and the data which must be obtained on the reporting thread
+ *     (thread ID, sequence number and timestamp). Serialization is done by the serializer thread.
+ * </p>
+ */
+final class CapturedEvent {
+
+    Beacon beacon;
+    EventType eventType;
+    int parentActionID;
+    String name;
+    long longValue;
+    double doubleValue;
+    String stringValue;
+    int threadID;
+    int sequenceNumber;
+    long timestamp;
+
+    /**
+     * Releases all references, so that consumed slots do not keep beacons or strings alive.
+     */
+    void clear() {
+        beacon = null;
+        eventType = null;
+        name = null;
+        stringValue = null;
+    }
+}
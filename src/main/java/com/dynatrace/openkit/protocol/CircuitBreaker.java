@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.providers.TimingProvider;
+
+/**
+ * Circuit breaker guarding requests to a single endpoint.
+ *
+ * <p>
+ *     The circuit breaker is shared by all HTTP clients sending to the same endpoint, therefore an unreachable
+ *     endpoint short-circuits the requests of all sessions, instead of letting each session run into timeouts.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        /** Requests are allowed */
+        CLOSED,
+        /** Requests fail immediately */
+        OPEN,
+        /** A single trial request is in flight, other requests fail immediately */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationInMillis;
+    private final TimingProvider timingProvider;
+
+    private State state = State.CLOSED;
+    private int numConsecutiveFailures = 0;
+    private long openedTimestamp = 0;
+
+    /**
+     * Creates a new circuit breaker.
+     *
+     * @param retryPolicy The policy defining failure threshold and open duration.
+     * @param timingProvider Provider for the current time.
+     */
+    public CircuitBreaker(RetryPolicy retryPolicy, TimingProvider timingProvider) {
+        this.failureThreshold = retryPolicy.getCircuitBreakerFailureThreshold();
+        this.openDurationInMillis = retryPolicy.getCircuitBreakerOpenDurationInMillis();
+        this.timingProvider = timingProvider;
+    }
+
+    /**
+     * Checks whether a request may be sent.
+     *
+     * <p>
+     *     If the open duration has elapsed, this transitions the circuit breaker into {@link State#HALF_OPEN}
+     *     and allows exactly one trial request.
+     * </p>
+     *
+     * @return {@code true} if the request may be sent, {@code false} if it must fail immediately.
+     */
+    public synchronized boolean isRequestAllowed() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (timingProvider.provideTimestampInMilliseconds() - openedTimestamp < openDurationInMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                openedTimestamp = timingProvider.provideTimestampInMilliseconds();
+                return true;
+            default:
+                if (timingProvider.provideTimestampInMilliseconds() - openedTimestamp < openDurationInMillis) {
+                    // trial request is still in flight
+                    return false;
+                }
+                // trial request did not report back in time, allow another one
+                openedTimestamp = timingProvider.provideTimestampInMilliseconds();
+                return true;
+        }
+    }
+
+    /**
+     * Records a request which reached the endpoint.
+     */
+    public synchronized void onSuccess() {
+        numConsecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a request which failed, because the endpoint could not be reached.
+     */
+    public synchronized void onFailure() {
+        if (failureThreshold <= 0) {
+            // circuit breaker is disabled
+            return;
+        }
+
+        numConsecutiveFailures++;
+        if (state == State.HALF_OPEN || numConsecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedTimestamp = timingProvider.provideTimestampInMilliseconds();
+        }
+    }
+
+    /**
+     * Returns the current state of this circuit breaker.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+/**
+ * Callback notified when a {@link Beacon} captured enough data for being sent before the send interval expired.
+ */
+public interface EarlySendCallback {
+
+    /**
+     * Called after the data added to the beacon cache since the beacon was last sent exceeded the early send threshold.
+     *
+     * <p>
+     * This method is called on the thread reporting the data, possibly while holding locks of the reporting
+     * object. Implementations must therefore return quickly and must not call back into the reporting object.
+     * </p>
+     */
+    void onEarlySendThresholdExceeded();
+}
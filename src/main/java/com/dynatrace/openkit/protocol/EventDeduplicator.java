@@ -0,0 +1,367 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deduplicates identical errors and events reported on a single {@link Beacon} within a time window.
+ *
+ * <p>
+ *     The first occurrence of an error or event opens a window and must be reported. Further identical occurrences
+ *     within the window are only counted. Once the window is closed, windows with more than one occurrence are
+ *     handed out, so that the number of occurrences can be reported as a single record.
+ * </p>
+ *
+ * <p>
+ *     The number of open windows is limited to {@link #MAX_OPEN_WINDOWS}, occurrences exceeding this limit
+ *     are not deduplicated.
+ * </p>
+ *
+ * <p>
+ *     Additionally, at most {@link #MAX_REPORTS_PER_WINDOW} occurrences are reported within the duration of a window,
+ *     further occurrences are dropped and only counted.
+ * </p>
+ */
+class EventDeduplicator {
+
+    /** Maximum number of distinct errors and events deduplicated at the same time */
+    static final int MAX_OPEN_WINDOWS = 100;
+    /** Maximum number of occurrences which are reported within the duration of a window */
+    static final int MAX_REPORTS_PER_WINDOW = 1000;
+
+    private final long windowInMillis;
+
+    /** start of the current rate limit interval, which lasts as long as a window */
+    private long rateLimitStartTimestamp;
+    /** number of occurrences reported in the current rate limit interval */
+    private int reportsInRateLimitInterval = 0;
+    /** number of occurrences dropped due to the rate limit, which were not yet handed out */
+    private long droppedOccurrences = 0;
+
+    /** open windows, in order of their start */
+    private final Map<EventKey, EventWindow> openWindows = new LinkedHashMap<>();
+    /** closed windows with duplicates, which were not yet handed out */
+    private final List<EventWindow> closedWindows = new ArrayList<>();
+
+    /**
+     * Creates a new deduplicator.
+     *
+     * @param windowInMillis The duration of a window in milliseconds.
+     */
+    EventDeduplicator(long windowInMillis) {
+        this.windowInMillis = windowInMillis;
+    }
+
+    /**
+     * Records an occurrence of the error or event identified by the given key.
+     *
+     * <p>
+     *     If a previous window for the same key has already expired, it is closed and a new window is opened.
+     * </p>
+     *
+     * @param key The key identifying the error or event.
+     * @param timestamp The timestamp of the occurrence in milliseconds.
+     *
+     * @return {@code true} if the occurrence must be reported, {@code false} if it is a duplicate
+     *     or exceeds the rate limit.
+     */
+    synchronized boolean recordOccurrence(EventKey key, long timestamp) {
+        EventWindow window = openWindows.get(key);
+        if (window != null) {
+            if (timestamp - window.startTimestamp < windowInMillis) {
+                window.occurrences++;
+                return false;
+            }
+
+            openWindows.remove(key);
+            closeWindow(window);
+        }
+
+        if (!isWithinRateLimit(timestamp)) {
+            droppedOccurrences++;
+            return false;
+        }
+
+        if (openWindows.size() < MAX_OPEN_WINDOWS) {
+            openWindows.put(key, new EventWindow(key, timestamp));
+        }
+
+        return true;
+    }
+
+    private boolean isWithinRateLimit(long timestamp) {
+        if (reportsInRateLimitInterval == 0 || timestamp - rateLimitStartTimestamp >= windowInMillis) {
+            rateLimitStartTimestamp = timestamp;
+            reportsInRateLimitInterval = 0;
+        }
+        if (reportsInRateLimitInterval >= MAX_REPORTS_PER_WINDOW) {
+            return false;
+        }
+
+        reportsInRateLimitInterval++;
+        return true;
+    }
+
+    /**
+     * Hands out the number of occurrences dropped due to the rate limit since the last call.
+     *
+     * @return The number of dropped occurrences.
+     */
+    synchronized long drainDroppedOccurrences() {
+        long result = droppedOccurrences;
+        droppedOccurrences = 0;
+
+        return result;
+    }
+
+    /**
+     * Closes all windows which expired before the given timestamp and hands out all closed windows with duplicates.
+     *
+     * @param timestamp The current timestamp in milliseconds.
+     *
+     * @return Closed windows having more than one occurrence, in order of their start.
+     */
+    synchronized List<EventWindow> closeExpiredWindows(long timestamp) {
+        Iterator<EventWindow> iterator = openWindows.values().iterator();
+        while (iterator.hasNext()) {
+            EventWindow window = iterator.next();
+            if (timestamp - window.startTimestamp < windowInMillis) {
+                // windows are ordered by start, therefore all following windows are still open
+                break;
+            }
+            iterator.remove();
+            closeWindow(window);
+        }
+
+        return drainClosedWindows();
+    }
+
+    /**
+     * Closes all windows, regardless of whether they expired or not, and hands out all closed windows with duplicates.
+     *
+     * @return Closed windows having more than one occurrence, in order of their start.
+     */
+    synchronized List<EventWindow> closeAllWindows() {
+        for (EventWindow window : openWindows.values()) {
+            closeWindow(window);
+        }
+        openWindows.clear();
+
+        return drainClosedWindows();
+    }
+
+    /**
+     * Hands out closed windows with duplicates, without closing any open window.
+     *
+     * @return Closed windows having more than one occurrence.
+     */
+    synchronized List<EventWindow> drainClosedWindows() {
+        if (closedWindows.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<EventWindow> result = new ArrayList<>(closedWindows);
+        closedWindows.clear();
+
+        return result;
+    }
+
+    private void closeWindow(EventWindow window) {
+        if (window.occurrences > 1) {
+            closedWindows.add(window);
+        }
+    }
+
+    /**
+     * Window of a single error or event.
+     */
+    static final class EventWindow {
+
+        private final EventKey key;
+        private final long startTimestamp;
+        private long occurrences = 1;
+
+        private EventWindow(EventKey key, long startTimestamp) {
+            this.key = key;
+            this.startTimestamp = startTimestamp;
+        }
+
+        /**
+         * Get the ID of the action on which the error or event was reported.
+         */
+        int getParentActionID() {
+            return key.parentActionID;
+        }
+
+        /**
+         * Get the name of the error or event.
+         */
+        String getName() {
+            return key.name;
+        }
+
+        /**
+         * Get the number of occurrences within this window, including the first one.
+         */
+        long getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    /**
+     * Identifies an error or event.
+     *
+     * <p>
+     *     Two errors or events are identical, if their type, parent action, name and all reported attributes are equal.
+     *     Errors caused by a {@link Throwable} are identified by the throwable's class and stack trace instead.
+     * </p>
+     */
+    static final class EventKey {
+
+        private final EventType eventType;
+        private final int parentActionID;
+        private final String name;
+        private final int errorCode;
+        private final String causeName;
+        private final String causeDescription;
+        private final String causeStackTrace;
+        private final int throwableHash;
+        private final int hashCode;
+
+        private EventKey(EventType eventType, int parentActionID, String name, int errorCode,
+                         String causeName, String causeDescription, String causeStackTrace, int throwableHash) {
+            this.eventType = eventType;
+            this.parentActionID = parentActionID;
+            this.name = name;
+            this.errorCode = errorCode;
+            this.causeName = causeName;
+            this.causeDescription = causeDescription;
+            this.causeStackTrace = causeStackTrace;
+            this.throwableHash = throwableHash;
+            this.hashCode = computeHashCode();
+        }
+
+        /**
+         * Creates a key for a named event.
+         */
+        static EventKey forEvent(int parentActionID, String eventName) {
+            return new EventKey(EventType.NAMED_EVENT, parentActionID, eventName, 0, null, null, null, 0);
+        }
+
+        /**
+         * Creates a key for an error with an error code.
+         */
+        static EventKey forError(int parentActionID, String errorName, int errorCode) {
+            return new EventKey(EventType.ERROR, parentActionID, errorName, errorCode, null, null, null, 0);
+        }
+
+        /**
+         * Creates a key for an error with a cause.
+         */
+        static EventKey forError(int parentActionID, String errorName,
+                                 String causeName, String causeDescription, String causeStackTrace) {
+            return new EventKey(EventType.EXCEPTION, parentActionID, errorName, 0,
+                    causeName, causeDescription, causeStackTrace, 0);
+        }
+
+        /**
+         * Creates a key for an error caused by a {@link Throwable}.
+         *
+         * <p>
+         *     The throwable is identified by its class and a hash of all stack frames of the throwable and its causes,
+         *     so that duplicates can be detected without formatting the stack trace. The message is not taken into
+         *     account, since it often contains varying details like IDs or timestamps.
+         * </p>
+         */
+        static EventKey forError(int parentActionID, String errorName, Throwable throwable) {
+            if (throwable == null) {
+                return forError(parentActionID, errorName, null, null, null);
+            }
+
+            return new EventKey(EventType.EXCEPTION, parentActionID, errorName, 0,
+                    throwable.getClass().getName(), null, null, computeThrowableHash(throwable));
+        }
+
+        /**
+         * Computes a hash of the classes and stack frames of the given throwable and its causes.
+         */
+        private static int computeThrowableHash(Throwable throwable) {
+            // guard against cyclic causes
+            Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+
+            int result = 0;
+            for (Throwable current = throwable; current != null && visited.add(current); current = current.getCause()) {
+                result = 31 * result + current.getClass().getName().hashCode();
+                for (StackTraceElement stackFrame : current.getStackTrace()) {
+                    result = 31 * result + stackFrame.hashCode();
+                }
+            }
+            return result;
+        }
+
+        private int computeHashCode() {
+            int result = eventType.hashCode();
+            result = 31 * result + parentActionID;
+            result = 31 * result + name.hashCode();
+            result = 31 * result + errorCode;
+            result = 31 * result + (causeName != null ? causeName.hashCode() : 0);
+            result = 31 * result + (causeDescription != null ? causeDescription.hashCode() : 0);
+            result = 31 * result + (causeStackTrace != null ? causeStackTrace.hashCode() : 0);
+            result = 31 * result + throwableHash;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            EventKey other = (EventKey) o;
+            return hashCode == other.hashCode
+                    && eventType == other.eventType
+                    && parentActionID == other.parentActionID
+                    && errorCode == other.errorCode
+                    && throwableHash == other.throwableHash
+                    && name.equals(other.name)
+                    && equalsNullSafe(causeName, other.causeName)
+                    && equalsNullSafe(causeDescription, other.causeDescription)
+                    && equalsNullSafe(causeStackTrace, other.causeStackTrace);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        private static boolean equalsNullSafe(String first, String second) {
+            return first == null ? second == null : first.equals(second);
+        }
+    }
+}
@@ -21,20 +21,32 @@ import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.api.http.HttpTransportCallback;
+import com.dynatrace.openkit.api.http.HttpTransportRequest;
+import com.dynatrace.openkit.api.http.HttpTransportResponse;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.util.PercentEncoder;
 import com.dynatrace.openkit.protocol.http.HttpRequestHttpURLConnectionAdapter;
+import com.dynatrace.openkit.protocol.http.HttpResponseHttpTransportAdapter;
 import com.dynatrace.openkit.protocol.http.HttpResponseHttpURLConnectionAdapter;
+import com.dynatrace.openkit.protocol.http.HttpTransportRequestImpl;
+import com.dynatrace.openkit.protocol.ssl.SSLSocketFactoryCache;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultRandomNumberGenerator;
+import com.dynatrace.openkit.providers.DefaultTimingProvider;
 import com.dynatrace.openkit.providers.HttpURLConnectionWrapper;
+import com.dynatrace.openkit.providers.RandomNumberGenerator;
+import com.dynatrace.openkit.util.json.parser.ParserException;
 
 import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
@@ -43,9 +55,10 @@ import java.net.URL;
 import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -90,44 +103,101 @@ public class HTTPClient {
     // additional reserved characters for URL encoding
     private static final char[] QUERY_RESERVED_CHARACTERS = {'_'};
 
+    // upper bound for the length of the per request query parameters (cts and si)
+    private static final int MAX_APPENDED_QUERY_LENGTH = 96;
+
     // connection constants
-    private static final int MAX_SEND_RETRIES = 3;
-    private static final int RETRY_SLEEP_TIME = 200;        // retry sleep time in ms
     private static final int CONNECT_TIMEOUT = 5000;
     private static final int READ_TIMEOUT = 30000;
 
+    // response reading constants
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_RETAINED_RESPONSE_BUFFER_SIZE = 64 * 1024;
+
+    // buffers used for reading responses, reused per thread to avoid allocations for every response
+    private static final ThreadLocal<byte[]> READ_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[READ_BUFFER_SIZE];
+        }
+    };
+    private static final ThreadLocal<ByteArrayOutputStream> RESPONSE_BUFFER = new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream(READ_BUFFER_SIZE);
+        }
+    };
+
     // URLs for requests
     private final String monitorURL;
     private final String newSessionURL;
 
+    // precomputed query parameter prefixes, only numeric values need to be appended per request
+    private final String configTimestampParameterPrefix;
+    private final String sessionIdentifierParameterPrefix;
+
     private final int serverID;
     private final long deviceID;
 
     private final SSLTrustManager sslTrustManager;
+    private final SSLTrustManager defaultTrustManager = new SSLStrictTrustManager();
+    private final SSLSocketFactoryCache sslSocketFactoryCache;
 
     private final HttpRequestInterceptor httpRequestInterceptor;
     private final HttpResponseInterceptor httpResponseInterceptor;
 
+    private final HttpTransport httpTransport;
+
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RandomNumberGenerator randomNumberGenerator = new DefaultRandomNumberGenerator();
+
+    private final HTTPConnectionStatistics connectionStatistics = new HTTPConnectionStatistics();
+
     private final Logger logger;
 
     // *** constructors ***
 
     public HTTPClient(Logger logger, HTTPClientConfiguration configuration) {
+        this(logger, configuration, null);
+    }
+
+    /**
+     * Creates a new HTTP client.
+     *
+     * @param logger The logger for logging messages.
+     * @param configuration The configuration of this client.
+     * @param circuitBreaker The circuit breaker shared by all clients sending to the same endpoint,
+     *                       or {@code null} to create a dedicated one.
+     */
+    public HTTPClient(Logger logger, HTTPClientConfiguration configuration, CircuitBreaker circuitBreaker) {
         this.logger = logger;
         serverID = configuration.getServerID();
         monitorURL = buildMonitorURL(configuration.getBaseURL(), configuration.getApplicationID(), serverID);
         newSessionURL = buildNewSessionURL(configuration.getBaseURL(), configuration.getApplicationID(), serverID);
         sslTrustManager = configuration.getSSLTrustManager();
+        sslSocketFactoryCache = configuration.getSSLSocketFactoryCache() != null
+                ? configuration.getSSLSocketFactoryCache()
+                : new SSLSocketFactoryCache();
         httpRequestInterceptor = configuration.getHttpRequestInterceptor();
         httpResponseInterceptor = configuration.getHttpResponseInterceptor();
+        httpTransport = configuration.getHttpTransport();
+        retryPolicy = configuration.getRetryPolicy() != null
+                ? configuration.getRetryPolicy()
+                : RetryPolicy.DEFAULT;
+        this.circuitBreaker = circuitBreaker != null
+                ? circuitBreaker
+                : new CircuitBreaker(retryPolicy, new DefaultTimingProvider());
         deviceID = configuration.getDeviceID();
+        configTimestampParameterPrefix = buildQueryParamPrefix(QUERY_KEY_CONFIG_TIMESTAMP, null);
+        sessionIdentifierParameterPrefix = buildQueryParamPrefix(QUERY_KEY_SESSION_IDENTIFIER, deviceID + "_");
     }
 
     // *** public methods ***
 
     // sends a status check request and returns a status response
     public StatusResponse sendStatusRequest(AdditionalQueryParameters additionalParameters) {
-        String url = appendAdditionalQueryParameters(monitorURL, additionalParameters);
+        String url = buildURL(monitorURL, additionalParameters, false, 0);
         StatusResponse response = sendRequest(RequestType.STATUS, url, null, null, "GET");
         return response == null
                 ? StatusResponse.createErrorResponse(logger, Integer.MAX_VALUE)
@@ -135,7 +205,7 @@ public class HTTPClient {
     }
 
     public StatusResponse sendNewSessionRequest(AdditionalQueryParameters additionalParameters) {
-        String url = appendAdditionalQueryParameters(newSessionURL, additionalParameters);
+        String url = buildURL(newSessionURL, additionalParameters, false, 0);
         StatusResponse response = sendRequest(RequestType.NEW_SESSION, url, null, null, "GET");
         return response == null
                 ? StatusResponse.createErrorResponse(logger, Integer.MAX_VALUE)
@@ -148,8 +218,7 @@ public class HTTPClient {
             byte[] data,
             AdditionalQueryParameters additionalParameters,
             int sessionNumber) {
-        String url = appendAdditionalQueryParameters(monitorURL, additionalParameters);
-        url = appendSessionIdentifierParameter(url, String.valueOf(sessionNumber), String.valueOf(deviceID));
+        String url = buildURL(monitorURL, additionalParameters, true, sessionNumber);
 
         StatusResponse response = sendRequest(RequestType.BEACON, url, clientIPAddress, data, "POST");
         return response == null
@@ -162,14 +231,22 @@ public class HTTPClient {
     // generic request send with some verbose output and exception handling
     // protected because it's overridden by the TestHTTPClient
     StatusResponse sendRequest(RequestType requestType, String url, String clientIPAddress, byte[] data, String method) {
+        if (!circuitBreaker.isRequestAllowed()) {
+            return circuitOpenResponse(requestType);
+        }
+
         try {
             if (logger.isDebugEnabled()) {
                 logger.debug(getClass().getSimpleName() + " sendRequest() - HTTP " + requestType.getRequestName() + " Request: " + url);
             }
-            HttpURLConnectionWrapper httpURLConnectionWrapper = new HttpURLConnectionWrapperImpl(url, MAX_SEND_RETRIES);
+            if (httpTransport != null) {
+                return sendRequestViaTransport(requestType, url, clientIPAddress, data, method);
+            }
+            HttpURLConnectionWrapper httpURLConnectionWrapper = new HttpURLConnectionWrapperImpl(url, retryPolicy.getMaxAttempts());
             return sendRequestInternal(requestType, httpURLConnectionWrapper, clientIPAddress, data, method);
         } catch (Exception e) {
             logger.error(getClass().getSimpleName() + " sendRequest() - ERROR: " + requestType + " Request failed!", e);
+            circuitBreaker.onFailure();
         }
         return unknownErrorResponse(requestType);
     }
@@ -183,6 +260,7 @@ public class HTTPClient {
             return sendRequestInternal(requestType, httpURLConnectionWrapper, clientIPAddress, data, method);
         } catch (Exception e) {
             logger.error(getClass().getSimpleName() + "sendRequest() - ERROR: " + requestType + " Request failed!", e);
+            circuitBreaker.onFailure();
         }
         return unknownErrorResponse(requestType);
     }
@@ -190,6 +268,7 @@ public class HTTPClient {
     // generic internal request send
     private StatusResponse sendRequestInternal(RequestType requestType, HttpURLConnectionWrapper httpURLConnectionWrapper, String clientIPAddress,
                                                byte[] data, String method) throws IOException, GeneralSecurityException {
+        int retry = 0;
         while (true) {
             try {
                 HttpURLConnection connection = httpURLConnectionWrapper.getHttpURLConnection();
@@ -214,18 +293,21 @@ public class HTTPClient {
                 // write the post body data
                 writePostBodyData(connection, data);
 
-                return handleResponse(requestType, connection);
-
+                StatusResponse response = handleResponse(requestType, connection);
+                onResponseReceived(connection.getResponseCode());
 
+                return response;
             } catch (IOException exception) {
                 if (!httpURLConnectionWrapper.isRetryAllowed()) {
                     throw exception;
                 }
 
                 logger.log(LogLevel.INFO, "Exception occurred during connection establishment. Retry in progress.", exception);
+                connectionStatistics.requestRetried();
 
                 try {
-                    Thread.sleep(RETRY_SLEEP_TIME);
+                    Thread.sleep(retryPolicy.getRetryDelayInMillis(retry, randomNumberGenerator));
+                    retry++;
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     return unknownErrorResponse(requestType);
@@ -234,11 +316,75 @@ public class HTTPClient {
         }
     }
 
-    private void writePostBodyData(HttpURLConnection connection, byte[] data) throws IOException {
+    // request send using the configured transport, the calling thread waits for the outcome of each attempt
+    private StatusResponse sendRequestViaTransport(RequestType requestType, String url, String clientIPAddress, byte[] data,
+                                                   String method) throws IOException {
+        HttpTransportRequestImpl request = createTransportRequest(url, clientIPAddress, data, method);
+
+        // invoke request interceptor
+        httpRequestInterceptor.intercept(request);
+
+        int retry = 0;
+        while (true) {
+            BlockingHttpTransportCallback callback = new BlockingHttpTransportCallback();
+            httpTransport.send(request, callback);
+
+            try {
+                if (!callback.await(CONNECT_TIMEOUT + READ_TIMEOUT)) {
+                    logger.warning(getClass().getSimpleName() + " sendRequestViaTransport() - " + requestType + " Request timed out");
+                    circuitBreaker.onFailure();
+                    return unknownErrorResponse(requestType);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return unknownErrorResponse(requestType);
+            }
+
+            HttpTransportResponse response = callback.getResponse();
+            if (response != null) {
+                onResponseReceived(response.getResponseCode());
+                return handleResponse(requestType, request, response);
+            }
+
+            IOException exception = callback.getException();
+            if (retry + 1 >= retryPolicy.getMaxAttempts()) {
+                throw exception;
+            }
+
+            logger.log(LogLevel.INFO, "Exception occurred during sending request via transport. Retry in progress.", exception);
+            connectionStatistics.requestRetried();
+
+            try {
+                Thread.sleep(retryPolicy.getRetryDelayInMillis(retry, randomNumberGenerator));
+                retry++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return unknownErrorResponse(requestType);
+            }
+        }
+    }
+
+    private HttpTransportRequestImpl createTransportRequest(String url, String clientIPAddress, byte[] data, String method)
+            throws IOException {
+        byte[] body = gzipPostBodyData(data);
+
+        HttpTransportRequestImpl request = new HttpTransportRequestImpl(new URL(url), method, body, CONNECT_TIMEOUT, READ_TIMEOUT);
+        if (clientIPAddress != null) {
+            request.setHeaderInternal("X-Client-IP", clientIPAddress);
+        }
+        request.setHeaderInternal("User-Agent", "OpenKit/" + ProtocolConstants.OPENKIT_VERSION);
+        if (body != null) {
+            request.setHeaderInternal("Content-Encoding", "gzip");
+            request.setHeaderInternal("Content-Type", "text/plain; charset=utf-8");
+        }
 
-        // gzip beacon data, if available
+        return request;
+    }
+
+    // gzip beacon data, if available
+    private byte[] gzipPostBodyData(byte[] data) throws IOException {
         if (data == null || data.length == 0) {
-            return;
+            return null;
         }
 
         byte[] gzippedData = gzip(data);
@@ -248,6 +394,16 @@ public class HTTPClient {
             logger.debug(getClass().getSimpleName() + " sendRequestInternal() - Beacon Payload: " + decodedData);
         }
 
+        return gzippedData;
+    }
+
+    private void writePostBodyData(HttpURLConnection connection, byte[] data) throws IOException {
+
+        byte[] gzippedData = gzipPostBodyData(data);
+        if (gzippedData == null) {
+            return;
+        }
+
         connection.setRequestProperty("Content-Encoding", "gzip");
         connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
         connection.setFixedLengthStreamingMode(gzippedData.length);
@@ -281,35 +437,122 @@ public class HTTPClient {
         // get response code
         int responseCode = connection.getResponseCode();
 
-        String response = responseCode >= 400
-                ? null
-                : readResponse(connection.getInputStream()); // input stream is closed in readResponse
+        if (responseCode < 400 && isStatusResponseRequestType(requestType)) {
+            // parse directly from the stream, without reading the whole response into a string
+            return handleStreamedResponse(responseCode, connection);
+        }
+
+        // always drain the response, also for error codes, to allow reusing the connection
+        String response;
+        try {
+            response = readResponse(responseCode >= 400
+                    ? connection.getErrorStream()
+                    : connection.getInputStream()); // stream is closed in readResponse
+            connectionStatistics.responseDrained();
+        } catch (IOException e) {
+            connectionStatistics.responseAbandoned();
+            throw e;
+        }
 
         if (logger.isDebugEnabled()) {
-            logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response: " + response);
-            logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response Code: " + responseCode);
+            logResponse(responseCode, response);
         }
 
         // invoke response interceptor
         httpResponseInterceptor.intercept(new HttpResponseHttpURLConnectionAdapter(connection));
 
-        // create typed response based on request type and response content
-        if (requestType == RequestType.BEACON
-                || requestType == RequestType.STATUS
-                || requestType == RequestType.NEW_SESSION) {
-            return responseCode >= 400
-                    ? StatusResponse.createErrorResponse(logger, responseCode, connection.getHeaderFields())
-                    : parseStatusResponse(response, responseCode, connection.getHeaderFields());
+        return createUnparsedStatusResponse(requestType, responseCode, connection.getHeaderFields());
+    }
+
+    private StatusResponse handleStreamedResponse(int responseCode, HttpURLConnection connection) throws IOException {
+        ResponseAttributes parsedAttributes = null;
+        InputStream inputStream = connection.getInputStream();
+        if (inputStream == null) {
+            inputStream = new ByteArrayInputStream(new byte[0]);
+        }
+
+        ByteArrayOutputStream debugBuffer = null;
+        if (logger.isDebugEnabled()) {
+            // copy the raw response while it is parsed, so that it can be logged afterwards
+            debugBuffer = RESPONSE_BUFFER.get();
+            debugBuffer.reset();
+            inputStream = new TeeInputStream(inputStream, debugBuffer);
+        }
+
+        try {
+            try {
+                parsedAttributes = ResponseParser.parseResponse(new InputStreamReader(inputStream, Beacon.CHARSET));
+            } catch (ParserException e) {
+                logger.error(getClass().getSimpleName() + " handleStreamedResponse() - Failed to parse StatusResponse", e);
+            }
+            // read what is left after a parse error, so that the underlying connection can be reused
+            drain(inputStream);
+            connectionStatistics.responseDrained();
+        } catch (IOException e) {
+            connectionStatistics.responseAbandoned();
+            throw e;
+        } finally {
+            inputStream.close();
+        }
+
+        if (debugBuffer != null) {
+            logResponse(responseCode, decodeResponseBuffer(debugBuffer));
+        }
+
+        // invoke response interceptor
+        httpResponseInterceptor.intercept(new HttpResponseHttpURLConnectionAdapter(connection));
+
+        if (parsedAttributes == null) {
+            return StatusResponse.createErrorResponse(logger, Integer.MAX_VALUE);
+        }
+        return StatusResponse.createSuccessResponse(logger, parsedAttributes, responseCode, connection.getHeaderFields());
+    }
+
+    private StatusResponse handleResponse(RequestType requestType, HttpTransportRequest request, HttpTransportResponse transportResponse) {
+        int responseCode = transportResponse.getResponseCode();
+        byte[] body = transportResponse.getBody() != null ? transportResponse.getBody() : new byte[0];
+
+        if (logger.isDebugEnabled()) {
+            logResponse(responseCode, decodeData(body));
+        }
+
+        // invoke response interceptor
+        httpResponseInterceptor.intercept(new HttpResponseHttpTransportAdapter(request, transportResponse));
+
+        if (responseCode >= 400 || !isStatusResponseRequestType(requestType)) {
+            return createUnparsedStatusResponse(requestType, responseCode, transportResponse.getHeaders());
+        }
+
+        // parse directly from the received bytes, without decoding them into a string
+        return parseStatusResponse(new ByteArrayInputStream(body), responseCode, transportResponse.getHeaders());
+    }
+
+    private void logResponse(int responseCode, String response) {
+        logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response: " + response);
+        logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response Code: " + responseCode);
+    }
+
+    // create typed response for error responses and unknown request types, whose content is not parsed
+    private StatusResponse createUnparsedStatusResponse(RequestType requestType, int responseCode,
+                                                        Map<String, List<String>> headers) {
+        if (isStatusResponseRequestType(requestType)) {
+            return StatusResponse.createErrorResponse(logger, responseCode, headers);
         } else {
             logger.warning(getClass().getSimpleName() + " handleResponse() - Unknown request type " + requestType + " - ignoring response");
             return unknownErrorResponse(requestType);
         }
     }
 
-    private StatusResponse parseStatusResponse(String response, int responseCode, Map<String, List<String>> headers) {
+    private static boolean isStatusResponseRequestType(RequestType requestType) {
+        return requestType == RequestType.BEACON
+                || requestType == RequestType.STATUS
+                || requestType == RequestType.NEW_SESSION;
+    }
+
+    private StatusResponse parseStatusResponse(InputStream response, int responseCode, Map<String, List<String>> headers) {
         try {
-            ResponseAttributes parsedAttributes = ResponseParser.parseResponse(response);
-            return StatusResponse.createSuccessResponse(logger, parsedAttributes,responseCode, headers);
+            ResponseAttributes parsedAttributes = ResponseParser.parseResponse(new InputStreamReader(response, Beacon.CHARSET));
+            return StatusResponse.createSuccessResponse(logger, parsedAttributes, responseCode, headers);
         } catch (Exception e) {
             logger.error(getClass().getSimpleName() + " parseStatusResponse() - Failed to parse StatusResponse", e);
             return StatusResponse.createErrorResponse(logger, Integer.MAX_VALUE);
@@ -317,25 +560,14 @@ public class HTTPClient {
     }
 
     private void applySSLTrustManager(HttpsURLConnection connection) throws NoSuchAlgorithmException, KeyManagementException {
-        String version = System.getProperty("java.version");
-        SSLContext context;
-
-        if(version != null && version.startsWith("1.7")) {
-            // With Java 7 we need to use this workaround to get TLS 1.2 support
-            context = SSLContext.getInstance("TLSv1.2");
-        } else {
-            context = SSLContext.getInstance("TLS");
-        }
-
         X509TrustManager x509TrustManager;
         if (sslTrustManager == null || sslTrustManager.getX509TrustManager() == null) {
             // if provided trust manager is null use a strict one by default
-            x509TrustManager = new SSLStrictTrustManager().getX509TrustManager();
+            x509TrustManager = defaultTrustManager.getX509TrustManager();
         } else {
             x509TrustManager = sslTrustManager.getX509TrustManager();
         }
-        context.init(null, new TrustManager[]{x509TrustManager}, new SecureRandom());
-        connection.setSSLSocketFactory(context.getSocketFactory());
+        connection.setSSLSocketFactory(sslSocketFactoryCache.getSocketFactory(x509TrustManager));
 
         if (sslTrustManager != null && sslTrustManager.getHostnameVerifier() != null) {
             connection.setHostnameVerifier(sslTrustManager.getHostnameVerifier());
@@ -368,20 +600,28 @@ public class HTTPClient {
         return monitorURLBuilder.toString();
     }
 
-    private static String appendAdditionalQueryParameters(String baseUrl, AdditionalQueryParameters parameters) {
-        if (parameters == null) {
+    // builds the request URL from the precomputed base URL, appending only the per request values
+    private String buildURL(String baseUrl, AdditionalQueryParameters parameters, boolean appendSessionIdentifier, int sessionNumber) {
+        if (parameters == null && !appendSessionIdentifier) {
             return baseUrl;
         }
 
-        StringBuilder builder = new StringBuilder(baseUrl);
-        appendQueryParam(builder, QUERY_KEY_CONFIG_TIMESTAMP, Long.toString(parameters.getConfigurationTimestamp()));
+        StringBuilder builder = new StringBuilder(baseUrl.length() + MAX_APPENDED_QUERY_LENGTH);
+        builder.append(baseUrl);
+        if (parameters != null) {
+            builder.append(configTimestampParameterPrefix).append(parameters.getConfigurationTimestamp());
+        }
+        if (appendSessionIdentifier) {
+            builder.append(sessionIdentifierParameterPrefix).append(sessionNumber);
+        }
 
         return builder.toString();
     }
 
-    private static String appendSessionIdentifierParameter(String baseUrl, String sessionNumber, String deviceID) {
-        StringBuilder builder = new StringBuilder(baseUrl);
-        appendQueryParam(builder, QUERY_KEY_SESSION_IDENTIFIER, deviceID + "_" + sessionNumber);
+    // builds "&key=" followed by the percent encoded value prefix
+    private static String buildQueryParamPrefix(String key, String valuePrefix) {
+        StringBuilder builder = new StringBuilder();
+        appendQueryParam(builder, key, valuePrefix == null ? "" : valuePrefix);
 
         return builder.toString();
     }
@@ -410,25 +650,75 @@ public class HTTPClient {
         return serverID;
     }
 
+    /**
+     * Returns the statistics about connections used by this client.
+     */
+    public HTTPConnectionStatistics getConnectionStatistics() {
+        return connectionStatistics;
+    }
+
+    /**
+     * Returns the circuit breaker guarding requests to the endpoint of this client.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     private static String readResponse(InputStream inputStream) throws IOException {
         if (inputStream == null) {
             return "";
         }
 
-        StringBuilder responseBuilder = new StringBuilder();
+        ByteArrayOutputStream responseBuffer = RESPONSE_BUFFER.get();
+        responseBuffer.reset();
 
-        // reading HTTP response
+        // read the whole HTTP response, so that the underlying connection can be reused
         try {
-            byte[] buffer = new byte[1024];
+            byte[] readBuffer = READ_BUFFER.get();
             int length;
-            while ((length = inputStream.read(buffer)) > 0) {
-                responseBuilder.append(new String(buffer, 0, length, Beacon.CHARSET));
+            while ((length = inputStream.read(readBuffer)) != -1) {
+                responseBuffer.write(readBuffer, 0, length);
             }
         } finally {
             inputStream.close();
         }
 
-        return responseBuilder.toString();
+        return decodeResponseBuffer(responseBuffer);
+    }
+
+    private static String decodeResponseBuffer(ByteArrayOutputStream responseBuffer) throws IOException {
+        // decode once, so that multi-byte characters are not split
+        String response = responseBuffer.toString(Beacon.CHARSET);
+        if (responseBuffer.size() > MAX_RETAINED_RESPONSE_BUFFER_SIZE) {
+            // don't keep overly large buffers alive
+            RESPONSE_BUFFER.remove();
+        }
+
+        return response;
+    }
+
+    private static void drain(InputStream inputStream) throws IOException {
+        byte[] readBuffer = READ_BUFFER.get();
+        while (inputStream.read(readBuffer) != -1) {
+            // discard
+        }
+    }
+
+    // server errors indicate a failing endpoint, client errors (e.g. 429) are handled by the response itself
+    private void onResponseReceived(int responseCode) {
+        if (responseCode >= 500) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private StatusResponse circuitOpenResponse(RequestType requestType) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " sendRequest() - " + requestType
+                    + " Request not sent, since the circuit breaker is open");
+        }
+        return unknownErrorResponse(requestType);
     }
 
     private StatusResponse unknownErrorResponse(RequestType requestType) {
@@ -448,6 +738,74 @@ public class HTTPClient {
         }
     }
 
+    /**
+     * Input stream copying all bytes read from the underlying stream into a buffer.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream copy;
+
+        private TeeInputStream(InputStream inputStream, ByteArrayOutputStream copy) {
+            super(inputStream);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                copy.write(value);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int numBytes = super.read(buffer, offset, length);
+            if (numBytes > 0) {
+                copy.write(buffer, offset, numBytes);
+            }
+            return numBytes;
+        }
+    }
+
+    /**
+     * Callback allowing to wait for the outcome of a request sent via {@link HttpTransport}.
+     */
+    private static final class BlockingHttpTransportCallback implements HttpTransportCallback {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile HttpTransportResponse response = null;
+        private volatile IOException exception = null;
+
+        @Override
+        public void onResponse(HttpTransportResponse response) {
+            this.response = response;
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException exception) {
+            this.exception = exception != null ? exception : new IOException("Request failed");
+            latch.countDown();
+        }
+
+        // returns true if the request completed within the given time
+        boolean await(long timeoutMillis) throws InterruptedException {
+            return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // returns the received response, or null if the request failed
+        HttpTransportResponse getResponse() {
+            return response;
+        }
+
+        // returns the exception of a failed request, or null if a response was received
+        IOException getException() {
+            return exception;
+        }
+    }
+
     /**
      * A wrapper class to hold url and create {@link HttpURLConnection} on-demand.
      * This allows to generate {@link HttpURLConnection} for failed attempts.
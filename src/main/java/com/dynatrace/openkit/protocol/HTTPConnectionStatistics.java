@@ -0,0 +1,74 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters used to verify that connections of an {@link HTTPClient} can be reused.
+ *
+ * <p>
+ *     {@link java.net.HttpURLConnection} only returns a socket to the keep-alive pool if the
+ *     response body (or error body) was read completely and the stream was closed.
+ * </p>
+ */
+public class HTTPConnectionStatistics {
+
+    private final AtomicLong numDrainedResponses = new AtomicLong();
+    private final AtomicLong numAbandonedResponses = new AtomicLong();
+    private final AtomicLong numRetries = new AtomicLong();
+
+    void responseDrained() {
+        numDrainedResponses.incrementAndGet();
+    }
+
+    void responseAbandoned() {
+        numAbandonedResponses.incrementAndGet();
+    }
+
+    void requestRetried() {
+        numRetries.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of responses which were completely read and closed, allowing the connection to be reused.
+     */
+    public long getNumDrainedResponses() {
+        return numDrainedResponses.get();
+    }
+
+    /**
+     * Returns the number of responses which could not be read completely, so the connection cannot be reused.
+     */
+    public long getNumAbandonedResponses() {
+        return numAbandonedResponses.get();
+    }
+
+    /**
+     * Returns the number of retried connection attempts.
+     */
+    public long getNumRetries() {
+        return numRetries.get();
+    }
+
+    @Override
+    public String toString() {
+        return "drained=" + getNumDrainedResponses()
+                + ", abandoned=" + getNumAbandonedResponses()
+                + ", retries=" + getNumRetries();
+    }
+}
@@ -15,16 +15,25 @@
  */
 package com.dynatrace.openkit.protocol;
 
-
-import com.dynatrace.openkit.util.json.JSONParser;
+import com.dynatrace.openkit.util.json.lexer.JSONLexer;
+import com.dynatrace.openkit.util.json.lexer.JSONToken;
+import com.dynatrace.openkit.util.json.lexer.LexerException;
 import com.dynatrace.openkit.util.json.objects.JSONNumberValue;
-import com.dynatrace.openkit.util.json.objects.JSONObjectValue;
-import com.dynatrace.openkit.util.json.objects.JSONStringValue;
-import com.dynatrace.openkit.util.json.objects.JSONValue;
 import com.dynatrace.openkit.util.json.parser.ParserException;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Parses a JSON status response into {@link ResponseAttributes}.
+ *
+ * <p>
+ *     The response is pull-parsed token by token and the known attributes are applied directly to a
+ *     {@link ResponseAttributesImpl.Builder}, therefore neither the full response string
+ *     nor an intermediate JSON object tree is required.
+ * </p>
+ */
 public class JsonResponseParser {
 
     static final String RESPONSE_KEY_AGENT_CONFIG = "mobileAgentConfig";
@@ -49,242 +58,325 @@ public class JsonResponseParser {
 
     static final String RESPONSE_KEY_TIMESTAMP_IN_MILLIS = "timestamp";
 
+    /** maximum nesting depth of JSON objects and arrays, protecting against stack exhaustion */
+    static final int MAX_NESTING_DEPTH = 32;
+
+    /** error message used for exception, when a JSON array is not terminated */
+    private static final String UNTERMINATED_JSON_ARRAY_ERROR = "Unterminated JSON array";
+    /** error message used for exception, when a JSON object is not terminated */
+    private static final String UNTERMINATED_JSON_OBJECT_ERROR = "Unterminated JSON object";
+
+    /**
+     * The JSON objects of a status response, which contain attributes.
+     */
+    private enum Section {
+        ROOT,
+        AGENT_CONFIG,
+        APP_CONFIG,
+        DYNAMIC_CONFIG,
+        /** any other object, whose members are skipped */
+        UNKNOWN
+    }
+
     private JsonResponseParser() {
     }
 
     public static ResponseAttributes parse(String jsonResponse) throws ParserException {
-        JSONParser parser = new JSONParser(jsonResponse);
-
-        JSONValue parsedValue = parser.parse();
-
-        JSONObjectValue rootObject = (JSONObjectValue) parsedValue;
+        return parse(new StringReader(jsonResponse));
+    }
 
+    /**
+     * Parses the JSON status response read from the given reader.
+     *
+     * <p>
+     *     The reader is read until its end, but it is not closed.
+     * </p>
+     *
+     * @param jsonResponse Reader providing the JSON status response.
+     * @return The parsed response attributes.
+     * @throws ParserException If the response is not a valid JSON object or an attribute has an unexpected type.
+     */
+    public static ResponseAttributes parse(Reader jsonResponse) throws ParserException {
+        JSONLexer lexer = new JSONLexer(jsonResponse);
         ResponseAttributesImpl.Builder builder = ResponseAttributesImpl.withJsonDefaults();
-        applyAgentConfiguration(builder, rootObject);
-        applyApplicationConfiguration(builder, rootObject);
-        applyDynamicConfiguration(builder, rootObject);
-        applyRootAttributes(builder, rootObject);
+
+        try {
+            JSONToken token = lexer.nextToken();
+            ensureTokenIsNotNull(token, "Unexpected end of input");
+            if (token.getTokenType() != JSONToken.TokenType.LEFT_BRACE) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "at start of input"));
+            }
+            parseObject(lexer, builder, Section.ROOT, 1);
+
+            token = lexer.nextToken();
+            if (token != null) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "at end of input"));
+            }
+        } catch (LexerException e) {
+            throw new ParserException("Caught exception from lexical analysis", e);
+        }
 
         return builder.build();
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    /// Agent configuration
+    /// Generic JSON structure
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private static void applyAgentConfiguration(ResponseAttributesImpl.Builder builder, JSONObjectValue rootObject) {
-        JSONValue agentConfigValue = rootObject.get(RESPONSE_KEY_AGENT_CONFIG);
-        if (agentConfigValue == null) {
-            return;
-        }
-
-        JSONObjectValue agentConfigObject = (JSONObjectValue) agentConfigValue;
-        applyBeaconSizeInKb(builder, agentConfigObject);
-        applyMaxSessionDurationInMin(builder, agentConfigObject);
-        applyMaxEventsPerSession(builder, agentConfigObject);
-        applySessionTimeoutInSec(builder, agentConfigObject);
-        applySendIntervalInSec(builder, agentConfigObject);
-        applyVisitStoreVersion(builder, agentConfigObject);
-    }
+    // parses the members of an object, the opening brace has already been consumed
+    private static void parseObject(JSONLexer lexer, ResponseAttributesImpl.Builder builder, Section section, int depth)
+            throws LexerException, ParserException {
+        ensureNestingDepth(depth);
 
-    private static void applyBeaconSizeInKb(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_MAX_BEACON_SIZE_IN_KB);
-        if (value == null) {
+        JSONToken token = lexer.nextToken();
+        ensureTokenIsNotNull(token, UNTERMINATED_JSON_OBJECT_ERROR);
+        if (token.getTokenType() == JSONToken.TokenType.RIGHT_BRACE) {
             return;
         }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int beaconSizeInKb = numberValue.getIntValue();
-        builder.withMaxBeaconSizeInBytes(beaconSizeInKb * 1024);
-    }
-
-    private static void applyMaxSessionDurationInMin(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_MAX_SESSION_DURATION_IN_MIN);
-        if (value == null) {
-            return;
+        while (true) {
+            if (token.getTokenType() != JSONToken.TokenType.VALUE_STRING) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "where object key was expected"));
+            }
+            String key = token.getValue();
+
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_OBJECT_ERROR);
+            if (token.getTokenType() != JSONToken.TokenType.COLON) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "where colon was expected"));
+            }
+
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_OBJECT_ERROR);
+            parseMember(lexer, builder, section, key, token, depth);
+
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_OBJECT_ERROR);
+            if (token.getTokenType() == JSONToken.TokenType.RIGHT_BRACE) {
+                return;
+            }
+            if (token.getTokenType() != JSONToken.TokenType.COMMA) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "where comma or right brace was expected"));
+            }
+
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_OBJECT_ERROR);
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int sessionDurationInMin = numberValue.getIntValue();
-        builder.withMaxSessionDurationInMilliseconds((int) TimeUnit.MINUTES.toMillis(sessionDurationInMin));
     }
 
-    private static void applyMaxEventsPerSession(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_MAX_EVENTS_PER_SESSION);
-        if (value == null) {
-            return;
-        }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int eventsPerSession = numberValue.getIntValue();
-        builder.withMaxEventsPerSession(eventsPerSession);
-    }
+    // parses the elements of an array, the opening square bracket has already been consumed
+    private static void skipArray(JSONLexer lexer, int depth) throws LexerException, ParserException {
+        ensureNestingDepth(depth);
 
-    private static void applySessionTimeoutInSec(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_SESSION_TIMEOUT_IN_SEC);
-        if (value == null) {
+        JSONToken token = lexer.nextToken();
+        ensureTokenIsNotNull(token, UNTERMINATED_JSON_ARRAY_ERROR);
+        if (token.getTokenType() == JSONToken.TokenType.RIGHT_SQUARE_BRACKET) {
             return;
         }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int sessionTimeoutInSec = numberValue.getIntValue();
-        builder.withSessionTimeoutInMilliseconds((int) TimeUnit.SECONDS.toMillis(sessionTimeoutInSec));
-    }
+        while (true) {
+            skipValue(lexer, token, depth);
 
-    private static void applySendIntervalInSec(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_SEND_INTERVAL_IN_SEC);
-        if (value == null) {
-            return;
-        }
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_ARRAY_ERROR);
+            if (token.getTokenType() == JSONToken.TokenType.RIGHT_SQUARE_BRACKET) {
+                return;
+            }
+            if (token.getTokenType() != JSONToken.TokenType.COMMA) {
+                throw new ParserException(unexpectedTokenErrorMessage(token, "where comma or right square bracket was expected"));
+            }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int sendIntervalInSec = numberValue.getIntValue();
-        builder.withSendIntervalInMilliseconds((int) TimeUnit.SECONDS.toMillis(sendIntervalInSec));
+            token = lexer.nextToken();
+            ensureTokenIsNotNull(token, UNTERMINATED_JSON_ARRAY_ERROR);
+        }
     }
 
-    private static void applyVisitStoreVersion(ResponseAttributesImpl.Builder builder, JSONObjectValue agentConfigObject) {
-        JSONValue value = agentConfigObject.get(RESPONSE_KEY_VISIT_STORE_VERSION);
-        if (value == null) {
-            return;
+    // skips the value starting with the given token
+    private static void skipValue(JSONLexer lexer, JSONToken token, int depth) throws LexerException, ParserException {
+        switch (token.getTokenType()) {
+            case LEFT_BRACE:
+                parseObject(lexer, null, Section.UNKNOWN, depth + 1);
+                break;
+            case LEFT_SQUARE_BRACKET:
+                skipArray(lexer, depth + 1);
+                break;
+            case VALUE_NUMBER:   // FALLTHROUGH
+            case VALUE_STRING:   // FALLTHROUGH
+            case LITERAL_BOOLEAN: // FALLTHROUGH
+            case LITERAL_NULL:
+                break;
+            default:
+                throw new ParserException(unexpectedTokenErrorMessage(token, "where value was expected"));
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int visitStoreVersion = numberValue.getIntValue();
-        builder.withVisitStoreVersion(visitStoreVersion);
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    /// Application configuration
+    /// Response attributes
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private static void applyApplicationConfiguration(ResponseAttributesImpl.Builder builder, JSONObjectValue rootObject) {
-        JSONValue appConfigValue = rootObject.get(RESPONSE_KEY_APP_CONFIG);
-        if (appConfigValue == null) {
-            return;
+    private static void parseMember(JSONLexer lexer, ResponseAttributesImpl.Builder builder, Section section, String key,
+                                    JSONToken valueToken, int depth) throws LexerException, ParserException {
+        switch (section) {
+            case ROOT:
+                parseRootMember(lexer, builder, key, valueToken, depth);
+                break;
+            case AGENT_CONFIG:
+                applyAgentConfiguration(lexer, builder, key, valueToken, depth);
+                break;
+            case APP_CONFIG:
+                applyApplicationConfiguration(lexer, builder, key, valueToken, depth);
+                break;
+            case DYNAMIC_CONFIG:
+                applyDynamicConfiguration(lexer, builder, key, valueToken, depth);
+                break;
+            default:
+                skipValue(lexer, valueToken, depth);
+                break;
         }
-
-        JSONObjectValue appConfigObject = (JSONObjectValue) appConfigValue;
-        applyCapture(builder, appConfigObject);
-        applyReportCrashes(builder, appConfigObject);
-        applyReportErrors(builder, appConfigObject);
-        applyTrafficControlPercentage(builder, appConfigObject);
-        applyApplicationId(builder, appConfigObject);
     }
 
-    private static void applyCapture(ResponseAttributesImpl.Builder builder, JSONObjectValue appConfigObject) {
-        JSONValue value = appConfigObject.get(RESPONSE_KEY_CAPTURE);
-        if (value == null) {
-            return;
+    private static void parseRootMember(JSONLexer lexer, ResponseAttributesImpl.Builder builder, String key,
+                                        JSONToken valueToken, int depth) throws LexerException, ParserException {
+        switch (key) {
+            case RESPONSE_KEY_AGENT_CONFIG:
+                parseNestedObject(lexer, builder, Section.AGENT_CONFIG, key, valueToken, depth);
+                break;
+            case RESPONSE_KEY_APP_CONFIG:
+                parseNestedObject(lexer, builder, Section.APP_CONFIG, key, valueToken, depth);
+                break;
+            case RESPONSE_KEY_DYNAMIC_CONFIG:
+                parseNestedObject(lexer, builder, Section.DYNAMIC_CONFIG, key, valueToken, depth);
+                break;
+            case RESPONSE_KEY_TIMESTAMP_IN_MILLIS:
+                builder.withTimestampInMilliseconds(numberValue(key, valueToken).getLongValue());
+                break;
+            default:
+                skipValue(lexer, valueToken, depth);
+                break;
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int capture = numberValue.getIntValue();
-        builder.withCapture(capture == 1);
     }
 
-    private static void applyReportCrashes(ResponseAttributesImpl.Builder builder, JSONObjectValue appConfigObject) {
-        JSONValue value = appConfigObject.get(RESPONSE_KEY_REPORT_CRASHES);
-        if (value == null) {
-            return;
+    private static void parseNestedObject(JSONLexer lexer, ResponseAttributesImpl.Builder builder, Section section,
+                                          String key, JSONToken valueToken, int depth) throws LexerException, ParserException {
+        if (valueToken.getTokenType() != JSONToken.TokenType.LEFT_BRACE) {
+            throw new ParserException(unexpectedValueErrorMessage(key, valueToken, "object"));
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int reportCrashes = numberValue.getIntValue();
-        builder.withCaptureCrashes(reportCrashes != 0);
+        parseObject(lexer, builder, section, depth + 1);
     }
 
-    private static void applyReportErrors(ResponseAttributesImpl.Builder builder, JSONObjectValue appConfigObject) {
-        JSONValue value = appConfigObject.get(RESPONSE_KEY_REPORT_ERRORS);
-        if (value == null) {
-            return;
+    private static void applyAgentConfiguration(JSONLexer lexer, ResponseAttributesImpl.Builder builder, String key,
+                                                JSONToken valueToken, int depth) throws LexerException, ParserException {
+        switch (key) {
+            case RESPONSE_KEY_MAX_BEACON_SIZE_IN_KB:
+                builder.withMaxBeaconSizeInBytes(intValue(key, valueToken) * 1024);
+                break;
+            case RESPONSE_KEY_MAX_SESSION_DURATION_IN_MIN:
+                builder.withMaxSessionDurationInMilliseconds((int) TimeUnit.MINUTES.toMillis(intValue(key, valueToken)));
+                break;
+            case RESPONSE_KEY_MAX_EVENTS_PER_SESSION:
+                builder.withMaxEventsPerSession(intValue(key, valueToken));
+                break;
+            case RESPONSE_KEY_SESSION_TIMEOUT_IN_SEC:
+                builder.withSessionTimeoutInMilliseconds((int) TimeUnit.SECONDS.toMillis(intValue(key, valueToken)));
+                break;
+            case RESPONSE_KEY_SEND_INTERVAL_IN_SEC:
+                builder.withSendIntervalInMilliseconds((int) TimeUnit.SECONDS.toMillis(intValue(key, valueToken)));
+                break;
+            case RESPONSE_KEY_VISIT_STORE_VERSION:
+                builder.withVisitStoreVersion(intValue(key, valueToken));
+                break;
+            default:
+                skipValue(lexer, valueToken, depth);
+                break;
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int reportErrors = numberValue.getIntValue();
-        builder.withCaptureErrors(reportErrors != 0);
     }
 
-    private static void applyTrafficControlPercentage(ResponseAttributesImpl.Builder builder, JSONObjectValue appConfigObject) {
-        JSONValue value = appConfigObject.get(RESPONSE_KEY_TRAFFIC_CONTROL_PERCENTAGE);
-        if (value == null) {
-            return;
+    private static void applyApplicationConfiguration(JSONLexer lexer, ResponseAttributesImpl.Builder builder, String key,
+                                                      JSONToken valueToken, int depth) throws LexerException, ParserException {
+        switch (key) {
+            case RESPONSE_KEY_CAPTURE:
+                builder.withCapture(intValue(key, valueToken) == 1);
+                break;
+            case RESPONSE_KEY_REPORT_CRASHES:
+                builder.withCaptureCrashes(intValue(key, valueToken) != 0);
+                break;
+            case RESPONSE_KEY_REPORT_ERRORS:
+                builder.withCaptureErrors(intValue(key, valueToken) != 0);
+                break;
+            case RESPONSE_KEY_TRAFFIC_CONTROL_PERCENTAGE:
+                builder.withTrafficControlPercentage(intValue(key, valueToken));
+                break;
+            case RESPONSE_KEY_APPLICATION_ID:
+                builder.withApplicationId(stringValue(key, valueToken));
+                break;
+            default:
+                skipValue(lexer, valueToken, depth);
+                break;
         }
-
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int trafficControlPercentage = numberValue.getIntValue();
-        builder.withTrafficControlPercentage(trafficControlPercentage);
     }
 
-    private static void applyApplicationId(ResponseAttributesImpl.Builder builder, JSONObjectValue appConfigObject) {
-        JSONValue value = appConfigObject.get(RESPONSE_KEY_APPLICATION_ID);
-        if (value == null) {
-            return;
+    private static void applyDynamicConfiguration(JSONLexer lexer, ResponseAttributesImpl.Builder builder, String key,
+                                                  JSONToken valueToken, int depth) throws LexerException, ParserException {
+        switch (key) {
+            case RESPONSE_KEY_MULTIPLICITY:
+                builder.withMultiplicity(intValue(key, valueToken));
+                break;
+            case RESPONSE_KEY_SERVER_ID:
+                builder.withServerId(intValue(key, valueToken));
+                break;
+            case RESPONSE_KEY_STATUS:
+                builder.withStatus(stringValue(key, valueToken));
+                break;
+            default:
+                skipValue(lexer, valueToken, depth);
+                break;
         }
-
-        JSONStringValue stringValue = (JSONStringValue) value;
-        builder.withApplicationId(stringValue.getValue());
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    /// Dynamic configuration
+    /// Helpers
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private static void applyDynamicConfiguration(ResponseAttributesImpl.Builder builder, JSONObjectValue rootObject) {
-        JSONValue dynConfigValue = rootObject.get(RESPONSE_KEY_DYNAMIC_CONFIG);
-        if (dynConfigValue == null) {
-            return;
-        }
-
-        JSONObjectValue dynConfigObject = (JSONObjectValue) dynConfigValue;
-        applyMultiplicity(builder, dynConfigObject);
-        applyServerId(builder, dynConfigObject);
-        applyStatus(builder, dynConfigObject);
+    private static int intValue(String key, JSONToken valueToken) throws ParserException {
+        return numberValue(key, valueToken).getIntValue();
     }
 
-    private static void applyMultiplicity(ResponseAttributesImpl.Builder builder, JSONObjectValue dynConfigObject) {
-        JSONValue value = dynConfigObject.get(RESPONSE_KEY_MULTIPLICITY);
-        if (value == null) {
-            return;
+    private static JSONNumberValue numberValue(String key, JSONToken valueToken) throws ParserException {
+        JSONNumberValue numberValue = valueToken.getTokenType() == JSONToken.TokenType.VALUE_NUMBER
+                ? JSONNumberValue.fromNumberLiteral(valueToken.getValue())
+                : null;
+        if (numberValue == null) {
+            throw new ParserException(unexpectedValueErrorMessage(key, valueToken, "number"));
         }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int multiplicity = numberValue.getIntValue();
-        builder.withMultiplicity(multiplicity);
+        return numberValue;
     }
 
-    private static void applyServerId(ResponseAttributesImpl.Builder builder, JSONObjectValue dynConfigObject) {
-        JSONValue value = dynConfigObject.get(RESPONSE_KEY_SERVER_ID);
-        if (value == null) {
-            return;
+    private static String stringValue(String key, JSONToken valueToken) throws ParserException {
+        if (valueToken.getTokenType() != JSONToken.TokenType.VALUE_STRING) {
+            throw new ParserException(unexpectedValueErrorMessage(key, valueToken, "string"));
         }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        int serverId = numberValue.getIntValue();
-        builder.withServerId(serverId);
+        return valueToken.getValue();
     }
 
-    private static void applyStatus(ResponseAttributesImpl.Builder builder, JSONObjectValue dynConfigObject) {
-        JSONValue value = dynConfigObject.get(RESPONSE_KEY_STATUS);
-        if (value == null) {
-            return;
+    private static void ensureTokenIsNotNull(JSONToken token, String exceptionMessage) throws ParserException {
+        if (token == null) {
+            throw new ParserException(exceptionMessage);
         }
-
-        JSONStringValue stringValue = (JSONStringValue) value;
-        builder.withStatus(stringValue.getValue());
     }
 
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    /// Root attributes
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-    private static void applyRootAttributes(ResponseAttributesImpl.Builder builder, JSONObjectValue rootObject) {
-        JSONValue value = rootObject.get(RESPONSE_KEY_TIMESTAMP_IN_MILLIS);
-        if (value == null) {
-            return;
+    private static void ensureNestingDepth(int depth) throws ParserException {
+        if (depth > MAX_NESTING_DEPTH) {
+            throw new ParserException("JSON nesting depth exceeds " + MAX_NESTING_DEPTH);
         }
+    }
+
+    private static String unexpectedTokenErrorMessage(JSONToken token, String location) {
+        return "Unexpected token \"" + token + "\" " + location;
+    }
 
-        JSONNumberValue numberValue = (JSONNumberValue) value;
-        long timestampInMillis = numberValue.getLongValue();
-        builder.withTimestampInMilliseconds(timestampInMillis);
+    private static String unexpectedValueErrorMessage(String key, JSONToken valueToken, String expectedType) {
+        return "Unexpected value \"" + valueToken + "\" for \"" + key + "\", expected " + expectedType;
     }
 }
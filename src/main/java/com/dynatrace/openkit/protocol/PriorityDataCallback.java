@@ -0,0 +1,34 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+/**
+ * Callback notified when a {@link Beacon} captured high priority data, like crashes or errors.
+ */
+public interface PriorityDataCallback {
+
+    /**
+     * Called after high priority data has been added to the beacon cache.
+     *
+     * <p>
+     * This method is called on the thread reporting the data, possibly while holding locks of the reporting
+     * object. Implementations must therefore return quickly and must not call back into the reporting object.
+     * </p>
+     */
+    void onPriorityDataAdded();
+}
@@ -17,6 +17,10 @@ package com.dynatrace.openkit.protocol;
 
 import com.dynatrace.openkit.util.json.parser.ParserException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  * Evaluates a response string and transforms it into corresponding {@link ResponseAttributes}
  */
@@ -24,6 +28,8 @@ public class ResponseParser {
 
     private static final String KEY_VALUE_RESPONSE_TYPE_MOBILE = "type=m";
     private static final String KEY_VALUE_RESPONSE_TYPE_MOBILE_WITH_SEPARATOR = "type=m&";
+    private static final char JSON_RESPONSE_START = '{';
+    private static final int READ_BUFFER_SIZE = 512;
 
     private ResponseParser() {
     }
@@ -36,6 +42,40 @@ public class ResponseParser {
         return JsonResponseParser.parse(responseString);
     }
 
+    /**
+     * Parses the response read from the given reader.
+     *
+     * <p>
+     *     JSON responses are parsed while reading, without buffering the whole response.
+     *     The reader is read until its end, unless parsing fails, but it is not closed.
+     * </p>
+     *
+     * @param response Reader providing the response.
+     * @return The parsed response attributes.
+     * @throws ParserException If the response cannot be parsed.
+     * @throws IOException If reading the response fails.
+     */
+    public static ResponseAttributes parseResponse(Reader response) throws ParserException, IOException {
+        // status responses are rather short, therefore a small buffer is sufficient
+        BufferedReader reader = new BufferedReader(response, READ_BUFFER_SIZE);
+        reader.mark(1);
+        int firstChar = reader.read();
+        reader.reset();
+        if (firstChar == JSON_RESPONSE_START) {
+            return JsonResponseParser.parse(reader);
+        }
+
+        // key-value pair responses are read completely
+        StringBuilder responseBuilder = new StringBuilder();
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            responseBuilder.append(buffer, 0, length);
+        }
+
+        return parseResponse(responseBuilder.toString());
+    }
+
     private static boolean isKeyValuePairResponse(String responseString) {
         return responseString.equals(KEY_VALUE_RESPONSE_TYPE_MOBILE)
                 || responseString.startsWith(KEY_VALUE_RESPONSE_TYPE_MOBILE_WITH_SEPARATOR);
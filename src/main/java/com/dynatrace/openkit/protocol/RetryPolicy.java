@@ -0,0 +1,218 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.providers.RandomNumberGenerator;
+
+/**
+ * Policy defining how failed HTTP requests to Dynatrace backends are retried.
+ *
+ * <p>
+ *     Requests failing due to an I/O error are retried with an exponential backoff using full jitter,
+ *     meaning the delay before the n-th retry is a random value in the range
+ *     [{@code 0}, {@code min(maxDelay, initialDelay * 2^n)}].
+ * </p>
+ *
+ * <p>
+ *     Additionally a circuit breaker is maintained per endpoint. After a given number of consecutive failed requests
+ *     the circuit breaker opens and all requests to this endpoint fail immediately, without touching the network,
+ *     until the open duration has elapsed. Afterwards a single trial request is allowed, which either closes
+ *     the circuit breaker again or re-opens it.
+ *     Requests failing with an I/O error and requests answered with a server error ({@code 5xx}) count as failed.
+ * </p>
+ */
+public final class RetryPolicy {
+
+    /** Default maximum number of attempts per request (first attempt included) */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    /** Default delay in milliseconds, before the first retry */
+    public static final long DEFAULT_INITIAL_DELAY_IN_MILLIS = 200;
+    /** Default upper bound of the delay in milliseconds between two retries */
+    public static final long DEFAULT_MAX_DELAY_IN_MILLIS = 2000;
+    /** Default number of consecutive failed requests, after which the circuit breaker opens */
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    /** Default duration in milliseconds for which the circuit breaker stays open */
+    public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_IN_MILLIS = 60 * 1000;
+
+    /** Default retry policy */
+    public static final RetryPolicy DEFAULT = new Builder().build();
+
+    private final int maxAttempts;
+    private final long initialDelayInMillis;
+    private final long maxDelayInMillis;
+    private final int circuitBreakerFailureThreshold;
+    private final long circuitBreakerOpenDurationInMillis;
+
+    private RetryPolicy(Builder builder) {
+        maxAttempts = builder.maxAttempts;
+        initialDelayInMillis = builder.initialDelayInMillis;
+        maxDelayInMillis = Math.max(builder.maxDelayInMillis, builder.initialDelayInMillis);
+        circuitBreakerFailureThreshold = builder.circuitBreakerFailureThreshold;
+        circuitBreakerOpenDurationInMillis = builder.circuitBreakerOpenDurationInMillis;
+    }
+
+    /**
+     * Returns the maximum number of attempts for a single request, including the first attempt.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the delay in milliseconds before the first retry.
+     */
+    public long getInitialDelayInMillis() {
+        return initialDelayInMillis;
+    }
+
+    /**
+     * Returns the upper bound of the delay in milliseconds between two retries.
+     */
+    public long getMaxDelayInMillis() {
+        return maxDelayInMillis;
+    }
+
+    /**
+     * Returns the number of consecutive failed requests after which the circuit breaker opens.
+     *
+     * <p>
+     *     A value less than or equal to {@code 0} means that the circuit breaker is disabled.
+     * </p>
+     */
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Returns the duration in milliseconds for which the circuit breaker stays open.
+     */
+    public long getCircuitBreakerOpenDurationInMillis() {
+        return circuitBreakerOpenDurationInMillis;
+    }
+
+    /**
+     * Calculates the delay before the given retry using exponential backoff with full jitter.
+     *
+     * @param retry The zero based retry number.
+     * @param randomNumberGenerator Random number generator used for the jitter.
+     * @return A random delay in the range [{@code 0}, {@code min(maxDelay, initialDelay * 2^retry)}].
+     */
+    public long getRetryDelayInMillis(int retry, RandomNumberGenerator randomNumberGenerator) {
+        long upperBound = getRetryDelayUpperBoundInMillis(retry);
+        if (upperBound <= 0) {
+            return 0;
+        }
+
+        return randomNumberGenerator.nextPositiveLong() % (upperBound + 1);
+    }
+
+    long getRetryDelayUpperBoundInMillis(int retry) {
+        if (retry < 0) {
+            return 0;
+        }
+        if (retry >= Long.numberOfLeadingZeros(initialDelayInMillis) - 1) {
+            // shifting would overflow
+            return maxDelayInMillis;
+        }
+
+        return Math.min(maxDelayInMillis, initialDelayInMillis << retry);
+    }
+
+    /**
+     * Builder class for building {@link RetryPolicy}.
+     */
+    public static final class Builder {
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialDelayInMillis = DEFAULT_INITIAL_DELAY_IN_MILLIS;
+        private long maxDelayInMillis = DEFAULT_MAX_DELAY_IN_MILLIS;
+        private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+        private long circuitBreakerOpenDurationInMillis = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_IN_MILLIS;
+
+        /**
+         * Sets the maximum number of attempts per request, including the first attempt.
+         *
+         * <p>
+         *     Values less than {@code 1} are ignored.
+         * </p>
+         */
+        public Builder withMaxAttempts(int maxAttempts) {
+            if (maxAttempts > 0) {
+                this.maxAttempts = maxAttempts;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the delay in milliseconds before the first retry.
+         *
+         * <p>
+         *     Negative values are ignored.
+         * </p>
+         */
+        public Builder withInitialDelayInMillis(long initialDelayInMillis) {
+            if (initialDelayInMillis >= 0) {
+                this.initialDelayInMillis = initialDelayInMillis;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of the delay in milliseconds between two retries.
+         *
+         * <p>
+         *     Negative values are ignored.
+         * </p>
+         */
+        public Builder withMaxDelayInMillis(long maxDelayInMillis) {
+            if (maxDelayInMillis >= 0) {
+                this.maxDelayInMillis = maxDelayInMillis;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive failed requests after which the circuit breaker opens.
+         *
+         * <p>
+         *     A value less than or equal to {@code 0} disables the circuit breaker.
+         * </p>
+         */
+        public Builder withCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+            this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the duration in milliseconds for which the circuit breaker stays open.
+         *
+         * <p>
+         *     Negative values are ignored.
+         * </p>
+         */
+        public Builder withCircuitBreakerOpenDurationInMillis(long circuitBreakerOpenDurationInMillis) {
+            if (circuitBreakerOpenDurationInMillis >= 0) {
+                this.circuitBreakerOpenDurationInMillis = circuitBreakerOpenDurationInMillis;
+            }
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -91,7 +91,7 @@ public class HttpRequestHttpURLConnectionAdapter implements HttpRequest {
         httpURLConnection.setRequestProperty(name, value);
     }
 
-    private boolean isInvalidRequestHeaderName(String name) {
+    static boolean isInvalidRequestHeaderName(String name) {
         if (name == null) {
             return true;
         }
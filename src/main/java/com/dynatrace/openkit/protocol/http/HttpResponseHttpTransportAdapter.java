@@ -0,0 +1,80 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.http;
+
+import com.dynatrace.openkit.api.http.HttpResponse;
+import com.dynatrace.openkit.api.http.HttpTransportRequest;
+import com.dynatrace.openkit.api.http.HttpTransportResponse;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class implementing the {@link HttpResponse} and forwarding calls to a {@link HttpTransportResponse} adaptee.
+ */
+public class HttpResponseHttpTransportAdapter implements HttpResponse {
+
+    private final HttpTransportRequest request;
+    private final HttpTransportResponse response;
+
+    public HttpResponseHttpTransportAdapter(HttpTransportRequest request, HttpTransportResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    @Override
+    public URL getRequestUrl() {
+        return request.getUrl();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.getMethod();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return response.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() {
+        return response.getResponseMessage();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+        return response.getHeaders();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        // HTTP headers are case insensitive
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(header.getValue().size() - 1);
+            }
+        }
+
+        return null;
+    }
+}
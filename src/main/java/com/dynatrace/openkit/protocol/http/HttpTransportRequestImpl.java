@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.http;
+
+import com.dynatrace.openkit.api.http.HttpTransportRequest;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implementation of {@link HttpTransportRequest} which is prepared by the HTTP client and passed to the transport.
+ */
+public class HttpTransportRequestImpl implements HttpTransportRequest {
+
+    private final URL url;
+    private final String method;
+    private final byte[] body;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    /** HTTP headers are case insensitive */
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Initializes a new instance of {@link HttpTransportRequestImpl}
+     *
+     * @param url The request URL.
+     * @param method The request method.
+     * @param body The already compressed request body, or {@code null}.
+     * @param connectTimeout Timeout in milliseconds for establishing the connection.
+     * @param readTimeout Timeout in milliseconds for reading the response.
+     */
+    public HttpTransportRequestImpl(URL url, String method, byte[] body, int connectTimeout, int readTimeout) {
+        this.url = url;
+        this.method = method;
+        this.body = body;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public synchronized Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(new TreeMap<>(headers));
+    }
+
+    @Override
+    public synchronized String getHeader(String name) {
+        List<String> values = name == null ? null : headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpRequestHttpURLConnectionAdapter.isInvalidRequestHeaderName(name)) {
+            return;
+        }
+
+        setHeaderInternal(name, value);
+    }
+
+    /**
+     * Sets a header without checking for restricted header names.
+     *
+     * <p>
+     *     Used by OpenKit itself to set the protocol relevant headers, like {@code Content-Encoding}.
+     * </p>
+     */
+    public synchronized void setHeaderInternal(String name, String value) {
+        headers.put(name, Collections.singletonList(value));
+    }
+
+    @Override
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+}
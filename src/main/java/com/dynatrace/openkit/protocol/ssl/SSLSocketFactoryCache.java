@@ -0,0 +1,72 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.ssl;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Holds an {@link SSLSocketFactory} which is created once and reused for all HTTPS connections.
+ *
+ * <p>
+ *     Reusing the same factory (and therefore the same {@link SSLContext}) allows the JDK to resume TLS sessions
+ *     and avoids seeding a new {@link SecureRandom} for every single request.
+ *     The factory is only re-created if the {@link X509TrustManager} changes.
+ * </p>
+ */
+public class SSLSocketFactoryCache {
+
+    private X509TrustManager cachedTrustManager = null;
+    private SSLSocketFactory cachedSocketFactory = null;
+
+    /**
+     * Returns the {@link SSLSocketFactory} for the given trust manager.
+     *
+     * <p>
+     *     If the same trust manager was passed in a previous call, the previously created factory is returned.
+     * </p>
+     *
+     * @param trustManager the trust manager used to initialize the {@link SSLContext}.
+     * @return the cached or newly created {@link SSLSocketFactory}.
+     */
+    public synchronized SSLSocketFactory getSocketFactory(X509TrustManager trustManager)
+            throws NoSuchAlgorithmException, KeyManagementException {
+        if (cachedSocketFactory == null || cachedTrustManager != trustManager) {
+            SSLContext context = createSSLContext();
+            context.init(null, new TrustManager[]{trustManager}, new SecureRandom());
+            cachedSocketFactory = context.getSocketFactory();
+            cachedTrustManager = trustManager;
+        }
+
+        return cachedSocketFactory;
+    }
+
+    private static SSLContext createSSLContext() throws NoSuchAlgorithmException {
+        String version = System.getProperty("java.version");
+        if(version != null && version.startsWith("1.7")) {
+            // With Java 7 we need to use this workaround to get TLS 1.2 support
+            return SSLContext.getInstance("TLSv1.2");
+        }
+
+        return SSLContext.getInstance("TLS");
+    }
+}
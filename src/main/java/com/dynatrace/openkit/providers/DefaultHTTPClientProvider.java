@@ -18,22 +18,82 @@ package com.dynatrace.openkit.providers;
 
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.protocol.CircuitBreaker;
 import com.dynatrace.openkit.protocol.HTTPClient;
+import com.dynatrace.openkit.protocol.RetryPolicy;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Implementation of an HTTPClientProvider which creates a HTTP client for executing status check and beacon send requests.
+ *
+ * <p>
+ *     Created clients are cached per {@link HTTPClientConfiguration}, therefore a new client is only created
+ *     if the configuration (e.g. the server ID) changes.
+ *     All clients sending to the same endpoint share one {@link CircuitBreaker}.
+ * </p>
  */
 public class DefaultHTTPClientProvider implements HTTPClientProvider {
 
+    /** maximum number of cached clients, before the least recently used one is evicted */
+    static final int MAX_CACHED_CLIENTS = 8;
+
     private final Logger logger;
+    private final Map<HTTPClientConfiguration, HTTPClient> clients =
+            new LinkedHashMap<HTTPClientConfiguration, HTTPClient>(MAX_CACHED_CLIENTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<HTTPClientConfiguration, HTTPClient> eldest) {
+                    if (size() <= MAX_CACHED_CLIENTS) {
+                        return false;
+                    }
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(DefaultHTTPClientProvider.class.getSimpleName()
+                                + " evicting HTTP client - connection statistics: "
+                                + eldest.getValue().getConnectionStatistics());
+                    }
+                    return true;
+                }
+            };
+
+    /** circuit breakers per endpoint, shared by all clients sending to the same endpoint */
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+    private final TimingProvider timingProvider;
 
     public DefaultHTTPClientProvider(Logger logger) {
+        this(logger, new DefaultTimingProvider());
+    }
+
+    public DefaultHTTPClientProvider(Logger logger, TimingProvider timingProvider) {
         this.logger = logger;
+        this.timingProvider = timingProvider;
     }
 
     @Override
     public HTTPClient createClient(HTTPClientConfiguration configuration) {
-        return new HTTPClient(logger, configuration);
+        synchronized (clients) {
+            HTTPClient client = clients.get(configuration);
+            if (client == null) {
+                client = new HTTPClient(logger, configuration, getCircuitBreaker(configuration));
+                clients.put(configuration, client);
+            }
+
+            return client;
+        }
+    }
+
+    private CircuitBreaker getCircuitBreaker(HTTPClientConfiguration configuration) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(configuration.getBaseURL());
+        if (circuitBreaker == null) {
+            RetryPolicy retryPolicy = configuration.getRetryPolicy() != null
+                    ? configuration.getRetryPolicy()
+                    : RetryPolicy.DEFAULT;
+            circuitBreaker = new CircuitBreaker(retryPolicy, timingProvider);
+            circuitBreakers.put(configuration.getBaseURL(), circuitBreaker);
+        }
+
+        return circuitBreaker;
     }
 
 }
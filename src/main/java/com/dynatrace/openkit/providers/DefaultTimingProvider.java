@@ -47,4 +47,9 @@ public class DefaultTimingProvider implements TimingProvider {
 
         Thread.sleep(milliseconds);
     }
+
+    @Override
+    public void waitForNotification(Object monitor, long milliseconds) throws InterruptedException {
+        monitor.wait(milliseconds);
+    }
 }
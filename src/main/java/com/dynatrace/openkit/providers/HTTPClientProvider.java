@@ -26,6 +26,10 @@ public interface HTTPClientProvider {
 
     /**
      * Returns an HTTPClient based on the provided configuration.
+     *
+     * <p>
+     *     Implementations may return a previously created client, if it was created for an equal configuration.
+     * </p>
      */
     HTTPClient createClient(HTTPClientConfiguration configuration);
 }
@@ -37,4 +37,15 @@ public interface TimingProvider {
      * @throws InterruptedException When the sleep call gets interrupted.
      */
     void sleep(long milliseconds) throws InterruptedException;
+
+    /**
+     * Wait until the given monitor is notified or the given amount of milliseconds elapsed.
+     *
+     * <p>
+     * The calling thread must own the given monitor.
+     * </p>
+     *
+     * @throws InterruptedException When the wait call gets interrupted.
+     */
+    void waitForNotification(Object monitor, long milliseconds) throws InterruptedException;
 }
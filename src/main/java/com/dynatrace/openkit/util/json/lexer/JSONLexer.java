@@ -105,10 +105,14 @@ public class JSONLexer implements Closeable {
     /**
      * Constructor taking a {@link Reader} from where to read the JSON data.
      *
+     * <p>
+     *     A {@link BufferedReader} is used as is, any other reader is wrapped into a {@link BufferedReader}.
+     * </p>
+     *
      * @param input A {@link Reader} instance from where to read the JSON data.
      */
     public JSONLexer(Reader input) {
-        reader = new BufferedReader(input);
+        reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
     }
 
     /**
@@ -39,9 +39,11 @@ import com.dynatrace.openkit.api.OpenKitConstants;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
 import com.dynatrace.openkit.core.configuration.ConfigurationDefaults;
 import com.dynatrace.openkit.core.util.DefaultLogger;
 import com.dynatrace.openkit.core.util.StringUtil;
+import com.dynatrace.openkit.protocol.RetryPolicy;
 import com.dynatrace.openkit.protocol.http.NullHttpRequestInterceptor;
 import com.dynatrace.openkit.protocol.http.NullHttpResponseInterceptor;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
@@ -657,4 +659,342 @@ public class DynatraceOpenKitBuilderTest {
         assertThat(obtained, is(notNullValue()));
         assertThat(obtained, instanceOf(NullHttpResponseInterceptor.class));
     }
+
+    @Test
+    public void getHttpTransportGivesNullByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        HttpTransport obtained = target.getHttpTransport();
+
+        // then
+        assertThat(obtained, is(nullValue()));
+    }
+
+    @Test
+    public void getHttpTransportGivesPreviouslySetHttpTransport() {
+        // given
+        HttpTransport httpTransport = mock(HttpTransport.class);
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        target.withHttpTransport(httpTransport);
+        HttpTransport obtained = target.getHttpTransport();
+
+        // then
+        assertThat(obtained, is(sameInstance(httpTransport)));
+    }
+
+    @Test
+    public void getRetryPolicyGivesDefaultRetryPolicyByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        RetryPolicy obtained = target.getRetryPolicy();
+
+        // then
+        assertThat(obtained, is(sameInstance(RetryPolicy.DEFAULT)));
+    }
+
+    @Test
+    public void getRetryPolicyGivesPreviouslySetRetryPolicy() {
+        // given
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().withMaxAttempts(5).build();
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        target.withRetryPolicy(retryPolicy);
+        RetryPolicy obtained = target.getRetryPolicy();
+
+        // then
+        assertThat(obtained, is(sameInstance(retryPolicy)));
+    }
+
+    @Test
+    public void withRetryPolicyIgnoresNullValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        target.withRetryPolicy(null);
+        RetryPolicy obtained = target.getRetryPolicy();
+
+        // then
+        assertThat(obtained, is(sameInstance(RetryPolicy.DEFAULT)));
+    }
+
+    @Test
+    public void newSessionRequestCoalescingIsDisabledByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when, then
+        assertThat(target.isNewSessionRequestCoalescingEnabled(), is(false));
+    }
+
+    @Test
+    public void newSessionRequestCoalescingCanBeEnabled() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withNewSessionRequestCoalescing(true);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.isNewSessionRequestCoalescingEnabled(), is(true));
+    }
+
+    @Test
+    public void beaconSendingParallelismIsOneByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when, then
+        assertThat(target.getBeaconSendingParallelism(), is(1));
+    }
+
+    @Test
+    public void getBeaconSendingParallelismGivesPreviouslySetValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withBeaconSendingParallelism(4);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getBeaconSendingParallelism(), is(4));
+    }
+
+    @Test
+    public void withBeaconSendingParallelismIgnoresNonPositiveValues() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withBeaconSendingParallelism(4);
+
+        // when
+        target.withBeaconSendingParallelism(0);
+        target.withBeaconSendingParallelism(-1);
+
+        // then
+        assertThat(target.getBeaconSendingParallelism(), is(4));
+    }
+
+    @Test
+    public void earlyBeaconSendThresholdIsDisabledByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when, then
+        assertThat(target.getEarlyBeaconSendThreshold(), is(0.0));
+    }
+
+    @Test
+    public void getEarlyBeaconSendThresholdGivesPreviouslySetValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withEarlyBeaconSendThreshold(0.75);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getEarlyBeaconSendThreshold(), is(0.75));
+    }
+
+    @Test
+    public void withEarlyBeaconSendThresholdIgnoresNegativeValues() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withEarlyBeaconSendThreshold(0.75);
+
+        // when
+        target.withEarlyBeaconSendThreshold(-0.5);
+
+        // then
+        assertThat(target.getEarlyBeaconSendThreshold(), is(0.75));
+    }
+
+    @Test
+    public void beaconSendBudgetIsUnlimitedByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when, then
+        assertThat(target.getMaxSessionsSentPerInterval(), is(0));
+        assertThat(target.getMaxBytesSentPerInterval(), is(0L));
+    }
+
+    @Test
+    public void getBeaconSendBudgetGivesPreviouslySetValues() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withBeaconSendBudget(10, 4096L);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getMaxSessionsSentPerInterval(), is(10));
+        assertThat(target.getMaxBytesSentPerInterval(), is(4096L));
+    }
+
+    @Test
+    public void withBeaconSendBudgetIgnoresNegativeValues() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withBeaconSendBudget(10, 4096L);
+
+        // when
+        target.withBeaconSendBudget(-1, -1L);
+
+        // then
+        assertThat(target.getMaxSessionsSentPerInterval(), is(10));
+        assertThat(target.getMaxBytesSentPerInterval(), is(4096L));
+    }
+
+    @Test
+    public void shutdownFlushTimeoutIsZeroByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when, then
+        assertThat(target.getShutdownFlushTimeoutInMilliseconds(), is(0L));
+    }
+
+    @Test
+    public void getShutdownFlushTimeoutGivesPreviouslySetValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withShutdownFlushTimeout(5000L);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getShutdownFlushTimeoutInMilliseconds(), is(5000L));
+    }
+
+    @Test
+    public void withShutdownFlushTimeoutIgnoresNegativeValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withShutdownFlushTimeout(5000L);
+
+        // when
+        target.withShutdownFlushTimeout(-1L);
+
+        // then
+        assertThat(target.getShutdownFlushTimeoutInMilliseconds(), is(5000L));
+    }
+
+    @Test
+    public void lightweightSessionsAreDisabledByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // then
+        assertThat(target.isLightweightSessionsEnabled(), is(false));
+    }
+
+    @Test
+    public void lightweightSessionsCanBeEnabled() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withLightweightSessions(true);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.isLightweightSessionsEnabled(), is(true));
+    }
+
+    @Test
+    public void eventDeduplicationIsDisabledByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // then
+        assertThat(target.getEventDeduplicationWindowInMilliseconds(), is(0L));
+    }
+
+    @Test
+    public void getEventDeduplicationWindowGivesPreviouslySetValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withEventDeduplicationWindow(60000L);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getEventDeduplicationWindowInMilliseconds(), is(60000L));
+    }
+
+    @Test
+    public void withEventDeduplicationWindowIgnoresNegativeValue() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withEventDeduplicationWindow(60000L);
+
+        // when
+        target.withEventDeduplicationWindow(-1L);
+
+        // then
+        assertThat(target.getEventDeduplicationWindowInMilliseconds(), is(60000L));
+    }
+
+    @Test
+    public void asyncCaptureIsDisabledByDefault() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // then
+        assertThat(target.getCaptureBufferCapacity(), is(0));
+        assertThat(target.getCaptureBufferFullPolicy(), is(CaptureBufferFullPolicy.DROP));
+    }
+
+    @Test
+    public void getCaptureBufferCapacityAndPolicyGivePreviouslySetValues() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        DynatraceOpenKitBuilder obtained = target.withAsyncCapture(4096, CaptureBufferFullPolicy.BLOCK);
+
+        // then
+        assertThat(obtained, is(sameInstance(target)));
+        assertThat(target.getCaptureBufferCapacity(), is(4096));
+        assertThat(target.getCaptureBufferFullPolicy(), is(CaptureBufferFullPolicy.BLOCK));
+    }
+
+    @Test
+    public void withAsyncCaptureIgnoresNegativeCapacity() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+        target.withAsyncCapture(4096, CaptureBufferFullPolicy.BLOCK);
+
+        // when
+        target.withAsyncCapture(-1, CaptureBufferFullPolicy.SAMPLE);
+
+        // then
+        assertThat(target.getCaptureBufferCapacity(), is(4096));
+        assertThat(target.getCaptureBufferFullPolicy(), is(CaptureBufferFullPolicy.SAMPLE));
+    }
+
+    @Test
+    public void withAsyncCaptureUsesDropPolicyIfPolicyIsNull() {
+        // given
+        DynatraceOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT_URL, APPLICATION_ID, DEVICE_ID);
+
+        // when
+        target.withAsyncCapture(4096, null);
+
+        // then
+        assertThat(target.getCaptureBufferFullPolicy(), is(CaptureBufferFullPolicy.DROP));
+    }
 }
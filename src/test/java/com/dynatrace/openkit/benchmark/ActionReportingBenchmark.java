@@ -0,0 +1,128 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.benchmark;
+
+import com.dynatrace.openkit.CaptureBufferFullPolicy;
+import com.dynatrace.openkit.DynatraceOpenKitBuilder;
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.api.OpenKit;
+import com.dynatrace.openkit.api.RootAction;
+import com.dynatrace.openkit.api.Session;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Micro benchmark measuring the throughput of many threads reporting into one shared root action.
+ *
+ * <p>
+ *     Every thread reports values and events into the same {@link RootAction}, which is the typical usage
+ *     of a long running root action shared by worker threads. The throughput for an increasing number
+ *     of threads shows how much the reporting threads contend with each other.
+ * </p>
+ *
+ * <p>
+ *     The benchmark is run with synchronous capturing and with asynchronous capturing,
+ *     where the reporting threads block if the capture buffer is full.
+ * </p>
+ *
+ * <p>
+ *     This is no unit test, run it manually via its {@code main} method.
+ * </p>
+ */
+public class ActionReportingBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int MEASURE_ITERATIONS = 200000;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int CAPTURE_BUFFER_CAPACITY = 8192;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("synchronous capturing");
+        run(0);
+
+        System.out.println("asynchronous capturing");
+        run(CAPTURE_BUFFER_CAPACITY);
+    }
+
+    private static void run(int captureBufferCapacity) throws InterruptedException {
+        // the endpoint is not reachable, therefore all reported data stays in the beacon cache
+        OpenKit openKit = new DynatraceOpenKitBuilder("http://127.0.0.1:1/mbeacon", "benchmark", 1L)
+                .withLogLevel(LogLevel.ERROR)
+                .withAsyncCapture(captureBufferCapacity, CaptureBufferFullPolicy.BLOCK)
+                .build();
+        try {
+            for (int threadCount : THREAD_COUNTS) {
+                // warm up, before measuring
+                run(openKit, threadCount, WARMUP_ITERATIONS);
+
+                long duration = run(openKit, threadCount, MEASURE_ITERATIONS);
+                report(threadCount, duration);
+            }
+        } finally {
+            openKit.shutdown();
+        }
+    }
+
+    private static long run(OpenKit openKit, int threadCount, final int iterations) throws InterruptedException {
+        Session session = openKit.createSession("127.0.0.1");
+        final RootAction rootAction = session.enterAction("shared root action");
+
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final CountDownLatch doneSignal = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startSignal.await();
+                        for (int j = 0; j < iterations; j++) {
+                            rootAction.reportValue("value", j);
+                            rootAction.reportEvent("event");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        doneSignal.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+
+        long start = System.nanoTime();
+        startSignal.countDown();
+        doneSignal.await();
+        long duration = System.nanoTime() - start;
+
+        // canceling the action does not report the action itself, ending the session queues the reported data
+        // for sending, which is discarded when OpenKit is shut down since the endpoint is not reachable
+        rootAction.cancelAction();
+        session.end();
+
+        return duration;
+    }
+
+    private static void report(int threadCount, long duration) {
+        long numOperations = 2L * threadCount * MEASURE_ITERATIONS;
+        double nanosPerOp = (double) duration / numOperations;
+        double opsPerSecond = numOperations * 1e9 / duration;
+        System.out.println(String.format(Locale.ROOT, "%2d thread(s) %10.1f ns/op %12.0f ops/s",
+                threadCount, nanosPerOp, opsPerSecond));
+    }
+}
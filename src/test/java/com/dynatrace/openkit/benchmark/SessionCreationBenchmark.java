@@ -0,0 +1,83 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.benchmark;
+
+import com.dynatrace.openkit.DynatraceOpenKitBuilder;
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.api.OpenKit;
+import com.dynatrace.openkit.api.RootAction;
+import com.dynatrace.openkit.api.Session;
+
+import java.util.Locale;
+
+/**
+ * Micro benchmark measuring the cost of creating a short session, reporting into it and ending it.
+ *
+ * <p>
+ *     This is the typical usage on the server side, where one session is created per inbound request.
+ *     Sessions are measured with the default settings and with lightweight sessions enabled.
+ * </p>
+ *
+ * <p>
+ *     This is no unit test, run it manually via its {@code main} method.
+ * </p>
+ */
+public class SessionCreationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int MEASURE_ITERATIONS = 100000;
+
+    public static void main(String[] args) throws Exception {
+        // run both modes twice, to not favour the second one by JIT warm up
+        for (int round = 0; round < 2; round++) {
+            run("default    ", false);
+            run("lightweight", true);
+        }
+    }
+
+    private static void run(String name, boolean lightweightSessions) {
+        // the endpoint is not reachable, therefore all reported data stays in the beacon cache
+        OpenKit openKit = new DynatraceOpenKitBuilder("http://127.0.0.1:1/mbeacon", "benchmark", 1L)
+                .withLogLevel(LogLevel.ERROR)
+                .withLightweightSessions(lightweightSessions)
+                .build();
+        try {
+            // warm up, before measuring
+            createAndEndSessions(openKit, WARMUP_ITERATIONS);
+
+            long start = System.nanoTime();
+            createAndEndSessions(openKit, MEASURE_ITERATIONS);
+            long duration = System.nanoTime() - start;
+
+            System.out.println(String.format(Locale.ROOT, "%s %10.2f us/session",
+                    name, duration / 1000.0 / MEASURE_ITERATIONS));
+        } finally {
+            openKit.shutdown();
+        }
+    }
+
+    private static void createAndEndSessions(OpenKit openKit, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Session session = openKit.createSession("192.168.0.1");
+            RootAction rootAction = session.enterAction("request");
+            rootAction.reportValue("status", 200);
+            rootAction.leaveAction();
+            session.end();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.benchmark;
+
+import com.dynatrace.openkit.protocol.ResponseAttributes;
+import com.dynatrace.openkit.protocol.ResponseParser;
+import com.dynatrace.openkit.util.json.JSONParser;
+import com.dynatrace.openkit.util.json.objects.JSONValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Micro benchmark comparing the buffered and the streaming parsing of JSON status responses.
+ *
+ * <p>
+ *     The buffered variant reads the whole response into a string and builds a JSON object tree,
+ *     which is how status responses have been parsed before. The streaming variant pull-parses the response
+ *     directly from the input stream into the response attributes.
+ * </p>
+ *
+ * <p>
+ *     This is no unit test, run it manually via its {@code main} method.
+ * </p>
+ */
+public class StatusResponseParsingBenchmark {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int MEASURE_ITERATIONS = 200000;
+
+    /** status response as sent by the server for an application with default settings */
+    private static final String SMALL_RESPONSE = "{"
+            + "\"mobileAgentConfig\":{\"maxBeaconSizeKb\":150,\"maxSessionDurationMins\":360,"
+            + "\"maxEventsPerSession\":200,\"sessionTimeoutSec\":600,\"sendIntervalSec\":120,\"visitStoreVersion\":2},"
+            + "\"appConfig\":{\"capture\":1,\"reportCrashes\":1,\"reportErrors\":1,\"trafficControlPercentage\":100,"
+            + "\"applicationId\":\"f1a7b2c3-d4e5-4f60-8a9b-0c1d2e3f4a5b\"},"
+            + "\"dynamicConfig\":{\"multiplicity\":1,\"serverId\":7,\"status\":\"OK\"},"
+            + "\"timestamp\":1634214512345"
+            + "}";
+
+    /** status response with additional attributes not evaluated by OpenKit */
+    private static final String LARGE_RESPONSE = createLargeResponse();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        byte[][] responses = {SMALL_RESPONSE.getBytes(CHARSET), LARGE_RESPONSE.getBytes(CHARSET)};
+        String[] names = {"small", "large"};
+
+        for (int i = 0; i < responses.length; i++) {
+            run(names[i] + " (" + responses[i].length + " bytes)", responses[i]);
+        }
+    }
+
+    private static void run(String name, byte[] response) throws Exception {
+        // warm up both variants, before measuring any of them
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = parseBuffered(response);
+            sink = parseStreaming(response);
+        }
+
+        report(name, "buffered ", measureBuffered(response));
+        report(name, "streaming", measureStreaming(response));
+    }
+
+    private static long[] measureBuffered(byte[] response) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            sink = parseBuffered(response);
+        }
+        return new long[]{System.nanoTime() - start, allocatedBytes() - allocatedBefore};
+    }
+
+    private static long[] measureStreaming(byte[] response) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            sink = parseStreaming(response);
+        }
+        return new long[]{System.nanoTime() - start, allocatedBytes() - allocatedBefore};
+    }
+
+    private static JSONValue parseBuffered(byte[] response) throws Exception {
+        InputStream inputStream = new ByteArrayInputStream(response);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+
+        return new JSONParser(outputStream.toString("UTF-8")).parse();
+    }
+
+    private static ResponseAttributes parseStreaming(byte[] response) throws Exception {
+        InputStream inputStream = new ByteArrayInputStream(response);
+
+        return ResponseParser.parseResponse(new InputStreamReader(inputStream, CHARSET));
+    }
+
+    private static void report(String name, String variant, long[] result) {
+        double nanosPerOp = (double) result[0] / MEASURE_ITERATIONS;
+        String allocation = result[1] < 0 ? "n/a" : String.valueOf(result[1] / MEASURE_ITERATIONS);
+        System.out.println(String.format(Locale.ROOT, "%-20s %s %10.1f ns/op %10s bytes/op",
+                name, variant, nanosPerOp, allocation));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static String createLargeResponse() {
+        StringBuilder builder = new StringBuilder(SMALL_RESPONSE.substring(0, SMALL_RESPONSE.length() - 1));
+        builder.append(",\"featureFlags\":[");
+        for (int i = 0; i < 64; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"name\":\"feature-").append(i).append("\",\"enabled\":").append(i % 2 == 0)
+                    .append(",\"rollout\":").append(i * 1.5).append('}');
+        }
+        builder.append("]}");
+        return builder.toString();
+    }
+}
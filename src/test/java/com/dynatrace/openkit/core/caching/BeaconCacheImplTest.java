@@ -735,4 +735,46 @@ public class BeaconCacheImplTest {
         // then
         assertThat(target.isEmpty(key), is(true));
     }
+
+    @Test
+    public void getNumBytesInCacheForBeaconGivesZeroIfBeaconDoesNotExistInCache() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(new BeaconKey(1, 0), 1000L, "a");
+
+        // then
+        assertThat(target.getNumBytesInCache(new BeaconKey(666, 0)), is(0L));
+    }
+
+    @Test
+    public void getNumBytesInCacheForBeaconGivesSizeOfThisBeaconOnly() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        BeaconKey key = new BeaconKey(1, 0);
+
+        target.addActionData(key, 1000L, "a");
+        target.addEventData(key, 1000L, "iii");
+        target.addEventData(new BeaconKey(2, 0), 1000L, "b");
+
+        // then
+        assertThat(target.getNumBytesInCache(key), is(new BeaconCacheRecord(1000L, "a").getDataSizeInBytes()
+                + new BeaconCacheRecord(1000L, "iii").getDataSizeInBytes()));
+    }
+
+    @Test
+    public void getNumBytesInCacheForBeaconDoesNotIncludeDataBeingSent() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        BeaconKey key = new BeaconKey(1, 0);
+
+        target.addActionData(key, 1000L, "a");
+        target.prepareDataForSending(key);
+        target.addEventData(key, 1001L, "b");
+
+        // then
+        assertThat(target.getNumBytesInCache(key), is(new BeaconCacheRecord(1001L, "b").getDataSizeInBytes()));
+    }
 }
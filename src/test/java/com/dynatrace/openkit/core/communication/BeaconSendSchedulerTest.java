@@ -0,0 +1,211 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.objects.SessionImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BeaconSendSchedulerTest {
+
+    private Logger mockLogger;
+    private SessionImpl sessionOne;
+    private SessionImpl sessionTwo;
+    private SessionImpl sessionThree;
+
+    @Before
+    public void setUp() {
+        mockLogger = mock(Logger.class);
+        sessionOne = createSession(100);
+        sessionTwo = createSession(300);
+        sessionThree = createSession(200);
+    }
+
+    @Test
+    public void schedulerWithoutBudgetIsNotLimited() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 0, 0);
+
+        // then
+        assertThat(target.isBudgetLimited(), is(false));
+    }
+
+    @Test
+    public void schedulerWithSessionOrByteBudgetIsLimited() {
+        // then
+        assertThat(new BeaconSendScheduler(mockLogger, 1, 0).isBudgetLimited(), is(true));
+        assertThat(new BeaconSendScheduler(mockLogger, 0, 1).isBudgetLimited(), is(true));
+    }
+
+    @Test
+    public void sessionsAreOrderedByPendingBytesIfNoneWasSentBefore() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 10, 0);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo, sessionThree), 1000L);
+
+        // then
+        assertThat(obtained, contains(sessionTwo, sessionThree, sessionOne));
+    }
+
+    @Test
+    public void sessionBudgetLimitsNumberOfScheduledSessions() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 2, 0);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo, sessionThree), 1000L);
+
+        // then
+        assertThat(obtained, contains(sessionTwo, sessionThree));
+    }
+
+    @Test
+    public void byteBudgetLimitsScheduledSessions() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 0, 400);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo, sessionThree), 1000L);
+
+        // then
+        assertThat(obtained, contains(sessionTwo, sessionOne));
+    }
+
+    @Test
+    public void atLeastOneSessionIsScheduledEvenIfItExceedsByteBudget() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 0, 50);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo), 1000L);
+
+        // then
+        assertThat(obtained, contains(sessionTwo));
+    }
+
+    @Test
+    public void deferredSessionsAreScheduledFirstInNextInterval() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 1, 0);
+        List<SessionImpl> openSessions = Arrays.asList(sessionOne, sessionTwo, sessionThree);
+
+        // when
+        List<SessionImpl> first = target.schedule(openSessions, 1000L);
+        target.onSessionsSent(first, 1000L);
+        List<SessionImpl> second = target.schedule(openSessions, 2000L);
+        target.onSessionsSent(second, 2000L);
+        List<SessionImpl> third = target.schedule(openSessions, 3000L);
+
+        // then
+        assertThat(first, contains(sessionTwo));
+        assertThat(second, contains(sessionThree));
+        assertThat(third, contains(sessionOne));
+    }
+
+    @Test
+    public void sessionsWithoutPendingDataAreNotScheduled() {
+        // given
+        SessionImpl emptySession = createSession(0);
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 10, 0);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Collections.singletonList(emptySession), 1000L);
+
+        // then
+        assertThat(obtained, is(empty()));
+    }
+
+    @Test
+    public void sessionsNotAllowedToSendDataAreAlwaysScheduled() {
+        // given
+        SessionImpl notAllowedSession = createSession(1000);
+        when(notAllowedSession.isDataSendingAllowed()).thenReturn(false);
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 1, 0);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, notAllowedSession), 1000L);
+
+        // then
+        assertThat(obtained, contains(notAllowedSession, sessionOne));
+    }
+
+    @Test
+    public void deferredSessionIsScheduledBeforeLargerSessionSentInBetween() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 1, 0);
+        List<SessionImpl> openSessions = Arrays.asList(sessionOne, sessionTwo);
+        List<SessionImpl> first = target.schedule(openSessions, 1000L);
+
+        // when
+        target.onSessionsSent(first, 1400L);
+        List<SessionImpl> second = target.schedule(openSessions, 1500L);
+
+        // then
+        assertThat(first, contains(sessionTwo));
+        assertThat(second, contains(sessionOne));
+    }
+
+    @Test
+    public void sessionNotScheduledYetIsOrderedAfterDeferredSession() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 1, 0);
+        target.schedule(Arrays.asList(sessionOne, sessionThree), 1000L);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo), 1500L);
+
+        // then
+        assertThat(obtained, contains(sessionOne));
+    }
+
+    @Test
+    public void sessionsNoLongerOpenAreForgotten() {
+        // given
+        BeaconSendScheduler target = new BeaconSendScheduler(mockLogger, 1, 0);
+        target.schedule(Arrays.asList(sessionOne, sessionTwo), 1000L);
+        List<SessionImpl> scheduled = target.schedule(Collections.singletonList(sessionTwo), 2000L);
+        target.onSessionsSent(scheduled, 2000L);
+
+        // when
+        List<SessionImpl> obtained = target.schedule(Arrays.asList(sessionOne, sessionTwo), 3000L);
+
+        // then
+        assertThat(obtained, contains(sessionTwo));
+    }
+
+    private static SessionImpl createSession(long pendingBytes) {
+        SessionImpl session = mock(SessionImpl.class);
+        when(session.isDataSendingAllowed()).thenReturn(true);
+        when(session.getPendingDataSizeInBytes()).thenReturn(pendingBytes);
+        return session;
+    }
+}
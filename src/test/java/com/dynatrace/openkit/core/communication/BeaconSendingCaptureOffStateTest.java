@@ -101,6 +101,18 @@ public class BeaconSendingCaptureOffStateTest {
         verify(mockContext, times(1)).setNextState(isA(BeaconSendingCaptureOnState.class));
     }
 
+    @Test
+    public void aBeaconSendingCaptureOffStateCompletesPendingFlushRequests() {
+        //given
+        BeaconSendingCaptureOffState target = new BeaconSendingCaptureOffState();
+
+        // when calling execute
+        target.execute(mockContext);
+
+        // then
+        verify(mockContext, times(1)).completeFlushRequests();
+    }
+
     @Test
     public void aBeaconSendingCaptureOffStateWaitsForGivenTime() throws InterruptedException {
 
@@ -25,6 +25,7 @@ import com.dynatrace.openkit.protocol.ResponseAttributes;
 import com.dynatrace.openkit.protocol.ResponseAttributesImpl;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -36,10 +37,12 @@ import java.util.List;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -56,6 +59,7 @@ public class BeaconSendingCaptureOnStateTest {
     private SessionImpl mockSession4Finished;
     private SessionImpl mockSession5New;
     private SessionImpl mockSession6New;
+    private ParallelBeaconSender parallelBeaconSender;
 
     @Before
     public void setUp() {
@@ -87,6 +91,13 @@ public class BeaconSendingCaptureOnStateTest {
         when(mockContext.getAllOpenAndConfiguredSessions()).thenReturn(Arrays.asList(mockSession1Open, mockSession2Open));
         when(mockContext.getAllFinishedAndConfiguredSessions()).thenReturn(Arrays.asList(mockSession3Finished, mockSession4Finished));
         when(mockContext.getHTTPClientProvider()).thenReturn(mockHTTPClientProvider);
+
+        parallelBeaconSender = new ParallelBeaconSender(2);
+    }
+
+    @After
+    public void tearDown() {
+        parallelBeaconSender.shutdown();
     }
 
     @Test
@@ -117,6 +128,19 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(target.toString(), is(equalTo("CaptureOn")));
     }
 
+    @Test
+    public void executeWaitsForWakeupBeforeSending() throws InterruptedException {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockContext, times(1)).waitForWakeup();
+        verify(mockContext, times(0)).sleep();
+    }
+
     @Test
     public void newSessionRequestsAreMadeForNotConfiguredNewSessions() {
         // given
@@ -186,6 +210,35 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(serverConfig.getBeaconSizeInBytes(), is(beaconSize));
     }
 
+    @Test
+    public void sessionsReceivingSameResponseAttributesShareServerConfiguration() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        ResponseAttributes responseAttributes = ResponseAttributesImpl.withJsonDefaults().withMultiplicity(3).build();
+        StatusResponse sessionRequestResponse = mock(StatusResponse.class);
+        when(sessionRequestResponse.getResponseAttributes()).thenReturn(responseAttributes);
+        when(mockContext.updateFrom(any(StatusResponse.class))).thenReturn(responseAttributes);
+
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockClient.sendNewSessionRequest(any(AdditionalQueryParameters.class))).thenReturn(sessionRequestResponse);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNotConfiguredSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+        ArgumentCaptor<ServerConfiguration> firstCaptor = ArgumentCaptor.forClass(ServerConfiguration.class);
+        ArgumentCaptor<ServerConfiguration> secondCaptor = ArgumentCaptor.forClass(ServerConfiguration.class);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession5New, times(1)).updateServerConfiguration(firstCaptor.capture());
+        verify(mockSession6New, times(1)).updateServerConfiguration(secondCaptor.capture());
+        assertThat(firstCaptor.getValue().getMultiplicity(), is(equalTo(3)));
+        assertThat(secondCaptor.getValue(), is(sameInstance(firstCaptor.getValue())));
+    }
+
     @Test
     public void unsuccessfulNewSessionRequestDoesNotMergeStatusResponse() {
         // given
@@ -283,6 +336,117 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(argumentCaptor.getAllValues().get(0).sleepTimeInMilliseconds, is(equalTo(6543L)));
     }
 
+    @Test
+    public void coalescedNewSessionRequestIsSentOnceForAllNotConfiguredSessions() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        ResponseAttributes responseAttributes = ResponseAttributesImpl.withJsonDefaults().withMultiplicity(4).build();
+        StatusResponse sessionRequestResponse = mock(StatusResponse.class);
+        when(sessionRequestResponse.getResponseAttributes()).thenReturn(responseAttributes);
+        when(mockContext.updateFrom(any(StatusResponse.class))).thenReturn(responseAttributes);
+        when(mockContext.isNewSessionRequestCoalescingEnabled()).thenReturn(true);
+
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockClient.sendNewSessionRequest(any(AdditionalQueryParameters.class))).thenReturn(sessionRequestResponse);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNotConfiguredSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+        ArgumentCaptor<ServerConfiguration> firstCaptor = ArgumentCaptor.forClass(ServerConfiguration.class);
+        ArgumentCaptor<ServerConfiguration> secondCaptor = ArgumentCaptor.forClass(ServerConfiguration.class);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockClient, times(1)).sendNewSessionRequest(mockContext);
+        verify(mockContext, times(1)).updateFrom(sessionRequestResponse);
+        verify(mockSession5New, times(1)).updateServerConfiguration(firstCaptor.capture());
+        verify(mockSession6New, times(1)).updateServerConfiguration(secondCaptor.capture());
+        assertThat(firstCaptor.getValue().getMultiplicity(), is(equalTo(4)));
+        assertThat(secondCaptor.getValue(), is(sameInstance(firstCaptor.getValue())));
+    }
+
+    @Test
+    public void unsuccessfulCoalescedNewSessionRequestDecreasesRemainingRequestsOfAllSessions() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockContext.isNewSessionRequestCoalescingEnabled()).thenReturn(true);
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockClient.sendNewSessionRequest(any(AdditionalQueryParameters.class)))
+                .thenReturn(StatusResponse.createErrorResponse(mock(Logger.class), StatusResponse.HTTP_BAD_REQUEST));
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNotConfiguredSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockClient, times(1)).sendNewSessionRequest(mockContext);
+        verify(mockSession5New, times(1)).decreaseNumRemainingSessionRequests();
+        verify(mockSession6New, times(1)).decreaseNumRemainingSessionRequests();
+        verify(mockSession5New, times(0)).updateServerConfiguration(any(ServerConfiguration.class));
+        verify(mockSession6New, times(0)).updateServerConfiguration(any(ServerConfiguration.class));
+    }
+
+    @Test
+    public void coalescedNewSessionRequestSkipsSessionsWhichCannotSendNewSessionRequest() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockContext.isNewSessionRequestCoalescingEnabled()).thenReturn(true);
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNotConfiguredSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(false);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(false);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockClient, times(0)).sendNewSessionRequest(mockContext);
+        verify(mockSession5New, times(1)).disableCapture();
+        verify(mockSession6New, times(1)).disableCapture();
+    }
+
+    @Test
+    public void coalescedNewSessionRequestIsAbortedWhenTooManyRequestsResponseIsReceived() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_TOO_MANY_REQUESTS);
+        when(statusResponse.isErroneousResponse()).thenReturn(true);
+        when(statusResponse.getRetryAfterInMilliseconds()).thenReturn(6543L);
+
+        when(mockContext.isNewSessionRequestCoalescingEnabled()).thenReturn(true);
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNotConfiguredSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockClient.sendNewSessionRequest(any(AdditionalQueryParameters.class))).thenReturn(statusResponse);
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockClient, times(1)).sendNewSessionRequest(mockContext);
+        verify(mockSession5New, times(1)).canSendNewSessionRequest();
+        verify(mockSession6New, times(1)).canSendNewSessionRequest();
+        verifyNoMoreInteractions(mockSession5New, mockSession6New);
+        verifyNoInteractions(mockSession1Open, mockSession2Open, mockSession3Finished, mockSession4Finished);
+
+        ArgumentCaptor<BeaconSendingCaptureOffState> argumentCaptor = ArgumentCaptor.forClass(BeaconSendingCaptureOffState.class);
+        verify(mockContext, times(1)).setNextState(argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().sleepTimeInMilliseconds, is(equalTo(6543L)));
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateSendsFinishedSessions() {
         //given
@@ -312,6 +476,148 @@ public class BeaconSendingCaptureOnStateTest {
         verify(mockContext, times(1)).removeSession(mockSession4Finished);
     }
 
+    @Test
+    public void finishedSessionStillBeingSentIsNeitherSentNorRemoved() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_OK);
+        when(statusResponse.isErroneousResponse()).thenReturn(false);
+
+        when(mockSession4Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(statusResponse);
+        when(mockSession3Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession3Finished.isBeaconSendInProgress()).thenReturn(true);
+        when(mockSession4Finished.isDataSendingAllowed()).thenReturn(true);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // the session still sent by an abandoned worker is left untouched
+        verify(mockSession3Finished, times(0))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession3Finished, times(0)).clearCapturedData();
+        verify(mockContext, times(0)).removeSession(mockSession3Finished);
+
+        verify(mockSession4Finished, times(1))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).removeSession(mockSession4Finished);
+    }
+
+    @Test
+    public void finishedSessionStillBeingSentIsNotSentInParallel() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_OK);
+        when(statusResponse.isErroneousResponse()).thenReturn(false);
+
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockSession4Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(statusResponse);
+        when(mockSession3Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession3Finished.isBeaconSendInProgress()).thenReturn(true);
+        when(mockSession4Finished.isDataSendingAllowed()).thenReturn(true);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession3Finished, times(0))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession3Finished, times(0)).clearCapturedData();
+        verify(mockContext, times(0)).removeSession(mockSession3Finished);
+
+        verify(mockSession4Finished, times(1))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).removeSession(mockSession4Finished);
+    }
+
+    @Test
+    public void finishedSessionsAreSentInParallelIfParallelismIsConfigured() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_OK);
+        when(statusResponse.isErroneousResponse()).thenReturn(false);
+
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockSession3Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(StatusResponse.createErrorResponse(mock(Logger.class), StatusResponse.HTTP_BAD_REQUEST));
+        when(mockSession4Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(statusResponse);
+        when(mockSession3Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession4Finished.isDataSendingAllowed()).thenReturn(true);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // unsuccessful response for the first session does not prevent sending the second one
+        verify(mockSession3Finished, times(1))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession4Finished, times(1))
+                .sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+
+        // only the successfully sent session is removed
+        verify(mockContext, times(0)).removeSession(mockSession3Finished);
+        verify(mockContext, times(1)).removeSession(mockSession4Finished);
+    }
+
+    @Test
+    public void sendingFinishedSessionsInParallelIsAbortedWhenTooManyRequestsResponseIsReceived() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_TOO_MANY_REQUESTS);
+        when(statusResponse.isErroneousResponse()).thenReturn(true);
+        when(statusResponse.getRetryAfterInMilliseconds()).thenReturn(1234L);
+
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockSession3Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(statusResponse);
+        when(mockSession4Finished.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+                .thenReturn(mock(StatusResponse.class));
+        when(mockSession3Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession4Finished.isDataSendingAllowed()).thenReturn(true);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // then
+        verify(mockContext, times(0)).removeSession(mockSession3Finished);
+        verifyNoInteractions(mockSession1Open, mockSession2Open);
+
+        ArgumentCaptor<BeaconSendingCaptureOffState> argumentCaptor = ArgumentCaptor.forClass(BeaconSendingCaptureOffState.class);
+        verify(mockContext, times(1)).setNextState(argumentCaptor.capture());
+        assertThat(argumentCaptor.getValue().sleepTimeInMilliseconds, is(equalTo(1234L)));
+    }
+
+    @Test
+    public void openSessionsAreSentInParallelIfParallelismIsConfigured() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockContext.getAllFinishedAndConfiguredSessions()).thenReturn(Collections.<SessionImpl>emptyList());
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).setLastOpenSessionBeaconSendTime(42L);
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateClearsFinishedSessionsIfSendingIsNotAllowed() {
         //given
@@ -459,6 +765,171 @@ public class BeaconSendingCaptureOnStateTest {
         verify(mockContext, times(1)).setLastOpenSessionBeaconSendTime(org.mockito.Mockito.anyLong());
     }
 
+    @Test
+    public void openSessionsExceedingEarlySendThresholdAreSentBeforeSendIntervalExpired() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+        when(mockContext.getEarlyBeaconSendThreshold()).thenReturn(0.5);
+        when(mockContext.getLastServerConfiguration())
+                .thenReturn(new ServerConfiguration.Builder(ServerConfiguration.DEFAULT).withBeaconSizeInBytes(1000).build());
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(501L);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession2Open.getPendingDataSizeInBytes()).thenReturn(500L);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(0)).setLastOpenSessionBeaconSendTime(org.mockito.Mockito.anyLong());
+    }
+
+    @Test
+    public void openSessionsAreNotSentEarlyIfEarlySendThresholdIsDisabled() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(Long.MAX_VALUE);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession1Open, times(0)).getPendingDataSizeInBytes();
+    }
+
+    @Test
+    public void prioritySessionsAreSentAheadOfOtherSessions() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockContext.getAllConfiguredPrioritySessions()).thenReturn(Collections.singletonList(mockSession2Open));
+        when(mockContext.getAllOpenAndConfiguredSessions()).thenReturn(Collections.<SessionImpl>emptyList());
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+    }
+
+    @Test
+    public void prioritySessionsAreNotSentIfSendingIsNotAllowed() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(false);
+        when(mockContext.getAllConfiguredPrioritySessions()).thenReturn(Collections.singletonList(mockSession2Open));
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+    }
+
+    @Test
+    public void tooManyRequestsResponseForPrioritySessionTransitionsToCaptureOffState() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse tooManyRequestsResponse = mock(StatusResponse.class);
+        when(tooManyRequestsResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_TOO_MANY_REQUESTS);
+        when(tooManyRequestsResponse.isErroneousResponse()).thenReturn(true);
+        when(tooManyRequestsResponse.getRetryAfterInMilliseconds()).thenReturn(1234L);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession2Open.sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class)))
+            .thenReturn(tooManyRequestsResponse);
+        when(mockContext.getAllConfiguredPrioritySessions()).thenReturn(Collections.singletonList(mockSession2Open));
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession3Finished, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        ArgumentCaptor<AbstractBeaconSendingState> stateCaptor = ArgumentCaptor.forClass(AbstractBeaconSendingState.class);
+        verify(mockContext, times(1)).setNextState(stateCaptor.capture());
+        assertThat(stateCaptor.getValue(), is(instanceOf(BeaconSendingCaptureOffState.class)));
+    }
+
+    @Test
+    public void flushRequestsAreProcessedAndCompleted() throws InterruptedException {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        FlushRequest flushRequest = new FlushRequest(Collections.singleton(mockSession1Open));
+        when(mockContext.pollFlushRequests()).thenReturn(Collections.singletonList(flushRequest));
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(100L, 10L);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        assertThat(flushRequest.getNumBytesSent(), is(90L));
+        assertThat(flushRequest.await(0L), is(true));
+    }
+
+    @Test
+    public void flushRequestWithoutSessionsFlushesAllConfiguredSessions() throws InterruptedException {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        FlushRequest flushRequest = new FlushRequest(null);
+        when(mockContext.pollFlushRequests()).thenReturn(Collections.singletonList(flushRequest));
+        when(mockContext.getAllFinishedAndConfiguredSessions()).thenReturn(Collections.<SessionImpl>emptyList());
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(40L);
+        when(mockContext.getSendInterval()).thenReturn(1000);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        assertThat(flushRequest.await(0L), is(true));
+    }
+
+    @Test
+    public void openSessionsAreSentAccordingToBeaconSendBudget() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        BeaconSendScheduler scheduler = spy(new BeaconSendScheduler(mock(Logger.class), 1, 0));
+        when(mockContext.isBeaconSendBudgetLimited()).thenReturn(true);
+        when(mockContext.getBeaconSendScheduler()).thenReturn(scheduler);
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(10L);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession2Open.getPendingDataSizeInBytes()).thenReturn(20L);
+
+        // when
+        target.execute(mockContext);
+
+        // then
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).setLastOpenSessionBeaconSendTime(42L);
+        verify(scheduler, times(1)).onSessionsSent(Collections.singletonList(mockSession2Open), 42L);
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateClearsOpenSessionDataIfSendingIsNotAllowed() {
         //given
@@ -16,8 +16,10 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.SSLTrustManager;
+import com.dynatrace.openkit.core.configuration.BeaconSenderConfiguration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
@@ -28,6 +30,7 @@ import com.dynatrace.openkit.protocol.ResponseAttributes;
 import com.dynatrace.openkit.protocol.ResponseAttributesDefaults;
 import com.dynatrace.openkit.protocol.ResponseAttributesImpl;
 import com.dynatrace.openkit.protocol.StatusResponse;
+import com.dynatrace.openkit.providers.DefaultTimingProvider;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 import org.junit.Before;
@@ -36,7 +39,10 @@ import org.mockito.ArgumentCaptor;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
@@ -49,6 +55,9 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -127,6 +136,27 @@ public class BeaconSendingContextTest {
         verify(mockState, times(1)).execute(target);
     }
 
+    @Test
+    public void reachingTerminalStateLogsConnectionStatistics() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().with(new BeaconSendingFlushSessionsState()).build();
+
+        // when
+        target.executeCurrentState();
+
+        // then
+        assertThat(target.isInTerminalState(), is(true));
+        verify(httpClientProvider, times(1)).createClient(httpClientConfig);
+
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(logger, atLeastOnce()).info(messageCaptor.capture());
+        boolean statisticsLogged = false;
+        for (String message : messageCaptor.getAllValues()) {
+            statisticsLogged |= message.contains("connection statistics");
+        }
+        assertThat(statisticsLogged, is(true));
+    }
+
     @Test
     public void initCompleteSuccessAndWait() {
         // given
@@ -362,6 +392,289 @@ public class BeaconSendingContextTest {
         verifyNoMoreInteractions(timingProvider);
     }
 
+    @Test
+    public void waitForWakeupWaitsForGivenTimeIfNoWakeupIsSignalled() throws InterruptedException {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+
+        // when
+        target.waitForWakeup(50L);
+
+        // then
+        verify(timingProvider, times(1)).waitForNotification(any(Object.class), eq(50L));
+    }
+
+    @Test
+    public void waitForWakeupReturnsImmediatelyIfWakeupWasSignalledBefore() throws InterruptedException {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.wakeup();
+
+        // when
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        verify(timingProvider, times(0)).waitForNotification(any(Object.class), anyLong());
+    }
+
+    @Test
+    public void waitForWakeupConsumesSignalledWakeup() throws InterruptedException {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.wakeup();
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // when
+        target.waitForWakeup(50L);
+
+        // then
+        verify(timingProvider, times(1)).waitForNotification(any(Object.class), anyLong());
+        verify(timingProvider, times(1)).waitForNotification(any(Object.class), eq(50L));
+    }
+
+    @Test
+    public void waitForWakeupIsWokenUpByOtherThread() throws InterruptedException {
+        // given
+        final BeaconSendingContext target = createBeaconSendingContext().with(new DefaultTimingProvider()).build();
+        Thread wakeupThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                target.wakeup();
+            }
+        });
+        long start = System.nanoTime();
+
+        // when
+        wakeupThread.start();
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+        wakeupThread.join();
+
+        // then
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TimeUnit.SECONDS.toMillis(10), is(true));
+    }
+
+    @Test
+    public void requestShutdownSignalsWakeup() throws InterruptedException {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.requestShutdown();
+
+        // when
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        verify(timingProvider, times(0)).waitForNotification(any(Object.class), anyLong());
+    }
+
+    @Test
+    public void addSessionSignalsWakeup() throws InterruptedException {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.addSession(mock(SessionImpl.class));
+
+        // when
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        verify(timingProvider, times(0)).waitForNotification(any(Object.class), anyLong());
+    }
+
+    @Test
+    public void onSessionFinishedSignalsWakeup() throws InterruptedException {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        when(session.getState()).thenReturn(mock(SessionState.class));
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.onSessionFinished(session);
+
+        // when
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        verify(timingProvider, times(0)).waitForNotification(any(Object.class), anyLong());
+    }
+
+    @Test
+    public void onPriorityDataAddedSignalsWakeup() throws InterruptedException {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.onPriorityDataAdded(session);
+
+        // when
+        target.waitForWakeup(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        verify(timingProvider, times(0)).waitForNotification(any(Object.class), anyLong());
+    }
+
+    @Test
+    public void configuredPrioritySessionsAreReturned() {
+        // given
+        SessionState state = mock(SessionState.class);
+        when(state.isConfigured()).thenReturn(true);
+        SessionImpl session = mock(SessionImpl.class);
+        when(session.getState()).thenReturn(state);
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.addSession(session);
+
+        // when
+        target.onPriorityDataAdded(session);
+
+        // then
+        assertThat(target.getAllConfiguredPrioritySessions(), contains(session));
+    }
+
+    @Test
+    public void shutdownFlushTimeIsNeverExpiredWithoutTimeBudget() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.requestShutdown();
+
+        // when, then
+        assertThat(target.isShutdownFlushTimeExpired(), is(false));
+        assertThat(target.getRemainingShutdownFlushTimeInMilliseconds(), is(ParallelBeaconSender.NO_TIMEOUT));
+    }
+
+    @Test
+    public void shutdownFlushTimeBudgetStartsWithShutdownRequest() {
+        // given
+        BeaconSenderConfiguration beaconSenderConfig = mock(BeaconSenderConfiguration.class);
+        when(beaconSenderConfig.getShutdownFlushTimeoutInMilliseconds()).thenReturn(1000L);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(5000L, 5400L, 5400L, 6000L);
+        BeaconSendingContext target = createBeaconSendingContext().with(beaconSenderConfig).build();
+
+        // when
+        target.requestShutdown();
+
+        // then
+        assertThat(target.isShutdownFlushTimeExpired(), is(false));
+        assertThat(target.getRemainingShutdownFlushTimeInMilliseconds(), is(600L));
+        assertThat(target.isShutdownFlushTimeExpired(), is(true));
+    }
+
+    @Test
+    public void shutdownFlushTimeBudgetIsNotRestartedBySubsequentShutdownRequests() {
+        // given
+        BeaconSenderConfiguration beaconSenderConfig = mock(BeaconSenderConfiguration.class);
+        when(beaconSenderConfig.getShutdownFlushTimeoutInMilliseconds()).thenReturn(1000L);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(5000L, 5800L, 5800L);
+        BeaconSendingContext target = createBeaconSendingContext().with(beaconSenderConfig).build();
+        target.requestShutdown();
+
+        // when
+        target.requestShutdown();
+
+        // then
+        assertThat(target.getRemainingShutdownFlushTimeInMilliseconds(), is(200L));
+    }
+
+    @Test
+    public void flushReturnsRemainingDataIfRequestIsNotProcessedInTime() {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        when(session.getPendingDataSizeInBytes()).thenReturn(123L);
+        BeaconSendingContext target = createBeaconSendingContext().build();
+
+        // when
+        FlushResult obtained = target.flush(Collections.singleton(session), 10L);
+
+        // then
+        assertThat(obtained.getNumBytesSent(), is(0L));
+        assertThat(obtained.getNumBytesRemaining(), is(123L));
+        assertThat(target.pollFlushRequests().size(), is(1));
+    }
+
+    @Test
+    public void flushWithoutSessionsConsidersAllSessions() {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        when(session.getPendingDataSizeInBytes()).thenReturn(42L);
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.addSession(session);
+
+        // when
+        FlushResult obtained = target.flush(null, 10L);
+
+        // then
+        assertThat(obtained.getNumBytesRemaining(), is(42L));
+    }
+
+    @Test
+    public void flushOfNoSessionsReturnsImmediately() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+
+        // when
+        FlushResult obtained = target.flush(Collections.<SessionImpl>emptySet(), TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(obtained.isComplete(), is(true));
+        assertThat(target.pollFlushRequests().size(), is(0));
+    }
+
+    @Test
+    public void flushReturnsImmediatelyInTerminalState() {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        BeaconSendingContext target = createBeaconSendingContext().with(new BeaconSendingTerminalState()).build();
+        long start = System.nanoTime();
+
+        // when
+        target.flush(Collections.singleton(session), TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TimeUnit.SECONDS.toMillis(10), is(true));
+        assertThat(target.pollFlushRequests().size(), is(0));
+    }
+
+    @Test
+    public void flushReturnsImmediatelyAfterTerminalStateWasReached() {
+        // given
+        SessionImpl session = mock(SessionImpl.class);
+        BeaconSendingContext target = createBeaconSendingContext().with(new BeaconSendingFlushSessionsState()).build();
+        target.executeCurrentState();
+        long start = System.nanoTime();
+
+        // when
+        target.flush(Collections.singleton(session), TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TimeUnit.SECONDS.toMillis(10), is(true));
+        assertThat(target.pollFlushRequests().size(), is(0));
+    }
+
+    @Test
+    public void completeFlushRequestsReleasesWaitingThreads() throws InterruptedException {
+        // given
+        final BeaconSendingContext target = createBeaconSendingContext().build();
+        final SessionImpl session = mock(SessionImpl.class);
+        final CountDownLatch flushCompleted = new CountDownLatch(1);
+        Thread flushingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.flush(Collections.singleton(session), TimeUnit.SECONDS.toMillis(30));
+                flushCompleted.countDown();
+            }
+        });
+        flushingThread.start();
+        long start = System.nanoTime();
+
+        // when
+        while (!flushCompleted.await(10, TimeUnit.MILLISECONDS)) {
+            target.completeFlushRequests();
+        }
+
+        // then
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TimeUnit.SECONDS.toMillis(30), is(true));
+        flushingThread.join();
+    }
+
     @Test
     public void sleepWithGivenTime() throws InterruptedException {
         // given
@@ -988,6 +1301,75 @@ public class BeaconSendingContextTest {
         assertThat(target.isCaptureOn(), is(false));
     }
 
+    @Test
+    public void updateFromKeepsLastResponseAttributesIfConfigurationTimestampIsUnchanged() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(1234L).withServerId(7).withMultiplicity(2).build()));
+        ResponseAttributes attributesBefore = target.getLastResponseAttributes();
+        ServerConfiguration serverConfigBefore = target.getLastServerConfiguration();
+
+        // when
+        ResponseAttributes obtained = target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(1234L).withServerId(7).build()));
+
+        // then
+        assertThat(obtained, is(sameInstance(attributesBefore)));
+        assertThat(target.getLastServerConfiguration(), is(sameInstance(serverConfigBefore)));
+    }
+
+    @Test
+    public void updateFromMergesResponseAttributesIfDynamicConfigurationChangesWithSameTimestamp() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(1234L).withServerId(7).build()));
+        ResponseAttributes attributesBefore = target.getLastResponseAttributes();
+
+        // when
+        ResponseAttributes obtained = target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(1234L).withServerId(8).build()));
+
+        // then
+        assertThat(obtained, is(not(sameInstance(attributesBefore))));
+        assertThat(obtained.getServerId(), is(8));
+    }
+
+    @Test
+    public void updateFromMergesResponseAttributesIfConfigurationTimestampChanges() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(1234L).build()));
+        ResponseAttributes attributesBefore = target.getLastResponseAttributes();
+        ServerConfiguration serverConfigBefore = target.getLastServerConfiguration();
+
+        // when
+        ResponseAttributes obtained = target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults()
+                .withTimestampInMilliseconds(5678L).withCapture(false).build()));
+
+        // then
+        assertThat(obtained, is(not(sameInstance(attributesBefore))));
+        assertThat(obtained.getTimestampInMilliseconds(), is(5678L));
+        assertThat(target.getLastServerConfiguration(), is(not(sameInstance(serverConfigBefore))));
+        assertThat(target.isCaptureOn(), is(false));
+    }
+
+    @Test
+    public void updateFromMergesResponseAttributesWithoutTimestamp() {
+        // given
+        BeaconSendingContext target = createBeaconSendingContext().build();
+        target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults().build()));
+        ResponseAttributes attributesBefore = target.getLastResponseAttributes();
+
+        // when
+        ResponseAttributes obtained = target.updateFrom(createSuccessResponse(ResponseAttributesImpl.withUndefinedDefaults().build()));
+
+        // then
+        assertThat(obtained, is(not(sameInstance(attributesBefore))));
+    }
+
     @Test
     public void getConfigurationTimestampReturnsZeroOnDefault() {
         // given
@@ -1082,20 +1464,39 @@ public class BeaconSendingContextTest {
         private HTTPClientProvider httpClientProvider;
         private TimingProvider timingProvider;
         private AbstractBeaconSendingState initState;
+        private BeaconSenderConfiguration beaconSenderConfig = BeaconSenderConfiguration.DEFAULT;
 
         private TestBeaconSendingContextBuilder with(AbstractBeaconSendingState initState) {
             this.initState = initState;
             return this;
         }
 
+        private TestBeaconSendingContextBuilder with(TimingProvider timingProvider) {
+            this.timingProvider = timingProvider;
+            return this;
+        }
+
+        private TestBeaconSendingContextBuilder with(BeaconSenderConfiguration beaconSenderConfig) {
+            this.beaconSenderConfig = beaconSenderConfig;
+            return this;
+        }
+
         private BeaconSendingContext build() {
             return new BeaconSendingContext(
                     logger,
                     httpClientConfig,
                     httpClientProvider,
                     timingProvider,
+                    beaconSenderConfig,
                     initState
             );
         }
     }
+
+    private static StatusResponse createSuccessResponse(ResponseAttributes attributes) {
+        StatusResponse response = mock(StatusResponse.class);
+        when(response.getResponseAttributes()).thenReturn(attributes);
+        when(response.isErroneousResponse()).thenReturn(false);
+        return response;
+    }
 }
@@ -23,9 +23,13 @@ import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
@@ -33,6 +37,7 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -201,4 +206,171 @@ public class BeaconSendingFlushSessionsStateTest {
         verify(mockSession2Open, times(1)).clearCapturedData();
         verify(mockSession3Closed, times(1)).clearCapturedData();
     }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateSendsPrioritySessionsFirst() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockContext.getAllConfiguredPrioritySessions()).thenReturn(Collections.singletonList(mockSession1Open));
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        InOrder inOrder = inOrder(mockSession1Open, mockSession2Open, mockSession3Closed);
+        inOrder.verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        inOrder.verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        inOrder.verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateStopsSendingIfShutdownFlushTimeExpired() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockContext.isShutdownFlushTimeExpired()).thenReturn(false, true);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession1Open, times(1)).clearCapturedData();
+        verify(mockSession2Open, times(1)).clearCapturedData();
+        verify(mockContext, times(1)).removeSession(mockSession1Open);
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+        verify(mockContext, times(1)).removeSession(mockSession3Closed);
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateReportsFlushedAndDroppedData() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockSession3Closed.getPendingDataSizeInBytes()).thenReturn(100L, 0L);
+        when(mockSession2Open.getPendingDataSizeInBytes()).thenReturn(200L, 50L);
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(300L);
+        when(mockSession1Open.isDataSendingAllowed()).thenReturn(false);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        ArgumentCaptor<FlushStatistics> statisticsCaptor = ArgumentCaptor.forClass(FlushStatistics.class);
+        verify(mockContext, times(1)).onShutdownFlushCompleted(statisticsCaptor.capture());
+        FlushStatistics statistics = statisticsCaptor.getValue();
+        assertThat(statistics.getNumFlushedSessions(), is(1));
+        assertThat(statistics.getNumFlushedBytes(), is(250L));
+        assertThat(statistics.getNumDroppedSessions(), is(2));
+        assertThat(statistics.getNumDroppedBytes(), is(350L));
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateDropsSessionsStillBeingSent() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockSession3Closed.getPendingDataSizeInBytes()).thenReturn(100L, 0L);
+        when(mockSession2Open.getPendingDataSizeInBytes()).thenReturn(200L);
+        when(mockSession2Open.isBeaconSendInProgress()).thenReturn(true);
+        when(mockSession1Open.getPendingDataSizeInBytes()).thenReturn(300L);
+        when(mockSession1Open.isDataSendingAllowed()).thenReturn(false);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).clearCapturedData();
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+
+        ArgumentCaptor<FlushStatistics> statisticsCaptor = ArgumentCaptor.forClass(FlushStatistics.class);
+        verify(mockContext, times(1)).onShutdownFlushCompleted(statisticsCaptor.capture());
+        FlushStatistics statistics = statisticsCaptor.getValue();
+        assertThat(statistics.getNumFlushedSessions(), is(1));
+        assertThat(statistics.getNumFlushedBytes(), is(100L));
+        assertThat(statistics.getNumDroppedSessions(), is(2));
+        assertThat(statistics.getNumDroppedBytes(), is(500L));
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateDoesNotSendSessionsStillBeingSentInParallel() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        ParallelBeaconSender parallelBeaconSender = new ParallelBeaconSender(2);
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockContext.getRemainingShutdownFlushTimeInMilliseconds()).thenReturn(TimeUnit.SECONDS.toMillis(10));
+        when(mockSession2Open.getPendingDataSizeInBytes()).thenReturn(200L);
+        when(mockSession2Open.isBeaconSendInProgress()).thenReturn(true);
+
+        // when
+        try {
+            target.doExecute(mockContext);
+        } finally {
+            parallelBeaconSender.shutdown();
+        }
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(0)).clearCapturedData();
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+
+        ArgumentCaptor<FlushStatistics> statisticsCaptor = ArgumentCaptor.forClass(FlushStatistics.class);
+        verify(mockContext, times(1)).onShutdownFlushCompleted(statisticsCaptor.capture());
+        FlushStatistics statistics = statisticsCaptor.getValue();
+        assertThat(statistics.getNumFlushedSessions(), is(2));
+        assertThat(statistics.getNumDroppedSessions(), is(1));
+        assertThat(statistics.getNumDroppedBytes(), is(200L));
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateSendsSessionsInParallelWithinRemainingTime() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        ParallelBeaconSender parallelBeaconSender = new ParallelBeaconSender(2);
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.getParallelBeaconSender()).thenReturn(parallelBeaconSender);
+        when(mockContext.getRemainingShutdownFlushTimeInMilliseconds()).thenReturn(TimeUnit.SECONDS.toMillis(10));
+
+        // when
+        try {
+            target.doExecute(mockContext);
+        } finally {
+            parallelBeaconSender.shutdown();
+        }
+
+        // then
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).removeSession(mockSession1Open);
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+        verify(mockContext, times(1)).removeSession(mockSession3Closed);
+        verify(mockContext, times(1)).setNextState(isA(BeaconSendingTerminalState.class));
+    }
+
+    @Test
+    public void aBeaconSendingFlushSessionStateDoesNotSendInParallelIfShutdownFlushTimeExpired() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockContext.getBeaconSendingParallelism()).thenReturn(2);
+        when(mockContext.isShutdownFlushTimeExpired()).thenReturn(true);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        verify(mockContext, times(0)).getParallelBeaconSender();
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+        verify(mockContext, times(1)).removeSession(mockSession1Open);
+    }
 }
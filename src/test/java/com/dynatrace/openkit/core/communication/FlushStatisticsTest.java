@@ -0,0 +1,107 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FlushStatisticsTest {
+
+    @Test
+    public void initiallyNothingIsFlushedOrDropped() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+
+        // then
+        assertThat(target.getNumFlushedSessions(), is(0));
+        assertThat(target.getNumFlushedBytes(), is(0L));
+        assertThat(target.getNumDroppedSessions(), is(0));
+        assertThat(target.getNumDroppedBytes(), is(0L));
+    }
+
+    @Test
+    public void sessionWithoutRemainingDataIsFlushed() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+
+        // when
+        target.addSession(100, 0);
+
+        // then
+        assertThat(target.getNumFlushedSessions(), is(1));
+        assertThat(target.getNumFlushedBytes(), is(100L));
+        assertThat(target.getNumDroppedSessions(), is(0));
+        assertThat(target.getNumDroppedBytes(), is(0L));
+    }
+
+    @Test
+    public void remainingDataOfSessionIsDropped() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+
+        // when
+        target.addSession(100, 40);
+
+        // then
+        assertThat(target.getNumFlushedSessions(), is(0));
+        assertThat(target.getNumFlushedBytes(), is(60L));
+        assertThat(target.getNumDroppedSessions(), is(1));
+        assertThat(target.getNumDroppedBytes(), is(40L));
+    }
+
+    @Test
+    public void dataAddedWhileFlushingIsNotCountedTwice() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+
+        // when
+        target.addSession(100, 150);
+
+        // then
+        assertThat(target.getNumFlushedBytes(), is(0L));
+        assertThat(target.getNumDroppedBytes(), is(100L));
+    }
+
+    @Test
+    public void sessionNotFlushedAtAllIsDropped() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+
+        // when
+        target.addDroppedSession(100);
+
+        // then
+        assertThat(target.getNumFlushedSessions(), is(0));
+        assertThat(target.getNumFlushedBytes(), is(0L));
+        assertThat(target.getNumDroppedSessions(), is(1));
+        assertThat(target.getNumDroppedBytes(), is(100L));
+    }
+
+    @Test
+    public void toStringContainsFlushedAndDroppedData() {
+        // given
+        FlushStatistics target = new FlushStatistics();
+        target.addSession(100, 0);
+        target.addSession(50, 20);
+
+        // then
+        assertThat(target.toString(), is("flushed 1 sessions (130 bytes), dropped 1 sessions (20 bytes)"));
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.protocol.AdditionalQueryParameters;
+import com.dynatrace.openkit.protocol.StatusResponse;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ParallelBeaconSenderTest {
+
+    private HTTPClientProvider mockHTTPClientProvider;
+    private AdditionalQueryParameters mockAdditionalParameters;
+    private SessionImpl mockSessionOne;
+    private SessionImpl mockSessionTwo;
+    private StatusResponse successResponse;
+    private StatusResponse tooManyRequestsResponse;
+
+    private ParallelBeaconSender target;
+
+    @Before
+    public void setUp() {
+        mockHTTPClientProvider = mock(HTTPClientProvider.class);
+        mockAdditionalParameters = mock(AdditionalQueryParameters.class);
+        mockSessionOne = mock(SessionImpl.class);
+        mockSessionTwo = mock(SessionImpl.class);
+
+        successResponse = mock(StatusResponse.class);
+        when(successResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_OK);
+
+        tooManyRequestsResponse = mock(StatusResponse.class);
+        when(tooManyRequestsResponse.getResponseCode()).thenReturn(StatusResponse.HTTP_TOO_MANY_REQUESTS);
+        when(tooManyRequestsResponse.isErroneousResponse()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        if (target != null) {
+            target.shutdown();
+        }
+    }
+
+    @Test
+    public void sendBeaconsSendsAllSessionsAndReturnsResultsInOrder() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(2);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(successResponse);
+        when(mockSessionTwo.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(null);
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.size(), is(2));
+        assertThat(obtained.get(0).getSession(), is(sameInstance(mockSessionOne)));
+        assertThat(obtained.get(0).isSent(), is(true));
+        assertThat(obtained.get(0).getStatusResponse(), is(sameInstance(successResponse)));
+        assertThat(obtained.get(1).getSession(), is(sameInstance(mockSessionTwo)));
+        assertThat(obtained.get(1).isSent(), is(true));
+        assertThat(obtained.get(1).getStatusResponse(), is(nullValue()));
+    }
+
+    @Test
+    public void sendBeaconsDoesNotStartFurtherSendsAfterTooManyRequestsResponse() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(1);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(tooManyRequestsResponse);
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.get(0).isSent(), is(true));
+        assertThat(obtained.get(0).getStatusResponse(), is(sameInstance(tooManyRequestsResponse)));
+        assertThat(obtained.get(1).isSent(), is(false));
+        verify(mockSessionTwo, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+    }
+
+    @Test
+    public void sendBeaconsInterruptsInFlightSendsAfterTooManyRequestsResponse() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(2);
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final AtomicBoolean firstSendInterrupted = new AtomicBoolean(false);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenAnswer(new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) {
+                firstSendStarted.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    firstSendInterrupted.set(true);
+                }
+                return null;
+            }
+        });
+        when(mockSessionTwo.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenAnswer(new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) throws InterruptedException {
+                firstSendStarted.await();
+                return tooManyRequestsResponse;
+            }
+        });
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(firstSendInterrupted.get(), is(true));
+        assertThat(obtained.get(1).getStatusResponse(), is(sameInstance(tooManyRequestsResponse)));
+    }
+
+    @Test
+    public void sendBeaconsDoesNotSendSessionWhoseBeaconIsStillBeingSent() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(2);
+        when(mockSessionOne.isBeaconSendInProgress()).thenReturn(true);
+        when(mockSessionTwo.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(successResponse);
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.get(0).isSent(), is(false));
+        assertThat(obtained.get(1).isSent(), is(true));
+        verify(mockSessionOne, times(0)).sendBeacon(any(HTTPClientProvider.class), any(AdditionalQueryParameters.class));
+    }
+
+    @Test
+    public void sendBeaconsTreatsExceptionAsNotSent() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(2);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters))
+                .thenThrow(new IllegalStateException("test"));
+        when(mockSessionTwo.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(successResponse);
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.get(0).isSent(), is(false));
+        assertThat(obtained.get(1).isSent(), is(true));
+    }
+
+    @Test
+    public void sendBeaconsReportsSessionsNotSentWithinTimeoutAsNotSent() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(1);
+        final CountDownLatch firstSendInterrupted = new CountDownLatch(1);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenAnswer(new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    firstSendInterrupted.countDown();
+                }
+                return null;
+            }
+        });
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters, 50L);
+
+        // then
+        assertThat(obtained.get(0).isSent(), is(false));
+        assertThat(obtained.get(1).isSent(), is(false));
+        assertThat(firstSendInterrupted.await(10, TimeUnit.SECONDS), is(true));
+        verify(mockSessionTwo, times(0)).sendBeacon(mockHTTPClientProvider, mockAdditionalParameters);
+    }
+
+    @Test
+    public void sendBeaconsWithTimeoutReturnsResultsOfSessionsSentInTime() throws InterruptedException {
+        // given
+        target = new ParallelBeaconSender(2);
+        when(mockSessionOne.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(successResponse);
+        when(mockSessionTwo.sendBeacon(mockHTTPClientProvider, mockAdditionalParameters)).thenReturn(successResponse);
+
+        // when
+        List<ParallelBeaconSender.Result> obtained = target.sendBeacons(Arrays.asList(mockSessionOne, mockSessionTwo),
+                mockHTTPClientProvider, mockAdditionalParameters, TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(obtained.get(0).isSent(), is(true));
+        assertThat(obtained.get(1).isSent(), is(true));
+    }
+}
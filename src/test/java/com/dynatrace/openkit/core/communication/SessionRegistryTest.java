@@ -0,0 +1,215 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.core.objects.SessionState;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SessionRegistryTest {
+
+    private SessionState mockState;
+    private SessionImpl mockSession;
+
+    @Before
+    public void setUp() {
+        mockState = mock(SessionState.class);
+        mockSession = mock(SessionImpl.class);
+        when(mockSession.getState()).thenReturn(mockState);
+    }
+
+    @Test
+    public void newSessionIsNotConfigured() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+
+        // when
+        target.add(mockSession);
+
+        // then
+        assertThat(target.size(), is(1));
+        assertThat(target.getNotConfiguredSessions(), contains(mockSession));
+        assertThat(target.getOpenAndConfiguredSessions(), is(empty()));
+        assertThat(target.getFinishedAndConfiguredSessions(), is(empty()));
+        assertThat(target.hasNotConfiguredOrFinishedSessions(), is(true));
+    }
+
+    @Test
+    public void configuredSessionIsMovedToOpenSessions() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+
+        // when
+        when(mockState.isConfigured()).thenReturn(true);
+        when(mockState.isConfiguredAndOpen()).thenReturn(true);
+
+        // then
+        assertThat(target.getNotConfiguredSessions(), is(empty()));
+        assertThat(target.hasNotConfiguredOrFinishedSessions(), is(false));
+        assertThat(target.getOpenAndConfiguredSessions(), contains(mockSession));
+        assertThat(target.size(), is(1));
+    }
+
+    @Test
+    public void finishedSessionIsMovedToFinishedSessionsWhenNotified() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        when(mockState.isConfigured()).thenReturn(true);
+        when(mockState.isConfiguredAndOpen()).thenReturn(true);
+        assertThat(target.getOpenAndConfiguredSessions(), contains(mockSession));
+
+        // when
+        when(mockState.isConfiguredAndOpen()).thenReturn(false);
+        when(mockState.isConfiguredAndFinished()).thenReturn(true);
+        target.onSessionFinished(mockSession);
+
+        // then
+        assertThat(target.getFinishedAndConfiguredSessions(), contains(mockSession));
+        assertThat(target.getOpenAndConfiguredSessions(), is(empty()));
+        assertThat(target.size(), is(1));
+    }
+
+    @Test
+    public void sessionFinishedBeforeBeingConfiguredIsMovedToFinishedSessionsOnceConfigured() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        target.onSessionFinished(mockSession);
+        assertThat(target.getFinishedAndConfiguredSessions(), is(empty()));
+
+        // when
+        when(mockState.isConfigured()).thenReturn(true);
+        when(mockState.isConfiguredAndFinished()).thenReturn(true);
+
+        // then
+        assertThat(target.getFinishedAndConfiguredSessions(), contains(mockSession));
+        assertThat(target.getNotConfiguredSessions(), is(empty()));
+    }
+
+    @Test
+    public void removeRemovesSessionRegardlessOfState() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        when(mockState.isConfigured()).thenReturn(true);
+        when(mockState.isConfiguredAndOpen()).thenReturn(true);
+        target.getOpenAndConfiguredSessions();
+
+        // when
+        boolean obtained = target.remove(mockSession);
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.size(), is(0));
+        assertThat(target.getAllSessions(), is(empty()));
+    }
+
+    @Test
+    public void removeReturnsFalseForUnknownSession() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+
+        // when
+        boolean obtained = target.remove(mockSession);
+
+        // then
+        assertThat(obtained, is(false));
+    }
+
+    @Test
+    public void sessionsAreReturnedInInsertionOrder() {
+        // given
+        SessionImpl otherSession = mock(SessionImpl.class);
+        when(otherSession.getState()).thenReturn(mockState);
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        target.add(otherSession);
+
+        // when, then
+        assertThat(target.getNotConfiguredSessions(), contains(mockSession, otherSession));
+    }
+
+    @Test
+    public void configuredSessionWithPriorityDataIsReturnedOnce() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        when(mockState.isConfigured()).thenReturn(true);
+
+        // when
+        target.onPriorityDataAdded(mockSession);
+
+        // then
+        assertThat(target.getConfiguredPrioritySessions(), contains(mockSession));
+        assertThat(target.getConfiguredPrioritySessions(), is(empty()));
+    }
+
+    @Test
+    public void notConfiguredSessionWithPriorityDataIsReturnedOnceConfigured() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        target.onPriorityDataAdded(mockSession);
+        assertThat(target.getConfiguredPrioritySessions(), is(empty()));
+
+        // when
+        when(mockState.isConfigured()).thenReturn(true);
+
+        // then
+        assertThat(target.getConfiguredPrioritySessions(), contains(mockSession));
+    }
+
+    @Test
+    public void priorityDataOfUnknownSessionIsIgnored() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        when(mockState.isConfigured()).thenReturn(true);
+
+        // when
+        target.onPriorityDataAdded(mockSession);
+
+        // then
+        assertThat(target.getConfiguredPrioritySessions(), is(empty()));
+        assertThat(target.size(), is(0));
+    }
+
+    @Test
+    public void removedSessionIsNoLongerReturnedAsPrioritySession() {
+        // given
+        SessionRegistry target = new SessionRegistry();
+        target.add(mockSession);
+        when(mockState.isConfigured()).thenReturn(true);
+        target.onPriorityDataAdded(mockSession);
+
+        // when
+        target.remove(mockSession);
+
+        // then
+        assertThat(target.getConfiguredPrioritySessions(), is(empty()));
+    }
+}
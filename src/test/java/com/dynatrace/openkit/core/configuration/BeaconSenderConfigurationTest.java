@@ -0,0 +1,141 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.DynatraceOpenKitBuilder;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BeaconSenderConfigurationTest {
+
+    @Test
+    public void beaconSenderConfigFromNullReturnsNull() {
+        // given, when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(null);
+
+        // then
+        assertThat(obtained, is(nullValue()));
+    }
+
+    @Test
+    public void defaultConfigurationHasNewSessionRequestCoalescingDisabled() {
+        // then
+        assertThat(BeaconSenderConfiguration.DEFAULT.isNewSessionRequestCoalescingEnabled(), is(false));
+    }
+
+    @Test
+    public void newSessionRequestCoalescingIsTakenOverFromOpenKitBuilder() {
+        // given
+        DynatraceOpenKitBuilder builder = mock(DynatraceOpenKitBuilder.class);
+        when(builder.isNewSessionRequestCoalescingEnabled()).thenReturn(true);
+
+        // when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(builder);
+
+        // then
+        verify(builder, times(1)).isNewSessionRequestCoalescingEnabled();
+        assertThat(obtained.isNewSessionRequestCoalescingEnabled(), is(true));
+    }
+
+    @Test
+    public void defaultConfigurationSendsBeaconsSequentially() {
+        // then
+        assertThat(BeaconSenderConfiguration.DEFAULT.getBeaconSendingParallelism(), is(1));
+    }
+
+    @Test
+    public void beaconSendingParallelismIsTakenOverFromOpenKitBuilder() {
+        // given
+        DynatraceOpenKitBuilder builder = mock(DynatraceOpenKitBuilder.class);
+        when(builder.getBeaconSendingParallelism()).thenReturn(3);
+
+        // when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(builder);
+
+        // then
+        verify(builder, times(1)).getBeaconSendingParallelism();
+        assertThat(obtained.getBeaconSendingParallelism(), is(3));
+    }
+
+    @Test
+    public void defaultConfigurationHasEarlyBeaconSendingDisabled() {
+        // then
+        assertThat(BeaconSenderConfiguration.DEFAULT.getEarlyBeaconSendThreshold(), is(0.0));
+    }
+
+    @Test
+    public void earlyBeaconSendThresholdIsTakenOverFromOpenKitBuilder() {
+        // given
+        DynatraceOpenKitBuilder builder = mock(DynatraceOpenKitBuilder.class);
+        when(builder.getEarlyBeaconSendThreshold()).thenReturn(0.5);
+
+        // when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(builder);
+
+        // then
+        verify(builder, times(1)).getEarlyBeaconSendThreshold();
+        assertThat(obtained.getEarlyBeaconSendThreshold(), is(0.5));
+    }
+
+    @Test
+    public void defaultConfigurationHasUnlimitedBeaconSendBudget() {
+        // then
+        assertThat(BeaconSenderConfiguration.DEFAULT.getMaxSessionsSentPerInterval(), is(0));
+        assertThat(BeaconSenderConfiguration.DEFAULT.getMaxBytesSentPerInterval(), is(0L));
+    }
+
+    @Test
+    public void beaconSendBudgetIsTakenOverFromOpenKitBuilder() {
+        // given
+        DynatraceOpenKitBuilder builder = mock(DynatraceOpenKitBuilder.class);
+        when(builder.getMaxSessionsSentPerInterval()).thenReturn(5);
+        when(builder.getMaxBytesSentPerInterval()).thenReturn(1024L);
+
+        // when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(builder);
+
+        // then
+        assertThat(obtained.getMaxSessionsSentPerInterval(), is(5));
+        assertThat(obtained.getMaxBytesSentPerInterval(), is(1024L));
+    }
+
+    @Test
+    public void defaultConfigurationHasNoShutdownFlushTimeout() {
+        // then
+        assertThat(BeaconSenderConfiguration.DEFAULT.getShutdownFlushTimeoutInMilliseconds(), is(0L));
+    }
+
+    @Test
+    public void shutdownFlushTimeoutIsTakenOverFromOpenKitBuilder() {
+        // given
+        DynatraceOpenKitBuilder builder = mock(DynatraceOpenKitBuilder.class);
+        when(builder.getShutdownFlushTimeoutInMilliseconds()).thenReturn(3000L);
+
+        // when
+        BeaconSenderConfiguration obtained = BeaconSenderConfiguration.from(builder);
+
+        // then
+        assertThat(obtained.getShutdownFlushTimeoutInMilliseconds(), is(3000L));
+    }
+}
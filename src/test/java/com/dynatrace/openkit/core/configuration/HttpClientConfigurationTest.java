@@ -19,10 +19,14 @@ package com.dynatrace.openkit.core.configuration;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.protocol.RetryPolicy;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
@@ -365,4 +369,168 @@ public class HttpClientConfigurationTest {
         // then
         assertThat(obtained.getDeviceID(), is(equalTo(42l)));
     }
+
+    @Test
+    public void builderCreatesSSLSocketFactoryCacheIfNotSet() {
+        // given
+        HTTPClientConfiguration.Builder target = new HTTPClientConfiguration.Builder();
+
+        // when
+        HTTPClientConfiguration obtained = target.build();
+
+        // then
+        assertThat(obtained.getSSLSocketFactoryCache(), is(notNullValue()));
+    }
+
+    @Test
+    public void modifyWithHttpClientConfigSharesSSLSocketFactoryCache() {
+        // given
+        HTTPClientConfiguration httpClientConfig = new HTTPClientConfiguration.Builder()
+                .withSSLTrustManager(mock(SSLTrustManager.class))
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(httpClientConfig)
+                .withServerID(42)
+                .build();
+
+        // then
+        assertThat(obtained.getSSLSocketFactoryCache(), is(sameInstance(httpClientConfig.getSSLSocketFactoryCache())));
+    }
+
+    @Test
+    public void modifyWithHttpClientConfigAndDifferentTrustManagerDoesNotShareSSLSocketFactoryCache() {
+        // given
+        HTTPClientConfiguration httpClientConfig = new HTTPClientConfiguration.Builder()
+                .withSSLTrustManager(mock(SSLTrustManager.class))
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(httpClientConfig)
+                .withSSLTrustManager(mock(SSLTrustManager.class))
+                .build();
+
+        // then
+        assertThat(obtained.getSSLSocketFactoryCache(), is(notNullValue()));
+        assertThat(obtained.getSSLSocketFactoryCache(), is(not(sameInstance(httpClientConfig.getSSLSocketFactoryCache()))));
+    }
+
+    @Test
+    public void configurationsWithSameValuesAreEqual() {
+        // given
+        SSLTrustManager trustManager = mock(SSLTrustManager.class);
+        HTTPClientConfiguration first = new HTTPClientConfiguration.Builder()
+                .withBaseURL("https://localhost:9999/1")
+                .withApplicationID("appID")
+                .withServerID(1)
+                .withSSLTrustManager(trustManager)
+                .withDeviceID(42)
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = new HTTPClientConfiguration.Builder()
+                .withBaseURL("https://localhost:9999/1")
+                .withApplicationID("appID")
+                .withServerID(1)
+                .withSSLTrustManager(trustManager)
+                .withDeviceID(42)
+                .build();
+
+        // then
+        assertThat(obtained, is(equalTo(first)));
+        assertThat(obtained.hashCode(), is(equalTo(first.hashCode())));
+    }
+
+    @Test
+    public void configurationsWithDifferentServerIdAreNotEqual() {
+        // given
+        HTTPClientConfiguration first = new HTTPClientConfiguration.Builder()
+                .withBaseURL("https://localhost:9999/1")
+                .withServerID(1)
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(first)
+                .withServerID(2)
+                .build();
+
+        // then
+        assertThat(obtained, is(not(equalTo(first))));
+    }
+
+    @Test
+    public void instanceFromOpenKitConfigTakesOverHttpTransport() {
+        // given
+        HttpTransport httpTransport = mock(HttpTransport.class);
+        OpenKitConfiguration openKitConfig = mock(OpenKitConfiguration.class);
+        when(openKitConfig.getHttpTransport()).thenReturn(httpTransport);
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.from(openKitConfig);
+
+        // then
+        verify(openKitConfig, times(1)).getHttpTransport();
+        assertThat(obtained.getHttpTransport(), is(sameInstance(httpTransport)));
+    }
+
+    @Test
+    public void modifyWithHttpClientConfigTakesOverHttpTransport() {
+        // given
+        HttpTransport httpTransport = mock(HttpTransport.class);
+        HTTPClientConfiguration httpClientConfig = new HTTPClientConfiguration.Builder()
+                .withHttpTransport(httpTransport)
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(httpClientConfig).build();
+
+        // then
+        assertThat(obtained.getHttpTransport(), is(sameInstance(httpTransport)));
+    }
+
+    @Test
+    public void instanceFromOpenKitConfigTakesOverRetryPolicy() {
+        // given
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+        OpenKitConfiguration openKitConfig = mock(OpenKitConfiguration.class);
+        when(openKitConfig.getRetryPolicy()).thenReturn(retryPolicy);
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.from(openKitConfig);
+
+        // then
+        verify(openKitConfig, times(1)).getRetryPolicy();
+        assertThat(obtained.getRetryPolicy(), is(sameInstance(retryPolicy)));
+    }
+
+    @Test
+    public void modifyWithHttpClientConfigTakesOverRetryPolicy() {
+        // given
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+        HTTPClientConfiguration httpClientConfig = new HTTPClientConfiguration.Builder()
+                .withRetryPolicy(retryPolicy)
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(httpClientConfig).build();
+
+        // then
+        assertThat(obtained.getRetryPolicy(), is(sameInstance(retryPolicy)));
+    }
+
+    @Test
+    public void configurationsWithDifferentRetryPolicyAreNotEqual() {
+        // given
+        HTTPClientConfiguration first = new HTTPClientConfiguration.Builder()
+                .withRetryPolicy(new RetryPolicy.Builder().build())
+                .build();
+
+        // when
+        HTTPClientConfiguration obtained = HTTPClientConfiguration.modifyWith(first)
+                .withRetryPolicy(new RetryPolicy.Builder().build())
+                .build();
+
+        // then
+        assertThat(obtained, is(not(equalTo(first))));
+    }
 }
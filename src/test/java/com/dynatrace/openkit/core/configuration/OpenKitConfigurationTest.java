@@ -20,6 +20,8 @@ import com.dynatrace.openkit.DynatraceOpenKitBuilder;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.protocol.RetryPolicy;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -222,4 +224,58 @@ public class OpenKitConfigurationTest {
         assertThat(target.getHttpResponseInterceptor(), is(sameInstance(responseInterceptor)));
         verify(dynatraceOpenKitBuilder, times(1)).getHttpResponseInterceptor();
     }
+
+    @Test
+    public void creatingAnOpenKitConfigurationFromBuilderCopiesHttpTransport() {
+        // given
+        HttpTransport httpTransport = mock(HttpTransport.class);
+        when(dynatraceOpenKitBuilder.getHttpTransport()).thenReturn(httpTransport);
+
+        // when
+        OpenKitConfiguration target = OpenKitConfiguration.from(dynatraceOpenKitBuilder);
+
+        // then
+        assertThat(target.getHttpTransport(), is(sameInstance(httpTransport)));
+        verify(dynatraceOpenKitBuilder, times(1)).getHttpTransport();
+    }
+
+    @Test
+    public void creatingAnOpenKitConfigurationFromBuilderCopiesRetryPolicy() {
+        // given
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+        when(dynatraceOpenKitBuilder.getRetryPolicy()).thenReturn(retryPolicy);
+
+        // when
+        OpenKitConfiguration target = OpenKitConfiguration.from(dynatraceOpenKitBuilder);
+
+        // then
+        assertThat(target.getRetryPolicy(), is(sameInstance(retryPolicy)));
+        verify(dynatraceOpenKitBuilder, times(1)).getRetryPolicy();
+    }
+
+    @Test
+    public void creatingAnOpenKitConfigurationFromBuilderCopiesLightweightSessions() {
+        // given
+        when(dynatraceOpenKitBuilder.isLightweightSessionsEnabled()).thenReturn(true);
+
+        // when
+        OpenKitConfiguration target = OpenKitConfiguration.from(dynatraceOpenKitBuilder);
+
+        // then
+        assertThat(target.isLightweightSessionsEnabled(), is(true));
+        verify(dynatraceOpenKitBuilder, times(1)).isLightweightSessionsEnabled();
+    }
+
+    @Test
+    public void creatingAnOpenKitConfigurationFromBuilderCopiesEventDeduplicationWindow() {
+        // given
+        when(dynatraceOpenKitBuilder.getEventDeduplicationWindowInMilliseconds()).thenReturn(60000L);
+
+        // when
+        OpenKitConfiguration target = OpenKitConfiguration.from(dynatraceOpenKitBuilder);
+
+        // then
+        assertThat(target.getEventDeduplicationWindowInMilliseconds(), is(60000L));
+        verify(dynatraceOpenKitBuilder, times(1)).getEventDeduplicationWindowInMilliseconds();
+    }
 }
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AggregatedValueTest {
+
+    @Test
+    public void newAggregatedValueIsEmpty() {
+        // given
+        AggregatedValue target = new AggregatedValue();
+
+        // then
+        assertThat(target.getCount(), is(0L));
+        assertThat(target.getSum(), is(0.0));
+        assertThat(target.getMin(), is(Double.POSITIVE_INFINITY));
+        assertThat(target.getMax(), is(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void addingASingleValue() {
+        // given
+        AggregatedValue target = new AggregatedValue();
+
+        // when
+        target.add(37.5);
+
+        // then
+        assertThat(target.getCount(), is(1L));
+        assertThat(target.getSum(), is(37.5));
+        assertThat(target.getMin(), is(37.5));
+        assertThat(target.getMax(), is(37.5));
+    }
+
+    @Test
+    public void addingMultipleValues() {
+        // given
+        AggregatedValue target = new AggregatedValue();
+
+        // when
+        target.add(2.0);
+        target.add(-4.0);
+        target.add(8.5);
+        target.add(1.5);
+
+        // then
+        assertThat(target.getCount(), is(4L));
+        assertThat(target.getSum(), is(8.0));
+        assertThat(target.getMin(), is(-4.0));
+        assertThat(target.getMax(), is(8.5));
+    }
+}
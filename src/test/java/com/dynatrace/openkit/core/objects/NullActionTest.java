@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.net.URLConnection;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -115,6 +116,32 @@ public class NullActionTest {
         assertThat((NullAction)obtained, is(sameInstance(target)));
     }
 
+    @Test
+    public void reportAggregatedValueReturnsSelf() {
+        // given
+        NullAction target = createNullAction();
+
+        // when
+        Action obtained = target.reportAggregatedValue("value name", 37.73);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullAction.class)));
+        assertThat((NullAction)obtained, is(sameInstance(target)));
+    }
+
+    @Test
+    public void reportValuesReturnsSelf() {
+        // given
+        NullAction target = createNullAction();
+
+        // when
+        Action obtained = target.reportValues(Collections.<String, Number>singletonMap("value name", 42));
+
+        // then
+        assertThat(obtained, is(instanceOf(NullAction.class)));
+        assertThat((NullAction)obtained, is(sameInstance(target)));
+    }
+
     @Test
     public void reportErrorReturnsSelf() {
         // given
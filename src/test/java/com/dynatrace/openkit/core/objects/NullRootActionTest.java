@@ -22,6 +22,7 @@ import com.dynatrace.openkit.api.WebRequestTracer;
 import org.junit.Test;
 
 import java.net.URLConnection;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -84,6 +85,19 @@ public class NullRootActionTest {
         assertThat((NullRootAction)obtained, is(sameInstance(target)));
     }
 
+    @Test
+    public void reportAggregatedValueReturnsSelf() {
+        // given
+        NullRootAction target = NullRootAction.INSTANCE;
+
+        // when
+        Action obtained = target.reportAggregatedValue("value name", 37.73);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullRootAction.class)));
+        assertThat((NullRootAction)obtained, is(sameInstance(target)));
+    }
+
     @Test
     public void reportLongValueReturnsSelf() {
         // given
@@ -123,6 +137,19 @@ public class NullRootActionTest {
         assertThat((NullRootAction)obtained, is(sameInstance(target)));
     }
 
+    @Test
+    public void reportValuesReturnsSelf() {
+        // given
+        NullRootAction target = NullRootAction.INSTANCE;
+
+        // when
+        Action obtained = target.reportValues(Collections.<String, Number>singletonMap("value name", 42));
+
+        // then
+        assertThat(obtained, is(instanceOf(NullRootAction.class)));
+        assertThat((NullRootAction)obtained, is(sameInstance(target)));
+    }
+
     @Test
     public void reportErrorReturnsSelf() {
         // given
@@ -16,6 +16,7 @@
  */
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.WebRequestTracer;
 import org.junit.Test;
@@ -68,4 +69,18 @@ public class NullSessionTest {
         assertThat(obtained, instanceOf(NullWebRequestTracer.class));
         assertThat((NullWebRequestTracer)obtained, is(sameInstance(NullWebRequestTracer.INSTANCE)));
     }
+
+    @Test
+    public void flushReturnsResultWithoutData() {
+        // given
+        NullSession target = NullSession.INSTANCE;
+
+        // when
+        FlushResult obtained = target.flush(100L);
+
+        // then
+        assertThat(obtained.getNumBytesSent(), is(0L));
+        assertThat(obtained.getNumBytesRemaining(), is(0L));
+        assertThat(obtained.isComplete(), is(true));
+    }
 }
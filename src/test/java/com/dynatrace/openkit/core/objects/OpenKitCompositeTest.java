@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class OpenKitCompositeTest {
+
+    @Test
+    public void aNewlyCreatedCompositeHasNoChildren() {
+        // given
+        OpenKitComposite target = new StubOpenKitComposite();
+
+        // then
+        assertThat(target.getChildCount(), is(0));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void childObjectsAreReturnedInInsertionOrder() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitObject childThree = mock(OpenKitObject.class);
+        OpenKitComposite target = new StubOpenKitComposite();
+
+        // when
+        target.storeChildInList(childOne);
+        target.storeChildInList(childTwo);
+        target.storeChildInList(childThree);
+
+        // then
+        assertThat(target.getChildCount(), is(3));
+        assertThat(target.getCopyOfChildObjects(), is(Arrays.asList(childOne, childTwo, childThree)));
+    }
+
+    @Test
+    public void storingTheSameChildObjectTwiceStoresItOnce() {
+        // given
+        OpenKitObject childObject = mock(OpenKitObject.class);
+        OpenKitComposite target = new StubOpenKitComposite();
+
+        // when
+        target.storeChildInList(childObject);
+        target.storeChildInList(childObject);
+
+        // then
+        assertThat(target.getChildCount(), is(1));
+    }
+
+    @Test
+    public void removingChildObjectsKeepsTheOrderOfTheRemainingChildObjects() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitObject childThree = mock(OpenKitObject.class);
+        OpenKitObject childFour = mock(OpenKitObject.class);
+        OpenKitComposite target = new StubOpenKitComposite();
+        target.storeChildInList(childOne);
+        target.storeChildInList(childTwo);
+        target.storeChildInList(childThree);
+        target.storeChildInList(childFour);
+
+        // when removing the first, a middle and the last child
+        boolean removedFirst = target.removeChildFromList(childOne);
+        boolean removedMiddle = target.removeChildFromList(childThree);
+        boolean removedLast = target.removeChildFromList(childFour);
+
+        // then
+        assertThat(removedFirst, is(true));
+        assertThat(removedMiddle, is(true));
+        assertThat(removedLast, is(true));
+        assertThat(target.getChildCount(), is(1));
+        assertThat(target.getCopyOfChildObjects(), is(Arrays.asList(childTwo)));
+    }
+
+    @Test
+    public void childObjectsCanBeStoredAfterAllChildObjectsWereRemoved() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitComposite target = new StubOpenKitComposite();
+        target.storeChildInList(childOne);
+        target.removeChildFromList(childOne);
+
+        // when
+        target.storeChildInList(childTwo);
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(Arrays.asList(childTwo)));
+    }
+
+    @Test
+    public void removingAChildObjectWhichWasNotStoredReturnsFalse() {
+        // given
+        OpenKitComposite target = new StubOpenKitComposite();
+        target.storeChildInList(mock(OpenKitObject.class));
+
+        // when
+        boolean obtained = target.removeChildFromList(mock(OpenKitObject.class));
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(target.getChildCount(), is(1));
+    }
+
+    @Test
+    public void copyOfChildObjectsIsNotAffectedByLaterModifications() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitComposite target = new StubOpenKitComposite();
+        target.storeChildInList(childOne);
+
+        // when
+        List<OpenKitObject> obtained = target.getCopyOfChildObjects();
+        target.storeChildInList(childTwo);
+        target.removeChildFromList(childOne);
+
+        // then
+        assertThat(obtained, is(Arrays.asList(childOne)));
+    }
+
+    private static final class StubOpenKitComposite extends OpenKitComposite {
+
+        @Override
+        void onChildClosed(OpenKitObject childObject) {
+            removeChildFromList(childObject);
+        }
+
+        @Override
+        public void close() {
+            // nothing to do
+        }
+    }
+}
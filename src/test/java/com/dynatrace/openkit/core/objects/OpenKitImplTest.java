@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.Session;
 import com.dynatrace.openkit.core.BeaconSender;
@@ -26,11 +27,13 @@ import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
 import com.dynatrace.openkit.core.configuration.ConfigurationDefaults;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.SessionIDProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.ArgumentMatchers;
 
 import java.io.IOException;
@@ -46,6 +49,7 @@ import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -184,6 +188,21 @@ public class OpenKitImplTest {
         verifyNoMoreInteractions(beaconSender);
     }
 
+    @Test
+    public void flushForwardsTheCallToTheBeaconSender() {
+        // given
+        FlushResult flushResult = new FlushResult(100L, 0L);
+        when(beaconSender.flush(null, 500L)).thenReturn(flushResult);
+        OpenKitImpl target = createOpenKit().build();
+
+        // when
+        FlushResult obtained = target.flush(500L);
+
+        // then
+        assertThat(obtained, is(sameInstance(flushResult)));
+        verify(beaconSender, times(1)).flush(null, 500L);
+    }
+
     @Test
     public void isInitializedForwardsCallToTheBeaconSender() {
         // given
@@ -206,6 +225,50 @@ public class OpenKitImplTest {
         verifyNoMoreInteractions(beaconSender);
     }
 
+    @Test
+    public void initializeStartsTheCapturePipeline() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        OpenKitImpl target = createOpenKit().with(capturePipeline).build();
+
+        // when
+        target.initialize();
+
+        // then
+        verify(capturePipeline, times(1)).start();
+        verifyNoMoreInteractions(capturePipeline);
+    }
+
+    @Test
+    public void flushAwaitsSerializationOfCapturePipeline() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        OpenKitImpl target = createOpenKit().with(capturePipeline).build();
+
+        // when
+        target.flush(500L);
+
+        // then
+        InOrder inOrder = inOrder(capturePipeline, beaconSender);
+        inOrder.verify(capturePipeline, times(1)).awaitSerialization();
+        inOrder.verify(beaconSender, times(1)).flush(null, 500L);
+    }
+
+    @Test
+    public void shutdownShutsDownCapturePipelineBeforeBeaconSender() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        OpenKitImpl target = createOpenKit().with(capturePipeline).build();
+
+        // when
+        target.shutdown();
+
+        // then
+        InOrder inOrder = inOrder(capturePipeline, beaconSender);
+        inOrder.verify(capturePipeline, times(1)).shutdown();
+        inOrder.verify(beaconSender, times(1)).shutdown();
+    }
+
     @Test
     public void shutdownStopsTheBeaconCacheEvictor() {
         // given
@@ -461,6 +524,7 @@ public class OpenKitImplTest {
         private BeaconSender beaconSender;
         private BeaconCacheEvictor beaconCacheEvictor;
         private SessionWatchdog sessionWatchdog;
+        private CapturePipeline capturePipeline;
 
         private OpenKitImplBuilder with(PrivacyConfiguration privacyConfiguration) {
             this.privacyConfiguration = privacyConfiguration;
@@ -472,6 +536,11 @@ public class OpenKitImplTest {
             return this;
         }
 
+        private OpenKitImplBuilder with(CapturePipeline capturePipeline) {
+            this.capturePipeline = capturePipeline;
+            return this;
+        }
+
         private OpenKitImpl build() {
             OpenKitInitializer initializer = mock(OpenKitInitializer.class);
             when(initializer.getLogger()).thenReturn(logger);
@@ -484,6 +553,7 @@ public class OpenKitImplTest {
             when(initializer.getBeaconCacheEvictor()).thenReturn(beaconCacheEvictor);
             when(initializer.getBeaconSender()).thenReturn(beaconSender);
             when(initializer.getSessionWatchdog()).thenReturn(sessionWatchdog);
+            when(initializer.getCapturePipeline()).thenReturn(capturePipeline);
 
             return new OpenKitImpl(initializer);
         }
@@ -20,6 +20,7 @@ import com.dynatrace.openkit.core.caching.BeaconCache;
 import com.dynatrace.openkit.core.configuration.OpenKitConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.CapturePipeline;
 import com.dynatrace.openkit.providers.SessionIDProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
@@ -28,6 +29,7 @@ import org.junit.Test;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -139,6 +141,21 @@ public class SessionCreatorImplTest {
         verifyNoInteractions(mockTimingProvider);
     }
 
+    @Test
+    public void constructorTakesOverCapturePipeline() {
+        // given
+        CapturePipeline mockCapturePipeline = mock(CapturePipeline.class);
+        when(mockInput.getCapturePipeline()).thenReturn(mockCapturePipeline);
+
+        // when
+        SessionCreatorImpl target = createSessionCreator();
+
+        // then
+        verify(mockInput, times(1)).getCapturePipeline();
+        assertThat(target.getCapturePipeline(), is(sameInstance(mockCapturePipeline)));
+        verifyNoInteractions(mockCapturePipeline);
+    }
+
     @Test
     public void constructorTakesOverServerId() {
         //  when
@@ -17,17 +17,22 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.ConnectionType;
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.WebRequestTracer;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.protocol.AdditionalQueryParameters;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import com.dynatrace.openkit.util.json.objects.*;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mockito.ArgumentMatchers;
 
 import java.io.IOException;
@@ -44,6 +49,7 @@ import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -78,6 +84,7 @@ public class SessionImplTest {
 
         // mock Beacon
         mockBeacon = mock(Beacon.class);
+        when(mockBeacon.isDataCapturingEnabled()).thenReturn(true);
 
         mockAdditionalParameters = mock(AdditionalQueryParameters.class);
         mockSupplementaryData = mock(SupplementaryBasicData.class);
@@ -175,6 +182,68 @@ public class SessionImplTest {
         verifyNoMoreInteractions(mockLogger);
     }
 
+    @Test
+    public void enterActionGivesNullRootActionIfDataCapturingIsDisabled() {
+        // given
+        when(mockBeacon.isDataCapturingEnabled()).thenReturn(false);
+        SessionImpl target = createSession().build();
+
+        // when
+        RootAction obtained = target.enterAction("Some action");
+
+        // then
+        assertThat(obtained, is(sameInstance((RootAction) NullRootAction.INSTANCE)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+        verify(mockLogger, never()).debug(anyString());
+    }
+
+    @Test
+    public void reportCrashDoesNotReportAnythingIfDataCapturingIsDisabled() {
+        // given
+        when(mockBeacon.isDataCapturingEnabled()).thenReturn(false);
+        SessionImpl target = createSession().build();
+        Throwable throwable = new IllegalStateException("test");
+
+        // when
+        target.reportCrash("errorName", "reason", "stacktrace");
+        target.reportCrash(throwable);
+
+        // then
+        verify(mockBeacon, never()).reportCrash("errorName", "reason", "stacktrace");
+        verify(mockBeacon, never()).reportCrash(throwable);
+        verify(mockLogger, never()).debug(anyString());
+    }
+
+    @Test
+    public void traceWebRequestGivesNullWebRequestTracerIfDataCapturingIsDisabled() {
+        // given
+        when(mockBeacon.isDataCapturingEnabled()).thenReturn(false);
+        SessionImpl target = createSession().build();
+
+        // when
+        WebRequestTracer obtainedOne = target.traceWebRequest("https://localhost");
+        WebRequestTracer obtainedTwo = target.traceWebRequest(mock(URLConnection.class));
+
+        // then
+        assertThat(obtainedOne, is(sameInstance((WebRequestTracer) NullWebRequestTracer.INSTANCE)));
+        assertThat(obtainedTwo, is(sameInstance((WebRequestTracer) NullWebRequestTracer.INSTANCE)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void sendBizEventDoesNotReportAnythingIfDataCapturingIsDisabled() {
+        // given
+        when(mockBeacon.isDataCapturingEnabled()).thenReturn(false);
+        SessionImpl target = createSession().build();
+        Map<String, JSONValue> attributes = new HashMap<String, JSONValue>();
+
+        // when
+        target.sendBizEvent("type", attributes);
+
+        // then
+        verify(mockBeacon, never()).sendBizEvent("type", attributes);
+    }
+
     @Test
     public void identifyUserWithNullTagReportsUser() {
         // given
@@ -858,6 +927,89 @@ public class SessionImplTest {
         assertThat(target.getState().isFinished(), is(true));
     }
 
+    @Test
+    public void endFlushesDeduplicatedEventsOfBeacon() {
+        // given
+        SessionImpl target = createSession().build();
+
+        // when
+        target.end();
+
+        // then
+        verify(mockBeacon, times(1)).flushDeduplicatedEvents();
+    }
+
+    @Test
+    public void endFlushesCapturedEventsOfBeaconBeforeSessionEndEvent() {
+        // given
+        SessionImpl target = createSession().build();
+
+        // when
+        target.end();
+
+        // then
+        InOrder inOrder = inOrder(mockBeacon);
+        inOrder.verify(mockBeacon, times(1)).flushCapturedEvents();
+        inOrder.verify(mockBeacon, times(1)).endSession();
+    }
+
+    @Test
+    public void flushIsRequestedFromParent() {
+        // given
+        FlushResult flushResult = new FlushResult(100L, 0L);
+        SessionImpl target = createSession().build();
+        when(mockParent.onChildFlushRequested(target, 500L)).thenReturn(flushResult);
+
+        // when
+        FlushResult obtained = target.flush(500L);
+
+        // then
+        assertThat(obtained, is(sameInstance(flushResult)));
+        verify(mockParent, times(1)).onChildFlushRequested(target, 500L);
+    }
+
+    @Test
+    public void flushReturnsPendingDataIfParentDoesNotSupportFlushing() {
+        // given
+        when(mockBeacon.getPendingDataSizeInBytes()).thenReturn(42L);
+        SessionImpl target = createSession().build();
+
+        // when
+        FlushResult obtained = target.flush(500L);
+
+        // then
+        assertThat(obtained.getNumBytesSent(), is(0L));
+        assertThat(obtained.getNumBytesRemaining(), is(42L));
+    }
+
+    @Test
+    public void flushAfterEndDoesNotRequestFlushFromParent() {
+        // given
+        SessionImpl target = createSession().build();
+        target.end();
+
+        // when
+        FlushResult obtained = target.flush(500L);
+
+        // then
+        assertThat(obtained.getNumBytesSent(), is(0L));
+        verify(mockParent, times(0)).onChildFlushRequested(any(OpenKitObject.class), anyLong());
+    }
+
+    @Test
+    public void endMarksSessionOfBeaconAsFinishedAfterSessionEndEvent() {
+        // given
+        SessionImpl target = createSession().build();
+
+        // when
+        target.end();
+
+        // then
+        InOrder inOrder = inOrder(mockBeacon);
+        inOrder.verify(mockBeacon, times(1)).endSession();
+        inOrder.verify(mockBeacon, times(1)).markSessionAsFinished();
+    }
+
     @Test
     public void sendBeaconForwardsCallToBeacon() {
         // given
@@ -873,6 +1025,34 @@ public class SessionImplTest {
         verifyNoMoreInteractions(mockBeacon);
     }
 
+    @Test
+    public void sendBeaconIsSkippedWhileBeaconIsAlreadyBeingSent() {
+        // given
+        final SessionImpl target = createSession().build();
+        final HTTPClientProvider clientProvider = mock(HTTPClientProvider.class);
+        final StatusResponse response = mock(StatusResponse.class);
+        final List<Boolean> inProgress = new ArrayList<>();
+        final List<StatusResponse> concurrentResponses = new ArrayList<>();
+        when(mockBeacon.send(clientProvider, mockAdditionalParameters)).thenAnswer(new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) {
+                inProgress.add(target.isBeaconSendInProgress());
+                concurrentResponses.add(target.sendBeacon(clientProvider, mockAdditionalParameters));
+                return response;
+            }
+        });
+
+        // when
+        StatusResponse obtained = target.sendBeacon(clientProvider, mockAdditionalParameters);
+
+        // then
+        assertThat(obtained, is(sameInstance(response)));
+        assertThat(inProgress, is(equalTo(Collections.singletonList(true))));
+        assertThat(concurrentResponses, is(equalTo(Collections.<StatusResponse>singletonList(null))));
+        assertThat(target.isBeaconSendInProgress(), is(false));
+        verify(mockBeacon, times(1)).send(clientProvider, mockAdditionalParameters);
+    }
+
     @Test
     public void clearCapturedDataForwardsCallToBeacon() {
         // given
@@ -901,6 +1081,20 @@ public class SessionImplTest {
         verifyNoMoreInteractions(mockBeacon);
     }
 
+    @Test
+    public void getPendingDataSizeInBytesForwardsCallToBeacon() {
+        // given
+        when(mockBeacon.getPendingDataSizeInBytes()).thenReturn(4321L);
+        SessionImpl target = createSession().build();
+
+        // when
+        long obtained = target.getPendingDataSizeInBytes();
+
+        // then
+        assertThat(obtained, is(4321L));
+        verify(mockBeacon, times(1)).getPendingDataSizeInBytes();
+    }
+
     @Test
     public void initializeServerConfigurationForwardsCallToBeacon() {
         // given
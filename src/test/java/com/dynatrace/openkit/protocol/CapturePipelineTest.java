@@ -0,0 +1,647 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CaptureBufferFullPolicy;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.providers.DefaultTimingProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CapturePipelineTest {
+
+    private static final int THREAD_ID = 1234567;
+    private static final long TIMESTAMP = 42L;
+
+    /** creates a serializer thread which ends immediately, so that the test drains the buffer */
+    private static final ThreadFactory NO_SERIALIZER_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread();
+        }
+    };
+
+    private final Map<Beacon, List<String>> records = new HashMap<Beacon, List<String>>();
+
+    private Logger mockLogger;
+    private TimingProvider timingProvider;
+    private Beacon mockBeacon;
+
+    @Before
+    public void setUp() {
+        mockLogger = mock(Logger.class);
+        timingProvider = new DefaultTimingProvider();
+        mockBeacon = createBeacon();
+    }
+
+    @Test
+    public void bufferCapacityIsRoundedUpToPowerOfTwo() {
+        assertThat(createPipeline(0, CaptureBufferFullPolicy.DROP).getBufferCapacity(), is(2));
+        assertThat(createPipeline(5, CaptureBufferFullPolicy.DROP).getBufferCapacity(), is(8));
+        assertThat(createPipeline(8, CaptureBufferFullPolicy.DROP).getBufferCapacity(), is(8));
+        assertThat(createPipeline(Integer.MAX_VALUE, CaptureBufferFullPolicy.DROP).getBufferCapacity(),
+                is(CapturePipeline.MAX_BUFFER_CAPACITY));
+    }
+
+    @Test
+    public void eventsAreNotCapturedBeforePipelineIsStarted() {
+        // given
+        CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP,
+                NO_SERIALIZER_THREAD_FACTORY);
+
+        // when
+        boolean obtained = target.captureEvent(mockBeacon, 1, "event");
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(target.drain(), is(0));
+    }
+
+    @Test
+    public void eventsAreNotCapturedAfterShutdown() {
+        // given
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.shutdown();
+
+        // when
+        boolean obtained = target.captureEvent(mockBeacon, 1, "event");
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(target.drain(), is(0));
+    }
+
+    @Test
+    public void pipelineCanOnlyBeStartedOnce() {
+        // given
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+
+        // when
+        boolean obtained = target.start();
+
+        // then
+        assertThat(obtained, is(false));
+    }
+
+    @Test
+    public void capturedEventHoldsDataObtainedOnReportingThread() {
+        // given
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+
+        // when
+        boolean obtained = target.captureValue(mockBeacon, 17, "value", 42L);
+        target.drain();
+
+        // then
+        assertThat(obtained, is(true));
+        ArgumentCaptor<CapturedEvent> eventCaptor = ArgumentCaptor.forClass(CapturedEvent.class);
+        verify(mockBeacon, times(1)).appendCapturedEvent(any(StringBuilder.class), eventCaptor.capture());
+        CapturedEvent event = eventCaptor.getValue();
+        assertThat(event.parentActionID, is(17));
+        assertThat(event.longValue, is(42L));
+        assertThat(event.threadID, is(THREAD_ID));
+        assertThat(event.sequenceNumber, is(1));
+        assertThat(event.timestamp, is(TIMESTAMP));
+    }
+
+    @Test
+    public void consecutiveEventsOfSameBeaconAreAddedAsOneRecord() {
+        // given
+        Beacon otherBeacon = createBeacon();
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "a1");
+        target.captureValue(mockBeacon, 1, "a2", 1.5);
+        target.captureValue(otherBeacon, 1, "b1", "value");
+        target.captureEvent(mockBeacon, 1, "a3");
+
+        // when
+        int obtained = target.drain();
+
+        // then
+        assertThat(obtained, is(4));
+        verify(mockBeacon, times(2)).addCapturedEventData(eq(TIMESTAMP), any(StringBuilder.class));
+        assertThat(recordsOf(mockBeacon), is(equalTo(Arrays.asList("a1&a2", "a3"))));
+        assertThat(recordsOf(otherBeacon), is(equalTo(Collections.singletonList("b1"))));
+    }
+
+    @Test
+    public void recordsAreSplitAfterMaximumNumberOfEvents() {
+        // given
+        CapturePipeline target = createPipeline(64, CaptureBufferFullPolicy.DROP);
+        for (int i = 0; i <= CapturePipeline.MAX_EVENTS_PER_RECORD; i++) {
+            target.captureEvent(mockBeacon, 1, "e");
+        }
+
+        // when
+        target.drain();
+
+        // then
+        verify(mockBeacon, times(2)).addCapturedEventData(anyLong(), any(StringBuilder.class));
+    }
+
+    @Test
+    public void dropPolicyDropsEventsIfBufferIsFull() {
+        // given
+        CapturePipeline target = createPipeline(2, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        // when
+        boolean obtained = target.captureEvent(mockBeacon, 1, "e3");
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.getDroppedEventCount(), is(1L));
+        assertThat(target.drain(), is(2));
+    }
+
+    @Test
+    public void freedSlotsAreReusedAfterDraining() {
+        // given
+        CapturePipeline target = createPipeline(2, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+        target.drain();
+
+        // when
+        target.captureEvent(mockBeacon, 1, "e3");
+        target.captureEvent(mockBeacon, 1, "e4");
+
+        // then
+        assertThat(target.drain(), is(2));
+        assertThat(target.getDroppedEventCount(), is(0L));
+        assertThat(recordsOf(mockBeacon), is(equalTo(Arrays.asList("e1&e2", "e3&e4"))));
+    }
+
+    @Test
+    public void samplePolicyCapturesEveryNthEventIfBufferIsHalfFull() {
+        // given
+        CapturePipeline target = createPipeline(16, CaptureBufferFullPolicy.SAMPLE);
+        for (int i = 0; i < 8; i++) {
+            target.captureEvent(mockBeacon, 1, "e");
+        }
+
+        // when
+        for (int i = 0; i < 2 * CapturePipeline.SAMPLING_RATE; i++) {
+            target.captureEvent(mockBeacon, 1, "e");
+        }
+
+        // then
+        assertThat(target.getDroppedEventCount(), is(2L * CapturePipeline.SAMPLING_RATE - 2));
+        assertThat(target.drain(), is(10));
+    }
+
+    @Test
+    public void samplePolicyTakesSlotsFreedDuringDrainingIntoAccount() {
+        // given
+        final CapturePipeline target = createPipeline(16, CaptureBufferFullPolicy.SAMPLE);
+        for (int i = 1; i <= 8; i++) {
+            target.captureEvent(mockBeacon, 1, "e" + i);
+        }
+        final List<String> serializedEvents = new ArrayList<String>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                CapturedEvent event = (CapturedEvent) invocation.getArguments()[1];
+                serializedEvents.add(event.name);
+                if ("e8".equals(event.name)) {
+                    // the previous events of the record are not yet added to the cache, but their slots are freed
+                    target.captureEvent(mockBeacon, 1, "e9");
+                }
+                return null;
+            }
+        }).when(mockBeacon).appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+
+        // when
+        target.drain();
+
+        // then
+        assertThat(target.getDroppedEventCount(), is(0L));
+        assertThat(serializedEvents.size(), is(9));
+    }
+
+    @Test
+    public void blockPolicyWaitsUntilBufferHasSpace() throws InterruptedException {
+        // given
+        final CapturePipeline target = createPipeline(2, CaptureBufferFullPolicy.BLOCK);
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        final AtomicBoolean captured = new AtomicBoolean(false);
+        Thread reportingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                captured.set(target.captureEvent(mockBeacon, 1, "e3"));
+            }
+        });
+
+        // when
+        reportingThread.start();
+        reportingThread.join(50);
+
+        // then
+        assertThat(reportingThread.isAlive(), is(true));
+
+        // and when
+        target.drain();
+        reportingThread.join(TimeUnit.SECONDS.toMillis(5));
+
+        // then
+        assertThat(reportingThread.isAlive(), is(false));
+        assertThat(captured.get(), is(true));
+        assertThat(target.getDroppedEventCount(), is(0L));
+        assertThat(target.drain(), is(1));
+    }
+
+    @Test
+    public void blockedEventIsNotCapturedIfPipelineIsShutDown() throws InterruptedException {
+        // given
+        final CapturePipeline target = createPipeline(2, CaptureBufferFullPolicy.BLOCK);
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        final AtomicBoolean captured = new AtomicBoolean(true);
+        Thread reportingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                captured.set(target.captureEvent(mockBeacon, 1, "e3"));
+            }
+        });
+        reportingThread.start();
+
+        // when
+        target.shutdown();
+        reportingThread.join(TimeUnit.SECONDS.toMillis(5));
+
+        // then
+        assertThat(reportingThread.isAlive(), is(false));
+        assertThat(captured.get(), is(false));
+    }
+
+    @Test
+    public void eventsFailingToSerializeAreSkipped() {
+        // given
+        Beacon failingBeacon = createBeacon();
+        doThrow(new IllegalStateException("test")).when(failingBeacon)
+                .appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(failingBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        // when
+        int obtained = target.drain();
+
+        // then
+        assertThat(obtained, is(2));
+        verify(mockLogger, times(1)).error(any(String.class), any(Throwable.class));
+        verify(failingBeacon, never()).addCapturedEventData(anyLong(), any(StringBuilder.class));
+        assertThat(recordsOf(mockBeacon), is(equalTo(Collections.singletonList("e2"))));
+    }
+
+    @Test
+    public void capturedEventsArePendingUntilTheirRecordWasAdded() {
+        // given
+        Beacon otherBeacon = createBeacon();
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "a1");
+        target.captureEvent(mockBeacon, 1, "a2");
+        target.captureEvent(otherBeacon, 1, "b1");
+
+        // when
+        boolean beforeDrain = mockBeacon.hasPendingCapturedEvents();
+        target.drain();
+
+        // then
+        assertThat(beforeDrain, is(true));
+        verify(mockBeacon, times(2)).onEventCaptured();
+        verify(mockBeacon, times(1)).onCapturedEventsSerialized(2);
+        verify(otherBeacon, times(1)).onCapturedEventsSerialized(1);
+        assertThat(mockBeacon.hasPendingCapturedEvents(), is(false));
+        assertThat(otherBeacon.hasPendingCapturedEvents(), is(false));
+    }
+
+    @Test
+    public void droppedEventsAreNotPending() {
+        // given
+        CapturePipeline target = createPipeline(2, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        // when
+        target.captureEvent(mockBeacon, 1, "e3");
+
+        // then
+        verify(mockBeacon, times(2)).onEventCaptured();
+    }
+
+    @Test
+    public void eventsOfFinishedSessionAreNoLongerPendingAfterDraining() {
+        // given
+        when(mockBeacon.isSessionFinished()).thenReturn(true);
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "a1");
+
+        // when
+        target.drain();
+
+        // then
+        verify(mockBeacon, times(1)).onCapturedEventsSerialized(1);
+        assertThat(mockBeacon.hasPendingCapturedEvents(), is(false));
+    }
+
+    @Test
+    public void capturedEventsOfBeaconAreSerializedBySerializerThread() {
+        // given
+        CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP);
+        target.start();
+
+        try {
+            // when
+            target.captureEvent(mockBeacon, 1, "e1");
+            target.captureEvent(mockBeacon, 1, "e2");
+            target.awaitSerialization(mockBeacon);
+
+            // then
+            assertThat(mockBeacon.hasPendingCapturedEvents(), is(false));
+            assertThat(recordsOf(mockBeacon), is(equalTo(Collections.singletonList("e1&e2"))));
+        } finally {
+            target.shutdown();
+        }
+    }
+
+    @Test
+    public void awaitingSerializationOfBeaconDoesNotWaitForEventsOfOtherBeacons() throws InterruptedException {
+        // given
+        final CountDownLatch serializing = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        Beacon otherBeacon = createBeacon();
+        blockSerialization(otherBeacon, serializing, released);
+
+        CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP);
+        target.start();
+        try {
+            target.captureEvent(otherBeacon, 1, "b1");
+            assertThat(serializing.await(10, TimeUnit.SECONDS), is(true));
+            target.captureEvent(otherBeacon, 1, "b2");
+
+            // when
+            long start = System.currentTimeMillis();
+            target.awaitSerialization(mockBeacon);
+            long duration = System.currentTimeMillis() - start;
+
+            // then
+            assertThat(duration < TimeUnit.SECONDS.toMillis(1), is(true));
+            assertThat(otherBeacon.hasPendingCapturedEvents(), is(true));
+        } finally {
+            released.countDown();
+            target.shutdown();
+        }
+    }
+
+    @Test
+    public void capturedEventsAreSerializedBySerializerThread() {
+        // given
+        CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP);
+        target.start();
+
+        try {
+            // when
+            target.captureEvent(mockBeacon, 1, "e1");
+            target.awaitSerialization();
+
+            // then
+            verify(mockBeacon, times(1)).addCapturedEventData(eq(TIMESTAMP), any(StringBuilder.class));
+            assertThat(recordsOf(mockBeacon), is(equalTo(Collections.singletonList("e1"))));
+        } finally {
+            target.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownSerializesRemainingEvents() {
+        // given
+        CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP);
+        target.start();
+        target.captureEvent(mockBeacon, 1, "e1");
+        target.captureEvent(mockBeacon, 1, "e2");
+
+        // when
+        target.shutdown();
+
+        // then
+        assertThat(recordsOf(mockBeacon), is(equalTo(Collections.singletonList("e1&e2"))));
+    }
+
+    @Test
+    public void eventsOfFinishedSessionAreDropped() {
+        // given
+        Beacon otherBeacon = createBeacon();
+        when(mockBeacon.isSessionFinished()).thenReturn(true);
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "a1");
+        target.captureEvent(otherBeacon, 1, "b1");
+
+        // when
+        int obtained = target.drain();
+
+        // then
+        assertThat(obtained, is(2));
+        verify(mockBeacon, never()).appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+        verify(mockBeacon, never()).addCapturedEventData(anyLong(), any(StringBuilder.class));
+        assertThat(recordsOf(otherBeacon), is(equalTo(Collections.singletonList("b1"))));
+    }
+
+    @Test
+    public void eventsOfSessionFinishedWhileSerializingAreNotAdded() {
+        // given
+        when(mockBeacon.isSessionFinished()).thenReturn(false, true);
+        CapturePipeline target = createPipeline(8, CaptureBufferFullPolicy.DROP);
+        target.captureEvent(mockBeacon, 1, "a1");
+
+        // when
+        target.drain();
+
+        // then
+        verify(mockBeacon, times(1)).appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+        verify(mockBeacon, never()).addCapturedEventData(anyLong(), any(StringBuilder.class));
+    }
+
+    @Test
+    public void serializationWaitersAreReleasedAfterTheirRecordWasAdded() throws InterruptedException {
+        // given
+        final CountDownLatch firstEventSerializing = new CountDownLatch(1);
+        final CountDownLatch firstEventReleased = new CountDownLatch(1);
+        final CountDownLatch secondEventSerializing = new CountDownLatch(1);
+        final CountDownLatch secondEventReleased = new CountDownLatch(1);
+        Beacon otherBeacon = createBeacon();
+        blockSerialization(mockBeacon, firstEventSerializing, firstEventReleased);
+        blockSerialization(otherBeacon, secondEventSerializing, secondEventReleased);
+
+        final CapturePipeline target = new CapturePipeline(mockLogger, timingProvider, 8, CaptureBufferFullPolicy.DROP);
+        target.start();
+        try {
+            target.captureEvent(mockBeacon, 1, "a1");
+            assertThat(firstEventSerializing.await(10, TimeUnit.SECONDS), is(true));
+
+            Thread waitingThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    target.awaitSerialization();
+                }
+            });
+            waitingThread.start();
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (waitingThread.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+
+            // when another event is published, before the serializer finished the record of the awaited event
+            target.captureEvent(otherBeacon, 1, "b1");
+            firstEventReleased.countDown();
+            assertThat(secondEventSerializing.await(10, TimeUnit.SECONDS), is(true));
+
+            // then the waiting thread is released, although the serializer is still busy
+            waitingThread.join(TimeUnit.SECONDS.toMillis(1));
+            assertThat(waitingThread.isAlive(), is(false));
+            assertThat(recordsOf(mockBeacon), is(equalTo(Collections.singletonList("a1"))));
+        } finally {
+            secondEventReleased.countDown();
+            target.shutdown();
+        }
+    }
+
+    private CapturePipeline createPipeline(int bufferCapacity, CaptureBufferFullPolicy bufferFullPolicy) {
+        CapturePipeline pipeline = new CapturePipeline(mockLogger, timingProvider, bufferCapacity, bufferFullPolicy,
+                NO_SERIALIZER_THREAD_FACTORY);
+        pipeline.start();
+
+        return pipeline;
+    }
+
+    private Beacon createBeacon() {
+        final Beacon beacon = mock(Beacon.class);
+        when(beacon.getCurrentThreadID()).thenReturn(THREAD_ID);
+        when(beacon.createSequenceNumber()).thenReturn(1, 2, 3, 4, 5, 6, 7, 8);
+        when(beacon.getCurrentTimestamp()).thenReturn(TIMESTAMP);
+
+        // count pending events like the beacon does
+        final AtomicInteger pendingEvents = new AtomicInteger(0);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                pendingEvents.incrementAndGet();
+                return null;
+            }
+        }).when(beacon).onEventCaptured();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                pendingEvents.addAndGet(-(Integer) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(beacon).onCapturedEventsSerialized(anyInt());
+        doAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return pendingEvents.get() > 0;
+            }
+        }).when(beacon).hasPendingCapturedEvents();
+
+        // serialize each event by its name
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                StringBuilder builder = (StringBuilder) invocation.getArguments()[0];
+                CapturedEvent event = (CapturedEvent) invocation.getArguments()[1];
+                if (builder.length() > 0) {
+                    builder.append('&');
+                }
+                builder.append(event.name);
+                return null;
+            }
+        }).when(beacon).appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+
+        // remember the added records, since the serializer reuses its string builder
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                synchronized (records) {
+                    List<String> beaconRecords = records.get(beacon);
+                    if (beaconRecords == null) {
+                        beaconRecords = new ArrayList<String>();
+                        records.put(beacon, beaconRecords);
+                    }
+                    beaconRecords.add(invocation.getArguments()[1].toString());
+                }
+                return null;
+            }
+        }).when(beacon).addCapturedEventData(anyLong(), any(StringBuilder.class));
+
+        return beacon;
+    }
+
+    private static void blockSerialization(Beacon beacon, final CountDownLatch serializing,
+                                           final CountDownLatch released) {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                serializing.countDown();
+                released.await(10, TimeUnit.SECONDS);
+                StringBuilder builder = (StringBuilder) invocation.getArguments()[0];
+                builder.append(((CapturedEvent) invocation.getArguments()[1]).name);
+                return null;
+            }
+        }).when(beacon).appendCapturedEvent(any(StringBuilder.class), any(CapturedEvent.class));
+    }
+
+    private List<String> recordsOf(Beacon beacon) {
+        List<String> beaconRecords = records.get(beacon);
+        return beaconRecords == null ? Collections.<String>emptyList() : beaconRecords;
+    }
+}
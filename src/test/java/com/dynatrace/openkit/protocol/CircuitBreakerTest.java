@@ -0,0 +1,193 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION = 1000;
+
+    private TimingProvider mockTimingProvider;
+    private RetryPolicy retryPolicy;
+
+    @Before
+    public void setUp() {
+        mockTimingProvider = mock(TimingProvider.class);
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(0L);
+
+        retryPolicy = new RetryPolicy.Builder()
+                .withCircuitBreakerFailureThreshold(FAILURE_THRESHOLD)
+                .withCircuitBreakerOpenDurationInMillis(OPEN_DURATION)
+                .build();
+    }
+
+    @Test
+    public void circuitBreakerIsInitiallyClosed() {
+        // when
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(target.isRequestAllowed(), is(true));
+    }
+
+    @Test
+    public void circuitBreakerStaysClosedBelowFailureThreshold() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+
+        // when
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            target.onFailure();
+        }
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(target.isRequestAllowed(), is(true));
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            target.onFailure();
+        }
+
+        // when
+        target.onSuccess();
+        target.onFailure();
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void circuitBreakerOpensWhenFailureThresholdIsReached() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+
+        // when
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            target.onFailure();
+        }
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(target.isRequestAllowed(), is(false));
+    }
+
+    @Test
+    public void openCircuitBreakerAllowsSingleTrialRequestAfterOpenDuration() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            target.onFailure();
+        }
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(OPEN_DURATION);
+
+        // when
+        boolean first = target.isRequestAllowed();
+        boolean second = target.isRequestAllowed();
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+        assertThat(target.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void successfulTrialRequestClosesCircuitBreaker() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            target.onFailure();
+        }
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(OPEN_DURATION);
+        target.isRequestAllowed();
+
+        // when
+        target.onSuccess();
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(target.isRequestAllowed(), is(true));
+    }
+
+    @Test
+    public void failedTrialRequestReopensCircuitBreaker() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            target.onFailure();
+        }
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(OPEN_DURATION);
+        target.isRequestAllowed();
+
+        // when
+        target.onFailure();
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(target.isRequestAllowed(), is(false));
+    }
+
+    @Test
+    public void anotherTrialRequestIsAllowedIfPreviousOneDoesNotReportBack() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(retryPolicy, mockTimingProvider);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            target.onFailure();
+        }
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(OPEN_DURATION);
+        target.isRequestAllowed();
+
+        // when
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(2 * OPEN_DURATION);
+        boolean obtained = target.isRequestAllowed();
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void circuitBreakerIsDisabledWithNonPositiveThreshold() {
+        // given
+        RetryPolicy disabled = new RetryPolicy.Builder().withCircuitBreakerFailureThreshold(0).build();
+        CircuitBreaker target = new CircuitBreaker(disabled, mockTimingProvider);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            target.onFailure();
+        }
+
+        // then
+        assertThat(target.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(target.isRequestAllowed(), is(true));
+    }
+}
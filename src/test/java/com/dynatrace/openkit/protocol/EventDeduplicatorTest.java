@@ -0,0 +1,290 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class EventDeduplicatorTest {
+
+    private static final long WINDOW = 1000L;
+
+    @Test
+    public void firstOccurrenceMustBeReported() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event"), 0L);
+
+        // then
+        assertThat(obtained, is(true));
+    }
+
+    @Test
+    public void identicalOccurrenceWithinWindowIsDuplicate() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        target.recordOccurrence(EventDeduplicator.EventKey.forError(1, "error", 42), 0L);
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forError(1, "error", 42), WINDOW - 1);
+
+        // then
+        assertThat(obtained, is(false));
+    }
+
+    @Test
+    public void identicalOccurrenceAfterWindowMustBeReported() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        target.recordOccurrence(EventDeduplicator.EventKey.forError(1, "error", 42), 0L);
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forError(1, "error", 42), WINDOW);
+
+        // then
+        assertThat(obtained, is(true));
+    }
+
+    @Test
+    public void closedWindowWithDuplicatesIsHandedOut() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        EventDeduplicator.EventKey key = EventDeduplicator.EventKey.forError(1, "error", "cause", "description", "stack");
+        target.recordOccurrence(key, 0L);
+        target.recordOccurrence(key, 1L);
+        target.recordOccurrence(key, 2L);
+        target.recordOccurrence(key, WINDOW);
+
+        // when
+        List<EventDeduplicator.EventWindow> obtained = target.drainClosedWindows();
+
+        // then
+        assertThat(obtained.size(), is(1));
+        assertThat(obtained.get(0).getParentActionID(), is(1));
+        assertThat(obtained.get(0).getName(), is(equalTo("error")));
+        assertThat(obtained.get(0).getOccurrences(), is(3L));
+        assertThat(target.drainClosedWindows(), is(empty()));
+    }
+
+    @Test
+    public void closedWindowWithoutDuplicatesIsNotHandedOut() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event"), 0L);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event"), WINDOW);
+
+        // when
+        List<EventDeduplicator.EventWindow> obtained = target.drainClosedWindows();
+
+        // then
+        assertThat(obtained, is(empty()));
+    }
+
+    @Test
+    public void closeExpiredWindowsOnlyClosesExpiredWindows() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "first"), 0L);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "first"), 1L);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "second"), 500L);
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "second"), 501L);
+
+        // when
+        List<EventDeduplicator.EventWindow> obtained = target.closeExpiredWindows(WINDOW);
+
+        // then
+        assertThat(obtained.size(), is(1));
+        assertThat(obtained.get(0).getName(), is(equalTo("first")));
+
+        // and when
+        obtained = target.closeAllWindows();
+
+        // then
+        assertThat(obtained.size(), is(1));
+        assertThat(obtained.get(0).getName(), is(equalTo("second")));
+    }
+
+    @Test
+    public void occurrencesExceedingMaximumNumberOfOpenWindowsAreNotDeduplicated() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        for (int i = 0; i < EventDeduplicator.MAX_OPEN_WINDOWS; i++) {
+            target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event " + i), 0L);
+        }
+        target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "one too many"), 0L);
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "one too many"), 1L);
+
+        // then
+        assertThat(obtained, is(true));
+    }
+
+    @Test
+    public void keysOfIdenticalThrowablesAreEqual() {
+        // given
+        Throwable[] throwables = createThrowables("failed", "failed");
+
+        // when
+        EventDeduplicator.EventKey firstKey = EventDeduplicator.EventKey.forError(1, "error", throwables[0]);
+        EventDeduplicator.EventKey secondKey = EventDeduplicator.EventKey.forError(1, "error", throwables[1]);
+
+        // then
+        assertThat(firstKey, is(equalTo(secondKey)));
+        assertThat(firstKey.hashCode(), is(secondKey.hashCode()));
+    }
+
+    @Test
+    public void keysOfThrowablesWithDifferentMessagesAreEqual() {
+        // given
+        Throwable[] throwables = createThrowables("failed", "failed differently");
+
+        // when
+        EventDeduplicator.EventKey firstKey = EventDeduplicator.EventKey.forError(1, "error", throwables[0]);
+        EventDeduplicator.EventKey secondKey = EventDeduplicator.EventKey.forError(1, "error", throwables[1]);
+
+        // then
+        assertThat(firstKey, is(equalTo(secondKey)));
+    }
+
+    @Test
+    public void keysOfThrowablesWithDifferentClassesAreNotEqual() {
+        // given
+        Throwable first = createThrowable("failed");
+        Throwable second = new IllegalArgumentException("failed");
+        second.setStackTrace(first.getStackTrace());
+
+        // when
+        EventDeduplicator.EventKey firstKey = EventDeduplicator.EventKey.forError(1, "error", first);
+        EventDeduplicator.EventKey secondKey = EventDeduplicator.EventKey.forError(1, "error", second);
+
+        // then
+        assertThat(firstKey, is(not(equalTo(secondKey))));
+    }
+
+    @Test
+    public void keysOfThrowablesDifferingInLowerStackFramesAreNotEqual() {
+        // given throwables with the same top most stack frame, but thrown from different call sites
+        Throwable first = createThrowable("failed");
+        Throwable second = createThrowable("failed");
+
+        // when
+        EventDeduplicator.EventKey firstKey = EventDeduplicator.EventKey.forError(1, "error", first);
+        EventDeduplicator.EventKey secondKey = EventDeduplicator.EventKey.forError(1, "error", second);
+
+        // then
+        assertThat(first.getStackTrace()[0], is(equalTo(second.getStackTrace()[0])));
+        assertThat(firstKey, is(not(equalTo(secondKey))));
+    }
+
+    @Test
+    public void keysOfThrowablesWithDifferentCausesAreNotEqual() {
+        // given
+        Throwable[] throwables = createThrowables("failed", "failed");
+        throwables[0].initCause(new IllegalStateException("cause"));
+        throwables[1].initCause(new IllegalArgumentException("cause"));
+
+        // when
+        EventDeduplicator.EventKey firstKey = EventDeduplicator.EventKey.forError(1, "error", throwables[0]);
+        EventDeduplicator.EventKey secondKey = EventDeduplicator.EventKey.forError(1, "error", throwables[1]);
+
+        // then
+        assertThat(firstKey, is(not(equalTo(secondKey))));
+    }
+
+    @Test
+    public void keyOfThrowableWithCyclicCausesCanBeCreated() {
+        // given
+        Throwable[] throwables = createThrowables("failed", "failed");
+        throwables[0].initCause(throwables[1]);
+        throwables[1].initCause(throwables[0]);
+
+        // when
+        EventDeduplicator.EventKey obtained = EventDeduplicator.EventKey.forError(1, "error", throwables[0]);
+
+        // then
+        assertThat(obtained, is(equalTo(EventDeduplicator.EventKey.forError(1, "error", throwables[0]))));
+    }
+
+    @Test
+    public void occurrencesExceedingRateLimitAreDropped() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        for (int i = 0; i < EventDeduplicator.MAX_REPORTS_PER_WINDOW; i++) {
+            target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event " + i), 0L);
+        }
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "one too many"), WINDOW - 1);
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(target.drainDroppedOccurrences(), is(1L));
+        assertThat(target.drainDroppedOccurrences(), is(0L));
+    }
+
+    @Test
+    public void occurrencesAreReportedAgainAfterRateLimitInterval() {
+        // given
+        EventDeduplicator target = new EventDeduplicator(WINDOW);
+        for (int i = 0; i < EventDeduplicator.MAX_REPORTS_PER_WINDOW; i++) {
+            target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "event " + i), 0L);
+        }
+
+        // when
+        boolean obtained = target.recordOccurrence(EventDeduplicator.EventKey.forEvent(1, "one too many"), WINDOW);
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.drainDroppedOccurrences(), is(0L));
+    }
+
+    @Test
+    public void keysOfEventAndErrorWithSameNameAreNotEqual() {
+        // given
+        EventDeduplicator.EventKey eventKey = EventDeduplicator.EventKey.forEvent(1, "name");
+        EventDeduplicator.EventKey errorKey = EventDeduplicator.EventKey.forError(1, "name", 0);
+
+        // then
+        assertThat(eventKey, is(not(equalTo(errorKey))));
+    }
+
+    private static Throwable createThrowable(String message) {
+        return new IllegalStateException(message);
+    }
+
+    /**
+     * Creates throwables at the same call site, so that their stack traces are identical.
+     */
+    private static Throwable[] createThrowables(String... messages) {
+        Throwable[] result = new Throwable[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            result[i] = createThrowable(messages[i]);
+        }
+        return result;
+    }
+}
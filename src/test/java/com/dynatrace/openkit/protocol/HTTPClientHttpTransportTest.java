@@ -0,0 +1,304 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.http.HttpRequest;
+import com.dynatrace.openkit.api.http.HttpRequestInterceptor;
+import com.dynatrace.openkit.api.http.HttpResponse;
+import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.api.http.HttpTransportCallback;
+import com.dynatrace.openkit.api.http.HttpTransportRequest;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.protocol.http.HttpStubServer;
+import com.dynatrace.openkit.protocol.http.HttpStubServer.RecordedRequest;
+import com.dynatrace.openkit.protocol.http.StubHttpTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the {@link HTTPClient} using a custom {@link HttpTransport} against an in-process HTTP stub server.
+ */
+public class HTTPClientHttpTransportTest {
+
+    private static final long DEVICE_ID = 37;
+    private static final int SESSION_NUMBER = 42;
+
+    private HttpStubServer stubServer;
+    private StubHttpTransport transport;
+    private HttpRequestInterceptor mockRequestInterceptor;
+    private HttpResponseInterceptor mockResponseInterceptor;
+    private AdditionalQueryParameters mockAdditionalParameters;
+    private Logger mockLogger;
+
+    @Before
+    public void setUp() throws IOException {
+        stubServer = new HttpStubServer();
+        stubServer.start();
+        transport = new StubHttpTransport();
+
+        mockRequestInterceptor = mock(HttpRequestInterceptor.class);
+        mockResponseInterceptor = mock(HttpResponseInterceptor.class);
+        mockAdditionalParameters = mock(AdditionalQueryParameters.class);
+        mockLogger = mock(Logger.class);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        transport.shutdown();
+        stubServer.stop();
+    }
+
+    @Test
+    public void sendStatusRequestUsesTransport() {
+        // given
+        stubServer.respondWith(200, "{\"mobileAgentConfig\":{\"maxBeaconSizeKb\":17}}");
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(false));
+        assertThat(obtained.getResponseAttributes().getMaxBeaconSizeInBytes(), is(equalTo(17 * 1024)));
+        assertThat(transport.getNumSentRequests(), is(equalTo(1)));
+        assertThat(stubServer.getRecordedRequests().size(), is(equalTo(1)));
+
+        RecordedRequest request = stubServer.getRecordedRequests().get(0);
+        assertThat(request.getMethod(), is(equalTo("GET")));
+        assertThat(request.getUri().startsWith("/mbeacon?type=m&srvid=1&app=appID"), is(true));
+        assertThat(request.getHeader("User-Agent"), is(equalTo("OpenKit/" + ProtocolConstants.OPENKIT_VERSION)));
+    }
+
+    @Test
+    public void sendStatusRequestViaTransportLogsResponseIfDebugIsEnabled() {
+        // given
+        String body = "{\"mobileAgentConfig\":{\"maxBeaconSizeKb\":17}}";
+        stubServer.respondWith(200, body);
+        when(mockLogger.isDebugEnabled()).thenReturn(true);
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.getResponseAttributes().getMaxBeaconSizeInBytes(), is(equalTo(17 * 1024)));
+        verify(mockLogger, times(1)).debug(endsWith("HTTP Response: " + body));
+    }
+
+    @Test
+    public void sendBeaconRequestSendsCompressedBodyAndClientIp() {
+        // given
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        StatusResponse obtained = target.sendBeaconRequest("1.2.3.4", "vv=3&va=7.0.0".getBytes(), null, SESSION_NUMBER);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(false));
+
+        RecordedRequest request = stubServer.getRecordedRequests().get(0);
+        assertThat(request.getMethod(), is(equalTo("POST")));
+        assertThat(request.getUri().endsWith("&si=" + DEVICE_ID + "%5F" + SESSION_NUMBER), is(true));
+        assertThat(request.getHeader("X-Client-IP"), is(equalTo("1.2.3.4")));
+        assertThat(request.getHeader("Content-Encoding"), is(equalTo("gzip")));
+        assertThat(request.getBody(), is(equalTo("vv=3&va=7.0.0")));
+    }
+
+    @Test
+    public void sendBeaconRequestWaitsForResponseDeliveredOnTransportThread() {
+        // given
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        StatusResponse obtained = target.sendBeaconRequest(null, "vv=3".getBytes(), mockAdditionalParameters, SESSION_NUMBER);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(false));
+        assertThat(transport.getLastCallbackThread(), is(notNullValue()));
+        assertThat(transport.getLastCallbackThread(), is(not(sameInstance(Thread.currentThread()))));
+    }
+
+    @Test
+    public void sendStatusRequestReturnsErrorResponseForErrorStatusCode() {
+        // given
+        stubServer.respondWith(429, "too many requests");
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(true));
+        assertThat(obtained.getResponseCode(), is(equalTo(429)));
+    }
+
+    @Test
+    public void sendStatusRequestReturnsUnknownErrorIfTransportFails() {
+        // given
+        HttpTransport failingTransport = new HttpTransport() {
+            @Override
+            public void send(HttpTransportRequest request, HttpTransportCallback callback) {
+                callback.onFailure(new IOException("connection refused"));
+            }
+        };
+        HTTPClient target = createHttpClient(failingTransport);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(true));
+        assertThat(obtained.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void failedTransportRequestIsRetriedAccordingToRetryPolicy() {
+        // given
+        stubServer.respondWith(200, "{\"mobileAgentConfig\":{\"maxBeaconSizeKb\":17}}");
+        final AtomicInteger numAttempts = new AtomicInteger(0);
+        HttpTransport flakyTransport = new HttpTransport() {
+            @Override
+            public void send(HttpTransportRequest request, HttpTransportCallback callback) {
+                if (numAttempts.incrementAndGet() == 1) {
+                    callback.onFailure(new IOException("connection reset"));
+                } else {
+                    transport.send(request, callback);
+                }
+            }
+        };
+        HTTPClient target = createHttpClientWithoutRetryDelay(flakyTransport, 3);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(false));
+        assertThat(numAttempts.get(), is(equalTo(2)));
+        assertThat(stubServer.getRecordedRequests().size(), is(equalTo(1)));
+        verify(mockRequestInterceptor, times(1)).intercept(any(HttpRequest.class));
+    }
+
+    @Test
+    public void failedTransportRequestIsNotRetriedMoreOftenThanMaxAttempts() {
+        // given
+        final AtomicInteger numAttempts = new AtomicInteger(0);
+        HttpTransport failingTransport = new HttpTransport() {
+            @Override
+            public void send(HttpTransportRequest request, HttpTransportCallback callback) {
+                numAttempts.incrementAndGet();
+                callback.onFailure(new IOException("connection refused"));
+            }
+        };
+        HTTPClient target = createHttpClientWithoutRetryDelay(failingTransport, 3);
+
+        // when
+        StatusResponse obtained = target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(obtained.isErroneousResponse(), is(true));
+        assertThat(obtained.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
+        assertThat(numAttempts.get(), is(equalTo(3)));
+    }
+
+    @Test
+    public void interceptorsAreInvokedForTransportRequests() {
+        // given
+        HTTPClient target = createHttpClient(transport);
+
+        // when
+        target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockRequestInterceptor, times(1)).intercept(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().getMethod(), is(equalTo("GET")));
+
+        ArgumentCaptor<HttpResponse> responseCaptor = ArgumentCaptor.forClass(HttpResponse.class);
+        verify(mockResponseInterceptor, times(1)).intercept(responseCaptor.capture());
+        assertThat(responseCaptor.getValue().getResponseCode(), is(equalTo(200)));
+        assertThat(responseCaptor.getValue().getRequestUrl(), is(notNullValue()));
+    }
+
+    @Test
+    public void headersSetByRequestInterceptorAreSent() {
+        // given
+        HttpRequestInterceptor requestInterceptor = new HttpRequestInterceptor() {
+            @Override
+            public void intercept(HttpRequest httpRequest) {
+                httpRequest.setHeader("X-Custom", "foo");
+            }
+        };
+        HTTPClientConfiguration configuration = HTTPClientConfiguration.modifyWith(createConfiguration(transport))
+                .withHttpRequestInterceptor(requestInterceptor)
+                .build();
+        HTTPClient target = new HTTPClient(mockLogger, configuration);
+
+        // when
+        target.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(stubServer.getRecordedRequests().get(0).getHeader("X-Custom"), is(equalTo("foo")));
+    }
+
+    private HTTPClient createHttpClient(HttpTransport httpTransport) {
+        return new HTTPClient(mockLogger, createConfiguration(httpTransport));
+    }
+
+    private HTTPClient createHttpClientWithoutRetryDelay(HttpTransport httpTransport, int maxAttempts) {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .withMaxAttempts(maxAttempts)
+                .withInitialDelayInMillis(0)
+                .withMaxDelayInMillis(0)
+                .build();
+        HTTPClientConfiguration configuration = HTTPClientConfiguration.modifyWith(createConfiguration(httpTransport))
+                .withRetryPolicy(retryPolicy)
+                .build();
+        return new HTTPClient(mockLogger, configuration);
+    }
+
+    private HTTPClientConfiguration createConfiguration(HttpTransport httpTransport) {
+        return new HTTPClientConfiguration.Builder()
+                .withBaseURL(stubServer.getBaseURL())
+                .withApplicationID("appID")
+                .withServerID(1)
+                .withDeviceID(DEVICE_ID)
+                .withHttpRequestInterceptor(mockRequestInterceptor)
+                .withHttpResponseInterceptor(mockResponseInterceptor)
+                .withHttpTransport(httpTransport)
+                .build();
+    }
+}
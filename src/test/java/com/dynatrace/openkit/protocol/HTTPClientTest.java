@@ -23,6 +23,8 @@ import com.dynatrace.openkit.api.http.HttpResponse;
 import com.dynatrace.openkit.api.http.HttpResponseInterceptor;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.protocol.HTTPClient.RequestType;
+import com.dynatrace.openkit.protocol.ssl.SSLBlindTrustManager;
+import com.dynatrace.openkit.protocol.ssl.SSLSocketFactoryCache;
 import com.dynatrace.openkit.providers.HttpURLConnectionWrapper;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +32,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -51,9 +55,11 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.endsWith;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -169,6 +175,189 @@ public class HTTPClientTest {
         assertThat(response.getResponseCode(), is(200));
     }
 
+    @Test
+    public void sendRequestReusesSSLSocketFactoryForHttpsConnections() throws IOException {
+        // given
+        when(configuration.getSSLTrustManager()).thenReturn(new SSLBlindTrustManager());
+        when(configuration.getSSLSocketFactoryCache()).thenReturn(new SSLSocketFactoryCache());
+        HTTPClient client = new HTTPClient(logger, configuration);
+
+        HttpsURLConnection firstConnection = mock(HttpsURLConnection.class);
+        when(firstConnection.getResponseCode()).thenReturn(200);
+        when(firstConnection.getInputStream()).thenReturn(new ByteArrayInputStream("type=m".getBytes(CHARSET)));
+        HttpsURLConnection secondConnection = mock(HttpsURLConnection.class);
+        when(secondConnection.getResponseCode()).thenReturn(200);
+        when(secondConnection.getInputStream()).thenReturn(new ByteArrayInputStream("type=m".getBytes(CHARSET)));
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(firstConnection, secondConnection);
+
+        // when
+        client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+        client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        ArgumentCaptor<SSLSocketFactory> firstCaptor = ArgumentCaptor.forClass(SSLSocketFactory.class);
+        verify(firstConnection, times(1)).setSSLSocketFactory(firstCaptor.capture());
+        ArgumentCaptor<SSLSocketFactory> secondCaptor = ArgumentCaptor.forClass(SSLSocketFactory.class);
+        verify(secondConnection, times(1)).setSSLSocketFactory(secondCaptor.capture());
+
+        assertThat(firstCaptor.getValue(), is(notNullValue()));
+        assertThat(secondCaptor.getValue(), is(sameInstance(firstCaptor.getValue())));
+    }
+
+    @Test
+    public void sendRequestDrainsAndClosesErrorStream() throws IOException {
+        // given
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(500);
+        InputStream is = spy(new ByteArrayInputStream("some error body".getBytes(CHARSET)));
+        when(connection.getErrorStream()).thenReturn(is);
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(500)));
+        assertThat(is.available(), is(equalTo(0)));
+        verify(is, times(1)).close();
+        assertThat(client.getConnectionStatistics().getNumDrainedResponses(), is(equalTo(1L)));
+        assertThat(client.getConnectionStatistics().getNumAbandonedResponses(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void sendRequestDecodesMultiByteCharactersSpanningReadBuffers() throws IOException {
+        // given
+        StringBuilder bodyBuilder = new StringBuilder("type=m");
+        while (bodyBuilder.length() < 4095) {
+            bodyBuilder.append('a');
+        }
+        bodyBuilder.append("\u00e4\u20ac"); // 2 byte and 3 byte UTF-8 sequences starting at the buffer boundary
+        String body = bodyBuilder.toString();
+
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream(body.getBytes(CHARSET)));
+
+        // when
+        client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        verify(logger, times(1)).debug(endsWith("HTTP Response: " + body));
+    }
+
+    @Test
+    public void sendRequestParsesJsonResponseFromStreamIfDebugIsDisabled() throws IOException {
+        // given
+        when(logger.isDebugEnabled()).thenReturn(false);
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        InputStream is = spy(new ByteArrayInputStream(
+                "{\"dynamicConfig\": {\"serverId\": 42, \"status\": \"ok\"}, \"timestamp\": 1234}".getBytes(CHARSET)));
+        when(connection.getInputStream()).thenReturn(is);
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(200)));
+        assertThat(response.getResponseAttributes().getServerId(), is(equalTo(42)));
+        assertThat(response.getResponseAttributes().getStatus(), is(equalTo("ok")));
+        assertThat(response.getResponseAttributes().getTimestampInMilliseconds(), is(equalTo(1234L)));
+        assertThat(is.available(), is(equalTo(0)));
+        verify(is, times(1)).close();
+        assertThat(client.getConnectionStatistics().getNumDrainedResponses(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void sendRequestParsesJsonResponseFromStreamAndLogsItIfDebugIsEnabled() throws IOException {
+        // given
+        when(logger.isDebugEnabled()).thenReturn(true);
+        String body = "{\"dynamicConfig\": {\"serverId\": 42, \"status\": \"ok\"}, \"timestamp\": 1234}";
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        InputStream is = spy(new ByteArrayInputStream(body.getBytes(CHARSET)));
+        when(connection.getInputStream()).thenReturn(is);
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(200)));
+        assertThat(response.getResponseAttributes().getServerId(), is(equalTo(42)));
+        assertThat(is.available(), is(equalTo(0)));
+        verify(is, times(1)).close();
+        verify(logger, times(1)).debug(endsWith("HTTP Response: " + body));
+        assertThat(client.getConnectionStatistics().getNumDrainedResponses(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void sendRequestParsesKeyValueResponseFromStreamIfDebugIsDisabled() throws IOException {
+        // given
+        when(logger.isDebugEnabled()).thenReturn(false);
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("type=m&id=17".getBytes(CHARSET)));
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(200)));
+        assertThat(response.getResponseAttributes().getServerId(), is(equalTo(17)));
+    }
+
+    @Test
+    public void sendRequestDrainsStreamedResponseIfParsingFails() throws IOException {
+        // given
+        when(logger.isDebugEnabled()).thenReturn(false);
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        InputStream is = spy(new ByteArrayInputStream("{\"timestamp\": \"invalid\"} and some trailing garbage".getBytes(CHARSET)));
+        when(connection.getInputStream()).thenReturn(is);
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
+        assertThat(is.available(), is(equalTo(0)));
+        verify(is, times(1)).close();
+        assertThat(client.getConnectionStatistics().getNumDrainedResponses(), is(equalTo(1L)));
+        assertThat(client.getConnectionStatistics().getNumAbandonedResponses(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void sendRequestCountsAbandonedResponseIfReadingFails() throws IOException {
+        // given
+        HTTPClient client = new HTTPClient(logger, configuration);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        InputStream is = mock(InputStream.class);
+        when(is.read(any(byte[].class))).thenThrow(new IOException("connection reset"));
+        when(connection.getInputStream()).thenReturn(is);
+
+        // when
+        StatusResponse response = client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, null, null, "GET");
+
+        // then
+        assertThat(response.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
+        verify(is, times(1)).close();
+        assertThat(client.getConnectionStatistics().getNumDrainedResponses(), is(equalTo(0L)));
+        assertThat(client.getConnectionStatistics().getNumAbandonedResponses(), is(equalTo(1L)));
+    }
+
     @Test
     public void sendStatusRequestAndReadResponseHeaderFieldsOnSuccessResponse() throws IOException {
         // given
@@ -560,6 +749,93 @@ public class HTTPClientTest {
         assertThat(response.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
     }
 
+    @Test
+    public void sendRequestIsShortCircuitedIfCircuitBreakerIsOpen() {
+        // given
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        when(circuitBreaker.isRequestAllowed()).thenReturn(false);
+        HTTPClient client = new HTTPClient(logger, configuration, circuitBreaker);
+
+        // when
+        StatusResponse response = client.sendStatusRequest(mockAdditionalParameters);
+
+        // then
+        assertThat(response, is(notNullValue()));
+        assertThat(response.getResponseCode(), is(equalTo(Integer.MAX_VALUE)));
+        verify(circuitBreaker, times(1)).isRequestAllowed();
+        verify(circuitBreaker, times(0)).onFailure();
+    }
+
+    @Test
+    public void failedRequestIsRecordedInCircuitBreaker() throws IOException {
+        // given
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        HTTPClient client = new HTTPClient(logger, configuration, circuitBreaker);
+        when(httpURLConnectionWrapper.isRetryAllowed()).thenReturn(false);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenThrow(new IOException("Always fail"));
+
+        // when
+        client.sendRequest(RequestType.BEACON, httpURLConnectionWrapper, "127.0.0.1", null, "POST");
+
+        // then
+        verify(circuitBreaker, times(1)).onFailure();
+        verify(circuitBreaker, times(0)).onSuccess();
+    }
+
+    @Test
+    public void successfulRequestIsRecordedInCircuitBreaker() throws IOException {
+        // given
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        HTTPClient client = new HTTPClient(logger, configuration, circuitBreaker);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(200);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("type=m".getBytes(CHARSET)));
+
+        // when
+        client.sendRequest(RequestType.STATUS, httpURLConnectionWrapper, "127.0.0.1", null, "GET");
+
+        // then
+        verify(circuitBreaker, times(1)).onSuccess();
+        verify(circuitBreaker, times(0)).onFailure();
+    }
+
+    @Test
+    public void serverErrorResponseIsRecordedAsFailureInCircuitBreaker() throws IOException {
+        // given
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        HTTPClient client = new HTTPClient(logger, configuration, circuitBreaker);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(503);
+        when(connection.getErrorStream()).thenReturn(new ByteArrayInputStream("err".getBytes(CHARSET)));
+
+        // when
+        client.sendRequest(RequestType.BEACON, httpURLConnectionWrapper, "127.0.0.1", null, "POST");
+
+        // then
+        verify(circuitBreaker, times(1)).onFailure();
+        verify(circuitBreaker, times(0)).onSuccess();
+    }
+
+    @Test
+    public void clientErrorResponseIsRecordedAsSuccessInCircuitBreaker() throws IOException {
+        // given
+        CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+        HTTPClient client = new HTTPClient(logger, configuration, circuitBreaker);
+        HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(httpURLConnectionWrapper.getHttpURLConnection()).thenReturn(connection);
+        when(connection.getResponseCode()).thenReturn(429);
+        when(connection.getErrorStream()).thenReturn(new ByteArrayInputStream("err".getBytes(CHARSET)));
+
+        // when
+        client.sendRequest(RequestType.BEACON, httpURLConnectionWrapper, "127.0.0.1", null, "POST");
+
+        // then
+        verify(circuitBreaker, times(1)).onSuccess();
+        verify(circuitBreaker, times(0)).onFailure();
+    }
+
     @Test
     public void sendStatusRequestWithWrongResponse() throws IOException {
         // given
@@ -21,6 +21,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.StringReader;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -462,6 +463,121 @@ public class JsonResponseParserTest {
         }
     }
 
+    @Test
+    public void parseSkipsNestedUnknownValues() throws ParserException {
+        // given
+        inputBuilder.append("\"unknownArray\": [1, \"two\", {\"three\": [true, false, null]}, []],");
+        inputBuilder.append("\"unknownObject\": {\"nested\": {\"deeper\": {}}},");
+        begin(JsonResponseParser.RESPONSE_KEY_DYNAMIC_CONFIG);
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_SERVER_ID, 42);
+        close(2);
+
+        // when
+        ResponseAttributes obtained = JsonResponseParser.parse(inputBuilder.toString());
+
+        // then
+        assertThat(obtained.getServerId(), is(42));
+        assertThat(obtained.isAttributeSet(ResponseAttribute.SERVER_ID), is(true));
+    }
+
+    @Test
+    public void parseFromReaderWorks() throws ParserException {
+        // given
+        begin(JsonResponseParser.RESPONSE_KEY_APP_CONFIG);
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_APPLICATION_ID, "some-app-id");
+        close(2);
+
+        // when
+        ResponseAttributes obtained = JsonResponseParser.parse(new StringReader(inputBuilder.toString()));
+
+        // then
+        assertThat(obtained.getApplicationId(), is(equalTo("some-app-id")));
+    }
+
+    @Test
+    public void parsingNumberAttributeWithStringValueThrowsException() throws ParserException {
+        // given
+        begin(JsonResponseParser.RESPONSE_KEY_AGENT_CONFIG);
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_MAX_BEACON_SIZE_IN_KB, "17");
+        close(2);
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(inputBuilder.toString());
+    }
+
+    @Test
+    public void parsingStringAttributeWithNumberValueThrowsException() throws ParserException {
+        // given
+        begin(JsonResponseParser.RESPONSE_KEY_DYNAMIC_CONFIG);
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_STATUS, 17);
+        close(2);
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(inputBuilder.toString());
+    }
+
+    @Test
+    public void parsingConfigurationSectionWhichIsNoObjectThrowsException() throws ParserException {
+        // given
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_APP_CONFIG, 1);
+        close();
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(inputBuilder.toString());
+    }
+
+    @Test
+    public void parsingRootValueWhichIsNoObjectThrowsException() throws ParserException {
+        // given
+        String input = "[]";
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(input);
+    }
+
+    @Test
+    public void parsingUnterminatedObjectThrowsException() throws ParserException {
+        // given
+        begin(JsonResponseParser.RESPONSE_KEY_AGENT_CONFIG);
+        appendLastParameter(JsonResponseParser.RESPONSE_KEY_MAX_EVENTS_PER_SESSION, 17);
+        close();
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(inputBuilder.toString());
+    }
+
+    @Test
+    public void parsingTrailingTokensThrowsException() throws ParserException {
+        // given
+        String input = "{} {}";
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(input);
+    }
+
+    @Test
+    public void parsingTooDeeplyNestedValueThrowsException() throws ParserException {
+        // given
+        inputBuilder.append("\"unknown\": ");
+        for (int i = 0; i < JsonResponseParser.MAX_NESTING_DEPTH; i++) {
+            inputBuilder.append("[");
+        }
+        for (int i = 0; i < JsonResponseParser.MAX_NESTING_DEPTH; i++) {
+            inputBuilder.append("]");
+        }
+        close();
+        expectedException.expect(ParserException.class);
+
+        // when
+        JsonResponseParser.parse(inputBuilder.toString());
+    }
+
     private void begin(String objectName) {
         inputBuilder.append("\"").append(objectName).append("\": {");
     }
@@ -20,6 +20,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.IOException;
+import java.io.StringReader;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -131,4 +133,42 @@ public class ResponseParserTest {
         assertThat(obtained.isCapture(), is(false));
         assertThat(obtained.getTimestampInMilliseconds(), is(19L));
     }
+
+    @Test
+    public void parseKeyValueResponseFromReaderWorks() throws ParserException, IOException {
+        // given
+        String input = "type=m&bl=17&id=18&cp=0";
+
+        // when
+        ResponseAttributes obtained = ResponseParser.parseResponse(new StringReader(input));
+
+        // then
+        assertThat(obtained, notNullValue());
+        assertThat(obtained.getMaxBeaconSizeInBytes(), is(17 * 1024));
+        assertThat(obtained.getServerId(), is(18));
+        assertThat(obtained.isCapture(), is(false));
+    }
+
+    @Test
+    public void parseJsonResponseFromReaderWorks() throws ParserException, IOException {
+        // given
+        String input = "{\"" + JsonResponseParser.RESPONSE_KEY_DYNAMIC_CONFIG + "\": {\""
+                + JsonResponseParser.RESPONSE_KEY_SERVER_ID + "\": 18}}";
+
+        // when
+        ResponseAttributes obtained = ResponseParser.parseResponse(new StringReader(input));
+
+        // then
+        assertThat(obtained, notNullValue());
+        assertThat(obtained.getServerId(), is(18));
+    }
+
+    @Test
+    public void parsingEmptyReaderThrowsException() throws ParserException, IOException {
+        // given
+        expectedException.expect(ParserException.class);
+
+        // when
+        ResponseParser.parseResponse(new StringReader(""));
+    }
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.providers.RandomNumberGenerator;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void defaultRetryPolicyHasDefaultValues() {
+        // when
+        RetryPolicy target = RetryPolicy.DEFAULT;
+
+        // then
+        assertThat(target.getMaxAttempts(), is(RetryPolicy.DEFAULT_MAX_ATTEMPTS));
+        assertThat(target.getInitialDelayInMillis(), is(RetryPolicy.DEFAULT_INITIAL_DELAY_IN_MILLIS));
+        assertThat(target.getMaxDelayInMillis(), is(RetryPolicy.DEFAULT_MAX_DELAY_IN_MILLIS));
+        assertThat(target.getCircuitBreakerFailureThreshold(), is(RetryPolicy.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD));
+        assertThat(target.getCircuitBreakerOpenDurationInMillis(),
+                is(RetryPolicy.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_IN_MILLIS));
+    }
+
+    @Test
+    public void builderIgnoresInvalidValues() {
+        // when
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withMaxAttempts(0)
+                .withInitialDelayInMillis(-1)
+                .withMaxDelayInMillis(-1)
+                .withCircuitBreakerOpenDurationInMillis(-1)
+                .build();
+
+        // then
+        assertThat(target.getMaxAttempts(), is(RetryPolicy.DEFAULT_MAX_ATTEMPTS));
+        assertThat(target.getInitialDelayInMillis(), is(RetryPolicy.DEFAULT_INITIAL_DELAY_IN_MILLIS));
+        assertThat(target.getMaxDelayInMillis(), is(RetryPolicy.DEFAULT_MAX_DELAY_IN_MILLIS));
+        assertThat(target.getCircuitBreakerOpenDurationInMillis(),
+                is(RetryPolicy.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_IN_MILLIS));
+    }
+
+    @Test
+    public void maxDelayIsAtLeastInitialDelay() {
+        // when
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withInitialDelayInMillis(500)
+                .withMaxDelayInMillis(100)
+                .build();
+
+        // then
+        assertThat(target.getMaxDelayInMillis(), is(500L));
+    }
+
+    @Test
+    public void retryDelayUpperBoundGrowsExponentially() {
+        // given
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withInitialDelayInMillis(100)
+                .withMaxDelayInMillis(10000)
+                .build();
+
+        // then
+        assertThat(target.getRetryDelayUpperBoundInMillis(0), is(100L));
+        assertThat(target.getRetryDelayUpperBoundInMillis(1), is(200L));
+        assertThat(target.getRetryDelayUpperBoundInMillis(2), is(400L));
+        assertThat(target.getRetryDelayUpperBoundInMillis(3), is(800L));
+    }
+
+    @Test
+    public void retryDelayUpperBoundIsCappedByMaxDelay() {
+        // given
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withInitialDelayInMillis(100)
+                .withMaxDelayInMillis(1000)
+                .build();
+
+        // then
+        assertThat(target.getRetryDelayUpperBoundInMillis(4), is(1000L));
+        assertThat(target.getRetryDelayUpperBoundInMillis(62), is(1000L));
+        assertThat(target.getRetryDelayUpperBoundInMillis(Integer.MAX_VALUE), is(1000L));
+    }
+
+    @Test
+    public void retryDelayIsRandomValueWithinUpperBound() {
+        // given
+        RandomNumberGenerator randomNumberGenerator = mock(RandomNumberGenerator.class);
+        when(randomNumberGenerator.nextPositiveLong()).thenReturn(1234L, 200L, 199L);
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withInitialDelayInMillis(100)
+                .withMaxDelayInMillis(1000)
+                .build();
+
+        // then
+        assertThat(target.getRetryDelayInMillis(1, randomNumberGenerator), is(1234L % 201));
+        assertThat(target.getRetryDelayInMillis(1, randomNumberGenerator), is(200L));
+        assertThat(target.getRetryDelayInMillis(1, randomNumberGenerator), is(199L));
+    }
+
+    @Test
+    public void retryDelayIsZeroIfInitialDelayIsZero() {
+        // given
+        RandomNumberGenerator randomNumberGenerator = mock(RandomNumberGenerator.class);
+        when(randomNumberGenerator.nextPositiveLong()).thenReturn(1234L);
+        RetryPolicy target = new RetryPolicy.Builder()
+                .withInitialDelayInMillis(0)
+                .withMaxDelayInMillis(0)
+                .build();
+
+        // then
+        assertThat(target.getRetryDelayInMillis(2, randomNumberGenerator), is(0L));
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-process HTTP server used as a stub for the Dynatrace backend in tests.
+ */
+public class HttpStubServer {
+
+    private final HttpServer server;
+    private final List<RecordedRequest> recordedRequests = new CopyOnWriteArrayList<>();
+
+    private volatile int responseCode = 200;
+    private volatile String responseBody = "type=m";
+
+    public HttpStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleExchange(exchange);
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String getBaseURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/mbeacon";
+    }
+
+    public void respondWith(int responseCode, String responseBody) {
+        this.responseCode = responseCode;
+        this.responseBody = responseBody;
+    }
+
+    public List<RecordedRequest> getRecordedRequests() {
+        return recordedRequests;
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        byte[] body = readFully(exchange.getRequestBody());
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = readFully(new GZIPInputStream(new java.io.ByteArrayInputStream(body)));
+        }
+        recordedRequests.add(new RecordedRequest(exchange.getRequestMethod(), exchange.getRequestURI().toString(),
+                exchange.getRequestHeaders(), new String(body, "UTF-8")));
+
+        byte[] response = responseBody.getBytes("UTF-8");
+        exchange.sendResponseHeaders(responseCode, response.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        try {
+            outputStream.write(response);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    static byte[] readFully(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return new byte[0];
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, length);
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    public static final class RecordedRequest {
+
+        private final String method;
+        private final String uri;
+        private final Map<String, List<String>> headers;
+        private final String body;
+
+        private RecordedRequest(String method, String uri, Map<String, List<String>> headers, String body) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class HttpTransportRequestImplTest {
+
+    private HttpTransportRequestImpl target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = new HttpTransportRequestImpl(new URL("https://foo.bar.com/mbeacon"), "POST", new byte[]{1, 2, 3}, 1000, 2000);
+    }
+
+    @Test
+    public void gettersReturnValuesPassedInConstructor() throws Exception {
+        // then
+        assertThat(target.getUrl(), is(equalTo(new URL("https://foo.bar.com/mbeacon"))));
+        assertThat(target.getMethod(), is(equalTo("POST")));
+        assertThat(target.getBody(), is(equalTo(new byte[]{1, 2, 3})));
+        assertThat(target.getConnectTimeout(), is(equalTo(1000)));
+        assertThat(target.getReadTimeout(), is(equalTo(2000)));
+    }
+
+    @Test
+    public void setHeaderSetsHeaderCaseInsensitive() {
+        // when
+        target.setHeader("X-Foo", "bar");
+
+        // then
+        assertThat(target.getHeader("x-foo"), is(equalTo("bar")));
+        assertThat(target.getHeaders().get("X-FOO"), is(equalTo(Collections.singletonList("bar"))));
+    }
+
+    @Test
+    public void setHeaderOverwritesExistingHeader() {
+        // given
+        target.setHeader("X-Foo", "bar");
+
+        // when
+        target.setHeader("x-foo", "baz");
+
+        // then
+        assertThat(target.getHeader("X-Foo"), is(equalTo("baz")));
+        assertThat(target.getHeaders().size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void setHeaderDoesNothingIfHeaderNameIsNull() {
+        // when
+        target.setHeader(null, "bar");
+
+        // then
+        assertThat(target.getHeaders().isEmpty(), is(true));
+    }
+
+    @Test
+    public void setHeaderDoesNothingForRestrictedHeaders() {
+        // when
+        target.setHeader("Content-Length", "42");
+        target.setHeader("Transfer-Encoding", "chunked");
+
+        // then
+        assertThat(target.getHeader("Content-Length"), is(nullValue()));
+        assertThat(target.getHeader("Transfer-Encoding"), is(nullValue()));
+    }
+
+    @Test
+    public void setHeaderInternalAllowsRestrictedHeaders() {
+        // when
+        target.setHeaderInternal("Content-Length", "42");
+
+        // then
+        assertThat(target.getHeader("content-length"), is(equalTo("42")));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.http;
+
+import com.dynatrace.openkit.api.http.HttpTransport;
+import com.dynatrace.openkit.api.http.HttpTransportCallback;
+import com.dynatrace.openkit.api.http.HttpTransportRequest;
+import com.dynatrace.openkit.api.http.HttpTransportResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking {@link HttpTransport} for tests, executing requests on a dedicated thread.
+ */
+public class StubHttpTransport implements HttpTransport {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger numSentRequests = new AtomicInteger();
+    private volatile Thread lastCallbackThread = null;
+
+    @Override
+    public void send(final HttpTransportRequest request, final HttpTransportCallback callback) {
+        numSentRequests.incrementAndGet();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                lastCallbackThread = Thread.currentThread();
+                try {
+                    callback.onResponse(execute(request));
+                } catch (IOException e) {
+                    callback.onFailure(e);
+                }
+            }
+        });
+    }
+
+    public int getNumSentRequests() {
+        return numSentRequests.get();
+    }
+
+    public Thread getLastCallbackThread() {
+        return lastCallbackThread;
+    }
+
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static HttpTransportResponse execute(HttpTransportRequest request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) request.getUrl().openConnection();
+        connection.setRequestMethod(request.getMethod());
+        connection.setConnectTimeout(request.getConnectTimeout());
+        connection.setReadTimeout(request.getReadTimeout());
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            for (String value : header.getValue()) {
+                connection.addRequestProperty(header.getKey(), value);
+            }
+        }
+
+        if (request.getBody() != null) {
+            connection.setDoOutput(true);
+            OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(request.getBody());
+            } finally {
+                outputStream.close();
+            }
+        }
+
+        int responseCode = connection.getResponseCode();
+        byte[] body = HttpStubServer.readFully(responseCode >= 400 ? connection.getErrorStream() : connection.getInputStream());
+
+        return new HttpTransportResponse(responseCode, connection.getResponseMessage(), connection.getHeaderFields(), body);
+    }
+}
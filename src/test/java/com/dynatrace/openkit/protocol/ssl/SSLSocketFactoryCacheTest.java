@@ -0,0 +1,60 @@
+/**
+ * Copyright 2018-2021 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol.ssl;
+
+import org.junit.Test;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SSLSocketFactoryCacheTest {
+
+    @Test
+    public void getSocketFactoryReturnsSameInstanceForSameTrustManager() throws Exception {
+        // given
+        X509TrustManager trustManager = new SSLBlindTrustManager().getX509TrustManager();
+        SSLSocketFactoryCache target = new SSLSocketFactoryCache();
+
+        // when
+        SSLSocketFactory first = target.getSocketFactory(trustManager);
+        SSLSocketFactory second = target.getSocketFactory(trustManager);
+
+        // then
+        assertThat(first, is(notNullValue()));
+        assertThat(second, is(sameInstance(first)));
+    }
+
+    @Test
+    public void getSocketFactoryCreatesNewInstanceIfTrustManagerChanges() throws Exception {
+        // given
+        SSLSocketFactoryCache target = new SSLSocketFactoryCache();
+        SSLSocketFactory first = target.getSocketFactory(new SSLBlindTrustManager().getX509TrustManager());
+
+        // when
+        SSLSocketFactory obtained = target.getSocketFactory(new SSLBlindTrustManager().getX509TrustManager());
+
+        // then
+        assertThat(obtained, is(notNullValue()));
+        assertThat(obtained, is(not(sameInstance(first))));
+    }
+}
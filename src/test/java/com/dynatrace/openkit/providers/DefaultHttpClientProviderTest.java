@@ -23,7 +23,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -52,4 +54,89 @@ public class DefaultHttpClientProviderTest {
         // then
         assertThat(obtained, is(notNullValue()));
     }
+
+    @Test
+    public void createClientReturnsSameClientForEqualConfiguration() {
+        // given
+        DefaultHTTPClientProvider target = new DefaultHTTPClientProvider(mockLogger);
+        HTTPClient first = target.createClient(createConfiguration(1));
+
+        // when
+        HTTPClient obtained = target.createClient(createConfiguration(1));
+
+        // then
+        assertThat(obtained, is(sameInstance(first)));
+    }
+
+    @Test
+    public void createClientReturnsNewClientIfServerIdChanges() {
+        // given
+        DefaultHTTPClientProvider target = new DefaultHTTPClientProvider(mockLogger);
+        HTTPClient first = target.createClient(createConfiguration(1));
+
+        // when
+        HTTPClient obtained = target.createClient(createConfiguration(2));
+
+        // then
+        assertThat(obtained, is(notNullValue()));
+        assertThat(obtained, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void createClientEvictsLeastRecentlyUsedClient() {
+        // given
+        DefaultHTTPClientProvider target = new DefaultHTTPClientProvider(mockLogger);
+        HTTPClient first = target.createClient(createConfiguration(0));
+        for (int i = 1; i <= DefaultHTTPClientProvider.MAX_CACHED_CLIENTS; i++) {
+            target.createClient(createConfiguration(i));
+        }
+
+        // when
+        HTTPClient obtained = target.createClient(createConfiguration(0));
+
+        // then
+        assertThat(obtained, is(not(sameInstance(first))));
+    }
+
+    private static HTTPClientConfiguration createConfiguration(int serverId) {
+        return new HTTPClientConfiguration.Builder()
+                .withBaseURL("https://localhost:9999/1")
+                .withApplicationID("some cryptic appID")
+                .withServerID(serverId)
+                .withDeviceID(42)
+                .build();
+    }
+
+    @Test
+    public void clientsForSameEndpointShareCircuitBreaker() {
+        // given
+        DefaultHTTPClientProvider target = new DefaultHTTPClientProvider(mockLogger);
+        HTTPClient first = target.createClient(createConfiguration(1));
+
+        // when
+        HTTPClient obtained = target.createClient(createConfiguration(2));
+
+        // then
+        assertThat(obtained, is(not(sameInstance(first))));
+        assertThat(obtained.getCircuitBreaker(), is(sameInstance(first.getCircuitBreaker())));
+    }
+
+    @Test
+    public void clientsForDifferentEndpointsDoNotShareCircuitBreaker() {
+        // given
+        DefaultHTTPClientProvider target = new DefaultHTTPClientProvider(mockLogger);
+        HTTPClient first = target.createClient(createConfiguration(1));
+        HTTPClientConfiguration otherEndpoint = new HTTPClientConfiguration.Builder()
+                .withBaseURL("https://localhost:9999/2")
+                .withApplicationID("some cryptic appID")
+                .withServerID(1)
+                .withDeviceID(42)
+                .build();
+
+        // when
+        HTTPClient obtained = target.createClient(otherEndpoint);
+
+        // then
+        assertThat(obtained.getCircuitBreaker(), is(not(sameInstance(first.getCircuitBreaker()))));
+    }
 }
@@ -53,4 +53,22 @@ public class DefaultTimingProviderTest {
         // then
         assertThat(sleptTimeInNanos, greaterThanOrEqualTo(sleepTimeInMillis * DefaultTimingProvider.MILLIS_TO_NANOS_FACTOR));
     }
+
+    @Test
+    public void waitForNotificationSuspendsForSpecifiedTimeIfNotNotified() throws Exception {
+        // given
+        long waitTimeInMillis = 2;
+        Object monitor = new Object();
+        DefaultTimingProvider target = new DefaultTimingProvider();
+
+        // when
+        long timeInNanosBefore = System.nanoTime();
+        synchronized (monitor) {
+            target.waitForNotification(monitor, waitTimeInMillis);
+        }
+        long waitedTimeInNanos = System.nanoTime() - timeInNanosBefore;
+
+        // then
+        assertThat(waitedTimeInNanos, greaterThanOrEqualTo(waitTimeInMillis * DefaultTimingProvider.MILLIS_TO_NANOS_FACTOR));
+    }
 }
@@ -22,6 +22,7 @@ import com.dynatrace.openkit.api.WebRequestTracer;
 import com.dynatrace.openkit.protocol.Beacon;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -30,7 +31,11 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
@@ -47,8 +52,11 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.endsWith;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -85,6 +93,7 @@ public class BaseActionImplTest {
             }
         });
         when(beacon.getSessionNumber()).thenReturn(17);
+        when(beacon.isDataCapturingEnabled()).thenReturn(true);
 
         openKitComposite = mock(OpenKitComposite.class);
     }
@@ -347,6 +356,241 @@ public class BaseActionImplTest {
         verifyNoMoreInteractions(logger);
     }
 
+    @Test
+    public void reportValuesWithNullMapDoesNotReportValues() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportValues(null);
+
+        // then
+        verify(beacon, times(0)).reportValues(anyInt(), any(Map.class));
+        assertThat(obtained, is(sameInstance((Action) target)));
+
+        // verify that a log message has been generated
+        verify(logger, times(1)).warning(endsWith("reportValues: values must not be null or empty"));
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    public void reportValuesWithEmptyMapDoesNotReportValues() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportValues(Collections.<String, Number>emptyMap());
+
+        // then
+        verify(beacon, times(0)).reportValues(anyInt(), any(Map.class));
+        assertThat(obtained, is(sameInstance((Action) target)));
+
+        // verify that a log message has been generated
+        verify(logger, times(1)).warning(endsWith("reportValues: values must not be null or empty"));
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    public void reportValuesWithValidValues() {
+        // given
+        Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put("IntValue", 42);
+        values.put("DoubleValue", 12.3456);
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportValues(values);
+
+        // verify that beacon within the action is called properly
+        verify(beacon, times(1)).reportValues(ID_BASE_OFFSET, values);
+        assertThat(obtained, is(sameInstance((Action) target)));
+    }
+
+    @Test
+    public void reportValuesWithInvalidEntryLogsWarningAndForwardsValues() {
+        // given
+        Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put("", 1);
+        values.put("NullValue", null);
+        values.put("IntValue", 42);
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        target.reportValues(values);
+
+        // then
+        verify(logger, times(1)).warning(endsWith("reportValues: entries with null or empty valueName or null value are skipped"));
+        verify(beacon, times(1)).reportValues(ID_BASE_OFFSET, values);
+    }
+
+    @Test
+    public void reportValuesLogsInvocation() {
+        // given
+        Map<String, Number> values = Collections.<String, Number>singletonMap("IntValue", 42);
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        target.reportValues(values);
+
+        // then
+        verify(logger, times(1)).isDebugEnabled();
+        verify(logger, times(1)).debug(endsWith("reportValues(" + values + ")"));
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    public void reportValuesIsNotForwardedAfterActionIsLeft() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.leaveAction();
+
+        // when
+        Action obtained = target.reportValues(Collections.<String, Number>singletonMap("IntValue", 42));
+
+        // then
+        verify(beacon, times(0)).reportValues(anyInt(), any(Map.class));
+        assertThat(obtained, is(sameInstance((Action) target)));
+    }
+
+    @Test
+    public void reportAggregatedValueDoesNotReportValueBeforeActionIsLeft() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportAggregatedValue("AggregatedValue", 1.5);
+
+        // then
+        assertThat(obtained, is(sameInstance((Action) target)));
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+    }
+
+    @Test
+    public void reportAggregatedValueWithNullNameDoesNotAggregateValue() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportAggregatedValue(null, 1.5);
+        target.leaveAction();
+
+        // then
+        assertThat(obtained, is(sameInstance((Action) target)));
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+        verify(logger, times(1)).warning(endsWith("reportAggregatedValue: valueName must not be null or empty"));
+    }
+
+    @Test
+    public void reportAggregatedValueWithEmptyNameDoesNotAggregateValue() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.reportAggregatedValue("", 1.5);
+        target.leaveAction();
+
+        // then
+        assertThat(obtained, is(sameInstance((Action) target)));
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+        verify(logger, times(1)).warning(endsWith("reportAggregatedValue: valueName must not be null or empty"));
+    }
+
+    @Test
+    public void leavingAnActionReportsAggregatedValues() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.reportAggregatedValue("AggregatedValue", 1.5);
+        target.reportAggregatedValue("AggregatedValue", -2.0);
+        target.reportAggregatedValue("AggregatedValue", 4.5);
+
+        // when
+        target.leaveAction();
+
+        // then
+        verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "AggregatedValue.count", 3L);
+        verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "AggregatedValue.sum", 4.0);
+        verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "AggregatedValue.min", -2.0);
+        verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "AggregatedValue.max", 4.5);
+    }
+
+    @Test
+    public void leavingAnActionReportsAggregatedValuesInOrderOfFirstOccurrence() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.reportAggregatedValue("second", 2.0);
+        target.reportAggregatedValue("first", 1.0);
+        target.reportAggregatedValue("second", 3.0);
+
+        // when
+        target.leaveAction();
+
+        // then
+        InOrder inOrder = inOrder(beacon);
+        inOrder.verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "second.count", 2L);
+        inOrder.verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "first.count", 1L);
+        inOrder.verify(beacon, times(1)).addAction(target);
+    }
+
+    @Test
+    public void leavingAnActionTwiceReportsAggregatedValuesOnlyOnce() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.reportAggregatedValue("AggregatedValue", 1.5);
+
+        // when
+        target.leaveAction();
+        target.leaveAction();
+
+        // then
+        verify(beacon, times(1)).reportValue(ID_BASE_OFFSET, "AggregatedValue.count", 1L);
+    }
+
+    @Test
+    public void reportAggregatedValueAfterActionIsLeftIsIgnored() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.leaveAction();
+
+        // when
+        Action obtained = target.reportAggregatedValue("AggregatedValue", 1.5);
+
+        // then
+        assertThat(obtained, is(sameInstance((Action) target)));
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+    }
+
+    @Test
+    public void cancelingAnActionDiscardsAggregatedValues() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.reportAggregatedValue("AggregatedValue", 1.5);
+
+        // when
+        target.cancelAction();
+
+        // then
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+    }
+
+    @Test
+    public void reportAggregatedValueLogsInvocation() {
+        // given
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        target.reportAggregatedValue("AggregatedValue", 1.5);
+
+        // then
+        verify(logger, times(1)).isDebugEnabled();
+        verify(logger, times(1)).debug(endsWith("reportAggregatedValue(AggregatedValue, 1.5)"));
+        verifyNoMoreInteractions(logger);
+    }
+
     @Test
     public void reportValueStringWithValidValue() {
         // given
@@ -406,6 +650,52 @@ public class BaseActionImplTest {
         verify(logger, times(1)).debug(endsWith("reportValue (String) (" + valueName + ", " + value + ")"));
     }
 
+    @Test
+    public void reportingDoesNothingIfDataCapturingIsDisabled() {
+        // given
+        when(beacon.isDataCapturingEnabled()).thenReturn(false);
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        target.reportEvent("event");
+        target.reportValue("int", 1);
+        target.reportValue("long", 2L);
+        target.reportValue("double", 3.0);
+        target.reportValue("string", "value");
+        target.reportError("error", 42);
+        target.reportError("error", "cause", "description", "stacktrace");
+        target.reportError("error", new IllegalStateException("test"));
+        target.reportValues(Collections.<String, Number>singletonMap("int", 1));
+
+        // then
+        verify(beacon, times(0)).reportEvent(anyInt(), anyString());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyInt());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyLong());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyDouble());
+        verify(beacon, times(0)).reportValue(anyInt(), anyString(), anyString());
+        verify(beacon, times(0)).reportError(anyInt(), anyString(), anyInt());
+        verify(beacon, times(0)).reportError(anyInt(), anyString(), anyString(), anyString(), anyString());
+        verify(beacon, times(0)).reportError(anyInt(), anyString(), any(Throwable.class));
+        verify(beacon, times(0)).reportValues(anyInt(), any(Map.class));
+        verify(logger, times(0)).debug(anyString());
+    }
+
+    @Test
+    public void traceWebRequestGivesNullWebRequestTracerIfDataCapturingIsDisabled() {
+        // given
+        when(beacon.isDataCapturingEnabled()).thenReturn(false);
+        BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+
+        // when
+        WebRequestTracer obtainedOne = target.traceWebRequest("https://localhost");
+        WebRequestTracer obtainedTwo = target.traceWebRequest(mock(URLConnection.class));
+
+        // then
+        assertThat(obtainedOne, is(sameInstance((WebRequestTracer) NullWebRequestTracer.INSTANCE)));
+        assertThat(obtainedTwo, is(sameInstance((WebRequestTracer) NullWebRequestTracer.INSTANCE)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
     @Test
     public void reportErrorCodeWithAllValuesSet() {
         // given
@@ -1096,6 +1386,107 @@ public class BaseActionImplTest {
         verify(beacon, times(0)).reportEvent(anyInt(), anyString());
     }
 
+    @Test
+    public void reportEventFromOtherThreadDoesNothingIfActionIsLeft() throws InterruptedException {
+        // given
+        when(beacon.getCurrentTimestamp()).thenReturn(1234L);
+        when(beacon.createSequenceNumber()).thenReturn(42);
+        final BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        target.leaveAction();
+
+        // when
+        Thread reportingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportEvent("eventName");
+            }
+        });
+        reportingThread.start();
+        reportingThread.join();
+
+        // then
+        verify(beacon, times(0)).reportEvent(anyInt(), anyString());
+    }
+
+    @Test
+    public void leaveActionWaitsForReportsInProgress() throws InterruptedException {
+        // given
+        final CountDownLatch reporting = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        blockReportEvent(reporting, released);
+        final BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        Thread reportingThread = startThread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportEvent("eventName");
+            }
+        });
+        assertThat(reporting.await(10, TimeUnit.SECONDS), is(true));
+
+        // when
+        Thread leavingThread = startThread(new Runnable() {
+            @Override
+            public void run() {
+                target.leaveAction();
+            }
+        });
+        leavingThread.join(50);
+
+        // then
+        assertThat(leavingThread.isAlive(), is(true));
+        verify(beacon, never()).addAction(target);
+
+        // and when
+        released.countDown();
+        reportingThread.join(TimeUnit.SECONDS.toMillis(10));
+        leavingThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(leavingThread.isAlive(), is(false));
+        InOrder inOrder = inOrder(beacon);
+        inOrder.verify(beacon, times(1)).reportEvent(anyInt(), eq("eventName"));
+        inOrder.verify(beacon, times(1)).addAction(target);
+    }
+
+    @Test
+    public void cancelActionWaitsForReportsInProgress() throws InterruptedException {
+        // given
+        final CountDownLatch reporting = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        blockReportEvent(reporting, released);
+        final BaseActionImpl target = new StubBaseActionImpl(logger, openKitComposite, ACTION_NAME, beacon);
+        Thread reportingThread = startThread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportEvent("eventName");
+            }
+        });
+        assertThat(reporting.await(10, TimeUnit.SECONDS), is(true));
+
+        // when
+        Thread cancelingThread = startThread(new Runnable() {
+            @Override
+            public void run() {
+                target.cancelAction();
+            }
+        });
+        cancelingThread.join(50);
+
+        // then the end sequence number is not yet created
+        assertThat(cancelingThread.isAlive(), is(true));
+        verify(beacon, times(1)).createSequenceNumber();
+
+        // and when
+        released.countDown();
+        reportingThread.join(TimeUnit.SECONDS.toMillis(10));
+        cancelingThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        // then
+        assertThat(cancelingThread.isAlive(), is(false));
+        verify(beacon, times(2)).createSequenceNumber();
+        verify(openKitComposite, times(1)).onChildClosed(target);
+    }
+
     @Test
     public void reportIntValueDoesNothingIfActionIsLeft() {
         // given
@@ -1447,6 +1838,23 @@ public class BaseActionImplTest {
         verifyZeroInteractions(beacon);
     }
 
+    private void blockReportEvent(final CountDownLatch reporting, final CountDownLatch released) {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                reporting.countDown();
+                released.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(beacon).reportEvent(anyInt(), anyString());
+    }
+
+    private static Thread startThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        return thread;
+    }
+
     private static final class StubBaseActionImpl extends BaseActionImpl {
 
         private final Action parentAction;
@@ -58,6 +58,7 @@ public class RootActionImplTest {
         when(logger.isDebugEnabled()).thenReturn(true);
 
         beacon = mock(Beacon.class);
+        when(beacon.isDataCapturingEnabled()).thenReturn(true);
 
         session = mock(SessionImpl.class);
     }
@@ -145,6 +146,20 @@ public class RootActionImplTest {
         assertThat(obtained, is(instanceOf(NullAction.class)));
     }
 
+    @Test
+    public void enterActionGivesNullActionIfDataCapturingIsDisabled() {
+        // given
+        when(beacon.isDataCapturingEnabled()).thenReturn(false);
+        RootActionImpl target = new RootActionImpl(logger, session, ROOT_ACTION_NAME, beacon);
+
+        // when
+        Action obtained = target.enterAction(CHILD_ACTION_NAME);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullAction.class)));
+        assertThat(target.getCopyOfChildObjects().isEmpty(), is(true));
+    }
+
     @Test
     public void enterActionLogsInvocation() {
         // given
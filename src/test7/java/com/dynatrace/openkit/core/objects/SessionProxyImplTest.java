@@ -16,6 +16,7 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.ConnectionType;
+import com.dynatrace.openkit.api.FlushResult;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.WebRequestTracer;
@@ -23,30 +24,44 @@ import com.dynatrace.openkit.core.BeaconSender;
 import com.dynatrace.openkit.core.SessionWatchdog;
 import com.dynatrace.openkit.core.configuration.ServerConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EarlySendCallback;
+import com.dynatrace.openkit.protocol.PriorityDataCallback;
 import com.dynatrace.openkit.providers.TimingProvider;
 import com.dynatrace.openkit.util.json.objects.JSONStringValue;
 import com.dynatrace.openkit.util.json.objects.JSONValue;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.net.URLConnection;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.endsWith;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -146,6 +161,47 @@ public class SessionProxyImplTest {
         verify(mockBeacon, times(1)).setServerConfigurationUpdateCallback(target);
     }
 
+    @Test
+    public void initiallyCreatedSessionNotifiesBeaconSenderAboutPriorityData() {
+        // given
+        createSessionProxy();
+        ArgumentCaptor<PriorityDataCallback> callbackCaptor = ArgumentCaptor.forClass(PriorityDataCallback.class);
+        verify(mockBeacon, times(1)).setPriorityDataCallback(callbackCaptor.capture());
+
+        // when
+        callbackCaptor.getValue().onPriorityDataAdded();
+
+        // then
+        verify(mockBeaconSender, times(1)).onPriorityDataAdded(mockSession);
+    }
+
+    @Test
+    public void initiallyCreatedSessionWakesUpBeaconSenderWhenEarlySendThresholdIsExceeded() {
+        // given
+        when(mockBeaconSender.getEarlyBeaconSendThreshold()).thenReturn(0.5);
+        createSessionProxy();
+        ArgumentCaptor<EarlySendCallback> callbackCaptor = ArgumentCaptor.forClass(EarlySendCallback.class);
+        verify(mockBeacon, times(1)).setEarlySendCallback(eq(0.5), callbackCaptor.capture());
+
+        // when
+        callbackCaptor.getValue().onEarlySendThresholdExceeded();
+
+        // then
+        verify(mockBeaconSender, times(1)).wakeup();
+    }
+
+    @Test
+    public void earlySendCallbackIsNotSetIfEarlySendingIsDisabled() {
+        // given
+        when(mockBeaconSender.getEarlyBeaconSendThreshold()).thenReturn(0.0);
+
+        // when
+        createSessionProxy();
+
+        // then
+        verify(mockBeacon, times(0)).setEarlySendCallback(anyDouble(), any(EarlySendCallback.class));
+    }
+
     @Test
     public void initiallyCreatedSessionIsAddedToTheBeaconSender() {
         // given
@@ -772,6 +828,203 @@ public class SessionProxyImplTest {
         verify(mockSessionWatchdog, times(1)).closeOrEnqueueForClosing(mockSplitSession1, mockServerConfiguration.getSendIntervalInMilliseconds());
     }
 
+    @Test
+    public void enterActionUsesNewSessionIfSessionWasSplitConcurrently() {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        RootAction mockRootAction = mock(RootAction.class);
+        when(mockSplitSession1.enterAction("action")).thenReturn(mockRootAction);
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+        when(mockSession.enterAction("action")).thenAnswer(new Answer<RootAction>() {
+            @Override
+            public RootAction answer(InvocationOnMock invocation) {
+                // another thread splits and ends the session, while the action is entered
+                target.reportCrash("crash", null, null);
+                return NullRootAction.INSTANCE;
+            }
+        });
+
+        // when
+        RootAction obtained = target.enterAction("action");
+
+        // then
+        assertThat(obtained, is(sameInstance(mockRootAction)));
+        verify(mockSession, times(1)).enterAction("action");
+        verify(mockSplitSession1, times(1)).enterAction("action");
+    }
+
+    @Test
+    public void sendBizEventUsesNewSessionIfSessionWasSplitConcurrently() {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        final Map<String, JSONValue> attributes = new HashMap<>();
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+        when(mockSession.trySendBizEvent("type", attributes)).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                // another thread splits and ends the session, while the event is sent
+                target.reportCrash("crash", null, null);
+                return false;
+            }
+        });
+
+        // when
+        target.sendBizEvent("type", attributes);
+
+        // then
+        verify(mockSession, times(1)).trySendBizEvent("type", attributes);
+        verify(mockSplitSession1, times(1)).trySendBizEvent("type", attributes);
+    }
+
+    @Test
+    public void sendEventUsesNewSessionIfSessionWasSplitConcurrently() {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        final Map<String, JSONValue> attributes = new HashMap<>();
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+        when(mockSession.sendEvent("name", attributes)).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                // another thread splits and ends the session, while the event is sent
+                target.reportCrash("crash", null, null);
+                return false;
+            }
+        });
+
+        // when
+        target.sendEvent("name", attributes);
+
+        // then
+        verify(mockSession, times(1)).sendEvent("name", attributes);
+        verify(mockSplitSession1, times(1)).sendEvent("name", attributes);
+    }
+
+    @Test
+    public void sendEventIsNotSentTwiceIfSessionWasSplitAfterSending() {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        final Map<String, JSONValue> attributes = new HashMap<>();
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+        when(mockSession.sendEvent("name", attributes)).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                // another thread splits the session, after the event was sent
+                target.reportCrash("crash", null, null);
+                return true;
+            }
+        });
+
+        // when
+        target.sendEvent("name", attributes);
+
+        // then
+        verify(mockSession, times(1)).sendEvent("name", attributes);
+        verify(mockSplitSession1, times(0)).sendEvent("name", attributes);
+    }
+
+    @Test
+    public void concurrentCrashesAreReportedAndSplitAtomically() throws InterruptedException {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        final CountDownLatch crashReportStarted = new CountDownLatch(1);
+        final CountDownLatch crashReportReleased = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                crashReportStarted.countDown();
+                crashReportReleased.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(mockSession).reportCrash("crash 1", null, null);
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+
+        Thread firstThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportCrash("crash 1", null, null);
+            }
+        });
+        Thread secondThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportCrash("crash 2", null, null);
+            }
+        });
+        firstThread.start();
+        assertThat(crashReportStarted.await(10, TimeUnit.SECONDS), is(true));
+
+        // when another crash is reported, while the first crash is being reported
+        secondThread.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (secondThread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // then the session is not split before the first crash was reported
+        assertThat(secondThread.getState(), is(Thread.State.BLOCKED));
+        verify(mockSessionCreator, times(1)).createSession(target);
+
+        crashReportReleased.countDown();
+        firstThread.join();
+        secondThread.join();
+
+        // and each crash is reported on its own session
+        verify(mockSession, times(1)).reportCrash("crash 1", null, null);
+        verify(mockSession, times(0)).reportCrash("crash 2", null, null);
+        verify(mockSplitSession1, times(1)).reportCrash("crash 2", null, null);
+        verify(mockSessionCreator, times(3)).createSession(target);
+    }
+
+    @Test
+    public void reportingIsNotBlockedWhileSessionIsSplit() throws InterruptedException {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        final CountDownLatch splitStarted = new CountDownLatch(1);
+        final CountDownLatch splitReleased = new CountDownLatch(1);
+        when(mockSessionCreator.createSession(any(OpenKitComposite.class))).thenReturn(mockSession)
+                .thenAnswer(new Answer<SessionImpl>() {
+                    @Override
+                    public SessionImpl answer(InvocationOnMock invocation) throws InterruptedException {
+                        splitStarted.countDown();
+                        splitReleased.await(10, TimeUnit.SECONDS);
+                        return mockSplitSession1;
+                    }
+                });
+
+        final SessionProxyImpl target = createSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+
+        Thread splittingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.reportCrash("crash", null, null);
+            }
+        });
+        splittingThread.start();
+        assertThat(splitStarted.await(10, TimeUnit.SECONDS), is(true));
+
+        // when reporting while the new session is created
+        target.enterAction("action");
+        target.reportConnectionType(ConnectionType.Wifi);
+
+        // then data is reported on the current session
+        verify(mockSession, times(1)).enterAction("action");
+        verify(mockSession, times(1)).reportConnectionType(ConnectionType.Wifi);
+
+        splitReleased.countDown();
+        splittingThread.join();
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     /// report crash (with Throwable) tests
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -990,7 +1243,7 @@ public class SessionProxyImplTest {
 
         verify(mockLogger, times(1)).warning(
                 "SessionProxyImpl [sn=0, seq=0] sendBizEvent (String, Map): type must not be null or empty");
-        verify(mockSession, never()).sendBizEvent(anyString(), anyMap());
+        verify(mockSession, never()).trySendBizEvent(anyString(), anyMap());
     }
 
     @Test
@@ -1003,7 +1256,7 @@ public class SessionProxyImplTest {
 
         verify(mockLogger, times(1)).warning(
                 "SessionProxyImpl [sn=0, seq=0] sendBizEvent (String, Map): type must not be null or empty");
-        verify(mockSession, never()).sendBizEvent(anyString(), anyMap());
+        verify(mockSession, never()).trySendBizEvent(anyString(), anyMap());
     }
 
     @Test
@@ -1017,7 +1270,7 @@ public class SessionProxyImplTest {
         verify(mockLogger, times(1)).isDebugEnabled();
         verify(mockLogger, times(1)).debug(
                 "SessionProxyImpl [sn=0, seq=0] sendBizEvent(EventType" + ", {})");
-        verify(mockSession, times(1)).sendBizEvent(anyString(), anyMap());
+        verify(mockSession, times(1)).trySendBizEvent(anyString(), anyMap());
     }
 
     @Test
@@ -1034,7 +1287,7 @@ public class SessionProxyImplTest {
         verify(mockLogger, times(1)).isDebugEnabled();
         verify(mockLogger, times(1)).debug(
                 "SessionProxyImpl [sn=0, seq=0] sendBizEvent(EventType" + ", " + attributes.toString() + ")");
-        verify(mockSession, times(1)).sendBizEvent(anyString(), anyMap());
+        verify(mockSession, times(1)).trySendBizEvent(anyString(), anyMap());
     }
 
     @Test
@@ -1047,7 +1300,7 @@ public class SessionProxyImplTest {
         target.sendBizEvent("EventType", new HashMap<String, JSONValue>());
 
         // then
-        verify(mockSession, times(0)).sendBizEvent(anyString(), anyMap());
+        verify(mockSession, times(0)).trySendBizEvent(anyString(), anyMap());
     }
 
     @Test
@@ -1983,6 +2236,86 @@ public class SessionProxyImplTest {
         verify(mockSessionWatchdog, times(1)).dequeueFromClosing(session);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushForwardsChildSessionsToBeaconSender() {
+        // given
+        FlushResult flushResult = new FlushResult(100L, 0L);
+        when(mockBeaconSender.flush(any(Set.class), eq(500L))).thenReturn(flushResult);
+        SessionProxyImpl target = createSessionProxy();
+        target.storeChildInList(mock(OpenKitObject.class));
+
+        // when
+        FlushResult obtained = target.flush(500L);
+
+        // then
+        assertThat(obtained, is(sameInstance(flushResult)));
+        ArgumentCaptor<Set> sessionsCaptor = ArgumentCaptor.forClass(Set.class);
+        verify(mockBeaconSender, times(1)).flush(sessionsCaptor.capture(), eq(500L));
+        assertThat(sessionsCaptor.getValue().size(), is(1));
+        assertThat(sessionsCaptor.getValue().contains(mockSession), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void onChildFlushRequestedFlushesAllSessionsOfProxy() {
+        // given
+        FlushResult flushResult = new FlushResult(100L, 0L);
+        when(mockBeaconSender.flush(any(Set.class), eq(500L))).thenReturn(flushResult);
+        SessionProxyImpl target = createSessionProxy();
+
+        // when
+        FlushResult obtained = target.onChildFlushRequested(mockSession, 500L);
+
+        // then
+        assertThat(obtained, is(sameInstance(flushResult)));
+        ArgumentCaptor<Set> sessionsCaptor = ArgumentCaptor.forClass(Set.class);
+        verify(mockBeaconSender, times(1)).flush(sessionsCaptor.capture(), eq(500L));
+        assertThat(sessionsCaptor.getValue().contains(mockSession), is(true));
+    }
+
+    @Test
+    public void flushAwaitsCapturedEventsBeforeForwardingToBeaconSender() {
+        // given
+        SessionProxyImpl target = createSessionProxy();
+
+        // when
+        target.flush(500L);
+
+        // then
+        InOrder inOrder = inOrder(mockBeacon, mockBeaconSender);
+        inOrder.verify(mockBeacon, times(1)).flushCapturedEvents();
+        inOrder.verify(mockBeaconSender, times(1)).flush(any(Set.class), eq(500L));
+    }
+
+    @Test
+    public void onChildClosedNotifiesBeaconSenderAboutFinishedSession() {
+        // given
+        SessionProxyImpl target = createSessionProxy();
+        SessionImpl session = mock(SessionImpl.class);
+        target.storeChildInList(session);
+
+        // when
+        target.onChildClosed(session);
+
+        // then
+        verify(mockBeaconSender, times(1)).onSessionFinished(session);
+    }
+
+    @Test
+    public void onChildClosedDoesNotNotifyBeaconSenderForOtherChildObjects() {
+        // given
+        SessionProxyImpl target = createSessionProxy();
+        OpenKitObject childObject = mock(OpenKitObject.class);
+        target.storeChildInList(childObject);
+
+        // when
+        target.onChildClosed(childObject);
+
+        // then
+        verify(mockBeaconSender, times(0)).onSessionFinished(any(SessionImpl.class));
+    }
+
     @Test
     public void onServerConfigurationUpdateTakesOverServerConfigurationOnFirstCall() {
         // given
@@ -2085,6 +2418,110 @@ public class SessionProxyImplTest {
         verifyZeroInteractions(mockSessionWatchdog);
     }
 
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    /// lightweight session tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void lightweightSessionTakesOverLastServerConfiguration() {
+        // given
+        ServerConfiguration lastServerConfig = mock(ServerConfiguration.class);
+        when(mockBeaconSender.isInitialized()).thenReturn(true);
+        when(mockBeaconSender.getLastServerConfiguration()).thenReturn(lastServerConfig);
+
+        // when
+        createLightweightSessionProxy();
+
+        // then
+        verify(mockSession, times(1)).updateServerConfiguration(lastServerConfig);
+        verify(mockSession, never()).initializeServerConfiguration(any(ServerConfiguration.class));
+    }
+
+    @Test
+    public void lightweightSessionIsNotConfiguredIfNoServerConfigurationIsKnown() {
+        // given
+        when(mockBeaconSender.isInitialized()).thenReturn(false);
+        when(mockBeaconSender.getLastServerConfiguration()).thenReturn(ServerConfiguration.DEFAULT);
+
+        // when
+        createLightweightSessionProxy();
+
+        // then
+        verify(mockSession, never()).updateServerConfiguration(any(ServerConfiguration.class));
+        verify(mockSession, times(1)).initializeServerConfiguration(ServerConfiguration.DEFAULT);
+    }
+
+    @Test
+    public void lightweightSessionDoesNotTakeOverDefaultServerConfiguration() {
+        // given
+        when(mockBeaconSender.isInitialized()).thenReturn(true);
+        when(mockBeaconSender.getLastServerConfiguration()).thenReturn(ServerConfiguration.DEFAULT);
+
+        // when
+        createLightweightSessionProxy();
+
+        // then
+        verify(mockSession, never()).updateServerConfiguration(any(ServerConfiguration.class));
+        verify(mockSession, times(1)).initializeServerConfiguration(ServerConfiguration.DEFAULT);
+    }
+
+    @Test
+    public void lightweightSessionDoesNotTakeOverServerConfigurationIfBeaconSenderIsNotInitialized() {
+        // given
+        ServerConfiguration lastServerConfig = mock(ServerConfiguration.class);
+        when(mockBeaconSender.isInitialized()).thenReturn(false);
+        when(mockBeaconSender.getLastServerConfiguration()).thenReturn(lastServerConfig);
+
+        // when
+        createLightweightSessionProxy();
+
+        // then
+        verify(mockSession, never()).updateServerConfiguration(any(ServerConfiguration.class));
+        verify(mockSession, times(1)).initializeServerConfiguration(lastServerConfig);
+    }
+
+    @Test
+    public void lightweightSessionIsNotAddedToWatchdog() {
+        // given
+        SessionProxyImpl target = createLightweightSessionProxy();
+        when(mockServerConfiguration.isSessionSplitByIdleTimeoutEnabled()).thenReturn(true);
+        when(mockServerConfiguration.isSessionSplitBySessionDurationEnabled()).thenReturn(true);
+
+        // when
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+
+        // then
+        verify(mockSessionWatchdog, never()).addToSplitByTimeout(target);
+    }
+
+    @Test
+    public void endingLightweightSessionDoesNotRemoveItFromWatchdog() {
+        // given
+        SessionProxyImpl target = createLightweightSessionProxy();
+
+        // when
+        target.end();
+
+        // then
+        verify(mockSessionWatchdog, never()).removeFromSplitByTimeout(target);
+        verify(mockSession, times(1)).end(true);
+    }
+
+    @Test
+    public void lightweightSessionTakesOverServerConfigurationAfterCrash() {
+        // given
+        when(mockServerConfiguration.isSessionSplitByEventsEnabled()).thenReturn(false);
+        SessionProxyImpl target = createLightweightSessionProxy();
+        target.onServerConfigurationUpdate(mockServerConfiguration);
+
+        // when
+        target.reportCrash("crash", null, null);
+
+        // then
+        verify(mockSplitSession1, times(1)).updateServerConfiguration(mockServerConfiguration);
+        verify(mockSplitSession1, never()).initializeServerConfiguration(any(ServerConfiguration.class));
+    }
+
     @Test
     public void toStringReturnsAppropriateResult() {
         // given
@@ -2102,4 +2539,9 @@ public class SessionProxyImplTest {
     private SessionProxyImpl createSessionProxy() {
         return new SessionProxyImpl(mockLogger, mockParent, mockSessionCreator, mockTimingProvider, mockBeaconSender, mockSessionWatchdog);
     }
+
+    private SessionProxyImpl createLightweightSessionProxy() {
+        return new SessionProxyImpl(mockLogger, mockParent, mockSessionCreator, mockTimingProvider, mockBeaconSender,
+                mockSessionWatchdog, true);
+    }
 }
@@ -54,7 +54,9 @@ import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
@@ -962,6 +964,133 @@ public class BeaconTest {
     /// reportValue(double) tests
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
+    @Test
+    public void reportValuesSerializesAllValidValuesIntoOneRecord() {
+        // given
+        final Beacon target = createBeacon().build();
+        Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put("IntValue", 42);
+        values.put("DoubleValue", 3.1415);
+        values.put("LongValue", Long.MAX_VALUE);
+
+        // when
+        target.reportValues(ACTION_ID, values);
+
+        // then
+        String expectedEventData =
+                "et=12&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=IntValue&" +                // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=1&" +                       // sequence number of reported value event
+                "t0=0&" +                       // event time since session start
+                "vl=42&" +                      // reported value
+                "et=13&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=DoubleValue&" +             // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=2&" +                       // sequence number of reported value event
+                "t0=0&" +                       // event time since session start
+                "vl=3.1415&" +                  // reported value
+                "et=12&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=LongValue&" +               // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=3&" +                       // sequence number of reported value event
+                "t0=0&" +                       // event time since session start
+                "vl=" + Long.MAX_VALUE          // reported value
+        ;
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(0L),                         // event timestamp
+                eq(expectedEventData)
+        );
+    }
+
+    @Test
+    public void reportValuesSkipsEntriesWithoutNameOrValue() {
+        // given
+        final Beacon target = createBeacon().build();
+        Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put(null, 1);
+        values.put("", 2);
+        values.put("NullValue", null);
+        values.put("IntValue", 42);
+
+        // when
+        target.reportValues(ACTION_ID, values);
+
+        // then
+        String expectedEventData =
+                "et=12&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=IntValue&" +                // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=1&" +                       // sequence number of reported value event
+                "t0=0&" +                       // event time since session start
+                "vl=42"                         // reported value
+        ;
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(0L),                         // event timestamp
+                eq(expectedEventData)
+        );
+    }
+
+    @Test
+    public void reportValuesDoesNotAddRecordIfNoEntryIsValid() {
+        // given
+        final Beacon target = createBeacon().build();
+        Map<String, Number> values = new HashMap<String, Number>();
+        values.put("", 1);
+        values.put("NullValue", null);
+
+        // when
+        target.reportValues(ACTION_ID, values);
+
+        // then
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
+    @Test
+    public void reportValuesWithNullMapThrowsException() {
+        // expect
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(equalTo("values is null"));
+
+        // given
+        final Beacon target = createBeacon().build();
+
+        // when
+        target.reportValues(ACTION_ID, null);
+    }
+
+    @Test
+    public void valuesAreNotReportedIfReportValueDisallowed() {
+        // given
+        Beacon target = createBeacon().build();
+        when(mockPrivacyConfiguration.isValueReportingAllowed()).thenReturn(false);
+
+        // when
+        target.reportValues(ACTION_ID, Collections.singletonMap("test value", 123));
+
+        // then ensure nothing has been serialized
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
+    @Test
+    public void valuesAreNotReportedIfDataSendingDisallowed() {
+        // given
+        Beacon target = createBeacon().build();
+        when(mockServerConfiguration.isSendingDataAllowed()).thenReturn(false);
+
+        // when
+        target.reportValues(ACTION_ID, Collections.singletonMap("test value", 123));
+
+        // then ensure nothing has been serialized
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
     @Test
     public void reportValidValueDouble() {
         // given
@@ -2172,6 +2301,51 @@ public class BeaconTest {
                 .getNextBeaconChunk(eq(expectedBeaconKey), eq(expectedPrefix), anyInt(), anyChar());
     }
 
+    @Test
+    public void beaconUsesSharedBasicDataProvidedByInitializer() {
+        // given
+        int visitStoreVersion = 1;
+        String ipAddress = "192.168.0.1";
+
+        when(mockOpenKitConfiguration.getApplicationVersion()).thenReturn("1111");
+        when(mockOpenKitConfiguration.getOperatingSystem()).thenReturn("system");
+        Beacon.SharedBasicData sharedBasicData = Beacon.SharedBasicData.create(mockLogger,
+                mockOpenKitConfiguration, mockPrivacyConfiguration);
+
+        // configuration changes are not taken into account, once the shared data was serialized
+        when(mockOpenKitConfiguration.getApplicationVersion()).thenReturn("2222");
+        when(mockOpenKitConfiguration.getOperatingSystem()).thenReturn("other system");
+        when(mockBeaconCache.hasDataForSending(any(BeaconKey.class))).thenReturn(true, false);
+        when(mockBeaconCache.getNextBeaconChunk(any(BeaconKey.class), anyString(), anyInt(), anyChar())).thenReturn(null);
+        when(mockServerConfiguration.getVisitStoreVersion()).thenReturn(visitStoreVersion);
+
+        Beacon target = createBeacon().withIpAddress(ipAddress).with(sharedBasicData).build();
+
+        // when
+        target.send(mock(HTTPClientProvider.class), null);
+
+        // then
+        String expectedPrefix = "vv=" + ProtocolConstants.PROTOCOL_VERSION +
+                "&va=" + ProtocolConstants.OPENKIT_VERSION +
+                "&ap=" + APP_ID +
+                "&vn=1111" +
+                "&pt=" + ProtocolConstants.PLATFORM_TYPE_OPENKIT +
+                "&tt=" + ProtocolConstants.AGENT_TECHNOLOGY_TYPE +
+                "&vi=" + DEVICE_ID +
+                "&sn=" + SESSION_ID +
+                "&ip=" + ipAddress +
+                "&os=system" +
+                "&dl=2" +
+                "&cl=2" +
+                "&vs=" + visitStoreVersion +
+                "&tx=0" +
+                "&tv=0" +
+                "&mp=1";
+
+        verify(mockBeaconCache, times(1))
+                .getNextBeaconChunk(any(BeaconKey.class), eq(expectedPrefix), anyInt(), anyChar());
+    }
+
     @Test
     public void reportNetworkCarrier() {
         // given
@@ -3097,6 +3271,482 @@ public class BeaconTest {
         verifyZeroInteractions(mockBeaconCache);
     }
 
+    @Test
+    public void reportCrashNotifiesPriorityDataCallback() {
+        // given
+        PriorityDataCallback callback = mock(PriorityDataCallback.class);
+        Beacon target = createBeacon().build();
+        target.setPriorityDataCallback(callback);
+
+        // when
+        target.reportCrash("Error name", "The reason for this error", "the stack trace");
+
+        // then
+        verify(callback, times(1)).onPriorityDataAdded();
+    }
+
+    @Test
+    public void earlySendCallbackIsNotifiedOnceWhenThresholdIsExceeded() {
+        // given
+        EarlySendCallback callback = mock(EarlySendCallback.class);
+        Beacon target = createBeacon().build();
+        target.setEarlySendCallback(0.001, callback); // 30 bytes
+
+        // when
+        target.reportEvent(ACTION_ID, "some event name");
+        target.reportEvent(ACTION_ID, "some other event name");
+
+        // then
+        verify(callback, times(1)).onEarlySendThresholdExceeded();
+    }
+
+    @Test
+    public void earlySendCallbackIsNotNotifiedBelowThreshold() {
+        // given
+        EarlySendCallback callback = mock(EarlySendCallback.class);
+        Beacon target = createBeacon().build();
+        target.setEarlySendCallback(0.5, callback); // 15 kB
+
+        // when
+        target.reportEvent(ACTION_ID, "some event name");
+
+        // then
+        verify(callback, times(0)).onEarlySendThresholdExceeded();
+    }
+
+    @Test
+    public void earlySendCallbackIsNotifiedAgainAfterDataWasCleared() {
+        // given
+        EarlySendCallback callback = mock(EarlySendCallback.class);
+        Beacon target = createBeacon().build();
+        target.setEarlySendCallback(0.001, callback); // 30 bytes
+        target.reportEvent(ACTION_ID, "some event name");
+
+        // when
+        target.clearData();
+        target.reportEvent(ACTION_ID, "some event name");
+
+        // then
+        verify(callback, times(2)).onEarlySendThresholdExceeded();
+    }
+
+    @Test
+    public void identicalErrorsAreNotDeduplicatedByDefault() {
+        // given
+        Beacon target = createBeacon().build();
+
+        // when
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 42);
+
+        // then
+        verify(mockBeaconCache, times(2)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void identicalErrorsWithinDeduplicationWindowAreReportedOnce() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+
+        // when
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 42);
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void identicalErrorsWithThrowableWithinDeduplicationWindowAreReportedOnce() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+        Throwable throwable = new IllegalStateException("dependency failed");
+
+        // when
+        target.reportError(ACTION_ID, "SomeError", throwable);
+        target.reportError(ACTION_ID, "SomeError", throwable);
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void differentErrorsWithinDeduplicationWindowAreReported() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+
+        // when
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 43);
+        target.reportError(ACTION_ID, "OtherError", 42);
+        target.reportError(ACTION_ID + 1, "SomeError", 42);
+
+        // then
+        verify(mockBeaconCache, times(4)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void occurrencesAreReportedWhenIdenticalErrorIsReportedAfterDeduplicationWindow() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 42);
+        target.reportError(ACTION_ID, "SomeError", 42);
+
+        // when
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(1500L);
+        target.reportError(ACTION_ID, "SomeError", 42);
+
+        // then
+        String expectedEventData =
+                "et=12&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=SomeError.occurrences&" +   // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=2&" +                       // sequence number of reported value event
+                "t0=1500&" +                    // event time since session start
+                "vl=3"                          // number of occurrences
+        ;
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(1500L),                      // event time
+                eq(expectedEventData)
+        );
+        verify(mockBeaconCache, times(3)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void identicalEventsWithinDeduplicationWindowAreReportedOnce() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+
+        // when
+        target.reportEvent(ACTION_ID, "SomeEvent");
+        target.reportEvent(ACTION_ID, "SomeEvent");
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void flushDeduplicatedEventsReportsOccurrencesOfOpenWindows() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+        target.reportEvent(ACTION_ID, "SomeEvent");
+        target.reportEvent(ACTION_ID, "SomeEvent");
+
+        // when
+        target.flushDeduplicatedEvents();
+
+        // then
+        String expectedEventData =
+                "et=12&" +                      // event type
+                "it=" + THREAD_ID + "&" +       // thread ID
+                "na=SomeEvent.occurrences&" +   // name of reported value
+                "pa=" + ACTION_ID + "&" +       // parent action ID
+                "s0=2&" +                       // sequence number of reported value event
+                "t0=0&" +                       // event time since session start
+                "vl=2"                          // number of occurrences
+        ;
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(0L),                         // event time
+                eq(expectedEventData)
+        );
+    }
+
+    @Test
+    public void flushDeduplicatedEventsDoesNotReportWindowsWithoutDuplicates() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        Beacon target = createBeacon().build();
+        target.reportEvent(ACTION_ID, "SomeEvent");
+
+        // when
+        target.flushDeduplicatedEvents();
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(any(BeaconKey.class), anyLong(), anyString());
+    }
+
+    @Test
+    public void flushDeduplicatedEventsLogsOccurrencesDroppedByRateLimit() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        when(mockLogger.isWarnEnabled()).thenReturn(true);
+        Beacon target = createBeacon().build();
+        for (int i = 0; i <= EventDeduplicator.MAX_REPORTS_PER_WINDOW; i++) {
+            target.reportEvent(ACTION_ID, "SomeEvent" + i);
+        }
+
+        // when
+        target.flushDeduplicatedEvents();
+
+        // then
+        verify(mockBeaconCache, times(EventDeduplicator.MAX_REPORTS_PER_WINDOW))
+                .addEventData(any(BeaconKey.class), anyLong(), anyString());
+        verify(mockLogger, times(1))
+                .warning("Beacon: 1 errors and events were dropped, since the rate limit was exceeded");
+    }
+
+    @Test
+    public void sendReportsOccurrencesOfExpiredDeduplicationWindows() {
+        // given
+        when(mockOpenKitConfiguration.getEventDeduplicationWindowInMilliseconds()).thenReturn(1000L);
+        when(mockBeaconCache.hasDataForSending(any(BeaconKey.class))).thenReturn(false);
+        Beacon target = createBeacon().build();
+        target.reportEvent(ACTION_ID, "SomeEvent");
+        target.reportEvent(ACTION_ID, "SomeEvent");
+
+        // when
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(1500L);
+        target.send(mock(HTTPClientProvider.class), null);
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(1500L),                      // event time
+                eq("et=12&it=" + THREAD_ID + "&na=SomeEvent.occurrences&pa=" + ACTION_ID + "&s0=2&t0=1500&vl=2")
+        );
+    }
+
+    @Test
+    public void reportValueIsCapturedByCapturePipeline() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        Beacon target = createBeacon().with(capturePipeline).build();
+        when(capturePipeline.captureValue(target, ACTION_ID, "IntValue", 42L)).thenReturn(true);
+        when(capturePipeline.captureValue(target, ACTION_ID, "DoubleValue", 3.1415)).thenReturn(true);
+        when(capturePipeline.captureValue(target, ACTION_ID, "StringValue", "HelloWorld")).thenReturn(true);
+
+        // when
+        target.reportValue(ACTION_ID, "IntValue", 42);
+        target.reportValue(ACTION_ID, "DoubleValue", 3.1415);
+        target.reportValue(ACTION_ID, "StringValue", "HelloWorld");
+
+        // then
+        verify(capturePipeline, times(1)).captureValue(target, ACTION_ID, "IntValue", 42L);
+        verify(capturePipeline, times(1)).captureValue(target, ACTION_ID, "DoubleValue", 3.1415);
+        verify(capturePipeline, times(1)).captureValue(target, ACTION_ID, "StringValue", "HelloWorld");
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
+    @Test
+    public void reportEventIsCapturedByCapturePipeline() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        Beacon target = createBeacon().with(capturePipeline).build();
+        when(capturePipeline.captureEvent(target, ACTION_ID, "SomeEvent")).thenReturn(true);
+
+        // when
+        target.reportEvent(ACTION_ID, "SomeEvent");
+
+        // then
+        verify(capturePipeline, times(1)).captureEvent(target, ACTION_ID, "SomeEvent");
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
+    @Test
+    public void reportValueIsSerializedSynchronouslyIfCapturePipelineDoesNotCaptureEvents() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        Beacon target = createBeacon().with(capturePipeline).build();
+
+        // when
+        target.reportValue(ACTION_ID, "IntValue", 42);
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(0L),                         // event time
+                eq("et=12&it=" + THREAD_ID + "&na=IntValue&pa=" + ACTION_ID + "&s0=1&t0=0&vl=42")
+        );
+    }
+
+    @Test
+    public void valueIsNotCapturedIfReportValueDisallowed() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        Beacon target = createBeacon().with(capturePipeline).build();
+        when(mockPrivacyConfiguration.isValueReportingAllowed()).thenReturn(false);
+
+        // when
+        target.reportValue(ACTION_ID, "IntValue", 42);
+
+        // then
+        verifyZeroInteractions(capturePipeline);
+        verifyZeroInteractions(mockBeaconCache);
+    }
+
+    @Test
+    public void capturedEventsAreSerializedLikeReportedEvents() {
+        // given
+        Beacon target = createBeacon().build();
+        StringBuilder builder = new StringBuilder();
+
+        // when
+        target.appendCapturedEvent(builder, createCapturedEvent(target, EventType.VALUE_INT, "IntValue", 1));
+        target.appendCapturedEvent(builder, createCapturedEvent(target, EventType.VALUE_DOUBLE, "DoubleValue", 2));
+        target.appendCapturedEvent(builder, createCapturedEvent(target, EventType.VALUE_STRING, "StringValue", 3));
+        target.appendCapturedEvent(builder, createCapturedEvent(target, EventType.NAMED_EVENT, "SomeEvent", 4));
+
+        // then
+        assertThat(builder.toString(), is(equalTo(
+                "et=12&it=" + THREAD_ID + "&na=IntValue&pa=" + ACTION_ID + "&s0=1&t0=0&vl=42&" +
+                "et=13&it=" + THREAD_ID + "&na=DoubleValue&pa=" + ACTION_ID + "&s0=2&t0=0&vl=3.1415&" +
+                "et=11&it=" + THREAD_ID + "&na=StringValue&pa=" + ACTION_ID + "&s0=3&t0=0&vl=HelloWorld&" +
+                "et=10&it=" + THREAD_ID + "&na=SomeEvent&pa=" + ACTION_ID + "&s0=4&t0=0"
+        )));
+    }
+
+    @Test
+    public void addCapturedEventDataAddsEventsToCache() {
+        // given
+        Beacon target = createBeacon().build();
+
+        // when
+        target.addCapturedEventData(42L, new StringBuilder("et=10&na=SomeEvent"));
+
+        // then
+        verify(mockBeaconCache, times(1)).addEventData(
+                eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)), // beacon key
+                eq(42L),                        // event time
+                eq("et=10&na=SomeEvent")
+        );
+    }
+
+    @Test
+    public void flushCapturedEventsAwaitsSerializationOfCapturePipeline() {
+        // given
+        CapturePipeline capturePipeline = mock(CapturePipeline.class);
+        Beacon target = createBeacon().with(capturePipeline).build();
+
+        // when
+        target.flushCapturedEvents();
+
+        // then
+        verify(capturePipeline, times(1)).awaitSerialization(target);
+    }
+
+    @Test
+    public void capturedEventsArePendingUntilTheyAreSerialized() {
+        // given
+        Beacon target = createBeacon().build();
+        target.onEventCaptured();
+        target.onEventCaptured();
+
+        // when
+        boolean pendingBefore = target.hasPendingCapturedEvents();
+        target.onCapturedEventsSerialized(2);
+
+        // then
+        assertThat(pendingBefore, is(true));
+        assertThat(target.hasPendingCapturedEvents(), is(false));
+    }
+
+    @Test
+    public void sessionIsNotFinishedByDefault() {
+        // given
+        Beacon target = createBeacon().build();
+
+        // then
+        assertThat(target.isSessionFinished(), is(false));
+    }
+
+    @Test
+    public void sessionIsFinishedAfterBeingMarkedAsFinished() {
+        // given
+        Beacon target = createBeacon().build();
+
+        // when
+        target.markSessionAsFinished();
+
+        // then
+        assertThat(target.isSessionFinished(), is(true));
+    }
+
+    private static CapturedEvent createCapturedEvent(Beacon beacon, EventType eventType, String name, int sequenceNumber) {
+        CapturedEvent event = new CapturedEvent();
+        event.beacon = beacon;
+        event.eventType = eventType;
+        event.parentActionID = ACTION_ID;
+        event.name = name;
+        event.longValue = 42L;
+        event.doubleValue = 3.1415;
+        event.stringValue = "HelloWorld";
+        event.threadID = THREAD_ID;
+        event.sequenceNumber = sequenceNumber;
+        event.timestamp = 0L;
+
+        return event;
+    }
+
+    @Test
+    public void reportErrorNotifiesPriorityDataCallback() {
+        // given
+        PriorityDataCallback callback = mock(PriorityDataCallback.class);
+        Beacon target = createBeacon().build();
+        target.setPriorityDataCallback(callback);
+
+        // when
+        target.reportError(ACTION_ID, "error", 42);
+        target.reportError(ACTION_ID, "error", "cause", "description", "stack trace");
+
+        // then
+        verify(callback, times(2)).onPriorityDataAdded();
+    }
+
+    @Test
+    public void reportCrashDoesNotNotifyPriorityDataCallbackIfCrashReportingDisallowed() {
+        // given
+        PriorityDataCallback callback = mock(PriorityDataCallback.class);
+        Beacon target = createBeacon().build();
+        target.setPriorityDataCallback(callback);
+        when(mockPrivacyConfiguration.isCrashReportingAllowed()).thenReturn(false);
+
+        // when
+        target.reportCrash("Error name", "The reason for this error", "the stack trace");
+
+        // then
+        verifyZeroInteractions(callback);
+    }
+
+    @Test
+    public void reportCrashDoesNotNotifyPriorityDataCallbackIfCrashSendingDisallowedByServer() {
+        // given
+        PriorityDataCallback callback = mock(PriorityDataCallback.class);
+        when(mockServerConfiguration.isSendingCrashesAllowed()).thenReturn(false);
+        Beacon target = createBeacon().build();
+        target.setPriorityDataCallback(callback);
+
+        // when
+        target.reportCrash("Error name", "The reason for this error", "the stack trace");
+
+        // then
+        verifyZeroInteractions(callback);
+    }
+
+    @Test
+    public void reportEventDoesNotNotifyPriorityDataCallback() {
+        // given
+        PriorityDataCallback callback = mock(PriorityDataCallback.class);
+        Beacon target = createBeacon().build();
+        target.setPriorityDataCallback(callback);
+
+        // when
+        target.reportEvent(ACTION_ID, "event");
+
+        // then
+        verifyZeroInteractions(callback);
+    }
+
     @Test
     public void reportCrashDoesNotReportIfDisallowedByTrafficControl() {
         //given
@@ -4002,6 +4652,20 @@ public class BeaconTest {
         assertThat(target.isEmpty(), is(true));
     }
 
+    @Test
+    public void getPendingDataSizeInBytesForwardsCallToBeaconCache() {
+        // given
+        when(mockBeaconCache.getNumBytesInCache(any(BeaconKey.class))).thenReturn(1234L);
+        Beacon target = createBeacon().build();
+
+        // when
+        long obtained = target.getPendingDataSizeInBytes();
+
+        // then
+        assertThat(obtained, is(1234L));
+        verify(mockBeaconCache, times(1)).getNumBytesInCache(eq(new BeaconKey(SESSION_ID, SESSION_SEQ_NO)));
+    }
+
     @Test
     public void deviceIDIsRandomizedIfDeviceIdSendingDisallowed() {
         // given
@@ -4386,6 +5050,8 @@ public class BeaconTest {
         private RandomNumberGenerator random;
         private int sessionSequenceNumber;
         private SupplementaryBasicData supplementaryBasicData;
+        private Beacon.SharedBasicData sharedBasicData;
+        private CapturePipeline capturePipeline;
 
         private BeaconBuilder withIpAddress(String ipAddress) {
             this.ipAddress = ipAddress;
@@ -4402,6 +5068,16 @@ public class BeaconTest {
             return this;
         }
 
+        private BeaconBuilder with(Beacon.SharedBasicData sharedBasicData) {
+            this.sharedBasicData = sharedBasicData;
+            return this;
+        }
+
+        private BeaconBuilder with(CapturePipeline capturePipeline) {
+            this.capturePipeline = capturePipeline;
+            return this;
+        }
+
         private BeaconBuilder withSessionSequenceNumber(int sessionSequenceNumber) {
             this.sessionSequenceNumber = sessionSequenceNumber;
             return this;
@@ -4418,6 +5094,8 @@ public class BeaconTest {
             when(beaconInitializer.getTimingProvider()).thenReturn(timingProvider);
             when(beaconInitializer.getRandomNumberGenerator()).thenReturn(random);
             when(beaconInitializer.getSupplementaryBasicData()).thenReturn(supplementaryBasicData);
+            when(beaconInitializer.getSharedBasicData()).thenReturn(sharedBasicData);
+            when(beaconInitializer.getCapturePipeline()).thenReturn(capturePipeline);
 
             return new Beacon(beaconInitializer, configuration);
         }